@@ -25,27 +25,56 @@ package com.selfxdsd.selfpm;
 import com.selfxdsd.api.Invitation;
 import com.selfxdsd.api.Invitations;
 import com.selfxdsd.api.ProjectManager;
+import com.selfxdsd.api.Provider;
 import com.selfxdsd.api.Self;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
+import javax.json.Json;
+import javax.json.JsonException;
+import java.io.StringReader;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
 /**
- * Each PM will periodically check their repo Invitations and accept any
- * they might have received.
+ * Each PM accepts the repo Invitations they received. Acceptance is
+ * triggered for one PM by the webhooks which announce a new repo (see
+ * {@link #trigger(ProjectManager)}); after a ping (the webhook was just
+ * created, the Invitation may follow shortly) the PM checks once more a
+ * bit later (see {@link #recheck(ProjectManager)}). All the PMs are also
+ * checked periodically, at a long interval, as a safety net.
  * @author Mihai Andronache (amihaiemil@gmail.com)
  * @version $Id$
  * @since 0.0.4
  */
 @Component
+@Lazy(false)
 public final class AcceptInvitations {
 
     /**
-     * The PMs will verify their invitations every 10 minutes.
+     * Interval of the safety-net check of all PMs.
      */
-    private static final int EVERY_10_MINUTES = 600000;
+    private static final String INTERVAL =
+        "${self.pm.invitations.interval:PT6H}";
+
+    /**
+     * Github resource with the PM's repository invitations.
+     */
+    private static final String INVITATIONS = "/user/repository_invitations";
 
     /**
      * Logger.
@@ -55,28 +84,202 @@ public final class AcceptInvitations {
     );
 
     /**
-     * Self's core.
+     * Snapshot of the PMs.
      */
-    private final Self selfCore;
+    private final ProjectsSnapshot snapshot;
+
+    /**
+     * Guards of the providers.
+     */
+    private final ProviderGuards guards;
+
+    /**
+     * Conditional reads of the PMs' invitations.
+     */
+    private final ConditionalReads reads;
+
+    /**
+     * Where the triggered acceptances run.
+     */
+    private final Executor executor;
+
+    /**
+     * PMs with a triggered acceptance which hasn't started yet.
+     */
+    private final Set<Integer> pending;
+
+    /**
+     * After how long a ping is checked again; zero means never.
+     */
+    private final Duration recheck;
+
+    /**
+     * Ctor. Triggered acceptances run in the caller's thread and pings are
+     * not checked again.
+     * @param selfCode Self Core.
+     */
+    public AcceptInvitations(final Self selfCode) {
+        this(
+            ProjectsSnapshot.uncached(selfCode),
+            new ProviderGuards(),
+            ConditionalReads.none(),
+            Runnable::run,
+            Duration.ZERO
+        );
+    }
 
     /**
      * Ctor.
-     * @param selfCode Self Core, injected by Spring automatically.
+     * @param snapshot Snapshot of the PMs, injected by Spring automatically.
+     * @param guards Guards of the providers.
+     * @param reads Conditional reads of the PMs' invitations.
+     * @param recheck After how long a ping is checked again.
      */
     @Autowired
-    public AcceptInvitations(final Self selfCode) {
-        this.selfCore = selfCode;
+    public AcceptInvitations(
+        final ProjectsSnapshot snapshot,
+        final ProviderGuards guards,
+        final ConditionalReads reads,
+        @Value("${self.pm.invitations.recheck:PT1M}") final Duration recheck
+    ) {
+        this(
+            snapshot,
+            guards,
+            reads,
+            Executors.newSingleThreadExecutor(
+                new CustomizableThreadFactory("accept-invitations-")
+            ),
+            recheck
+        );
     }
 
     /**
-     * Every 10 minutes the PMs should verify their
-     * Invitations and accept them.
+     * Ctor.
+     * @param snapshot Snapshot of the PMs.
+     * @param guards Guards of the providers.
+     * @param reads Conditional reads of the PMs' invitations.
+     * @param executor Where the triggered acceptances run.
+     * @param recheck After how long a ping is checked again; zero means
+     *  never.
+     */
+    AcceptInvitations(
+        final ProjectsSnapshot snapshot,
+        final ProviderGuards guards,
+        final ConditionalReads reads,
+        final Executor executor,
+        final Duration recheck
+    ) {
+        this.snapshot = snapshot;
+        this.guards = guards;
+        this.reads = reads;
+        this.executor = executor;
+        this.recheck = recheck;
+        this.pending = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Safety net: every few hours (self.pm.invitations.interval) all the
+     * PMs should verify their Invitations and accept them, in case a
+     * webhook was missed.
      */
-    @Scheduled(fixedRate = EVERY_10_MINUTES)
+    @Scheduled(fixedRateString = INTERVAL)
     public void acceptInvitations() {
         LOG.debug("Checking invitations of PMs...");
-        for(final ProjectManager manager : this.selfCore.projectManagers()) {
-            final Invitations invitations = manager.provider().invitations();
+        for(final ProjectManager manager : this.snapshot.managers()) {
+            this.acceptFor(manager);
+        }
+        LOG.debug("Done.");
+    }
+
+    /**
+     * Trigger the acceptance of a PM's Invitations, without waiting for it.
+     * Triggers which arrive while the PM's acceptance is still waiting to
+     * start are coalesced.
+     * @param manager PM.
+     */
+    public void trigger(final ProjectManager manager) {
+        if(manager != null && this.pending.add(manager.id())) {
+            try {
+                this.executor.execute(
+                    () -> {
+                        this.pending.remove(manager.id());
+                        this.acceptFor(manager);
+                    }
+                );
+            } catch (final RejectedExecutionException ex) {
+                this.pending.remove(manager.id());
+                LOG.warn(
+                    "Could not trigger the invitations of "
+                    + manager.username() + ": " + ex.getMessage()
+                );
+            }
+        }
+    }
+
+    /**
+     * Trigger the acceptance of a PM's Invitations now and once more a bit
+     * later, without waiting for them. Used after a ping: the webhook is
+     * created when the repo is activated, and the repo's owner usually
+     * invites the PM only afterwards.
+     * @param manager PM.
+     */
+    public void recheck(final ProjectManager manager) {
+        this.trigger(manager);
+        if(manager != null && !this.recheck.isZero()) {
+            CompletableFuture.delayedExecutor(
+                this.recheck.toMillis(), TimeUnit.MILLISECONDS
+            ).execute(() -> this.trigger(manager));
+        }
+    }
+
+    /**
+     * The PM verifies their Invitations and accepts them. It goes through
+     * the guard of its provider, so an unavailable provider doesn't stop
+     * the others.
+     * @param manager PM.
+     */
+    public void acceptFor(final ProjectManager manager) {
+        final Provider provider = manager.provider();
+        try {
+            this.guards.run(
+                provider.name(),
+                ProviderGuards.Caller.SWEEPS,
+                () -> this.accept(manager, provider)
+            );
+        } catch (final ProviderUnavailableException ex) {
+            LOG.warn(
+                "Could not check the invitations of "
+                + manager.username() + ": " + ex.getMessage()
+            );
+        }
+    }
+
+    /**
+     * Stop the triggered acceptances, when the application shuts down.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if(this.executor instanceof ExecutorService) {
+            ((ExecutorService) this.executor).shutdown();
+        }
+    }
+
+    /**
+     * Accept the Invitations of a PM. The invitations are first read
+     * conditionally: if there are none, or they were not modified since
+     * an empty read, the provider is not asked for them at all.
+     * @param manager PM.
+     * @param provider PM's provider.
+     */
+    private void accept(
+        final ProjectManager manager,
+        final Provider provider
+    ) {
+        final String known = this.reads.read(manager, INVITATIONS);
+        if(known != null && AcceptInvitations.none(known)) {
+            LOG.debug("No Invitations for " + manager.username() + ".");
+        } else {
+            final Invitations invitations = provider.invitations();
             for(final Invitation invitation : invitations) {
                 LOG.debug(
                     manager.username()
@@ -87,7 +290,22 @@ public final class AcceptInvitations {
                 LOG.debug("Invitation accepted.");
             }
         }
-        LOG.debug("Done.");
+    }
+
+    /**
+     * Is the read list of invitations empty?
+     * @param body Body of the read.
+     * @return True if it is an empty JSON array.
+     */
+    private static boolean none(final String body) {
+        boolean none;
+        try {
+            none = Json.createReader(new StringReader(body))
+                .readArray().isEmpty();
+        } catch (final JsonException ex) {
+            none = false;
+        }
+        return none;
     }
 
 }
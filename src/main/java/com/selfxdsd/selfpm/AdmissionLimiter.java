@@ -0,0 +1,280 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Adaptive admission control at the webhook edge. It limits the number of
+ * webhook events in flight, from their admission until their lane has
+ * handled them (or, for events which don't reach a lane, until their request
+ * ends), adapting the limit to the observed latency (AIMD): while events are
+ * handled under the target latency and the limit is actually used, it grows
+ * by about one per window of events; when an event is slower than the
+ * target, it shrinks by 10%, at most once per target latency.<br/>
+ * Bulk events may only use a share of the limit, so they are shed first;
+ * shed events are answered with 503 SERVICE UNAVAILABLE.<br/>
+ * Metrics: self.pm.webhooks.admission.limit and .inflight (gauges),
+ * self.pm.webhooks.shed{lane} (counter).
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ * @checkstyle ParameterNumber (200 lines)
+ */
+@Component
+public final class AdmissionLimiter {
+
+    /**
+     * Multiplicative decrease of the limit.
+     */
+    private static final double BACKOFF = 0.9;
+
+    /**
+     * Minimum limit.
+     */
+    private final int min;
+
+    /**
+     * Maximum limit.
+     */
+    private final int max;
+
+    /**
+     * Target latency (nanos).
+     */
+    private final long target;
+
+    /**
+     * Share of the limit which bulk events may use.
+     */
+    private final double share;
+
+    /**
+     * Clock (nanos).
+     */
+    private final LongSupplier clock;
+
+    /**
+     * Shed events, per lane.
+     */
+    private final Map<WebhookLanes.Lane, Counter> shed;
+
+    /**
+     * Lock guarding the limit and the requests in flight.
+     */
+    private final Object lock;
+
+    /**
+     * Current limit.
+     */
+    private double limit;
+
+    /**
+     * Requests in flight.
+     */
+    private int inflight;
+
+    /**
+     * When the limit was last decreased (nanos).
+     */
+    private long decreased;
+
+    /**
+     * Closed, when the application shuts down: nothing is admitted anymore.
+     */
+    private boolean closed;
+
+    /**
+     * Ctor with the default settings (the same as in production), for tests.
+     */
+    public AdmissionLimiter() {
+        this(
+            20, 4, 200, Duration.ofSeconds(5), 0.7,
+            new SimpleMeterRegistry()
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param initial Initial limit.
+     * @param min Minimum limit.
+     * @param max Maximum limit.
+     * @param target Target latency.
+     * @param share Share of the limit which bulk events may use.
+     * @param registry Meter registry.
+     */
+    @Autowired
+    public AdmissionLimiter(
+        @Value("${self.pm.webhooks.admission.initial:20}") final int initial,
+        @Value("${self.pm.webhooks.admission.min:4}") final int min,
+        @Value("${self.pm.webhooks.admission.max:200}") final int max,
+        @Value("${self.pm.webhooks.admission.target:PT5S}")
+        final Duration target,
+        @Value("${self.pm.webhooks.admission.bulk-share:0.7}")
+        final double share,
+        final MeterRegistry registry
+    ) {
+        this(initial, min, max, target, share, System::nanoTime, registry);
+    }
+
+    /**
+     * Ctor.
+     * @param initial Initial limit.
+     * @param min Minimum limit.
+     * @param max Maximum limit.
+     * @param target Target latency.
+     * @param share Share of the limit which bulk events may use.
+     * @param clock Clock (nanos).
+     * @param registry Meter registry.
+     */
+    AdmissionLimiter(
+        final int initial,
+        final int min,
+        final int max,
+        final Duration target,
+        final double share,
+        final LongSupplier clock,
+        final MeterRegistry registry
+    ) {
+        this.lock = new Object();
+        this.limit = initial;
+        this.min = min;
+        this.max = max;
+        this.target = target.toNanos();
+        this.share = share;
+        this.clock = clock;
+        this.decreased = clock.getAsLong() - this.target;
+        this.shed = new EnumMap<>(WebhookLanes.Lane.class);
+        for(final WebhookLanes.Lane lane : WebhookLanes.Lane.values()) {
+            this.shed.put(
+                lane,
+                Counter.builder("self.pm.webhooks.shed")
+                    .description("Webhook events shed by admission control")
+                    .tag("lane", lane.tag())
+                    .register(registry)
+            );
+        }
+        registry.gauge(
+            "self.pm.webhooks.admission.limit", this, AdmissionLimiter::limit
+        );
+        registry.gauge(
+            "self.pm.webhooks.admission.inflight",
+            this,
+            AdmissionLimiter::inflight
+        );
+    }
+
+    /**
+     * Admit a request, if the limit allows it. Every admitted request must
+     * be released.
+     * @param lane Lane of the event.
+     * @return True if admitted, false if shed.
+     */
+    public boolean acquire(final WebhookLanes.Lane lane) {
+        final boolean admitted;
+        synchronized (this.lock) {
+            double allowed = this.limit;
+            if(lane == WebhookLanes.Lane.BULK) {
+                allowed = Math.max(1, this.limit * this.share);
+            }
+            admitted = !this.closed && this.inflight < allowed;
+            if(admitted) {
+                this.inflight = this.inflight + 1;
+            }
+        }
+        if(!admitted) {
+            this.shed.get(lane).increment();
+        }
+        return admitted;
+    }
+
+    /**
+     * Stop admitting requests, e.g. when the application shuts down;
+     * the admitted ones still run and must be released.
+     */
+    public void close() {
+        synchronized (this.lock) {
+            this.closed = true;
+        }
+    }
+
+    /**
+     * Release an admitted request and adapt the limit.
+     * @param latency Latency of the request (nanos).
+     */
+    public void release(final long latency) {
+        synchronized (this.lock) {
+            this.inflight = this.inflight - 1;
+            if(latency > this.target) {
+                final long now = this.clock.getAsLong();
+                if(now - this.decreased >= this.target) {
+                    this.limit = Math.max(this.min, this.limit * BACKOFF);
+                    this.decreased = now;
+                }
+            } else if((this.inflight + 1) * 2 >= this.limit) {
+                this.limit = Math.min(
+                    this.max, this.limit + 1.0 / this.limit
+                );
+            }
+        }
+    }
+
+    /**
+     * Current limit.
+     * @return Integer.
+     */
+    public int limit() {
+        synchronized (this.lock) {
+            return (int) this.limit;
+        }
+    }
+
+    /**
+     * Requests in flight.
+     * @return Integer.
+     */
+    public int inflight() {
+        synchronized (this.lock) {
+            return this.inflight;
+        }
+    }
+
+    /**
+     * Number of shed events of a lane.
+     * @param lane Lane.
+     * @return Count.
+     */
+    public double shed(final WebhookLanes.Lane lane) {
+        return this.shed.get(lane).count();
+    }
+}
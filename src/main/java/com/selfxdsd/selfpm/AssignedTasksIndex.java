@@ -0,0 +1,287 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import com.selfxdsd.api.Project;
+import com.selfxdsd.api.Task;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Deadline-ordered index of the assigned tasks. It keeps, for each assigned
+ * Task, its next checkpoints (the middle of the allowed period, when the
+ * assignee should be reminded, and the deadline itself), so the PM only
+ * has to review the Projects which actually have something due.<br/>
+ * Re-indexing a Project is incremental: the old checkpoints are not removed
+ * from the queue, they are just discarded when polled, since they belong
+ * to an older generation of that Project.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+@Component
+public final class AssignedTasksIndex {
+
+    /**
+     * Checkpoints, ordered by the moment when they are due.
+     */
+    private final PriorityQueue<Checkpoint> checkpoints;
+
+    /**
+     * Current generation of each indexed Project.
+     */
+    private final Map<String, Long> generations;
+
+    /**
+     * Projects which changed since they were last indexed.
+     */
+    private final Set<String> stale;
+
+    /**
+     * Ctor.
+     */
+    public AssignedTasksIndex() {
+        this.checkpoints = new PriorityQueue<>(
+            Comparator.comparing(Checkpoint::due)
+        );
+        this.generations = new HashMap<>();
+        this.stale = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Re-index the assigned tasks of the given Project. Only checkpoints
+     * after "now" are kept, the ones in the past have just been reviewed.
+     * @param project Project.
+     * @param now Moment of the indexing.
+     */
+    public synchronized void index(
+        final Project project,
+        final LocalDateTime now
+    ) {
+        final String key = AssignedTasksIndex.key(project);
+        final long generation = this.generations.merge(key, 1L, Long::sum);
+        for(final Task task : project.tasks()) {
+            final LocalDateTime assigned = task.assignmentDate();
+            final LocalDateTime deadline = task.deadline();
+            if(task.assignee() != null && deadline != null) {
+                if(assigned != null) {
+                    this.add(
+                        project, generation, now,
+                        assigned.plus(
+                            Duration.between(assigned, deadline).dividedBy(2)
+                        )
+                    );
+                }
+                this.add(project, generation, now, deadline);
+            }
+        }
+        this.stale.remove(key);
+    }
+
+    /**
+     * Mark a Project as changed (e.g. a Task has just been assigned), so
+     * it will be re-indexed before the next review.
+     * @param project Project.
+     */
+    public void markStale(final Project project) {
+        this.stale.add(AssignedTasksIndex.key(project));
+    }
+
+    /**
+     * Projects which have to be re-indexed.
+     * @return Set of Project keys.
+     */
+    public Set<String> stale() {
+        return Set.copyOf(this.stale);
+    }
+
+    /**
+     * Poll the Projects which have at least one checkpoint due.
+     * @param now Moment of the review.
+     * @return Set of Project keys.
+     */
+    public synchronized Set<String> due(final LocalDateTime now) {
+        final Set<String> due = new HashSet<>();
+        while(!this.checkpoints.isEmpty()
+            && !this.checkpoints.peek().due().isAfter(now)) {
+            final Checkpoint checkpoint = this.checkpoints.poll();
+            final String key = AssignedTasksIndex.key(
+                checkpoint.repoFullName(), checkpoint.provider()
+            );
+            final long current = this.generations.getOrDefault(key, 0L);
+            if(current == checkpoint.generation()) {
+                due.add(key);
+            }
+        }
+        return due;
+    }
+
+    /**
+     * Drop everything, before a full reconciliation.
+     */
+    public synchronized void clear() {
+        this.checkpoints.clear();
+        this.generations.clear();
+        this.stale.clear();
+    }
+
+    /**
+     * Number of checkpoints currently in the queue.
+     * @return Integer.
+     */
+    public synchronized int size() {
+        return this.checkpoints.size();
+    }
+
+    /**
+     * Key of a Project in the index.
+     * @param project Project.
+     * @return String key.
+     */
+    static String key(final Project project) {
+        return AssignedTasksIndex.key(
+            project.repoFullName(), project.provider()
+        );
+    }
+
+    /**
+     * Key of a Project in the index.
+     * @param repoFullName Repo full name.
+     * @param provider Provider.
+     * @return String key.
+     */
+    static String key(final String repoFullName, final String provider) {
+        return provider + ":" + repoFullName;
+    }
+
+    /**
+     * Add a checkpoint, if it is in the future.
+     * @param project Project.
+     * @param generation Generation of the Project.
+     * @param now Moment of the indexing.
+     * @param due When the checkpoint is due.
+     */
+    private void add(
+        final Project project,
+        final long generation,
+        final LocalDateTime now,
+        final LocalDateTime due
+    ) {
+        if(due.isAfter(now)) {
+            this.checkpoints.add(
+                new Checkpoint(
+                    project.repoFullName(),
+                    project.provider(),
+                    generation,
+                    due
+                )
+            );
+        }
+    }
+
+    /**
+     * A moment when an assigned Task has to be reviewed.
+     */
+    private static final class Checkpoint {
+
+        /**
+         * Repo full name of the Task's Project.
+         */
+        private final String repo;
+
+        /**
+         * Provider of the Task's Project.
+         */
+        private final String prov;
+
+        /**
+         * Generation of the Project when this checkpoint was indexed.
+         */
+        private final long gen;
+
+        /**
+         * When it is due.
+         */
+        private final LocalDateTime when;
+
+        /**
+         * Ctor.
+         * @param repo Repo full name.
+         * @param prov Provider.
+         * @param gen Generation.
+         * @param when When it is due.
+         */
+        Checkpoint(
+            final String repo,
+            final String prov,
+            final long gen,
+            final LocalDateTime when
+        ) {
+            this.repo = repo;
+            this.prov = prov;
+            this.gen = gen;
+            this.when = when;
+        }
+
+        /**
+         * Repo full name.
+         * @return String.
+         */
+        String repoFullName() {
+            return this.repo;
+        }
+
+        /**
+         * Provider.
+         * @return String.
+         */
+        String provider() {
+            return this.prov;
+        }
+
+        /**
+         * Generation.
+         * @return Long.
+         */
+        long generation() {
+            return this.gen;
+        }
+
+        /**
+         * When it is due.
+         * @return LocalDateTime.
+         */
+        LocalDateTime due() {
+            return this.when;
+        }
+    }
+}
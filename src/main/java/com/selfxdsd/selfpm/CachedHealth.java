@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * A health check which is performed at most once every given period; in
+ * between, the last result is returned. This way, frequent probes (e.g. from
+ * the load balancer) stay cheap and don't add load on the checked services.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class CachedHealth implements HealthIndicator {
+
+    /**
+     * Actual check.
+     */
+    private final HealthIndicator origin;
+
+    /**
+     * For how long a result is kept, in nanoseconds.
+     */
+    private final long ttl;
+
+    /**
+     * Ticker (nanoseconds).
+     */
+    private final LongSupplier ticker;
+
+    /**
+     * Last result.
+     */
+    private volatile Health last;
+
+    /**
+     * When the last result expires.
+     */
+    private volatile long expires;
+
+    /**
+     * Ctor.
+     * @param origin Actual check.
+     * @param ttl For how long a result is kept.
+     */
+    public CachedHealth(final HealthIndicator origin, final Duration ttl) {
+        this(origin, ttl, System::nanoTime);
+    }
+
+    /**
+     * Ctor.
+     * @param origin Actual check.
+     * @param ttl For how long a result is kept.
+     * @param ticker Ticker (nanoseconds).
+     */
+    CachedHealth(
+        final HealthIndicator origin,
+        final Duration ttl,
+        final LongSupplier ticker
+    ) {
+        this.origin = origin;
+        this.ttl = ttl.toNanos();
+        this.ticker = ticker;
+    }
+
+    @Override
+    public Health health() {
+        final long now = this.ticker.getAsLong();
+        Health health = this.last;
+        if(health == null || now - this.expires >= 0) {
+            health = this.origin.health();
+            this.last = health;
+            this.expires = now + this.ttl;
+        }
+        return health;
+    }
+}
@@ -0,0 +1,216 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker. After a number of consecutive failures it opens and
+ * rejects all calls for a while; then it lets a single probe call through
+ * (half-open): if the probe succeeds, it closes again, otherwise it opens
+ * for another while.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class CircuitBreaker {
+
+    /**
+     * Consecutive failures which open the breaker.
+     */
+    private final int threshold;
+
+    /**
+     * For how long the breaker stays open, in nanoseconds.
+     */
+    private final long openFor;
+
+    /**
+     * Ticker (nanoseconds).
+     */
+    private final LongSupplier ticker;
+
+    /**
+     * Lock guarding the state.
+     */
+    private final Object lock;
+
+    /**
+     * Current state.
+     */
+    private State state;
+
+    /**
+     * Consecutive failures so far.
+     */
+    private int failures;
+
+    /**
+     * When the breaker opened.
+     */
+    private long openedAt;
+
+    /**
+     * Is the half-open probe in flight?
+     */
+    private boolean probing;
+
+    /**
+     * Ctor.
+     * @param threshold Consecutive failures which open the breaker.
+     * @param openFor For how long the breaker stays open.
+     */
+    public CircuitBreaker(final int threshold, final Duration openFor) {
+        this(threshold, openFor, System::nanoTime);
+    }
+
+    /**
+     * Ctor.
+     * @param threshold Consecutive failures which open the breaker.
+     * @param openFor For how long the breaker stays open.
+     * @param ticker Ticker (nanoseconds).
+     */
+    CircuitBreaker(
+        final int threshold,
+        final Duration openFor,
+        final LongSupplier ticker
+    ) {
+        this.threshold = threshold;
+        this.openFor = openFor.toNanos();
+        this.ticker = ticker;
+        this.lock = new Object();
+        this.state = State.CLOSED;
+    }
+
+    /**
+     * Can a call go through now? If the breaker is open and its time is
+     * up, this call becomes the half-open probe.
+     * @return True or false.
+     */
+    public boolean acquire() {
+        synchronized (this.lock) {
+            boolean permitted = true;
+            if(this.state == State.OPEN) {
+                if(this.ticker.getAsLong() - this.openedAt >= this.openFor) {
+                    this.state = State.HALF_OPEN;
+                    this.probing = true;
+                } else {
+                    permitted = false;
+                }
+            } else if(this.state == State.HALF_OPEN) {
+                permitted = !this.probing;
+                this.probing = true;
+            }
+            return permitted;
+        }
+    }
+
+    /**
+     * Would a call go through now? Unlike {@link #acquire()}, this does
+     * not start the half-open probe.
+     * @return True or false.
+     */
+    public boolean available() {
+        synchronized (this.lock) {
+            final boolean available;
+            if(this.state == State.OPEN) {
+                available = this.ticker.getAsLong() - this.openedAt
+                    >= this.openFor;
+            } else if(this.state == State.HALF_OPEN) {
+                available = !this.probing;
+            } else {
+                available = true;
+            }
+            return available;
+        }
+    }
+
+    /**
+     * The acquired call did not happen after all (e.g. it was rejected
+     * for another reason), so it does not count either way.
+     */
+    public void cancel() {
+        synchronized (this.lock) {
+            this.probing = false;
+        }
+    }
+
+    /**
+     * The call succeeded.
+     */
+    public void success() {
+        synchronized (this.lock) {
+            this.failures = 0;
+            this.probing = false;
+            this.state = State.CLOSED;
+        }
+    }
+
+    /**
+     * The call failed.
+     */
+    public void failure() {
+        synchronized (this.lock) {
+            this.failures = this.failures + 1;
+            this.probing = false;
+            if(this.state == State.HALF_OPEN
+                || this.failures >= this.threshold) {
+                this.state = State.OPEN;
+                this.openedAt = this.ticker.getAsLong();
+            }
+        }
+    }
+
+    /**
+     * Current state. An open breaker whose time is up is still reported
+     * as open, until a call probes it.
+     * @return State.
+     */
+    public State state() {
+        synchronized (this.lock) {
+            return this.state;
+        }
+    }
+
+    /**
+     * States of the breaker.
+     */
+    public enum State {
+
+        /**
+         * Calls go through.
+         */
+        CLOSED,
+
+        /**
+         * A single probe call goes through.
+         */
+        HALF_OPEN,
+
+        /**
+         * Calls are rejected.
+         */
+        OPEN
+    }
+}
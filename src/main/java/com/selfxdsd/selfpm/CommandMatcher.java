@@ -0,0 +1,245 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.json.JsonObject;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.regex.Pattern;
+
+/**
+ * Matcher of the PM's commands, pre-compiled at startup from the
+ * commands_{locale}.properties files: every normalised command word
+ * (e.g. "hi", "refuse") is mapped to its command type (e.g. "hello",
+ * "resign"), which is the key's prefix.<br/>
+ * It is used to reject, before any resolving, the comments which are not
+ * addressed to the PM or which are written by the PM itself, and to tell
+ * the command of the others. The command words of all the configured
+ * locales are recognised, since the Projects have no locale of their own.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+@Component
+public final class CommandMatcher {
+
+    /**
+     * Separator of tokens. Mentions keep their "@", usernames may contain
+     * dashes and underscores.
+     */
+    private static final Pattern SEPARATOR = Pattern.compile(
+        "[^\\p{L}\\p{N}@_\\-]+"
+    );
+
+    /**
+     * Command type of each command word, in any locale.
+     */
+    private final Map<String, String> all;
+
+    /**
+     * Ctor with the english commands.
+     */
+    public CommandMatcher() {
+        this("en");
+    }
+
+    /**
+     * Ctor.
+     * @param locales Comma-separated locales (e.g. "en,ro").
+     */
+    @Autowired
+    public CommandMatcher(
+        @Value("${self.pm.locales:en}") final String locales
+    ) {
+        this.all = new HashMap<>();
+        for(final String locale : locales.split(",")) {
+            CommandMatcher.load(locale.trim()).forEach(this.all::putIfAbsent);
+        }
+    }
+
+    /**
+     * Command type contained in the given text, in any locale.
+     * @param text Text (e.g. comment body).
+     * @return Command type (e.g. "resign") or empty string if there is
+     *  no command in the text.
+     */
+    public String command(final String text) {
+        return CommandMatcher.command(this.all, text);
+    }
+
+    /**
+     * Command type of the comment from the given payload. Works with
+     * Github's issue_comment and GitLab's Note Hook payloads.
+     * @param payload Payload of the comment event.
+     * @return Command type (e.g. "resign") or empty string if there is
+     *  no comment or no command in it.
+     */
+    public String command(final JsonObject payload) {
+        final JsonObject github = payload.getJsonObject("comment");
+        final JsonObject gitlab = payload.getJsonObject("object_attributes");
+        String body = null;
+        if(github != null) {
+            body = github.getString("body", null);
+        } else if(gitlab != null) {
+            body = gitlab.getString("note", null);
+        }
+        String command = "";
+        if(body != null) {
+            command = this.command(body);
+        }
+        return command;
+    }
+
+    /**
+     * Is the given comment relevant for the PM? It has to be addressed to
+     * the PM (mention it) and must not be written by the PM itself.
+     * @param body Comment body.
+     * @param author Author of the comment.
+     * @param manager Username of the PM.
+     * @return True or false.
+     */
+    public boolean relevant(
+        final String body,
+        final String author,
+        final String manager
+    ) {
+        final String normalised = manager.toLowerCase(Locale.ENGLISH);
+        return !normalised.equalsIgnoreCase(author)
+            && CommandMatcher.tokens(body).contains("@" + normalised);
+    }
+
+    /**
+     * Is the comment from the given payload relevant for the PM? Works
+     * with Github's issue_comment and GitLab's Note Hook payloads. If the
+     * payload contains no comment body, it is considered relevant.
+     * @param payload Payload of the comment event.
+     * @param manager Username of the PM.
+     * @return True or false.
+     */
+    public boolean relevant(final JsonObject payload, final String manager) {
+        final JsonObject github = payload.getJsonObject("comment");
+        final JsonObject gitlab = payload.getJsonObject("object_attributes");
+        String body = null;
+        JsonObject user = null;
+        String author = null;
+        if(github != null) {
+            body = github.getString("body", null);
+            user = github.getJsonObject("user");
+            if(user != null) {
+                author = user.getString("login", null);
+            }
+        } else if(gitlab != null) {
+            body = gitlab.getString("note", null);
+            user = payload.getJsonObject("user");
+            if(user != null) {
+                author = user.getString("username", null);
+            }
+        }
+        return body == null || this.relevant(body, author, manager);
+    }
+
+    /**
+     * Normalised tokens of a text.
+     * @param text Text.
+     * @return List of lowercase tokens.
+     */
+    static List<String> tokens(final String text) {
+        final List<String> tokens = new ArrayList<>();
+        for(final String token : SEPARATOR.split(text)) {
+            if(!token.isEmpty()) {
+                tokens.add(token.toLowerCase(Locale.ENGLISH));
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * First command type found in the text.
+     * @param words Command words.
+     * @param text Text.
+     * @return Command type or empty string.
+     */
+    private static String command(
+        final Map<String, String> words,
+        final String text
+    ) {
+        String command = "";
+        for(final String token : CommandMatcher.tokens(text)) {
+            command = words.getOrDefault(token, "");
+            if(!command.isEmpty()) {
+                break;
+            }
+        }
+        return command;
+    }
+
+    /**
+     * Load the command words of the given locale.
+     * @param locale Locale.
+     * @return Map of command word to command type.
+     */
+    private static Map<String, String> load(final String locale) {
+        final String file = "commands_" + locale + ".properties";
+        final Properties properties = new Properties();
+        try (
+            InputStream input = CommandMatcher.class.getClassLoader()
+                .getResourceAsStream(file)
+        ) {
+            if(input == null) {
+                throw new IllegalStateException(
+                    "Commands file " + file + " not found."
+                );
+            }
+            try (Reader reader = new InputStreamReader(
+                input, StandardCharsets.UTF_8
+            )) {
+                properties.load(reader);
+            }
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        final Map<String, String> words = new HashMap<>();
+        for(final String key : properties.stringPropertyNames()) {
+            words.put(
+                properties.getProperty(key).trim()
+                    .toLowerCase(Locale.ENGLISH),
+                key.substring(0, key.indexOf('.'))
+            );
+        }
+        return words;
+    }
+}
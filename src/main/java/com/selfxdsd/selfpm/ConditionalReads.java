@@ -0,0 +1,289 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import com.selfxdsd.api.ProjectManager;
+import com.selfxdsd.api.Provider;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Conditional reads of the resources which self-pm polls in its jobs
+ * (e.g. a PM's repository invitations). The ETag and Last-Modified of each
+ * PM and resource are remembered and sent back with the next request; a
+ * 304 Not Modified, which doesn't count against Github's rate limit, is
+ * answered with the cached body.<br/>
+ * Only the Github API is read conditionally; for other providers
+ * {@link #read(ProjectManager, String)} returns null and the caller falls
+ * back to the provider's own (unconditional) read.<br/>
+ * Metric: self.pm.providers.conditional{provider, result}, where the
+ * result is not_modified, modified or error.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+@Component
+public final class ConditionalReads {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(
+        ConditionalReads.class
+    );
+
+    /**
+     * Not Modified.
+     */
+    private static final int NOT_MODIFIED = 304;
+
+    /**
+     * OK.
+     */
+    private static final int OK = 200;
+
+    /**
+     * Base URI of Github's API, null if nothing is read conditionally.
+     */
+    private final URI github;
+
+    /**
+     * Timeout of each read.
+     */
+    private final Duration timeout;
+
+    /**
+     * Last validators and body, per PM and resource.
+     */
+    private final Map<String, Cached> cache;
+
+    /**
+     * Meter registry.
+     */
+    private final MeterRegistry registry;
+
+    /**
+     * HTTP client.
+     */
+    private final HttpClient client;
+
+    /**
+     * Ctor.
+     * @param github Base URI of Github's API.
+     * @param timeout Timeout of each read.
+     * @param registry Meter registry.
+     */
+    @Autowired
+    public ConditionalReads(
+        @Value("${self.pm.github.api:https://api.github.com}")
+        final URI github,
+        @Value("${self.pm.github.timeout:PT10S}") final Duration timeout,
+        final MeterRegistry registry
+    ) {
+        this.github = github;
+        this.timeout = timeout;
+        this.registry = registry;
+        this.cache = new ConcurrentHashMap<>();
+        this.client = HttpClient.newBuilder().connectTimeout(timeout).build();
+    }
+
+    /**
+     * Reads which are never conditional: every caller falls back to the
+     * provider's own read.
+     * @return ConditionalReads.
+     */
+    public static ConditionalReads none() {
+        return new ConditionalReads(
+            null, Duration.ofSeconds(10), new SimpleMeterRegistry()
+        );
+    }
+
+    /**
+     * Read a resource of the PM's provider, conditionally.
+     * @param manager PM, whose access token is used.
+     * @param resource Resource path (e.g. /user/repository_invitations).
+     * @return The body (the cached one, if the resource was not modified)
+     *  or null if the resource cannot be read conditionally.
+     */
+    public String read(final ProjectManager manager, final String resource) {
+        String body = null;
+        final String provider = manager.provider().name();
+        if(this.github != null && Provider.Names.GITHUB.equals(provider)) {
+            final String key = manager.id() + resource;
+            final Cached cached = this.cache.get(key);
+            try {
+                final HttpResponse<String> response = this.client.send(
+                    this.request(manager, resource, cached),
+                    HttpResponse.BodyHandlers.ofString()
+                );
+                final int status = response.statusCode();
+                if(status == NOT_MODIFIED && cached != null) {
+                    this.counter(provider, "not_modified").increment();
+                    body = cached.body();
+                } else if(status == OK) {
+                    this.counter(provider, "modified").increment();
+                    body = response.body();
+                    this.cache.put(
+                        key,
+                        new Cached(
+                            response.headers().firstValue("ETag")
+                                .orElse(null),
+                            response.headers().firstValue("Last-Modified")
+                                .orElse(null),
+                            body
+                        )
+                    );
+                } else {
+                    this.counter(provider, "error").increment();
+                    this.cache.remove(key);
+                }
+            } catch (final IOException ex) {
+                LOG.warn("Could not read " + resource + ": " + ex.getMessage());
+                this.counter(provider, "error").increment();
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return body;
+    }
+
+    /**
+     * Conditional GET request.
+     * @param manager PM.
+     * @param resource Resource path.
+     * @param cached Cached validators, may be null.
+     * @return HttpRequest.
+     */
+    private HttpRequest request(
+        final ProjectManager manager,
+        final String resource,
+        final Cached cached
+    ) {
+        final HttpRequest.Builder request = HttpRequest.newBuilder(
+            URI.create(this.github.toString() + resource)
+        ).timeout(this.timeout)
+            .header("Accept", "application/vnd.github.v3+json")
+            .header("Authorization", "token " + manager.accessToken())
+            .GET();
+        if(cached != null && cached.etag() != null) {
+            request.header("If-None-Match", cached.etag());
+        }
+        if(cached != null && cached.modified() != null) {
+            request.header("If-Modified-Since", cached.modified());
+        }
+        return request.build();
+    }
+
+    /**
+     * Counter of conditional reads.
+     * @param provider Provider name.
+     * @param result Result.
+     * @return Counter.
+     */
+    private Counter counter(final String provider, final String result) {
+        return Counter.builder("self.pm.providers.conditional")
+            .description("Conditional reads of the providers' resources")
+            .tag("provider", provider)
+            .tag("result", result)
+            .register(this.registry);
+    }
+
+    /**
+     * Validators and body of a resource's last read.
+     * @author Mihai Andronache (amihaiemil@gmail.com)
+     * @version $Id$
+     * @since 0.0.17
+     */
+    private static final class Cached {
+
+        /**
+         * ETag.
+         */
+        private final String tag;
+
+        /**
+         * Last-Modified.
+         */
+        private final String lastModified;
+
+        /**
+         * Body.
+         */
+        private final String content;
+
+        /**
+         * Ctor.
+         * @param tag ETag.
+         * @param lastModified Last-Modified.
+         * @param content Body.
+         */
+        Cached(
+            final String tag,
+            final String lastModified,
+            final String content
+        ) {
+            this.tag = tag;
+            this.lastModified = lastModified;
+            this.content = content;
+        }
+
+        /**
+         * ETag.
+         * @return String or null.
+         */
+        String etag() {
+            return this.tag;
+        }
+
+        /**
+         * Last-Modified.
+         * @return String or null.
+         */
+        String modified() {
+            return this.lastModified;
+        }
+
+        /**
+         * Body.
+         * @return String.
+         */
+        String body() {
+            return this.content;
+        }
+    }
+}
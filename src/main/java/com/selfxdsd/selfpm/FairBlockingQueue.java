@@ -0,0 +1,394 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Bounded blocking queue of jobs which hands them out fairly, by owner
+ * (see {@link FairQueue}), instead of first-in-first-out. It is meant as
+ * the work queue of a thread pool; jobs which are not
+ * {@link FairShares.Job}s are queued under the empty owner.<br/>
+ * Metrics: self.pm.fairness.queued{lane, owner} (gauge) and
+ * self.pm.fairness.dispatched{lane, owner} (counter). To keep the number of
+ * tags bounded, an owner's gauge only exists while the owner has waiting
+ * jobs, and only the tagged owners (e.g. the weighted ones) have their own
+ * counter; the others are counted under the owner "other".
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class FairBlockingQueue
+    extends AbstractQueue<Runnable> implements BlockingQueue<Runnable> {
+
+    /**
+     * Jobs, in fair order.
+     */
+    private final FairQueue<Runnable> jobs;
+
+    /**
+     * Maximum number of waiting jobs.
+     */
+    private final int capacity;
+
+    /**
+     * Lock.
+     */
+    private final ReentrantLock lock;
+
+    /**
+     * Signalled when a job is added.
+     */
+    private final Condition added;
+
+    /**
+     * Signalled when a job is taken.
+     */
+    private final Condition taken;
+
+    /**
+     * Name of the lane, for the metrics.
+     */
+    private final String lane;
+
+    /**
+     * Meter registry.
+     */
+    private final MeterRegistry registry;
+
+    /**
+     * Owners which are tagged in the metrics.
+     */
+    private final Predicate<String> tagged;
+
+    /**
+     * Gauge of the waiting jobs, per owner with waiting jobs; guarded by
+     * the lock.
+     */
+    private final Map<String, Gauge> queued;
+
+    /**
+     * Dispatched jobs, per tagged owner and "other".
+     */
+    private final Map<String, Counter> dispatched;
+
+    /**
+     * Ctor.
+     * @param lane Name of the lane, for the metrics.
+     * @param capacity Maximum number of waiting jobs.
+     * @param weights Weight of each owner.
+     * @param tagged Owners which are tagged in the metrics.
+     * @param registry Meter registry.
+     * @checkstyle ParameterNumber (10 lines)
+     */
+    public FairBlockingQueue(
+        final String lane,
+        final int capacity,
+        final ToIntFunction<String> weights,
+        final Predicate<String> tagged,
+        final MeterRegistry registry
+    ) {
+        this.jobs = new FairQueue<>(weights);
+        this.capacity = capacity;
+        this.lock = new ReentrantLock();
+        this.added = this.lock.newCondition();
+        this.taken = this.lock.newCondition();
+        this.lane = lane;
+        this.registry = registry;
+        this.tagged = tagged;
+        this.queued = new HashMap<>();
+        this.dispatched = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public boolean offer(final Runnable job) {
+        final boolean offered;
+        this.lock.lock();
+        try {
+            offered = this.jobs.size() < this.capacity;
+            if(offered) {
+                this.enqueue(job);
+            }
+        } finally {
+            this.lock.unlock();
+        }
+        return offered;
+    }
+
+    @Override
+    public boolean offer(
+        final Runnable job,
+        final long timeout,
+        final TimeUnit unit
+    ) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        boolean offered = false;
+        this.lock.lockInterruptibly();
+        try {
+            while(this.jobs.size() >= this.capacity && nanos > 0) {
+                nanos = this.taken.awaitNanos(nanos);
+            }
+            if(this.jobs.size() < this.capacity) {
+                this.enqueue(job);
+                offered = true;
+            }
+        } finally {
+            this.lock.unlock();
+        }
+        return offered;
+    }
+
+    @Override
+    public void put(final Runnable job) throws InterruptedException {
+        this.lock.lockInterruptibly();
+        try {
+            while(this.jobs.size() >= this.capacity) {
+                this.taken.await();
+            }
+            this.enqueue(job);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable take() throws InterruptedException {
+        final Runnable job;
+        this.lock.lockInterruptibly();
+        try {
+            while(this.jobs.size() == 0) {
+                this.added.await();
+            }
+            job = this.dequeue();
+        } finally {
+            this.lock.unlock();
+        }
+        return job;
+    }
+
+    @Override
+    public Runnable poll(
+        final long timeout,
+        final TimeUnit unit
+    ) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        Runnable job = null;
+        this.lock.lockInterruptibly();
+        try {
+            while(this.jobs.size() == 0 && nanos > 0) {
+                nanos = this.added.awaitNanos(nanos);
+            }
+            if(this.jobs.size() > 0) {
+                job = this.dequeue();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+        return job;
+    }
+
+    @Override
+    public Runnable poll() {
+        Runnable job = null;
+        this.lock.lock();
+        try {
+            if(this.jobs.size() > 0) {
+                job = this.dequeue();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+        return job;
+    }
+
+    @Override
+    public Runnable peek() {
+        this.lock.lock();
+        try {
+            return this.jobs.peek();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(final Object job) {
+        boolean removed = false;
+        if(job instanceof Runnable) {
+            this.lock.lock();
+            try {
+                final String owner = FairBlockingQueue.owner((Runnable) job);
+                removed = this.jobs.remove(owner, (Runnable) job);
+                if(removed) {
+                    this.emptied(owner);
+                    this.taken.signal();
+                }
+            } finally {
+                this.lock.unlock();
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public int size() {
+        this.lock.lock();
+        try {
+            return this.jobs.size();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Number of waiting jobs of an owner.
+     * @param owner Owner.
+     * @return Integer.
+     */
+    public int size(final String owner) {
+        this.lock.lock();
+        try {
+            return this.jobs.size(owner);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return this.capacity - this.size();
+    }
+
+    @Override
+    public Iterator<Runnable> iterator() {
+        this.lock.lock();
+        try {
+            return this.jobs.items().iterator();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(final Collection<? super Runnable> target) {
+        return this.drainTo(target, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(
+        final Collection<? super Runnable> target,
+        final int max
+    ) {
+        int drained = 0;
+        this.lock.lock();
+        try {
+            while(drained < max && this.jobs.size() > 0) {
+                target.add(this.dequeue());
+                drained = drained + 1;
+            }
+        } finally {
+            this.lock.unlock();
+        }
+        return drained;
+    }
+
+    /**
+     * Add a job; the lock must be held.
+     * @param job Job.
+     */
+    private void enqueue(final Runnable job) {
+        final String owner = FairBlockingQueue.owner(job);
+        this.jobs.add(owner, job);
+        this.queued.computeIfAbsent(
+            owner,
+            key -> Gauge.builder(
+                "self.pm.fairness.queued", this, queue -> queue.size(key)
+            ).tag("lane", this.lane).tag("owner", key).register(this.registry)
+        );
+        this.added.signal();
+    }
+
+    /**
+     * Take the next job; the lock must be held and the queue not empty.
+     * @return Job.
+     */
+    private Runnable dequeue() {
+        final Runnable job = this.jobs.poll();
+        final String owner = FairBlockingQueue.owner(job);
+        String tag = "other";
+        if(this.tagged.test(owner)) {
+            tag = owner;
+        }
+        this.dispatched.computeIfAbsent(
+            tag,
+            key -> Counter.builder("self.pm.fairness.dispatched")
+                .tag("lane", this.lane).tag("owner", key)
+                .register(this.registry)
+        ).increment();
+        this.emptied(owner);
+        this.taken.signal();
+        return job;
+    }
+
+    /**
+     * Remove the gauge of an owner if it has no waiting jobs anymore; the
+     * lock must be held.
+     * @param owner Owner.
+     */
+    private void emptied(final String owner) {
+        if(this.jobs.size(owner) == 0) {
+            final Gauge gauge = this.queued.remove(owner);
+            if(gauge != null) {
+                this.registry.remove(gauge);
+            }
+        }
+    }
+
+    /**
+     * Owner of a job.
+     * @param job Job.
+     * @return Owner, empty if unknown.
+     */
+    private static String owner(final Runnable job) {
+        String owner = "";
+        if(job instanceof FairShares.Job) {
+            owner = ((FairShares.Job) job).owner();
+        }
+        return owner;
+    }
+}
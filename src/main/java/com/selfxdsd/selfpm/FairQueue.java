@@ -0,0 +1,199 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Weighted fair queue (deficit round robin with unit cost): each key (e.g.
+ * a Project owner) has its own FIFO queue and the keys with waiting items
+ * are served in turns; in its turn, a key gets as many items as its weight.
+ * A key with thousands of items waits its turn like everyone else.<br/>
+ * It is not thread-safe.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ * @param <T> Type of the items.
+ */
+public final class FairQueue<T> {
+
+    /**
+     * Waiting items of each key.
+     */
+    private final Map<String, Deque<T>> queues;
+
+    /**
+     * Keys with waiting items, in turn order; the first one is being served.
+     */
+    private final Deque<String> turns;
+
+    /**
+     * Weight of each key.
+     */
+    private final ToIntFunction<String> weights;
+
+    /**
+     * Items served to the current key in its turn.
+     */
+    private int served;
+
+    /**
+     * Number of waiting items.
+     */
+    private int size;
+
+    /**
+     * Ctor.
+     * @param weights Weight of each key (at least 1).
+     */
+    public FairQueue(final ToIntFunction<String> weights) {
+        this.queues = new HashMap<>();
+        this.turns = new ArrayDeque<>();
+        this.weights = weights;
+    }
+
+    /**
+     * Add an item at the end of its key's queue.
+     * @param key Key.
+     * @param item Item.
+     */
+    public void add(final String key, final T item) {
+        this.queues.computeIfAbsent(
+            key,
+            name -> {
+                this.turns.addLast(name);
+                return new ArrayDeque<>();
+            }
+        ).addLast(item);
+        this.size = this.size + 1;
+    }
+
+    /**
+     * Take the next item, in fair order.
+     * @return Item or null if the queue is empty.
+     */
+    public T poll() {
+        T item = null;
+        final String key = this.turns.peekFirst();
+        if(key != null) {
+            final Deque<T> queue = this.queues.get(key);
+            item = queue.pollFirst();
+            this.size = this.size - 1;
+            this.served = this.served + 1;
+            if(queue.isEmpty()) {
+                this.queues.remove(key);
+                this.turns.pollFirst();
+                this.served = 0;
+            } else if(this.served >= this.weight(key)) {
+                this.turns.addLast(this.turns.pollFirst());
+                this.served = 0;
+            }
+        }
+        return item;
+    }
+
+    /**
+     * The item which would be taken next.
+     * @return Item or null if the queue is empty.
+     */
+    public T peek() {
+        T item = null;
+        final String key = this.turns.peekFirst();
+        if(key != null) {
+            item = this.queues.get(key).peekFirst();
+        }
+        return item;
+    }
+
+    /**
+     * All the waiting items, in no particular order.
+     * @return List of items.
+     */
+    public List<T> items() {
+        final List<T> items = new ArrayList<>(this.size);
+        for(final Deque<T> queue : this.queues.values()) {
+            items.addAll(queue);
+        }
+        return items;
+    }
+
+    /**
+     * Remove an item.
+     * @param key Key of the item.
+     * @param item Item.
+     * @return True if it was found and removed.
+     */
+    public boolean remove(final String key, final T item) {
+        boolean removed = false;
+        final Deque<T> queue = this.queues.get(key);
+        if(queue != null && queue.remove(item)) {
+            removed = true;
+            this.size = this.size - 1;
+            if(queue.isEmpty()) {
+                if(key.equals(this.turns.peekFirst())) {
+                    this.served = 0;
+                }
+                this.queues.remove(key);
+                this.turns.remove(key);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Number of waiting items.
+     * @return Integer.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Number of waiting items of a key.
+     * @param key Key.
+     * @return Integer.
+     */
+    public int size(final String key) {
+        int size = 0;
+        final Deque<T> queue = this.queues.get(key);
+        if(queue != null) {
+            size = queue.size();
+        }
+        return size;
+    }
+
+    /**
+     * Weight of a key.
+     * @param key Key.
+     * @return Weight, at least 1.
+     */
+    private int weight(final String key) {
+        return Math.max(1, this.weights.applyAsInt(key));
+    }
+}
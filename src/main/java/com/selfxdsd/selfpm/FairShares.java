@@ -0,0 +1,222 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import com.selfxdsd.api.Project;
+import com.selfxdsd.api.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fair shares of the Project owners (the username of slf_projects_xdsd):
+ * one organisation with many repos should not starve the small Projects,
+ * neither in the webhook lanes nor in the sweeps. Each owner has a weight
+ * (1 by default) which is the number of jobs it gets in its turn.<br/>
+ * Weights are configured as "provider/owner:weight" pairs, e.g.
+ * self.pm.fairness.weights=github/self-xdsd:4,gitlab/big-org:1<br/>
+ * The owner of each Project is looked up once and cached by the Project's
+ * key (provider and repo full name), so the sweeps don't load every
+ * Project's owner each time they interleave them.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+@Component
+public final class FairShares {
+
+    /**
+     * Weight of each owner, if not the default.
+     */
+    private final Map<String, Integer> weights;
+
+    /**
+     * Owner of each Project, by the Project's key.
+     */
+    private final Map<String, String> owners;
+
+    /**
+     * Meter registry.
+     */
+    private final MeterRegistry registry;
+
+    /**
+     * Ctor with equal shares, for tests.
+     */
+    public FairShares() {
+        this("", new SimpleMeterRegistry());
+    }
+
+    /**
+     * Ctor.
+     * @param weights Weights of the owners ("provider/owner:weight" pairs,
+     *  separated by commas).
+     * @param registry Meter registry.
+     */
+    @Autowired
+    public FairShares(
+        @Value("${self.pm.fairness.weights:}") final String weights,
+        final MeterRegistry registry
+    ) {
+        this.weights = new HashMap<>();
+        for(final String pair : weights.split(",")) {
+            final int colon = pair.lastIndexOf(':');
+            if(colon > 0) {
+                this.weights.put(
+                    pair.substring(0, colon).trim().toLowerCase(Locale.ENGLISH),
+                    Integer.parseInt(pair.substring(colon + 1).trim())
+                );
+            }
+        }
+        this.owners = new ConcurrentHashMap<>();
+        this.registry = registry;
+    }
+
+    /**
+     * Owner of a Project: its provider and the owner's username.
+     * @param project Project.
+     * @return String, e.g. "github/self-xdsd".
+     */
+    public static String owner(final Project project) {
+        String username = "";
+        final User owner = project.owner();
+        if(owner != null && owner.username() != null) {
+            username = owner.username();
+        }
+        return (project.provider() + "/" + username)
+            .toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * Owner of a Project, cached by the Project's key.
+     * @param project Project.
+     * @return String, as returned by {@link #owner(Project)}.
+     */
+    public String ownerOf(final Project project) {
+        return this.owners.computeIfAbsent(
+            ProjectMailboxes.key(project), key -> FairShares.owner(project)
+        );
+    }
+
+    /**
+     * Is the owner's weight configured? Only those owners are tagged in the
+     * fair queues' metrics, the others are counted together.
+     * @param owner Owner, as returned by {@link #owner(Project)}.
+     * @return True or false.
+     */
+    public boolean weighted(final String owner) {
+        return this.weights.containsKey(owner);
+    }
+
+    /**
+     * Weight of an owner.
+     * @param owner Owner, as returned by {@link #owner(Project)}.
+     * @return Weight.
+     */
+    public int weight(final String owner) {
+        return this.weights.getOrDefault(owner, 1);
+    }
+
+    /**
+     * Interleave the Projects by owner, in fair order; each owner's
+     * Projects keep their relative order.
+     * @param projects Projects.
+     * @return Interleaved Projects.
+     */
+    public List<Project> interleave(final List<Project> projects) {
+        final FairQueue<Project> fair = new FairQueue<>(this::weight);
+        for(final Project project : projects) {
+            fair.add(this.ownerOf(project), project);
+        }
+        final List<Project> interleaved = new ArrayList<>(projects.size());
+        Project next = fair.poll();
+        while(next != null) {
+            interleaved.add(next);
+            next = fair.poll();
+        }
+        return interleaved;
+    }
+
+    /**
+     * Fair work queue for the thread pool of a lane.
+     * @param lane Name of the lane.
+     * @param capacity Capacity of the queue.
+     * @return FairBlockingQueue.
+     */
+    public FairBlockingQueue queue(final String lane, final int capacity) {
+        return new FairBlockingQueue(
+            lane, capacity, this::weight, this::weighted, this.registry
+        );
+    }
+
+    /**
+     * A job of an owner.
+     * @author Mihai Andronache (amihaiemil@gmail.com)
+     * @version $Id$
+     * @since 0.0.17
+     */
+    public static final class Job implements Runnable {
+
+        /**
+         * Owner.
+         */
+        private final String who;
+
+        /**
+         * Work.
+         */
+        private final Runnable work;
+
+        /**
+         * Ctor.
+         * @param owner Owner.
+         * @param work Work.
+         */
+        public Job(final String owner, final Runnable work) {
+            this.who = owner;
+            this.work = work;
+        }
+
+        /**
+         * Owner of this job.
+         * @return String.
+         */
+        public String owner() {
+            return this.who;
+        }
+
+        @Override
+        public void run() {
+            this.work.run();
+        }
+    }
+}
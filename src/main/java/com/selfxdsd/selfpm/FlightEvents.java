@@ -0,0 +1,342 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JDK Flight Recorder events of Self PM: webhooks (with their Project
+ * lookups and signature checks), resolves of the Projects, scheduled
+ * sweeps and payments. They cost next to nothing while no recording is
+ * running; start one with {@link FlightRecordings} or with jcmd, e.g.
+ * jcmd &lt;pid&gt; JFR.start, and look for the "Self PM" category in JMC.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class FlightEvents {
+
+    /**
+     * Category of the events.
+     */
+    private static final String CATEGORY = "Self PM";
+
+    /**
+     * Hidden ctor.
+     */
+    private FlightEvents() { }
+
+    /**
+     * A webhook request, from arrival to response.
+     * @author Mihai Andronache (amihaiemil@gmail.com)
+     * @version $Id$
+     * @since 0.0.17
+     */
+    @Name("com.selfxdsd.selfpm.Webhook")
+    @Label("Webhook")
+    @Category(FlightEvents.CATEGORY)
+    @Description("A webhook request, from arrival to response.")
+    public static final class Webhook extends Event {
+
+        /**
+         * Provider.
+         */
+        @Label("Provider")
+        private final String provider;
+
+        /**
+         * Repo, as found in the request path.
+         */
+        @Label("Repo")
+        private final String repo;
+
+        /**
+         * Event type.
+         */
+        @Label("Event Type")
+        private final String type;
+
+        /**
+         * HTTP status of the response.
+         */
+        @Label("Status")
+        private int status;
+
+        /**
+         * Ctor.
+         * @param provider Provider.
+         * @param repo Repo.
+         * @param type Event type.
+         */
+        public Webhook(
+            final String provider,
+            final String repo,
+            final String type
+        ) {
+            this.provider = provider;
+            this.repo = repo;
+            this.type = type;
+        }
+
+        /**
+         * End and commit the event.
+         * @param code HTTP status of the response.
+         */
+        public void finish(final int code) {
+            this.status = code;
+            this.commit();
+        }
+    }
+
+    /**
+     * Lookup of a Project in the database.
+     * @author Mihai Andronache (amihaiemil@gmail.com)
+     * @version $Id$
+     * @since 0.0.17
+     */
+    @Name("com.selfxdsd.selfpm.ProjectLookup")
+    @Label("Project Lookup")
+    @Category(FlightEvents.CATEGORY)
+    @Description("Lookup of a Project in the database.")
+    public static final class Lookup extends Event {
+
+        /**
+         * Provider.
+         */
+        @Label("Provider")
+        private final String provider;
+
+        /**
+         * Repo.
+         */
+        @Label("Repo")
+        private final String repo;
+
+        /**
+         * Was the Project found?
+         */
+        @Label("Found")
+        private boolean found;
+
+        /**
+         * Ctor.
+         * @param provider Provider.
+         * @param repo Repo.
+         */
+        public Lookup(final String provider, final String repo) {
+            this.provider = provider;
+            this.repo = repo;
+        }
+
+        /**
+         * End and commit the event.
+         * @param exists Was the Project found?
+         */
+        public void finish(final boolean exists) {
+            this.found = exists;
+            this.commit();
+        }
+    }
+
+    /**
+     * Verification of a webhook's signature.
+     * @author Mihai Andronache (amihaiemil@gmail.com)
+     * @version $Id$
+     * @since 0.0.17
+     */
+    @Name("com.selfxdsd.selfpm.Signature")
+    @Label("Signature")
+    @Category(FlightEvents.CATEGORY)
+    @Description("Calculation of a webhook's HMAC signature.")
+    public static final class Signature extends Event {
+
+        /**
+         * Size of the signed payload.
+         */
+        @Label("Payload Size")
+        private final int size;
+
+        /**
+         * Ctor.
+         * @param size Size of the signed payload.
+         */
+        public Signature(final int size) {
+            this.size = size;
+        }
+    }
+
+    /**
+     * A Project resolving an event, from a webhook or from a sweep.
+     * @author Mihai Andronache (amihaiemil@gmail.com)
+     * @version $Id$
+     * @since 0.0.17
+     */
+    @Name("com.selfxdsd.selfpm.Resolve")
+    @Label("Resolve")
+    @Category(FlightEvents.CATEGORY)
+    @Description("A Project resolving a webhook event or being swept.")
+    public static final class Resolve extends Event {
+
+        /**
+         * Provider.
+         */
+        @Label("Provider")
+        private final String provider;
+
+        /**
+         * Repo.
+         */
+        @Label("Repo")
+        private final String repo;
+
+        /**
+         * Event type or name of the sweep.
+         */
+        @Label("Event Type")
+        private final String type;
+
+        /**
+         * Ctor.
+         * @param provider Provider.
+         * @param repo Repo.
+         * @param type Event type or name of the sweep.
+         */
+        public Resolve(
+            final String provider,
+            final String repo,
+            final String type
+        ) {
+            this.provider = provider;
+            this.repo = repo;
+            this.type = type;
+        }
+    }
+
+    /**
+     * A scheduled sweep over the Projects.
+     * @author Mihai Andronache (amihaiemil@gmail.com)
+     * @version $Id$
+     * @since 0.0.17
+     */
+    @Name("com.selfxdsd.selfpm.Sweep")
+    @Label("Sweep")
+    @Category(FlightEvents.CATEGORY)
+    @Description("A scheduled sweep over the Projects.")
+    public static final class Sweep extends Event {
+
+        /**
+         * Name of the sweep.
+         */
+        @Label("Sweep")
+        private final String sweep;
+
+        /**
+         * Number of swept Projects.
+         */
+        @Label("Swept Projects")
+        private int swept;
+
+        /**
+         * Ctor.
+         * @param sweep Name of the sweep.
+         */
+        public Sweep(final String sweep) {
+            this.sweep = sweep;
+        }
+
+        /**
+         * End and commit the event.
+         * @param projects Number of swept Projects.
+         */
+        public void finish(final int projects) {
+            this.swept = projects;
+            this.commit();
+        }
+    }
+
+    /**
+     * Payment of an Invoice.
+     * @author Mihai Andronache (amihaiemil@gmail.com)
+     * @version $Id$
+     * @since 0.0.17
+     */
+    @Name("com.selfxdsd.selfpm.Payment")
+    @Label("Payment")
+    @Category(FlightEvents.CATEGORY)
+    @Description("Payment of an Invoice through the Project's wallet.")
+    public static final class Payment extends Event {
+
+        /**
+         * Provider.
+         */
+        @Label("Provider")
+        private final String provider;
+
+        /**
+         * Repo.
+         */
+        @Label("Repo")
+        private final String repo;
+
+        /**
+         * Id of the Invoice.
+         */
+        @Label("Invoice")
+        private final int invoice;
+
+        /**
+         * Status of the payment.
+         */
+        @Label("Status")
+        private String status;
+
+        /**
+         * Ctor.
+         * @param provider Provider.
+         * @param repo Repo.
+         * @param invoice Id of the Invoice.
+         */
+        public Payment(
+            final String provider,
+            final String repo,
+            final int invoice
+        ) {
+            this.provider = provider;
+            this.repo = repo;
+            this.invoice = invoice;
+        }
+
+        /**
+         * End and commit the event.
+         * @param result Status of the payment.
+         */
+        public void finish(final String result) {
+            this.status = result;
+            this.commit();
+        }
+    }
+}
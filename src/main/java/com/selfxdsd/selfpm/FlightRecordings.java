@@ -0,0 +1,309 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Admin endpoint which starts, stops and dumps a JDK Flight Recording
+ * (see {@link FlightEvents}), so we can profile production on demand,
+ * without an agent. Every request must send the {@link AdminToken}.<br/>
+ * POST /admin/jfr/start?settings=profile&amp;maxAge=PT30M,
+ * POST /admin/jfr/stop, GET /admin/jfr/dump (the .jfr file) and
+ * DELETE /admin/jfr (discard the recording).
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+@RestController
+@RequestMapping("/admin/jfr")
+public final class FlightRecordings {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(
+        FlightRecordings.class
+    );
+
+    /**
+     * Header with the admin token.
+     */
+    private static final String HEADER = AdminToken.HEADER;
+
+    /**
+     * Admin token.
+     */
+    private final AdminToken token;
+
+    /**
+     * Lock guarding the recording.
+     */
+    private final Object lock;
+
+    /**
+     * The current recording, null if none.
+     */
+    private Recording recording;
+
+    /**
+     * Ctor.
+     * @param token Admin token, empty if the endpoint is disabled.
+     */
+    public FlightRecordings(final String token) {
+        this(new AdminToken(token));
+    }
+
+    /**
+     * Ctor.
+     * @param token Admin token.
+     */
+    @Autowired
+    public FlightRecordings(final AdminToken token) {
+        this.token = token;
+        this.lock = new Object();
+    }
+
+    /**
+     * Start a recording.
+     * @param auth Admin token sent by the client.
+     * @param settings JFR settings, "default" or "profile".
+     * @param age How much of the recording to keep, e.g. PT30M.
+     * @return OK, CONFLICT if a recording is already running, BAD REQUEST
+     *  if the settings or the age are wrong.
+     */
+    @PostMapping("/start")
+    public ResponseEntity<String> start(
+        @RequestHeader(value = HEADER, required = false) final String auth,
+        @RequestParam(value = "settings", defaultValue = "profile")
+        final String settings,
+        @RequestParam(value = "maxAge", defaultValue = "PT30M")
+        final String age
+    ) {
+        ResponseEntity<String> response;
+        synchronized (this.lock) {
+            if(!this.token.accepts(auth)) {
+                response = FlightRecordings.unauthorized();
+            } else if(this.recording != null
+                && this.recording.getState() == RecordingState.RUNNING) {
+                response = ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("A recording is already running.");
+            } else {
+                try {
+                    final Recording started = new Recording(
+                        Configuration.getConfiguration(settings)
+                    );
+                    started.setName("self-pm");
+                    started.setToDisk(true);
+                    started.setMaxAge(Duration.parse(age));
+                    started.start();
+                    this.close();
+                    this.recording = started;
+                    LOG.info("JFR recording started (" + settings + ").");
+                    response = ResponseEntity.ok("Recording started.");
+                } catch (final IOException | ParseException
+                    | DateTimeParseException ex) {
+                    response = ResponseEntity.badRequest().body(
+                        "Wrong settings or maxAge: " + ex.getMessage()
+                    );
+                }
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Stop the recording; it can still be dumped afterwards.
+     * @param auth Admin token sent by the client.
+     * @return OK or NOT FOUND if there is no recording.
+     */
+    @PostMapping("/stop")
+    public ResponseEntity<String> stop(
+        @RequestHeader(value = HEADER, required = false) final String auth
+    ) {
+        final ResponseEntity<String> response;
+        synchronized (this.lock) {
+            if(!this.token.accepts(auth)) {
+                response = FlightRecordings.unauthorized();
+            } else if(this.recording == null) {
+                response = ResponseEntity.notFound().build();
+            } else {
+                if(this.recording.getState() == RecordingState.RUNNING) {
+                    this.recording.stop();
+                    LOG.info("JFR recording stopped.");
+                }
+                response = ResponseEntity.ok("Recording stopped.");
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Dump the recording, running or stopped. The .jfr file is streamed
+     * from a temporary file, deleted once it is sent.
+     * @param auth Admin token sent by the client.
+     * @return The .jfr file or NOT FOUND if there is no recording.
+     */
+    @GetMapping(
+        value = "/dump",
+        produces = MediaType.APPLICATION_OCTET_STREAM_VALUE
+    )
+    public ResponseEntity<Resource> dump(
+        @RequestHeader(value = HEADER, required = false) final String auth
+    ) {
+        final ResponseEntity<Resource> response;
+        synchronized (this.lock) {
+            if(!this.token.accepts(auth)) {
+                response = ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .build();
+            } else if(this.recording == null) {
+                response = ResponseEntity.notFound().build();
+            } else {
+                final Path file = this.file();
+                response = ResponseEntity.ok()
+                    .header(
+                        HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"self-pm.jfr\""
+                    )
+                    .contentLength(FlightRecordings.size(file))
+                    .body(FlightRecordings.stream(file));
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Discard the recording.
+     * @param auth Admin token sent by the client.
+     * @return OK.
+     */
+    @DeleteMapping
+    public ResponseEntity<String> discard(
+        @RequestHeader(value = HEADER, required = false) final String auth
+    ) {
+        final ResponseEntity<String> response;
+        synchronized (this.lock) {
+            if(this.token.accepts(auth)) {
+                this.close();
+                response = ResponseEntity.ok("Recording discarded.");
+            } else {
+                response = FlightRecordings.unauthorized();
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Dump the recording to a temporary file.
+     * @return Path of the .jfr file.
+     */
+    private Path file() {
+        try {
+            final Path file = Files.createTempFile("self-pm-", ".jfr");
+            try {
+                this.recording.dump(file);
+            } catch (final IOException ex) {
+                Files.deleteIfExists(file);
+                throw ex;
+            }
+            return file;
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Close the current recording, if any.
+     */
+    private void close() {
+        if(this.recording != null) {
+            this.recording.close();
+            this.recording = null;
+        }
+    }
+
+    /**
+     * Size of a dumped recording.
+     * @param file The .jfr file.
+     * @return Size in bytes.
+     */
+    private static long size(final Path file) {
+        try {
+            return Files.size(file);
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Stream of a dumped recording, which deletes the file when closed
+     * (Spring closes it once the response is written).
+     * @param file The .jfr file.
+     * @return Resource.
+     */
+    private static Resource stream(final Path file) {
+        try {
+            return new InputStreamResource(
+                Files.newInputStream(file, StandardOpenOption.DELETE_ON_CLOSE)
+            );
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Response for a wrong admin token.
+     * @return UNAUTHORIZED.
+     */
+    private static ResponseEntity<String> unauthorized() {
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+            .body("Wrong or missing " + HEADER + ".");
+    }
+}
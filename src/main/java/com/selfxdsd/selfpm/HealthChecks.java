@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Health checks of the PM, used by the readiness and liveness probes
+ * (see management.endpoint.health.group.* in application.properties).
+ * Every check is cached for a few seconds, so probing stays cheap.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+@Configuration(proxyBeanMethods = false)
+public final class HealthChecks {
+
+    /**
+     * For how long a check result is kept.
+     */
+    @Value("${self.pm.health.cache:PT10S}")
+    private Duration cache;
+
+    /**
+     * Database connectivity, through Self's core; DOWN while the core is
+     * not initialized.
+     * @param selfCore Self's core.
+     * @param threshold Slowest acceptable answer of the database.
+     * @return HealthIndicator.
+     */
+    @Bean
+    public HealthIndicator databaseHealthIndicator(
+        final SelfCoreComponent selfCore,
+        @Value("${self.pm.health.database.threshold:PT2S}")
+        final Duration threshold
+    ) {
+        return new CachedHealth(
+            new SelfCoreHealth(selfCore, threshold, selfCore::initialized),
+            this.cache
+        );
+    }
+
+    /**
+     * Self TODOs reachability.
+     * @param todos Self TODOs location.
+     * @param timeout Timeout.
+     * @return HealthIndicator.
+     */
+    @Bean
+    public HealthIndicator selfTodosHealthIndicator(
+        @Value("${self.todos.url:http://localhost:8282}") final String todos,
+        @Value("${self.pm.health.todos.timeout:PT2S}") final Duration timeout
+    ) {
+        return new CachedHealth(
+            new SelfTodosHealth(URI.create(todos), timeout), this.cache
+        );
+    }
+
+    /**
+     * Depth of the webhook queues.
+     * @param lanes Webhook lanes.
+     * @param ratio Highest acceptable fill ratio of a lane.
+     * @return HealthIndicator.
+     */
+    @Bean
+    public HealthIndicator webhooksHealthIndicator(
+        final WebhookLanes lanes,
+        @Value("${self.pm.health.webhooks.ratio:0.8}") final double ratio
+    ) {
+        return new CachedHealth(new WebhooksHealth(lanes, ratio), this.cache);
+    }
+
+    /**
+     * Lag of the scheduled sweeps. It is not part of any probe group: the
+     * sweeps and the payments share Spring's single scheduler thread, so a
+     * long pass is expected lag, not a reason to restart the pod.
+     * @param heartbeats Heartbeats of the sweeps.
+     * @return HealthIndicator.
+     */
+    @Bean
+    public HealthIndicator schedulerHealthIndicator(
+        final SweepHeartbeats heartbeats
+    ) {
+        return new CachedHealth(
+            new SchedulerHealth(
+                heartbeats,
+                Map.of(
+                    ReviewAssignedTasks.SWEEP,
+                    Duration.parse(ReviewAssignedTasks.EVERY_30_MINUTES),
+                    ReviewUnassignedTasks.SWEEP,
+                    Duration.ofMillis(ReviewUnassignedTasks.EVERY_10_MINUTES)
+                )
+            ),
+            this.cache
+        );
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Exporter keeping the last spans in memory, for tests and local
+ * debugging.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class InMemorySpanExporter implements SpanExporter {
+
+    /**
+     * Spans, oldest first.
+     */
+    private final Deque<Tracing.Span> spans;
+
+    /**
+     * How many spans are kept.
+     */
+    private final int capacity;
+
+    /**
+     * Ctor.
+     * @param capacity How many spans are kept; older ones are dropped.
+     */
+    public InMemorySpanExporter(final int capacity) {
+        this.spans = new ArrayDeque<>();
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void export(final Tracing.Span span) {
+        synchronized (this.spans) {
+            if(this.spans.size() >= this.capacity) {
+                this.spans.removeFirst();
+            }
+            this.spans.addLast(span);
+        }
+    }
+
+    /**
+     * The exported spans, oldest first.
+     * @return List of spans.
+     */
+    public List<Tracing.Span> spans() {
+        synchronized (this.spans) {
+            return new ArrayList<>(this.spans);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency histogram with log-linear buckets, in the spirit of
+ * HdrHistogram: values (microseconds) under 32 have their own bucket,
+ * above that every power of 2 is split in 16 linear buckets, so the
+ * error is at most 1/16 of the value, up to about 19 hours. It takes a
+ * fixed 528 counters, recording is lock-free and two histograms can be
+ * merged by adding their counters.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class LatencyHistogram {
+
+    /**
+     * Linear buckets in each power of 2.
+     */
+    private static final int SUB_BUCKETS = 16;
+
+    /**
+     * Values under this have a bucket of their own.
+     */
+    private static final int LINEAR = 2 * SUB_BUCKETS;
+
+    /**
+     * Largest recorded value; larger ones are recorded as this.
+     */
+    private static final long HIGHEST = (1L << 36) - 1;
+
+    /**
+     * Number of buckets.
+     */
+    private static final int BUCKETS = LatencyHistogram.index(HIGHEST) + 1;
+
+    /**
+     * Counters of the buckets.
+     */
+    private final AtomicLongArray counts;
+
+    /**
+     * Number of recorded values.
+     */
+    private final AtomicLong count;
+
+    /**
+     * Sum of the recorded values.
+     */
+    private final AtomicLong total;
+
+    /**
+     * Largest recorded value.
+     */
+    private final AtomicLong max;
+
+    /**
+     * Ctor.
+     */
+    public LatencyHistogram() {
+        this.counts = new AtomicLongArray(BUCKETS);
+        this.count = new AtomicLong();
+        this.total = new AtomicLong();
+        this.max = new AtomicLong();
+    }
+
+    /**
+     * Record a latency.
+     * @param nanos Latency, in nanoseconds.
+     */
+    public void record(final long nanos) {
+        final long micros = Math.min(
+            HIGHEST, Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos))
+        );
+        this.counts.incrementAndGet(LatencyHistogram.index(micros));
+        this.count.incrementAndGet();
+        this.total.addAndGet(micros);
+        this.max.accumulateAndGet(micros, Math::max);
+    }
+
+    /**
+     * Add the values of another histogram to this one.
+     * @param other Other histogram.
+     */
+    public void merge(final LatencyHistogram other) {
+        for(int idx = 0; idx < BUCKETS; ++idx) {
+            final long added = other.counts.get(idx);
+            if(added > 0) {
+                this.counts.addAndGet(idx, added);
+            }
+        }
+        this.count.addAndGet(other.count.get());
+        this.total.addAndGet(other.total.get());
+        this.max.accumulateAndGet(other.max.get(), Math::max);
+    }
+
+    /**
+     * Number of recorded values.
+     * @return Long.
+     */
+    public long count() {
+        return this.count.get();
+    }
+
+    /**
+     * Sum of the recorded values.
+     * @return Microseconds.
+     */
+    public long total() {
+        return this.total.get();
+    }
+
+    /**
+     * Value at the given percentile: the highest value equivalent to the
+     * one found at that rank.
+     * @param percentile Percentile, between 0 and 100.
+     * @return Microseconds, 0 if nothing was recorded.
+     */
+    public long percentile(final double percentile) {
+        final long rank = Math.max(
+            1L, (long) Math.ceil(percentile / 100.0 * this.count.get())
+        );
+        long value = 0;
+        long seen = 0;
+        for(int idx = 0; idx < BUCKETS && seen < rank; ++idx) {
+            seen = seen + this.counts.get(idx);
+            if(seen >= rank) {
+                value = Math.min(
+                    LatencyHistogram.lowest(idx + 1) - 1, this.max.get()
+                );
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Summary of the histogram, in milliseconds.
+     * @return JsonObject with count, mean, p50, p90, p99, max and total.
+     */
+    public JsonObject json() {
+        final long values = this.count.get();
+        long mean = 0;
+        if(values > 0) {
+            mean = this.total.get() / values;
+        }
+        return Json.createObjectBuilder()
+            .add("count", values)
+            .add("totalMs", LatencyHistogram.millis(this.total.get()))
+            .add("meanMs", LatencyHistogram.millis(mean))
+            .add("p50Ms", LatencyHistogram.millis(this.percentile(50)))
+            .add("p90Ms", LatencyHistogram.millis(this.percentile(90)))
+            .add("p99Ms", LatencyHistogram.millis(this.percentile(99)))
+            .add("maxMs", LatencyHistogram.millis(this.max.get()))
+            .build();
+    }
+
+    /**
+     * Bucket of a value.
+     * @param micros Value.
+     * @return Index of the bucket.
+     */
+    private static int index(final long micros) {
+        final int index;
+        if(micros < LINEAR) {
+            index = (int) micros;
+        } else {
+            final int exponent = 63 - Long.numberOfLeadingZeros(micros);
+            final int shift = exponent - 4;
+            index = LINEAR + (exponent - 5) * SUB_BUCKETS
+                + (int) (micros >> shift) - SUB_BUCKETS;
+        }
+        return index;
+    }
+
+    /**
+     * Lowest value of a bucket.
+     * @param index Index of the bucket.
+     * @return Microseconds.
+     */
+    private static long lowest(final int index) {
+        final long lowest;
+        if(index < LINEAR) {
+            lowest = index;
+        } else {
+            final int exponent = (index - LINEAR) / SUB_BUCKETS + 5;
+            final long mantissa = (index - LINEAR) % SUB_BUCKETS
+                + SUB_BUCKETS;
+            lowest = mantissa << (exponent - 4);
+        }
+        return lowest;
+    }
+
+    /**
+     * Microseconds to milliseconds.
+     * @param micros Microseconds.
+     * @return Milliseconds, with 3 decimals.
+     */
+    private static BigDecimal millis(final long micros) {
+        return BigDecimal.valueOf(micros).divide(
+            BigDecimal.valueOf(1000), 3, RoundingMode.UNNECESSARY
+        );
+    }
+}
@@ -0,0 +1,277 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import com.selfxdsd.api.Project;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Latency histograms of each Project (see {@link ProjectMailboxes#key})
+ * and operation, so we can see which Projects are expensive to serve.
+ * At most a configured number of Projects is kept: the Project which was
+ * not recorded for the longest time is evicted first.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+@Component
+public final class LatencyHistograms {
+
+    /**
+     * Histograms of each Project, least recently recorded first.
+     */
+    private final Map<String, Map<Operation, LatencyHistogram>> projects;
+
+    /**
+     * Maximum number of Projects.
+     */
+    private final int capacity;
+
+    /**
+     * Ctor with room for 1000 Projects.
+     */
+    public LatencyHistograms() {
+        this(1000);
+    }
+
+    /**
+     * Ctor.
+     * @param capacity Maximum number of Projects.
+     */
+    @Autowired
+    public LatencyHistograms(
+        @Value("${self.pm.stats.projects:1000}") final int capacity
+    ) {
+        this.capacity = capacity;
+        this.projects = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Record the latency of an operation on a Project.
+     * @param project Project.
+     * @param operation Operation.
+     * @param took How long it took.
+     */
+    public void record(
+        final Project project,
+        final Operation operation,
+        final Duration took
+    ) {
+        this.record(
+            ProjectMailboxes.key(project), operation, took.toNanos()
+        );
+    }
+
+    /**
+     * Record the latency of an operation on a Project.
+     * @param project Key of the Project.
+     * @param operation Operation.
+     * @param nanos How long it took, in nanoseconds.
+     */
+    public void record(
+        final String project,
+        final Operation operation,
+        final long nanos
+    ) {
+        final LatencyHistogram histogram;
+        synchronized (this.projects) {
+            histogram = this.projects.computeIfAbsent(
+                project, key -> new EnumMap<>(Operation.class)
+            ).computeIfAbsent(operation, key -> new LatencyHistogram());
+            if(this.projects.size() > this.capacity) {
+                final String eldest = this.projects.keySet().iterator().next();
+                this.projects.remove(eldest);
+            }
+        }
+        histogram.record(nanos);
+    }
+
+    /**
+     * Number of Projects with histograms.
+     * @return Integer.
+     */
+    public int size() {
+        synchronized (this.projects) {
+            return this.projects.size();
+        }
+    }
+
+    /**
+     * Hook recording the latency of each swept Project.
+     * @param operation Operation of the sweep.
+     * @param hook Hook to decorate.
+     * @return SweepHook.
+     */
+    public SweepHook hook(final Operation operation, final SweepHook hook) {
+        return new SweepHook() {
+            @Override
+            public void started(final String sweep) {
+                hook.started(sweep);
+            }
+
+            @Override
+            public void swept(
+                final String sweep,
+                final Project project,
+                final Duration took
+            ) {
+                LatencyHistograms.this.record(project, operation, took);
+                hook.swept(sweep, project, took);
+            }
+
+            @Override
+            public boolean failed(
+                final String sweep,
+                final Project project,
+                final RuntimeException error
+            ) {
+                return hook.failed(sweep, project, error);
+            }
+
+            @Override
+            public void finished(
+                final String sweep,
+                final int swept,
+                final Duration took
+            ) {
+                hook.finished(sweep, swept, took);
+            }
+        };
+    }
+
+    /**
+     * Statistics: the histograms of each operation, merged across the
+     * Projects, and the most expensive Projects (by total time).
+     * @param top How many of the most expensive Projects to show.
+     * @return JsonObject.
+     */
+    public JsonObject stats(final int top) {
+        final Map<String, Map<Operation, LatencyHistogram>> copy;
+        synchronized (this.projects) {
+            copy = new LinkedHashMap<>(this.projects);
+        }
+        final Map<Operation, LatencyHistogram> merged = new EnumMap<>(
+            Operation.class
+        );
+        final List<Map.Entry<String, Long>> totals = new ArrayList<>();
+        for(final Map.Entry<String, Map<Operation, LatencyHistogram>> entry
+            : copy.entrySet()) {
+            long total = 0;
+            for(final Map.Entry<Operation, LatencyHistogram> operation
+                : entry.getValue().entrySet()) {
+                merged.computeIfAbsent(
+                    operation.getKey(), key -> new LatencyHistogram()
+                ).merge(operation.getValue());
+                total = total + operation.getValue().total();
+            }
+            totals.add(Map.entry(entry.getKey(), total));
+        }
+        totals.sort(
+            Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+        );
+        final JsonArrayBuilder expensive = Json.createArrayBuilder();
+        for(final Map.Entry<String, Long> project
+            : totals.subList(0, Math.min(top, totals.size()))) {
+            expensive.add(
+                Json.createObjectBuilder()
+                    .add("project", project.getKey())
+                    .add(
+                        "operations",
+                        LatencyHistograms.json(copy.get(project.getKey()))
+                    )
+            );
+        }
+        return Json.createObjectBuilder()
+            .add("projects", copy.size())
+            .add("capacity", this.capacity)
+            .add("operations", LatencyHistograms.json(merged))
+            .add("top", expensive)
+            .build();
+    }
+
+    /**
+     * Histograms of some operations, as JSON.
+     * @param histograms Histograms.
+     * @return JsonObjectBuilder.
+     */
+    private static JsonObjectBuilder json(
+        final Map<Operation, LatencyHistogram> histograms
+    ) {
+        final JsonObjectBuilder json = Json.createObjectBuilder();
+        histograms.forEach(
+            (operation, histogram) -> json.add(
+                operation.tag(), histogram.json()
+            )
+        );
+        return json;
+    }
+
+    /**
+     * Measured operations.
+     */
+    public enum Operation {
+
+        /**
+         * Resolving a webhook event.
+         */
+        RESOLVE,
+
+        /**
+         * Reviewing the unassigned tasks.
+         */
+        UNASSIGNED_REVIEW,
+
+        /**
+         * Reviewing the assigned tasks.
+         */
+        ASSIGNED_REVIEW,
+
+        /**
+         * Paying an Invoice.
+         */
+        PAYMENT;
+
+        /**
+         * Name of the operation in the statistics.
+         * @return String.
+         */
+        public String tag() {
+            return this.name().toLowerCase(Locale.ENGLISH).replace('_', '-');
+        }
+    }
+}
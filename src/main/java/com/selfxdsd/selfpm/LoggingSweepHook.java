@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import com.selfxdsd.api.Project;
+import org.slf4j.Logger;
+
+import java.time.Duration;
+
+/**
+ * Default {@link SweepHook}: it logs the progress and timings of the sweep
+ * and, if a Project fails, it logs the error and goes on with the rest.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class LoggingSweepHook implements SweepHook {
+
+    /**
+     * Logger of the component running the sweep.
+     */
+    private final Logger log;
+
+    /**
+     * Ctor.
+     * @param log Logger of the component running the sweep.
+     */
+    public LoggingSweepHook(final Logger log) {
+        this.log = log;
+    }
+
+    @Override
+    public void started(final String sweep) {
+        this.log.debug("PMs reviewing their " + sweep + "...");
+    }
+
+    @Override
+    public void swept(
+        final String sweep,
+        final Project project,
+        final Duration took
+    ) {
+        this.log.debug(
+            "Reviewed " + sweep + " from project " + project.repoFullName()
+            + " at " + project.provider() + " in " + took.toMillis() + "ms."
+        );
+    }
+
+    @Override
+    public boolean failed(
+        final String sweep,
+        final Project project,
+        final RuntimeException error
+    ) {
+        if(error instanceof ProviderUnavailableException) {
+            this.log.warn(
+                "Skipped reviewing " + sweep + " of Project "
+                + project.repoFullName() + ": " + error.getMessage()
+            );
+        } else {
+            this.log.error(
+                "Problem while reviewing " + sweep + " of Project "
+                + project.repoFullName() + " at " + project.provider(),
+                error
+            );
+        }
+        return true;
+    }
+
+    @Override
+    public void finished(
+        final String sweep,
+        final int swept,
+        final Duration took
+    ) {
+        this.log.debug(
+            "All PMs finished reviewing their " + sweep + " ("
+            + swept + " projects in " + took.toMillis() + "ms)."
+        );
+    }
+}
@@ -32,18 +32,52 @@ import com.selfxdsd.api.Wallet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import javax.json.JsonObject;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * Each PM will periodically verify their Project Contract Invoices an try to
- * pay the ones that are eligible.
+ * pay the ones that are eligible.<br/>
+ * This happens in two phases: first, the payments of each Project are
+ * planned (see {@link PaymentPlanner}) and written to a plan file (see
+ * {@link PaymentPlanFile}); then, unless this is a dry run, the plan file
+ * is executed. Plans whose execution was interrupted are resumed when the
+ * application starts (unless the scheduled jobs are off) and on the next
+ * run; their payments are checked again before being made, since the
+ * Invoices may have been paid and the cash spent meanwhile. This is also
+ * how a shutdown stops the payments: the ones not executed yet are left in
+ * the plan file, which is resumed at the next start (see
+ * {@link ShutdownCoordinator}). A plan is deleted, with its ".done" file,
+ * once it was fully executed. Dry run plans are written under a different
+ * prefix and nothing is resumed in a dry run.
  * @author criske
  * @version $Id$
  * @since 0.0.6
  * @checkstyle NestedForDepth (500 lines)
+ * @checkstyle ClassFanOutComplexity (500 lines)
  */
 @Component
+@Lazy(false)
 public final class PayInvoices {
 
     /**
@@ -51,6 +85,21 @@ public final class PayInvoices {
      */
     static final String EVERY_MONDAY = "0 0 0 ? * MON";
 
+    /**
+     * Name of the payments pass, for the {@link ShutdownCoordinator}.
+     */
+    private static final String PASS = "payments";
+
+    /**
+     * Prefix of the plan files to execute.
+     */
+    private static final String PLANS = "payments-";
+
+    /**
+     * Prefix of the dry run plan files, which are never executed.
+     */
+    private static final String DRY_RUNS = "dry-run-payments-";
+
     /**
      * Logger.
      */
@@ -59,62 +108,557 @@ public final class PayInvoices {
     );
 
     /**
-     * Self's core.
+     * Format of the moment in the plan file names.
+     */
+    private static final DateTimeFormatter FILE_NAME =
+        DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    /**
+     * Snapshot of the PMs and their Projects.
+     */
+    private final ProjectsSnapshot snapshot;
+
+    /**
+     * Self's core, to find the planned Invoices again when resuming a plan.
      */
     private final Self selfCore;
 
+    /**
+     * Plans the payments of each Project.
+     */
+    private final PaymentPlanner planner;
+
+    /**
+     * Directory where the plan files are written.
+     */
+    private final Path directory;
+
+    /**
+     * Only plan, without paying?
+     */
+    private final boolean dryRun;
+
+    /**
+     * Latency histograms of the Projects.
+     */
+    private final LatencyHistograms histograms;
+
+    /**
+     * Coordinator of the shutdown.
+     */
+    private final ShutdownCoordinator shutdown;
+
+    /**
+     * Are the scheduled jobs on? If not, the interrupted plans are not
+     * resumed at start either.
+     */
+    private final boolean scheduled;
+
+    /**
+     * Lock, so the plans are never executed by two passes at once.
+     */
+    private final Object lock;
+
+    /**
+     * Ctor. The plan files are written to a new temporary directory.
+     * @param selfCore Self Core.
+     */
+    public PayInvoices(final Self selfCore) {
+        this(
+            ProjectsSnapshot.uncached(selfCore),
+            selfCore,
+            PayInvoices.temporary(),
+            false
+        );
+    }
+
     /**
      * Ctor.
-     * @param selfCore Self Core, injected by Spring automatically.
+     * @param snapshot Snapshot of the PMs and their Projects, injected by
+     *  Spring automatically.
+     * @param selfCore Self Core.
+     * @param directory Directory where the plan files are written.
+     * @param dryRun Only plan, without paying?
+     * @param histograms Latency histograms of the Projects.
+     * @param shutdown Coordinator of the shutdown.
+     * @param scheduled Are the scheduled jobs on?
+     * @checkstyle ParameterNumber (10 lines)
      */
     @Autowired
-    public PayInvoices(final Self selfCore) {
+    public PayInvoices(
+        final ProjectsSnapshot snapshot,
+        final Self selfCore,
+        @Value("${self.pm.payments.plan-dir:/var/lib/self-pm/payments}")
+        final String directory,
+        @Value("${self.pm.payments.dry-run:false}") final boolean dryRun,
+        final LatencyHistograms histograms,
+        final ShutdownCoordinator shutdown,
+        @Value("${self.pm.scheduling.enabled:true}") final boolean scheduled
+    ) {
+        this(
+            snapshot, selfCore, Paths.get(directory), dryRun, histograms,
+            shutdown, scheduled
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param snapshot Snapshot of the PMs and their Projects.
+     * @param selfCore Self Core.
+     * @param directory Directory where the plan files are written.
+     * @param dryRun Only plan, without paying?
+     */
+    PayInvoices(
+        final ProjectsSnapshot snapshot,
+        final Self selfCore,
+        final Path directory,
+        final boolean dryRun
+    ) {
+        this(
+            snapshot, selfCore, directory, dryRun, new LatencyHistograms(),
+            ShutdownCoordinator.unmanaged(), true
+        );
+    }
+
+    /**
+     * Primary ctor.
+     * @param snapshot Snapshot of the PMs and their Projects.
+     * @param selfCore Self Core.
+     * @param directory Directory where the plan files are written.
+     * @param dryRun Only plan, without paying?
+     * @param histograms Latency histograms of the Projects.
+     * @param shutdown Coordinator of the shutdown.
+     * @param scheduled Are the scheduled jobs on?
+     * @checkstyle ParameterNumber (10 lines)
+     */
+    PayInvoices(
+        final ProjectsSnapshot snapshot,
+        final Self selfCore,
+        final Path directory,
+        final boolean dryRun,
+        final LatencyHistograms histograms,
+        final ShutdownCoordinator shutdown,
+        final boolean scheduled
+    ) {
+        this.snapshot = snapshot;
         this.selfCore = selfCore;
+        this.planner = new PaymentPlanner();
+        this.directory = directory;
+        this.dryRun = dryRun;
+        this.histograms = histograms;
+        this.shutdown = shutdown;
+        this.scheduled = scheduled;
+        this.lock = new Object();
     }
 
     /**
      * Every Monday the PMs should verify their Project Contract Invoices an
-     * try to pay the ones that are eligible.
-     * @checkstyle IllegalCatch (50 lines)
+     * try to pay the ones that are eligible. The payments are planned
+     * first, so the ones the wallets cannot afford are not even tried.
      */
     @Scheduled(cron = EVERY_MONDAY)
     public void payInvoices() {
+        if(this.shutdown.enter(PayInvoices.PASS)) {
+            try {
+                synchronized (this.lock) {
+                    this.payments();
+                }
+            } finally {
+                this.shutdown.exit(PayInvoices.PASS);
+            }
+        } else {
+            LOG.info("Shutting down, the invoices will be paid next time.");
+        }
+    }
+
+    /**
+     * When the application is ready, resume the plans whose execution was
+     * interrupted (e.g. by the previous shutdown), instead of waiting for
+     * Monday. Nothing is resumed in a dry run or if the scheduled jobs are
+     * off.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeAtStart() {
+        if(this.dryRun || !this.scheduled) {
+            LOG.debug("Not resuming the interrupted payments at start.");
+        } else if(this.shutdown.enter(PayInvoices.PASS)) {
+            try {
+                synchronized (this.lock) {
+                    this.resume();
+                }
+            } finally {
+                this.shutdown.exit(PayInvoices.PASS);
+            }
+        }
+    }
+
+    /**
+     * Resume the interrupted plans, then plan and (unless this is a dry
+     * run) execute the payments.
+     */
+    private void payments() {
         LOG.debug("Checking invoices to be paid");
-        for(final ProjectManager manager : this.selfCore.projectManagers()) {
-            for(final Project project : manager.projects()) {
-                final Wallet wallet = project.wallet();
-                for(final Contract contact: project.contracts()){
-                    for(final Invoice invoice: contact.invoices()){
-                        if (!invoice.isPaid()
-                            && invoice.totalAmount()
-                            .longValueExact() >= 108 * 100) {
-                            LOG.debug(
-                                manager.username()
-                                    + " is trying to pay invoice #"
-                                    + invoice.invoiceId()
-                                    + " for contract: "
-                                    + contact.contractId()
-                            );
-                            try {
-                                final Payment payment = wallet.pay(invoice);
-                                LOG.debug("Payment finished with status: "
-                                    + payment.status()
-                                    + "(" + payment.failReason() + ")");
-                            } catch (final Exception exception) {
-                                LOG.error(
-                                    "Payment failed due to an unexpected "
-                                        + "error: "
-                                        + exception.getClass()
-                                        .getSimpleName()
-                                        + "(" + exception.getMessage() + ")"
-                                );
-                            }
-                            break;
-                        }
+        if(!this.dryRun) {
+            this.resume();
+        }
+        final Map<String, Planned> planned = new HashMap<>();
+        final PaymentPlanFile plan = this.plan(planned);
+        if(this.dryRun) {
+            LOG.info("Dry run, the plan was not executed: " + plan.path());
+        } else {
+            this.execute(plan, planned);
+        }
+    }
+
+    /**
+     * Plan phase: write the payments of all the Projects to a new plan
+     * file.
+     * @param planned Where to keep the planned payments, by key.
+     * @return The plan file.
+     */
+    private PaymentPlanFile plan(final Map<String, Planned> planned) {
+        final long start = System.nanoTime();
+        final String prefix;
+        if(this.dryRun) {
+            prefix = PayInvoices.DRY_RUNS;
+        } else {
+            prefix = PayInvoices.PLANS;
+        }
+        final PaymentPlanFile file = PaymentPlanFile.create(
+            this.directories(),
+            prefix + LocalDateTime.now().format(FILE_NAME) + "-"
+        );
+        try {
+            final Map<ProjectManager, List<Project>> graph =
+                this.snapshot.graph();
+            for(final ProjectManager manager : graph.keySet()) {
+                for(final Project project : graph.get(manager)) {
+                    final PaymentPlan plan = this.planner.plan(project);
+                    LOG.debug("Payment plan of " + plan.report());
+                    file.append(plan);
+                    for(final PaymentPlan.Item item : plan.scheduled()) {
+                        planned.put(
+                            PaymentPlanFile.key(
+                                project.provider(),
+                                project.repoFullName(),
+                                item.invoice().invoiceId()
+                            ),
+                            new Planned(plan.wallet(), item)
+                        );
                     }
                 }
             }
+            final JsonObject totals = file.finish();
+            LOG.info(
+                "Planned payments " + totals + " in "
+                + PayInvoices.millis(start) + "ms: " + file.path()
+            );
+        } finally {
+            file.discard();
+        }
+        return file;
+    }
+
+    /**
+     * Execution phase: pay what was planned and not done yet. If the
+     * application starts shutting down, the rest is left undone and the
+     * plan stays incomplete, to be resumed; otherwise, the plan is marked
+     * complete and deleted.
+     * @param plan Plan file.
+     * @param planned Payments planned in this run, by key; the others are
+     *  looked up again by their ids and checked against the cash left.
+     */
+    private void execute(
+        final PaymentPlanFile plan,
+        final Map<String, Planned> planned
+    ) {
+        final long start = System.nanoTime();
+        final Set<String> done = plan.done();
+        final Map<String, BigDecimal> cash = new HashMap<>();
+        final List<String> skipped = new ArrayList<>();
+        int paid = 0;
+        BigDecimal total = BigDecimal.ZERO;
+        for(final JsonObject entry : plan.entries()) {
+            final String key = PaymentPlanFile.key(entry);
+            if(!done.contains(key) && this.shutdown.stopping()) {
+                skipped.add(key);
+            } else if(!done.contains(key)) {
+                Planned payment = planned.get(key);
+                if(payment == null) {
+                    payment = this.resumed(entry, cash);
+                }
+                if(payment != null && this.pay(payment)) {
+                    paid = paid + 1;
+                    total = total.add(payment.item().invoice().totalAmount());
+                }
+                plan.markDone(key);
+            }
+        }
+        if(skipped.isEmpty()) {
+            plan.complete();
+            plan.delete();
+        } else {
+            this.shutdown.abandoned(PayInvoices.PASS, skipped);
+        }
+        LOG.info(
+            "Executed " + plan.path() + ": paid " + paid + " invoices ("
+            + total + ") in " + PayInvoices.millis(start) + "ms, left "
+            + skipped.size() + " for the next run."
+        );
+    }
+
+    /**
+     * Resume the plans whose execution was interrupted, after deleting the
+     * complete ones which were left behind.
+     */
+    private void resume() {
+        final Path dir = this.directories();
+        PaymentPlanFile.clean(dir, PayInvoices.PLANS);
+        try (
+            DirectoryStream<Path> plans = Files.newDirectoryStream(
+                dir, PayInvoices.PLANS + "*.jsonl"
+            )
+        ) {
+            for(final Path path : plans) {
+                final PaymentPlanFile plan = new PaymentPlanFile(path);
+                if(!plan.isComplete()) {
+                    LOG.info("Resuming the execution of " + path);
+                    this.execute(plan, Map.of());
+                }
+            }
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Find a payment of an interrupted plan again, if it can still be
+     * made: it is skipped if the wallet cannot afford it anymore.
+     * @param entry Plan line.
+     * @param cash Cash left in the wallets, by Project.
+     * @return Planned payment or null if it should not be made.
+     */
+    private Planned resumed(
+        final JsonObject entry,
+        final Map<String, BigDecimal> cash
+    ) {
+        Planned found = this.find(entry);
+        if(found != null && !found.item().invoice().isPaid()
+            && !PayInvoices.affordable(found, cash)) {
+            LOG.info(
+                "Not enough cash left for invoice #"
+                + found.item().invoice().invoiceId() + " of "
+                + found.item().contract().contractId() + ", skipping it."
+            );
+            found = null;
+        }
+        return found;
+    }
+
+    /**
+     * Find a planned payment again, by the ids in the plan line.
+     * @param entry Plan line.
+     * @return Planned payment or null if it cannot be found anymore.
+     */
+    private Planned find(final JsonObject entry) {
+        Planned found = null;
+        final Project project = this.selfCore.projects().getProjectById(
+            entry.getString("repo", null), entry.getString("provider", null)
+        );
+        if(project != null) {
+            for(final Contract contract : project.contracts()) {
+                final Contract.Id id = contract.contractId();
+                if(id.getContributorUsername().equals(
+                    entry.getString("contributor", null)
+                ) && id.getRole().equals(entry.getString("role", null))) {
+                    found = PayInvoices.find(
+                        project.wallet(), contract, entry.getInt("invoice")
+                    );
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Find an Invoice of the given Contract.
+     * @param wallet Wallet paying.
+     * @param contract Contract.
+     * @param invoiceId Invoice id.
+     * @return Planned payment or null if the Invoice is not found.
+     */
+    private static Planned find(
+        final Wallet wallet,
+        final Contract contract,
+        final int invoiceId
+    ) {
+        Planned found = null;
+        for(final Invoice invoice : contract.invoices()) {
+            if(invoice.invoiceId() == invoiceId) {
+                found = new Planned(
+                    wallet, new PaymentPlan.Item(contract, invoice)
+                );
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Can the wallet still afford a payment? If so, its amount is taken
+     * out of the cash left. A wallet which cannot tell its cash affords
+     * everything, as in {@link PaymentPlanner}.
+     * @param planned Planned payment.
+     * @param cash Cash left in the wallets, by Project.
+     * @return True or false.
+     */
+    private static boolean affordable(
+        final Planned planned,
+        final Map<String, BigDecimal> cash
+    ) {
+        final Contract.Id id = planned.item().contract().contractId();
+        final String project = id.getProvider() + ":" + id.getRepoFullName();
+        final BigDecimal amount = planned.item().invoice().totalAmount();
+        final BigDecimal left = cash.computeIfAbsent(
+            project, key -> planned.wallet().cash()
+        );
+        boolean affordable = true;
+        if(left != null) {
+            affordable = left.compareTo(amount) >= 0;
+            if(affordable) {
+                cash.put(project, left.subtract(amount));
+            }
+        }
+        return affordable;
+    }
+
+    /**
+     * Pay a planned Invoice, unless it was paid meanwhile.
+     * @param planned Planned payment.
+     * @return True if the payment was successful.
+     * @checkstyle IllegalCatch (50 lines)
+     */
+    private boolean pay(final Planned planned) {
+        boolean successful = false;
+        final PaymentPlan.Item item = planned.item();
+        if(item.invoice().isPaid()) {
+            LOG.debug(
+                "Invoice #" + item.invoice().invoiceId() + " already paid."
+            );
+        } else {
+            LOG.debug(
+                "Trying to pay invoice #"
+                    + item.invoice().invoiceId()
+                    + " for contract: "
+                    + item.contract().contractId()
+            );
+            final FlightEvents.Payment event = new FlightEvents.Payment(
+                item.contract().contractId().getProvider(),
+                item.contract().contractId().getRepoFullName(),
+                item.invoice().invoiceId()
+            );
+            event.begin();
+            final long start = System.nanoTime();
+            String status = "Error";
+            try {
+                final Payment payment = planned.wallet().pay(item.invoice());
+                status = payment.status();
+                LOG.debug("Payment finished with status: "
+                    + status
+                    + "(" + payment.failReason() + ")");
+                successful = Payment.Status.SUCCESSFUL.equals(status);
+            } catch (final Exception exception) {
+                LOG.error(
+                    "Payment failed due to an unexpected "
+                        + "error: "
+                        + exception.getClass()
+                        .getSimpleName()
+                        + "(" + exception.getMessage() + ")"
+                );
+            } finally {
+                event.finish(status);
+                this.histograms.record(
+                    item.contract().contractId().getProvider() + "/"
+                    + item.contract().contractId().getRepoFullName(),
+                    LatencyHistograms.Operation.PAYMENT,
+                    System.nanoTime() - start
+                );
+            }
+        }
+        return successful;
+    }
+
+    /**
+     * The plans directory, created if missing.
+     * @return Path.
+     */
+    private Path directories() {
+        try {
+            return Files.createDirectories(this.directory);
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * A new temporary directory for the plan files.
+     * @return Path.
+     */
+    private static Path temporary() {
+        try {
+            return Files.createTempDirectory("self-pm-payments");
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Milliseconds elapsed since the given moment.
+     * @param start Moment, from System.nanoTime().
+     * @return Milliseconds.
+     */
+    private static long millis(final long start) {
+        return (System.nanoTime() - start) / 1_000_000L;
+    }
+
+    /**
+     * A planned payment and the wallet paying it.
+     */
+    private static final class Planned {
+
+        /**
+         * Wallet paying.
+         */
+        private final Wallet wallet;
+
+        /**
+         * Planned payment.
+         */
+        private final PaymentPlan.Item item;
+
+        /**
+         * Ctor.
+         * @param wallet Wallet paying.
+         * @param item Planned payment.
+         */
+        Planned(final Wallet wallet, final PaymentPlan.Item item) {
+            this.wallet = wallet;
+            this.item = item;
+        }
+
+        /**
+         * Wallet paying.
+         * @return Wallet.
+         */
+        Wallet wallet() {
+            return this.wallet;
+        }
+
+        /**
+         * Planned payment.
+         * @return Item.
+         */
+        PaymentPlan.Item item() {
+            return this.item;
         }
-        LOG.debug("Done.");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,191 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import com.selfxdsd.api.Contract;
+import com.selfxdsd.api.Invoice;
+import com.selfxdsd.api.Project;
+import com.selfxdsd.api.Wallet;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Which Invoices of a Project will be paid in this run, and which ones
+ * are skipped because the wallet cannot afford them. Built by the
+ * {@link PaymentPlanner}.
+ * @author criske
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class PaymentPlan {
+
+    /**
+     * Project.
+     */
+    private final Project project;
+
+    /**
+     * Wallet which pays.
+     */
+    private final Wallet wallet;
+
+    /**
+     * Cash in the wallet when planning, null if unknown.
+     */
+    private final BigDecimal cash;
+
+    /**
+     * Payments to make, in order.
+     */
+    private final List<Item> scheduled;
+
+    /**
+     * Payments which cannot be afforded.
+     */
+    private final List<Item> unaffordable;
+
+    /**
+     * Ctor.
+     * @param project Project.
+     * @param wallet Wallet which pays.
+     * @param cash Cash in the wallet when planning, null if unknown.
+     * @param scheduled Payments to make, in order.
+     * @param unaffordable Payments which cannot be afforded.
+     * @checkstyle ParameterNumber (10 lines)
+     */
+    public PaymentPlan(
+        final Project project,
+        final Wallet wallet,
+        final BigDecimal cash,
+        final List<Item> scheduled,
+        final List<Item> unaffordable
+    ) {
+        this.project = project;
+        this.wallet = wallet;
+        this.cash = cash;
+        this.scheduled = Collections.unmodifiableList(scheduled);
+        this.unaffordable = Collections.unmodifiableList(unaffordable);
+    }
+
+    /**
+     * Project.
+     * @return Project.
+     */
+    public Project project() {
+        return this.project;
+    }
+
+    /**
+     * Wallet which pays.
+     * @return Wallet.
+     */
+    public Wallet wallet() {
+        return this.wallet;
+    }
+
+    /**
+     * Payments to make, in order.
+     * @return List of items.
+     */
+    public List<Item> scheduled() {
+        return this.scheduled;
+    }
+
+    /**
+     * Payments which cannot be afforded.
+     * @return List of items.
+     */
+    public List<Item> unaffordable() {
+        return this.unaffordable;
+    }
+
+    /**
+     * Total amount of the given items.
+     * @param items Items.
+     * @return BigDecimal.
+     */
+    public static BigDecimal total(final List<Item> items) {
+        BigDecimal total = BigDecimal.ZERO;
+        for(final Item item : items) {
+            total = total.add(item.invoice().totalAmount());
+        }
+        return total;
+    }
+
+    /**
+     * One line report of this plan.
+     * @return String.
+     */
+    public String report() {
+        return this.project.repoFullName() + " at " + this.project.provider()
+            + ": cash " + this.cash
+            + ", " + this.scheduled.size() + " to pay ("
+            + PaymentPlan.total(this.scheduled) + "), "
+            + this.unaffordable.size() + " unaffordable ("
+            + PaymentPlan.total(this.unaffordable) + ")";
+    }
+
+    /**
+     * An Invoice to be paid and its Contract.
+     */
+    public static final class Item {
+
+        /**
+         * Contract.
+         */
+        private final Contract contract;
+
+        /**
+         * Invoice.
+         */
+        private final Invoice invoice;
+
+        /**
+         * Ctor.
+         * @param contract Contract.
+         * @param invoice Invoice.
+         */
+        public Item(final Contract contract, final Invoice invoice) {
+            this.contract = contract;
+            this.invoice = invoice;
+        }
+
+        /**
+         * Contract.
+         * @return Contract.
+         */
+        public Contract contract() {
+            return this.contract;
+        }
+
+        /**
+         * Invoice.
+         * @return Invoice.
+         */
+        public Invoice invoice() {
+            return this.invoice;
+        }
+    }
+}
@@ -0,0 +1,419 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import com.selfxdsd.api.Contract;
+import com.selfxdsd.api.Project;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonValue;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A payment plan written to disk, as JSON lines: one line for each Invoice
+ * to be paid, followed by a line with the totals. The plan is executed
+ * separately; each executed payment is recorded in a ".done" file next to
+ * it, so an interrupted execution can be resumed.<br/>
+ * While it is being written, the plan is kept in a ".part" file, which is
+ * renamed when the plan is finished: a plan that failed halfway is never
+ * found, nor resumed. Once executed, the plan is deleted together with its
+ * ".done" file; the ones left behind by an interruption are cleaned up
+ * later (see {@link #clean(Path, String)}).
+ * @author criske
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class PaymentPlanFile {
+
+    /**
+     * Last line of the ".done" file, once the plan was fully executed.
+     */
+    private static final String COMPLETE = "complete";
+
+    /**
+     * Suffix of the plan file while it is being written.
+     */
+    private static final String PART = ".part";
+
+    /**
+     * Extension of the plan files.
+     */
+    private static final String EXTENSION = ".jsonl";
+
+    /**
+     * Suffix of the file recording the execution of the plan.
+     */
+    private static final String DONE = ".done";
+
+    /**
+     * Plan file.
+     */
+    private final Path path;
+
+    /**
+     * Number of Projects written so far.
+     */
+    private int projects;
+
+    /**
+     * Number of Invoices to pay written so far.
+     */
+    private int invoices;
+
+    /**
+     * Amount to pay written so far.
+     */
+    private BigDecimal amount;
+
+    /**
+     * Number of unaffordable Invoices so far.
+     */
+    private int unaffordable;
+
+    /**
+     * Unaffordable amount so far.
+     */
+    private BigDecimal unaffordableAmount;
+
+    /**
+     * Ctor.
+     * @param path Plan file.
+     */
+    public PaymentPlanFile(final Path path) {
+        this.path = path;
+        this.amount = BigDecimal.ZERO;
+        this.unaffordableAmount = BigDecimal.ZERO;
+    }
+
+    /**
+     * A new plan file, with a unique name, in the given directory.
+     * @param directory Directory.
+     * @param prefix Prefix of the file name.
+     * @return PaymentPlanFile.
+     */
+    public static PaymentPlanFile create(
+        final Path directory,
+        final String prefix
+    ) {
+        try {
+            final String part = Files.createTempFile(
+                directory, prefix, EXTENSION + PART
+            ).getFileName().toString();
+            return new PaymentPlanFile(
+                directory.resolve(
+                    part.substring(0, part.length() - PART.length())
+                )
+            );
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Delete the fully executed plans in the given directory, and the
+     * ".done" files whose plan is gone (e.g. the application stopped
+     * between deleting the two).
+     * @param directory Directory.
+     * @param prefix Prefix of the plan file names.
+     */
+    public static void clean(final Path directory, final String prefix) {
+        try (
+            DirectoryStream<Path> markers = Files.newDirectoryStream(
+                directory, prefix + "*" + EXTENSION + DONE
+            )
+        ) {
+            for(final Path marker : markers) {
+                final String name = marker.getFileName().toString();
+                final PaymentPlanFile plan = new PaymentPlanFile(
+                    marker.resolveSibling(
+                        name.substring(0, name.length() - DONE.length())
+                    )
+                );
+                if(!Files.exists(plan.path()) || plan.isComplete()) {
+                    plan.delete();
+                }
+            }
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Plan file.
+     * @return Path.
+     */
+    public Path path() {
+        return this.path;
+    }
+
+    /**
+     * Key of a planned payment.
+     * @param provider Provider of the Project.
+     * @param repo Repo full name of the Project.
+     * @param invoice Invoice id.
+     * @return String.
+     */
+    public static String key(
+        final String provider,
+        final String repo,
+        final int invoice
+    ) {
+        return provider + ":" + repo + "#" + invoice;
+    }
+
+    /**
+     * Key of a plan line.
+     * @param entry Plan line.
+     * @return String.
+     */
+    public static String key(final JsonObject entry) {
+        return PaymentPlanFile.key(
+            entry.getString("provider", null),
+            entry.getString("repo", null),
+            entry.getInt("invoice")
+        );
+    }
+
+    /**
+     * Append the payments of a Project's plan.
+     * @param plan Plan.
+     */
+    public void append(final PaymentPlan plan) {
+        final Project project = plan.project();
+        final List<String> lines = new ArrayList<>();
+        for(final PaymentPlan.Item item : plan.scheduled()) {
+            final Contract.Id contract = item.contract().contractId();
+            final JsonObjectBuilder line = Json.createObjectBuilder()
+                .add("provider", PaymentPlanFile.text(project.provider()))
+                .add("repo", PaymentPlanFile.text(project.repoFullName()))
+                .add(
+                    "contributor",
+                    PaymentPlanFile.text(contract.getContributorUsername())
+                )
+                .add("role", PaymentPlanFile.text(contract.getRole()))
+                .add("invoice", item.invoice().invoiceId())
+                .add("amount", item.invoice().totalAmount());
+            if(item.invoice().createdAt() != null) {
+                line.add("createdAt", item.invoice().createdAt().toString());
+            }
+            lines.add(line.build().toString());
+        }
+        this.write(this.pending(), lines);
+        this.projects = this.projects + 1;
+        this.invoices = this.invoices + plan.scheduled().size();
+        this.amount = this.amount.add(PaymentPlan.total(plan.scheduled()));
+        this.unaffordable = this.unaffordable + plan.unaffordable().size();
+        this.unaffordableAmount = this.unaffordableAmount.add(
+            PaymentPlan.total(plan.unaffordable())
+        );
+    }
+
+    /**
+     * Finish the plan, writing the totals line and moving it from the
+     * ".part" file to its own path.
+     * @return The totals.
+     */
+    public JsonObject finish() {
+        final JsonObject totals = Json.createObjectBuilder()
+            .add("projects", this.projects)
+            .add("invoices", this.invoices)
+            .add("amount", this.amount)
+            .add("unaffordable", this.unaffordable)
+            .add("unaffordableAmount", this.unaffordableAmount)
+            .build();
+        this.write(
+            this.pending(),
+            List.of(
+                Json.createObjectBuilder().add("totals", totals)
+                    .build().toString()
+            )
+        );
+        try {
+            Files.move(
+                this.pending(), this.path, StandardCopyOption.ATOMIC_MOVE
+            );
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return totals;
+    }
+
+    /**
+     * Discard the plan if it was not finished, deleting its ".part" file.
+     */
+    public void discard() {
+        try {
+            Files.deleteIfExists(this.pending());
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Delete the plan and then its ".done" file, once it was executed. The
+     * plan goes first, so it is never resumed without its ".done" file.
+     */
+    public void delete() {
+        try {
+            Files.deleteIfExists(this.path);
+            Files.deleteIfExists(this.doneFile());
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Planned payments (the totals line is left out).
+     * @return List of plan lines.
+     */
+    public List<JsonObject> entries() {
+        final List<JsonObject> entries = new ArrayList<>();
+        for(final String line : this.read(this.path)) {
+            final JsonObject entry = Json.createReader(
+                new StringReader(line)
+            ).readObject();
+            if(!entry.containsKey("totals")) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Keys of the payments executed so far.
+     * @return Set of keys.
+     */
+    public Set<String> done() {
+        return new HashSet<>(this.read(this.doneFile()));
+    }
+
+    /**
+     * Record that a payment was executed.
+     * @param key Key of the payment.
+     */
+    public void markDone(final String key) {
+        this.write(this.doneFile(), List.of(key));
+    }
+
+    /**
+     * Record that the whole plan was executed.
+     */
+    public void complete() {
+        this.write(this.doneFile(), List.of(COMPLETE));
+    }
+
+    /**
+     * Was the whole plan executed?
+     * @return True or false.
+     */
+    public boolean isComplete() {
+        return this.done().contains(COMPLETE);
+    }
+
+    /**
+     * The ".part" file of this plan, written until the plan is finished.
+     * @return Path.
+     */
+    private Path pending() {
+        return this.path.resolveSibling(this.path.getFileName() + PART);
+    }
+
+    /**
+     * The ".done" file of this plan.
+     * @return Path.
+     */
+    private Path doneFile() {
+        return this.path.resolveSibling(this.path.getFileName() + DONE);
+    }
+
+    /**
+     * Append lines to a file.
+     * @param file File.
+     * @param lines Lines.
+     */
+    private void write(final Path file, final List<String> lines) {
+        try {
+            Files.write(
+                file,
+                lines,
+                StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND
+            );
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Read the lines of a file.
+     * @param file File.
+     * @return Lines, empty if the file does not exist.
+     */
+    private List<String> read(final Path file) {
+        final List<String> lines = new ArrayList<>();
+        if(Files.exists(file)) {
+            try {
+                for(final String line
+                    : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                    if(!line.isBlank()) {
+                        lines.add(line);
+                    }
+                }
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * JSON text value, null if missing.
+     * @param text Text or null.
+     * @return JsonValue.
+     */
+    private static JsonValue text(final String text) {
+        final JsonValue value;
+        if(text == null) {
+            value = JsonValue.NULL;
+        } else {
+            value = Json.createValue(text);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import com.selfxdsd.api.Contract;
+import com.selfxdsd.api.Invoice;
+import com.selfxdsd.api.Project;
+import com.selfxdsd.api.Wallet;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Plans the payments of a Project before any call to the payment provider.
+ * <br/>
+ * From each Contract, the first unpaid Invoice of at least 108 EUR is
+ * eligible. The eligible Invoices are ordered by age (oldest first) and
+ * then by amount (smallest first), and are scheduled as long as the cash
+ * in the wallet, read once, covers them; the rest are unaffordable and
+ * skipped, instead of failing one by one at the provider. If the wallet
+ * cannot tell its cash, everything eligible is scheduled.
+ * @author criske
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class PaymentPlanner {
+
+    /**
+     * Minimum amount of an Invoice to be paid, in cents (108 EUR).
+     */
+    static final BigDecimal MINIMUM = BigDecimal.valueOf(108 * 100);
+
+    /**
+     * Order of the eligible payments: oldest, then smallest, first.
+     */
+    private static final Comparator<PaymentPlan.Item> ORDER =
+        Comparator.comparing(
+            (PaymentPlan.Item item) -> item.invoice().createdAt(),
+            Comparator.nullsLast(Comparator.<LocalDateTime>naturalOrder())
+        ).thenComparing(
+            item -> item.invoice().totalAmount(),
+            Comparator.nullsLast(Comparator.<BigDecimal>naturalOrder())
+        );
+
+    /**
+     * Plan the payments of the given Project.
+     * @param project Project.
+     * @return PaymentPlan.
+     */
+    public PaymentPlan plan(final Project project) {
+        final Wallet wallet = project.wallet();
+        final BigDecimal cash = wallet.cash();
+        final List<PaymentPlan.Item> eligible = new ArrayList<>();
+        for(final Contract contract : project.contracts()) {
+            for(final Invoice invoice : contract.invoices()) {
+                if(PaymentPlanner.eligible(invoice)) {
+                    eligible.add(new PaymentPlan.Item(contract, invoice));
+                    break;
+                }
+            }
+        }
+        eligible.sort(ORDER);
+        final List<PaymentPlan.Item> scheduled = new ArrayList<>();
+        final List<PaymentPlan.Item> unaffordable = new ArrayList<>();
+        BigDecimal left = cash;
+        for(final PaymentPlan.Item item : eligible) {
+            final BigDecimal amount = item.invoice().totalAmount();
+            if(left == null) {
+                scheduled.add(item);
+            } else if(left.compareTo(amount) >= 0) {
+                scheduled.add(item);
+                left = left.subtract(amount);
+            } else {
+                unaffordable.add(item);
+            }
+        }
+        return new PaymentPlan(
+            project, wallet, cash, scheduled, unaffordable
+        );
+    }
+
+    /**
+     * Is the Invoice eligible for payment?
+     * @param invoice Invoice.
+     * @return True or false.
+     */
+    private static boolean eligible(final Invoice invoice) {
+        return !invoice.isPaid()
+            && invoice.totalAmount().compareTo(MINIMUM) >= 0;
+    }
+}
@@ -0,0 +1,270 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import com.selfxdsd.api.Project;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Observed activity of the Projects, used to adapt how often each Project
+ * is reviewed. Every webhook (issue opened, comment, task changed etc.)
+ * raises the Project's activity score, which decays exponentially with the
+ * configured half-life. The review interval is then the maximum interval
+ * divided by (1 + score), bounded by the configured minimum and maximum.
+ * <br/>
+ * Any new activity also makes the Project due for the next review, so a
+ * dormant Project with a new Issue does not wait for its long interval.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+@Component
+public final class ProjectActivity {
+
+    /**
+     * Minimum review interval.
+     */
+    private final Duration min;
+
+    /**
+     * Maximum review interval.
+     */
+    private final Duration max;
+
+    /**
+     * Half-life of the activity score.
+     */
+    private final Duration halfLife;
+
+    /**
+     * Time "now" supplier.
+     */
+    private final Supplier<LocalDateTime> nowSupplier;
+
+    /**
+     * Activity score of each Project.
+     */
+    private final Map<String, Score> scores;
+
+    /**
+     * When each Project was last reviewed, by each sweep.
+     */
+    private final Map<String, Map<String, LocalDateTime>> reviews;
+
+    /**
+     * Ctor with default bounds: between 10 minutes and 24 hours, with
+     * a half-life of 6 hours.
+     */
+    public ProjectActivity() {
+        this(
+            Duration.ofMinutes(10),
+            Duration.ofHours(24),
+            Duration.ofHours(6),
+            LocalDateTime::now
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param min Minimum review interval.
+     * @param max Maximum review interval.
+     * @param halfLife Half-life of the activity score.
+     */
+    @Autowired
+    public ProjectActivity(
+        @Value("${self.pm.cadence.min:PT10M}") final Duration min,
+        @Value("${self.pm.cadence.max:PT24H}") final Duration max,
+        @Value("${self.pm.cadence.half-life:PT6H}") final Duration halfLife
+    ) {
+        this(min, max, halfLife, LocalDateTime::now);
+    }
+
+    /**
+     * Ctor.
+     * @param min Minimum review interval.
+     * @param max Maximum review interval.
+     * @param halfLife Half-life of the activity score.
+     * @param nowSupplier Time "now" supplier.
+     */
+    ProjectActivity(
+        final Duration min,
+        final Duration max,
+        final Duration halfLife,
+        final Supplier<LocalDateTime> nowSupplier
+    ) {
+        this.min = min;
+        this.max = max;
+        this.halfLife = halfLife;
+        this.nowSupplier = nowSupplier;
+        this.scores = new ConcurrentHashMap<>();
+        this.reviews = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Record some activity (e.g. a webhook) of the given Project.
+     * @param project Project.
+     */
+    public void record(final Project project) {
+        final String key = ProjectActivity.key(project);
+        final LocalDateTime now = this.nowSupplier.get();
+        this.scores.compute(
+            key,
+            (prj, score) -> {
+                final double current;
+                if(score == null) {
+                    current = 0;
+                } else {
+                    current = score.value(now, this.halfLife);
+                }
+                return new Score(current + 1, now);
+            }
+        );
+        this.reviews.remove(key);
+    }
+
+    /**
+     * Current review interval of the given Project.
+     * @param project Project.
+     * @return Duration.
+     */
+    public Duration interval(final Project project) {
+        final Score score = this.scores.get(ProjectActivity.key(project));
+        double value = 0;
+        if(score != null) {
+            value = score.value(this.nowSupplier.get(), this.halfLife);
+        }
+        final Duration interval = Duration.ofMillis(
+            (long) (this.max.toMillis() / (1 + value))
+        );
+        Duration bounded = interval;
+        if(interval.compareTo(this.min) < 0) {
+            bounded = this.min;
+        }
+        return bounded;
+    }
+
+    /**
+     * Should the given Project be reviewed now by the given sweep?
+     * @param sweep Name of the sweep.
+     * @param project Project.
+     * @return True or false.
+     */
+    public boolean due(final String sweep, final Project project) {
+        final LocalDateTime last = this.reviews.getOrDefault(
+            ProjectActivity.key(project), Map.of()
+        ).get(sweep);
+        return last == null || !last.plus(this.interval(project)).isAfter(
+            this.nowSupplier.get()
+        );
+    }
+
+    /**
+     * The given Project has just been reviewed successfully by the given
+     * sweep. The review is stamped with the moment when the sweep's pass
+     * started, since that is when the Projects were found due: a Project
+     * reviewed at the end of a long pass is then due again at the next
+     * pass, not one pass later. If there was new activity since the pass
+     * started, the review is not recorded and the Project stays due.
+     * @param sweep Name of the sweep.
+     * @param project Project.
+     * @param started When the pass started (see {@link #now()}).
+     */
+    public void reviewed(
+        final String sweep,
+        final Project project,
+        final LocalDateTime started
+    ) {
+        final String key = ProjectActivity.key(project);
+        final Map<String, LocalDateTime> reviewed = this.reviews
+            .computeIfAbsent(key, prj -> new ConcurrentHashMap<>());
+        reviewed.put(sweep, started);
+        final Score score = this.scores.get(key);
+        if(score != null && score.updated.isAfter(started)) {
+            reviewed.remove(sweep);
+        }
+    }
+
+    /**
+     * The current moment, by the clock of this activity. The sweeps read it
+     * when their pass starts.
+     * @return LocalDateTime.
+     */
+    public LocalDateTime now() {
+        return this.nowSupplier.get();
+    }
+
+    /**
+     * Key of a Project.
+     * @param project Project.
+     * @return String.
+     */
+    private static String key(final Project project) {
+        return project.provider() + ":" + project.repoFullName();
+    }
+
+    /**
+     * Exponentially decaying activity score.
+     */
+    private static final class Score {
+
+        /**
+         * Value at the moment of the last update.
+         */
+        private final double val;
+
+        /**
+         * Moment of the last update.
+         */
+        private final LocalDateTime updated;
+
+        /**
+         * Ctor.
+         * @param val Value.
+         * @param updated Moment of the update.
+         */
+        Score(final double val, final LocalDateTime updated) {
+            this.val = val;
+            this.updated = updated;
+        }
+
+        /**
+         * Decayed value at the given moment.
+         * @param now Moment.
+         * @param halfLife Half-life.
+         * @return Double.
+         */
+        double value(final LocalDateTime now, final Duration halfLife) {
+            final double elapsed = Duration.between(this.updated, now)
+                .toMillis();
+            return this.val * Math.pow(2, -elapsed / halfLife.toMillis());
+        }
+    }
+}
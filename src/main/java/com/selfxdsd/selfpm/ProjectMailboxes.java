@@ -0,0 +1,452 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import com.selfxdsd.api.Project;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * One mailbox per Project: the work on a Project (resolving its webhook
+ * events, sweeping it) runs strictly in the order it was submitted, one
+ * job at a time, while different Projects run in parallel on a shared
+ * pool of workers.<br/>
+ * A job may also be asynchronous (see {@link #submitAsync(String, Supplier)}):
+ * the mailbox then stays busy until the work it started is finished, without
+ * holding a worker meanwhile. This way, work which goes on in the background
+ * (e.g. a resolve whose wait timed out, see {@link ProviderGuards}) never
+ * overlaps with the next job of the Project.<br/>
+ * Mailboxes are created on demand and evicted once they are empty and idle
+ * for a while, so their number stays bounded by the active Projects.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ * @checkstyle IllegalCatch (400 lines)
+ */
+@Component
+public final class ProjectMailboxes {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(
+        ProjectMailboxes.class
+    );
+
+    /**
+     * Jobs run by a mailbox before it yields its worker to other mailboxes.
+     */
+    private static final int BATCH = 16;
+
+    /**
+     * Mailbox of each Project key.
+     */
+    private final Map<String, Mailbox> mailboxes;
+
+    /**
+     * Shared workers.
+     */
+    private final Executor workers;
+
+    /**
+     * After how long an empty mailbox is evicted (nanos).
+     */
+    private final long idle;
+
+    /**
+     * Clock (nanos).
+     */
+    private final LongSupplier clock;
+
+    /**
+     * Jobs submitted and not finished yet.
+     */
+    private final AtomicInteger pending;
+
+    /**
+     * Ctor.
+     * @param workers Number of shared workers.
+     * @param idle After how long an empty mailbox is evicted.
+     * @param registry Meter registry.
+     */
+    @Autowired
+    public ProjectMailboxes(
+        @Value("${self.pm.mailboxes.workers:16}") final int workers,
+        @Value("${self.pm.mailboxes.idle:PT10M}") final Duration idle,
+        final MeterRegistry registry
+    ) {
+        this(
+            Executors.newFixedThreadPool(
+                workers, new CustomizableThreadFactory("mailboxes-")
+            ),
+            idle,
+            System::nanoTime,
+            registry
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param workers Shared workers.
+     * @param idle After how long an empty mailbox is evicted.
+     * @param clock Clock (nanos).
+     * @param registry Meter registry.
+     */
+    ProjectMailboxes(
+        final Executor workers,
+        final Duration idle,
+        final LongSupplier clock,
+        final MeterRegistry registry
+    ) {
+        this.mailboxes = new ConcurrentHashMap<>();
+        this.workers = workers;
+        this.idle = idle.toNanos();
+        this.clock = clock;
+        this.pending = new AtomicInteger();
+        registry.gauge(
+            "self.pm.mailboxes", this.mailboxes, Map::size
+        );
+    }
+
+    /**
+     * Mailboxes which run the jobs in the caller's thread, for tests.
+     * @return ProjectMailboxes.
+     */
+    public static ProjectMailboxes direct() {
+        return new ProjectMailboxes(
+            Runnable::run, Duration.ofMinutes(10), System::nanoTime,
+            new SimpleMeterRegistry()
+        );
+    }
+
+    /**
+     * Key of a Project's mailbox.
+     * @param project Project.
+     * @return String.
+     */
+    public static String key(final Project project) {
+        return project.provider() + "/" + project.repoFullName();
+    }
+
+    /**
+     * Submit a job to a Project's mailbox, without waiting for it.
+     * @param key Key of the Project.
+     * @param job Job.
+     * @return Future completed when the job has run.
+     */
+    public CompletableFuture<Void> submit(
+        final String key,
+        final Runnable job
+    ) {
+        return this.submitAsync(
+            key,
+            () -> {
+                job.run();
+                return CompletableFuture.completedFuture(null);
+            }
+        );
+    }
+
+    /**
+     * Submit an asynchronous job to a Project's mailbox, without waiting
+     * for it. The mailbox runs its next job only after the stage started
+     * by this one is completed.
+     * @param key Key of the Project.
+     * @param job Job, starting some work and returning its stage.
+     * @return Future completed when the work started by the job is
+     *  finished.
+     */
+    public CompletableFuture<Void> submitAsync(
+        final String key,
+        final Supplier<? extends CompletionStage<?>> job
+    ) {
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        this.pending.incrementAndGet();
+        done.whenComplete((result, error) -> this.pending.decrementAndGet());
+        final Supplier<CompletionStage<?>> letter = () -> {
+            CompletionStage<?> stage;
+            try {
+                stage = job.get();
+            } catch (final Throwable ex) {
+                stage = CompletableFuture.failedFuture(ex);
+            }
+            return stage.whenComplete(
+                (result, error) -> ProjectMailboxes.complete(done, error)
+            );
+        };
+        final Mailbox mailbox = this.mailboxes.compute(
+            key,
+            (name, existing) -> {
+                Mailbox box = existing;
+                if(box == null) {
+                    box = new Mailbox();
+                }
+                box.post(letter, this.clock.getAsLong());
+                return box;
+            }
+        );
+        mailbox.schedule(this.workers);
+        return done;
+    }
+
+    /**
+     * Number of mailboxes.
+     * @return Integer.
+     */
+    public int size() {
+        return this.mailboxes.size();
+    }
+
+    /**
+     * Number of jobs submitted and not finished yet, in all the mailboxes.
+     * @return Integer.
+     */
+    public int backlog() {
+        return this.pending.get();
+    }
+
+    /**
+     * Let the mailboxes finish their jobs, then stop the workers. Whatever
+     * is not finished when the timeout is up is abandoned.
+     * @param timeout How long to wait for the jobs.
+     * @return Number of abandoned jobs.
+     */
+    public int drain(final Duration timeout) {
+        final long deadline = System.nanoTime() + timeout.toNanos();
+        try {
+            while(this.pending.get() > 0 && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(50);
+            }
+            if(this.workers instanceof ExecutorService) {
+                final ExecutorService pool = (ExecutorService) this.workers;
+                pool.shutdown();
+                pool.awaitTermination(
+                    Math.max(0, deadline - System.nanoTime()),
+                    TimeUnit.NANOSECONDS
+                );
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return this.pending.get();
+    }
+
+    /**
+     * Evict the mailboxes which are empty and idle.
+     */
+    @Scheduled(fixedDelay = 60_000L, initialDelay = 60_000L)
+    public void evict() {
+        final long now = this.clock.getAsLong();
+        for(final String key : this.mailboxes.keySet()) {
+            this.mailboxes.computeIfPresent(
+                key,
+                (name, box) -> {
+                    Mailbox kept = box;
+                    if(box.idle(now, this.idle)) {
+                        kept = null;
+                    }
+                    return kept;
+                }
+            );
+        }
+    }
+
+    /**
+     * Stop the workers, when the application shuts down.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if(this.workers instanceof ExecutorService) {
+            ((ExecutorService) this.workers).shutdown();
+        }
+    }
+
+    /**
+     * Complete a job's future.
+     * @param done Future of the job.
+     * @param error Error of the job, null if it succeeded.
+     */
+    private static void complete(
+        final CompletableFuture<Void> done,
+        final Throwable error
+    ) {
+        if(error == null) {
+            done.complete(null);
+        } else if(error instanceof CompletionException
+            && error.getCause() != null) {
+            done.completeExceptionally(error.getCause());
+        } else {
+            done.completeExceptionally(error);
+        }
+    }
+
+    /**
+     * Mailbox of a Project. Jobs are posted while holding the lock of the
+     * mailboxes' map, so a mailbox is never evicted with jobs in it.
+     * @author Mihai Andronache (amihaiemil@gmail.com)
+     * @version $Id$
+     * @since 0.0.17
+     */
+    private static final class Mailbox {
+
+        /**
+         * Jobs waiting.
+         */
+        private final Queue<Supplier<CompletionStage<?>>> jobs =
+            new ConcurrentLinkedQueue<>();
+
+        /**
+         * Is a worker running (or about to run) this mailbox, or is it
+         * waiting for the work of an asynchronous job?
+         */
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        /**
+         * When the last job was posted (nanos).
+         */
+        private volatile long active;
+
+        /**
+         * Post a job.
+         * @param job Job.
+         * @param now Now (nanos).
+         */
+        void post(final Supplier<CompletionStage<?>> job, final long now) {
+            this.jobs.add(job);
+            this.active = now;
+        }
+
+        /**
+         * Make sure a worker runs this mailbox.
+         * @param workers Workers.
+         */
+        void schedule(final Executor workers) {
+            if(!this.jobs.isEmpty()
+                && this.scheduled.compareAndSet(false, true)) {
+                workers.execute(() -> this.drain(workers));
+            }
+        }
+
+        /**
+         * Run a batch of jobs, then yield the worker. If a job's work is
+         * still going on, the worker is yielded too, and the mailbox is
+         * drained again once that work is finished.
+         * @param workers Workers.
+         */
+        void drain(final Executor workers) {
+            boolean waiting = false;
+            try {
+                int count = 0;
+                Supplier<CompletionStage<?>> job = this.jobs.poll();
+                while(job != null) {
+                    final CompletableFuture<?> work = Mailbox.start(job);
+                    count = count + 1;
+                    if(!work.isDone()) {
+                        waiting = true;
+                        work.whenComplete(
+                            (result, error) -> this.resume(workers)
+                        );
+                        job = null;
+                    } else if(count < BATCH) {
+                        job = this.jobs.poll();
+                    } else {
+                        job = null;
+                    }
+                }
+            } finally {
+                if(!waiting) {
+                    this.scheduled.set(false);
+                    this.schedule(workers);
+                }
+            }
+        }
+
+        /**
+         * Drain again, once the work of an asynchronous job is finished.
+         * @param workers Workers.
+         */
+        void resume(final Executor workers) {
+            try {
+                workers.execute(() -> this.drain(workers));
+            } catch (final RejectedExecutionException ex) {
+                this.scheduled.set(false);
+            }
+        }
+
+        /**
+         * Is this mailbox empty and idle?
+         * @param now Now (nanos).
+         * @param after After how long a mailbox is idle (nanos).
+         * @return True or false.
+         */
+        boolean idle(final long now, final long after) {
+            return this.jobs.isEmpty() && !this.scheduled.get()
+                && now - this.active >= after;
+        }
+
+        /**
+         * Start a job. Whatever it throws, even an Error, is logged and
+         * fails its work, so the mailbox goes on with the next job.
+         * @param job Job.
+         * @return Work started by the job.
+         */
+        private static CompletableFuture<?> start(
+            final Supplier<CompletionStage<?>> job
+        ) {
+            CompletableFuture<?> work;
+            try {
+                work = job.get().toCompletableFuture();
+            } catch (final Throwable ex) {
+                LOG.error("A job of a Project's mailbox failed.", ex);
+                work = CompletableFuture.failedFuture(ex);
+            }
+            return work;
+        }
+    }
+}
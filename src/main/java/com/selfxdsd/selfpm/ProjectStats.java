@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Admin endpoint with the latency statistics of the Projects (see
+ * {@link LatencyHistograms}): percentiles of each operation and the
+ * most expensive Projects. Requests must send the {@link AdminToken}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+@RestController
+public final class ProjectStats {
+
+    /**
+     * Admin token.
+     */
+    private final AdminToken token;
+
+    /**
+     * Latency histograms.
+     */
+    private final LatencyHistograms histograms;
+
+    /**
+     * Ctor.
+     * @param token Admin token.
+     * @param histograms Latency histograms.
+     */
+    @Autowired
+    public ProjectStats(
+        final AdminToken token,
+        final LatencyHistograms histograms
+    ) {
+        this.token = token;
+        this.histograms = histograms;
+    }
+
+    /**
+     * Latency statistics.
+     * @param auth Admin token sent by the client.
+     * @param top How many of the most expensive Projects to show.
+     * @return JSON statistics or UNAUTHORIZED.
+     */
+    @GetMapping(
+        value = "/admin/stats",
+        produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<String> stats(
+        @RequestHeader(value = AdminToken.HEADER, required = false)
+        final String auth,
+        @RequestParam(value = "top", defaultValue = "10") final int top
+    ) {
+        final ResponseEntity<String> response;
+        if(this.token.accepts(auth)) {
+            response = ResponseEntity.ok(
+                this.histograms.stats(Math.max(0, top)).toString()
+            );
+        } else {
+            response = ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return response;
+    }
+}
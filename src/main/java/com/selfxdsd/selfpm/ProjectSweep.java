@@ -0,0 +1,315 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import com.selfxdsd.api.Project;
+import com.selfxdsd.api.ProjectManager;
+import com.selfxdsd.api.Self;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * A sweep over all the Projects of all the PMs, as seen by a
+ * {@link ProjectsSnapshot}. The scheduled reviews plug their per-Project
+ * action into it, while the {@link SweepHook} takes care of timing and of
+ * the error policy. Each Project is swept in its
+ * {@link ProjectMailboxes mailbox}, so it never races with the resolving
+ * of its webhook events; if the wait for a Project times out, the sweep
+ * moves on, while the Project's mailbox stays busy until its work is
+ * finished. The Projects are swept in the
+ * {@link FairShares fair order} of their owners, so the Projects of a
+ * small owner are not left at the end of a long sweep. When the
+ * application shuts down, the sweep stops after the current Project and
+ * reports the rest to the {@link ShutdownCoordinator}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ * @checkstyle IllegalCatch (300 lines)
+ */
+public final class ProjectSweep {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(
+        ProjectSweep.class
+    );
+
+    /**
+     * Name of the sweep (e.g. "assigned tasks").
+     */
+    private final String name;
+
+    /**
+     * Snapshot of the PMs and their Projects.
+     */
+    private final ProjectsSnapshot snapshot;
+
+    /**
+     * Hook.
+     */
+    private final SweepHook hook;
+
+    /**
+     * Guards of the providers, isolating the work on each Project.
+     */
+    private final ProviderGuards guards;
+
+    /**
+     * Mailboxes of the Projects.
+     */
+    private final ProjectMailboxes mailboxes;
+
+    /**
+     * Fair shares of the Project owners.
+     */
+    private final FairShares shares;
+
+    /**
+     * Tracing: a span per sweep, with a child span per Project.
+     */
+    private final Tracing tracing;
+
+    /**
+     * Coordinator of the shutdown.
+     */
+    private final ShutdownCoordinator shutdown;
+
+    /**
+     * Ctor. The PMs and Projects are read straight from Self's core.
+     * @param name Name of the sweep.
+     * @param selfCore Self's core.
+     * @param hook Hook.
+     */
+    public ProjectSweep(
+        final String name,
+        final Self selfCore,
+        final SweepHook hook
+    ) {
+        this(
+            name, ProjectsSnapshot.uncached(selfCore), hook,
+            new ProviderGuards()
+        );
+    }
+
+    /**
+     * Ctor. The Projects are swept in the caller's thread.
+     * @param name Name of the sweep.
+     * @param snapshot Snapshot of the PMs and their Projects.
+     * @param hook Hook.
+     * @param guards Guards of the providers.
+     */
+    public ProjectSweep(
+        final String name,
+        final ProjectsSnapshot snapshot,
+        final SweepHook hook,
+        final ProviderGuards guards
+    ) {
+        this(
+            name, snapshot, hook, guards, ProjectMailboxes.direct(),
+            new FairShares(), Tracing.noop(), ShutdownCoordinator.unmanaged()
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param name Name of the sweep.
+     * @param snapshot Snapshot of the PMs and their Projects.
+     * @param hook Hook.
+     * @param guards Guards of the providers.
+     * @param mailboxes Mailboxes of the Projects.
+     * @param shares Fair shares of the Project owners.
+     * @param tracing Tracing of the sweeps.
+     * @param shutdown Coordinator of the shutdown.
+     * @checkstyle ParameterNumber (10 lines)
+     */
+    public ProjectSweep(
+        final String name,
+        final ProjectsSnapshot snapshot,
+        final SweepHook hook,
+        final ProviderGuards guards,
+        final ProjectMailboxes mailboxes,
+        final FairShares shares,
+        final Tracing tracing,
+        final ShutdownCoordinator shutdown
+    ) {
+        this.name = name;
+        this.snapshot = snapshot;
+        this.hook = hook;
+        this.guards = guards;
+        this.mailboxes = mailboxes;
+        this.shares = shares;
+        this.tracing = tracing;
+        this.shutdown = shutdown;
+    }
+
+    /**
+     * Run the action on every Project.
+     * @param action Action.
+     */
+    public void run(final Consumer<Project> action) {
+        this.run(project -> true, action);
+    }
+
+    /**
+     * Run the action on the selected Projects. Nothing is run if the
+     * application is shutting down.
+     * @param selected Which Projects should be swept.
+     * @param action Action.
+     */
+    public void run(
+        final Predicate<Project> selected,
+        final Consumer<Project> action
+    ) {
+        if(this.shutdown.enter(this.name)) {
+            try {
+                this.pass(selected, action);
+            } finally {
+                this.shutdown.exit(this.name);
+            }
+        } else {
+            LOG.info("Shutting down, skipping the " + this.name + " sweep.");
+        }
+    }
+
+    /**
+     * One pass over the selected Projects, until the end or until the
+     * application starts shutting down.
+     * @param selected Which Projects should be swept.
+     * @param action Action.
+     */
+    private void pass(
+        final Predicate<Project> selected,
+        final Consumer<Project> action
+    ) {
+        final long start = System.nanoTime();
+        final FlightEvents.Sweep event = new FlightEvents.Sweep(this.name);
+        event.begin();
+        this.hook.started(this.name);
+        final List<Project> projects = this.selected(selected);
+        final List<String> remaining = new ArrayList<>();
+        int swept = 0;
+        try (Tracing.Span span = this.tracing.start("sweep")) {
+            span.attribute("sweep", this.name);
+            boolean proceed = true;
+            for(final Project project : this.shares.interleave(projects)) {
+                if(proceed && this.shutdown.stopping()) {
+                    remaining.add(ProjectMailboxes.key(project));
+                } else if(proceed) {
+                    swept = swept + 1;
+                    proceed = this.sweep(project, action);
+                }
+            }
+            span.attribute("swept", swept);
+        }
+        event.finish(swept);
+        if(!remaining.isEmpty()) {
+            this.shutdown.abandoned(this.name, remaining);
+        }
+        this.hook.finished(
+            this.name, swept, Duration.ofNanos(System.nanoTime() - start)
+        );
+    }
+
+    /**
+     * The selected Projects of all the PMs.
+     * @param selected Which Projects should be swept.
+     * @return Projects.
+     */
+    private List<Project> selected(final Predicate<Project> selected) {
+        final List<Project> projects = new ArrayList<>();
+        final Map<ProjectManager, List<Project>> graph = this.snapshot.graph();
+        for(final Map.Entry<ProjectManager, List<Project>> managed
+            : graph.entrySet()) {
+            LOG.debug(
+                "PM @" + managed.getKey().username() + " reviewing their "
+                + this.name + "..."
+            );
+            for(final Project project : managed.getValue()) {
+                if(selected.test(project)) {
+                    projects.add(project);
+                }
+            }
+        }
+        return projects;
+    }
+
+    /**
+     * Sweep a single Project, in its mailbox and through the guard of its
+     * provider.
+     * @param project Project.
+     * @param action Action.
+     * @return True if the sweep should go on.
+     */
+    private boolean sweep(
+        final Project project,
+        final Consumer<Project> action
+    ) {
+        boolean proceed = true;
+        final long start = System.nanoTime();
+        final FlightEvents.Resolve event = new FlightEvents.Resolve(
+            project.provider(), project.repoFullName(), this.name
+        );
+        final Tracing.Span span = this.tracing.start("sweep.project")
+            .attribute("repo", project.repoFullName());
+        try {
+            this.guards.await(
+                project.provider(),
+                ProviderGuards.Caller.SWEEPS,
+                this.mailboxes.submitAsync(
+                    ProjectMailboxes.key(project),
+                    () -> this.guards.submit(
+                        project.provider(),
+                        ProviderGuards.Caller.SWEEPS,
+                        () -> {
+                            event.begin();
+                            try {
+                                action.accept(project);
+                            } finally {
+                                event.commit();
+                            }
+                        }
+                    )
+                )
+            );
+            this.hook.swept(
+                this.name,
+                project,
+                Duration.ofNanos(System.nanoTime() - start)
+            );
+        } catch (final RuntimeException ex) {
+            span.failed(ex);
+            proceed = this.hook.failed(this.name, project, ex);
+        } finally {
+            span.close();
+        }
+        return proceed;
+    }
+}
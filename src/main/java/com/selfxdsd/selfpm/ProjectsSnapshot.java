@@ -0,0 +1,327 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import com.selfxdsd.api.Project;
+import com.selfxdsd.api.ProjectManager;
+import com.selfxdsd.api.Self;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Snapshot of the PMs and of the Projects they manage, shared by the
+ * scheduled jobs, so they don't all reload the same rows from the database.
+ * <br/>
+ * The PMs and the Projects of each PM are reloaded separately, once they
+ * are older than the given TTL, or once they are invalidated (e.g. a
+ * webhook announced that a repo was renamed). Each call to
+ * {@link #graph()} returns an immutable view, so a pass over it is
+ * consistent, even if the snapshot is refreshed meanwhile.<br/>
+ * The Projects of each PM are loaded under that PM's own lock, so a slow
+ * PM doesn't hold up the readers of the others; a load which overlaps
+ * with an invalidation is returned to its caller, but not kept. The PMs
+ * which are gone are pruned.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+@Component
+public final class ProjectsSnapshot {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(
+        ProjectsSnapshot.class
+    );
+
+    /**
+     * Self's core.
+     */
+    private final Self selfCore;
+
+    /**
+     * For how long the loaded PMs and Projects are used.
+     */
+    private final Duration ttl;
+
+    /**
+     * Clock.
+     */
+    private final Supplier<Instant> clock;
+
+    /**
+     * Lock guarding the loading of the PMs.
+     */
+    private final Object lock;
+
+    /**
+     * Lock guarding the loading of the Projects of each PM, by PM id.
+     */
+    private final Map<Integer, Object> locks;
+
+    /**
+     * Projects of each PM, by PM id.
+     */
+    private final Map<Integer, Loaded<List<Project>>> projects;
+
+    /**
+     * Number of invalidations so far.
+     */
+    private final AtomicLong invalidations;
+
+    /**
+     * Loaded PMs.
+     */
+    private volatile Loaded<List<ProjectManager>> managers;
+
+    /**
+     * Ctor.
+     * @param selfCore Self's core.
+     * @param ttl For how long the loaded PMs and Projects are used.
+     */
+    @Autowired
+    public ProjectsSnapshot(
+        final Self selfCore,
+        @Value("${self.pm.snapshot.ttl:PT5M}") final Duration ttl
+    ) {
+        this(selfCore, ttl, Instant::now);
+    }
+
+    /**
+     * Ctor.
+     * @param selfCore Self's core.
+     * @param ttl For how long the loaded PMs and Projects are used.
+     * @param clock Clock.
+     */
+    ProjectsSnapshot(
+        final Self selfCore,
+        final Duration ttl,
+        final Supplier<Instant> clock
+    ) {
+        this.selfCore = selfCore;
+        this.ttl = ttl;
+        this.clock = clock;
+        this.lock = new Object();
+        this.locks = new ConcurrentHashMap<>();
+        this.projects = new ConcurrentHashMap<>();
+        this.invalidations = new AtomicLong();
+    }
+
+    /**
+     * A snapshot which reloads everything on each call, so the reads go
+     * straight to Self's core.
+     * @param selfCore Self's core.
+     * @return ProjectsSnapshot.
+     */
+    public static ProjectsSnapshot uncached(final Self selfCore) {
+        return new ProjectsSnapshot(selfCore, Duration.ZERO);
+    }
+
+    /**
+     * The PMs.
+     * @return Immutable list of PMs.
+     */
+    public List<ProjectManager> managers() {
+        final Instant now = this.clock.get();
+        Loaded<List<ProjectManager>> loaded = this.managers;
+        if(loaded == null || loaded.expired(now)) {
+            synchronized (this.lock) {
+                loaded = this.managers;
+                if(loaded == null || loaded.expired(now)) {
+                    final List<ProjectManager> managers = new ArrayList<>();
+                    for(final ProjectManager manager
+                        : this.selfCore.projectManagers()) {
+                        managers.add(manager);
+                    }
+                    loaded = new Loaded<>(
+                        Collections.unmodifiableList(managers),
+                        now.plus(this.ttl)
+                    );
+                    this.managers = loaded;
+                    LOG.debug("Reloaded " + managers.size() + " PMs.");
+                }
+            }
+        }
+        return loaded.value();
+    }
+
+    /**
+     * The PMs and the Projects each of them manages.
+     * @return Immutable map of PM to the Projects they manage.
+     */
+    public Map<ProjectManager, List<Project>> graph() {
+        final Map<ProjectManager, List<Project>> graph = new LinkedHashMap<>();
+        final Set<Integer> ids = new HashSet<>();
+        for(final ProjectManager manager : this.managers()) {
+            ids.add(manager.id());
+            graph.put(manager, this.projects(manager));
+        }
+        this.projects.keySet().retainAll(ids);
+        this.locks.keySet().retainAll(ids);
+        return Collections.unmodifiableMap(graph);
+    }
+
+    /**
+     * Invalidate the Projects of the PM managing the given Project, so they
+     * are reloaded on the next call.
+     * @param project Project which changed.
+     */
+    public void invalidate(final Project project) {
+        final ProjectManager manager = project.projectManager();
+        this.invalidations.incrementAndGet();
+        if(manager != null) {
+            this.projects.remove(manager.id());
+        } else {
+            this.projects.clear();
+        }
+    }
+
+    /**
+     * Invalidate everything.
+     */
+    public void invalidate() {
+        synchronized (this.lock) {
+            this.managers = null;
+        }
+        this.invalidations.incrementAndGet();
+        this.projects.clear();
+    }
+
+    /**
+     * The Projects of a PM, reloaded under the PM's lock if they expired.
+     * @param manager PM.
+     * @return Immutable list of Projects.
+     */
+    private List<Project> projects(final ProjectManager manager) {
+        final Instant now = this.clock.get();
+        Loaded<List<Project>> loaded = this.projects.get(manager.id());
+        if(loaded == null || loaded.expired(now)) {
+            synchronized (
+                this.locks.computeIfAbsent(manager.id(), id -> new Object())
+            ) {
+                loaded = this.projects.get(manager.id());
+                if(loaded == null || loaded.expired(now)) {
+                    loaded = this.load(manager, now);
+                }
+            }
+        }
+        return loaded.value();
+    }
+
+    /**
+     * Load the Projects of a PM and keep them, unless the snapshot was
+     * invalidated meanwhile.
+     * @param manager PM.
+     * @param now Moment of the load.
+     * @return Loaded Projects.
+     */
+    private Loaded<List<Project>> load(
+        final ProjectManager manager,
+        final Instant now
+    ) {
+        final long before = this.invalidations.get();
+        final List<Project> managed = new ArrayList<>();
+        for(final Project project : manager.projects()) {
+            managed.add(project);
+        }
+        final Loaded<List<Project>> loaded = new Loaded<>(
+            Collections.unmodifiableList(managed), now.plus(this.ttl)
+        );
+        this.projects.compute(
+            manager.id(),
+            (id, previous) -> {
+                Loaded<List<Project>> kept = previous;
+                if(this.invalidations.get() == before) {
+                    kept = loaded;
+                }
+                return kept;
+            }
+        );
+        LOG.debug(
+            "Reloaded " + managed.size() + " Projects of PM @"
+            + manager.username() + "."
+        );
+        return loaded;
+    }
+
+    /**
+     * A loaded value and the moment it expires.
+     * @param <T> Type of the value.
+     */
+    private static final class Loaded<T> {
+
+        /**
+         * Loaded value.
+         */
+        private final T value;
+
+        /**
+         * When it expires.
+         */
+        private final Instant expires;
+
+        /**
+         * Ctor.
+         * @param value Loaded value.
+         * @param expires When it expires.
+         */
+        Loaded(final T value, final Instant expires) {
+            this.value = value;
+            this.expires = expires;
+        }
+
+        /**
+         * The loaded value.
+         * @return T.
+         */
+        T value() {
+            return this.value;
+        }
+
+        /**
+         * Is it expired?
+         * @param now Moment now.
+         * @return True or false.
+         */
+        boolean expired(final Instant now) {
+            return !this.expires.isAfter(now);
+        }
+    }
+}
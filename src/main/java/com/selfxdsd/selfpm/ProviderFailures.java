@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tells which errors are failures of the provider (Github, GitLab) itself,
+ * so only they count towards opening its {@link CircuitBreaker}. These are
+ * the I/O errors (e.g. the connection was refused or timed out) and the
+ * HTTP responses which say the provider is in trouble (5xx, 429), found
+ * anywhere in the chain of causes. Anything else (database errors, bugs,
+ * a 404 or 403 of a single repo) says nothing about the provider.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class ProviderFailures {
+
+    /**
+     * Type of the errors which are not failures of the provider.
+     */
+    public static final String NONE = "";
+
+    /**
+     * How deep to look into the chain of causes.
+     */
+    private static final int DEPTH = 10;
+
+    /**
+     * HTTP statuses in the message of an error, as self-core reports them
+     * (e.g. "Expected status 200, but got 502.").
+     */
+    private static final Pattern STATUS = Pattern.compile(
+        "\\b[1-5]\\d{2}\\b"
+    );
+
+    /**
+     * Too Many Requests.
+     */
+    private static final int TOO_MANY = 429;
+
+    /**
+     * First server error status.
+     */
+    private static final int SERVER_ERROR = 500;
+
+    /**
+     * Type of the provider failure: timeout, io, http-429 or http-5xx.
+     * @param error Error thrown by a call to the provider.
+     * @return Type, {@link #NONE} if the error is not the provider's.
+     */
+    public String type(final Throwable error) {
+        String type = ProviderFailures.NONE;
+        Throwable cause = error;
+        for(int depth = 0; depth < ProviderFailures.DEPTH
+            && cause != null && type.isEmpty(); depth = depth + 1) {
+            type = ProviderFailures.own(cause);
+            cause = cause.getCause();
+        }
+        return type;
+    }
+
+    /**
+     * Type of the given error, without looking at its causes.
+     * @param error Error.
+     * @return Type or {@link #NONE}.
+     */
+    private static String own(final Throwable error) {
+        final String type;
+        if(error instanceof HttpTimeoutException
+            || error instanceof SocketTimeoutException) {
+            type = "timeout";
+        } else if(error instanceof IOException) {
+            type = "io";
+        } else {
+            type = ProviderFailures.http(error.getMessage());
+        }
+        return type;
+    }
+
+    /**
+     * Type of the HTTP status found in an error message.
+     * @param message Message, may be null.
+     * @return Type or {@link #NONE}.
+     */
+    private static String http(final String message) {
+        String type = ProviderFailures.NONE;
+        if(message != null
+            && message.toLowerCase(Locale.ENGLISH).contains("status")) {
+            final Matcher matcher = ProviderFailures.STATUS.matcher(message);
+            while(type.isEmpty() && matcher.find()) {
+                final int status = Integer.parseInt(matcher.group());
+                if(status == ProviderFailures.TOO_MANY) {
+                    type = "http-429";
+                } else if(status >= ProviderFailures.SERVER_ERROR) {
+                    type = "http-5xx";
+                }
+            }
+        }
+        return type;
+    }
+}
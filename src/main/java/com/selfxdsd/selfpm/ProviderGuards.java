@@ -0,0 +1,798 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Isolates the work bound to each provider (Github, GitLab), so an outage
+ * of one provider only affects its own Projects. Each provider has:
+ * <ul>
+ *     <li>a bulkhead: its own workers and a fixed number of slots, so a
+ *     slow provider cannot take more than its share of threads; calls wait
+ *     for a free slot, without blocking their caller, at most as long as
+ *     the caller's timeout allows;</li>
+ *     <li>a {@link CircuitBreaker}, which rejects the calls for a while
+ *     after repeated failures, then probes the provider again;</li>
+ *     <li>a timeout for waiting on each call, which depends on the
+ *     {@link Caller}.</li>
+ * </ul>
+ * Rejected calls (open breaker, no free slot in time) and waits which
+ * timed out fail with {@link ProviderUnavailableException}. A timeout only
+ * ends the wait: the work is never interrupted (self-core may be halfway
+ * through resolving an event), it goes on in the background, still holding
+ * its worker, and its outcome is recorded when it finishes.<br/>
+ * Only the failures of the provider itself (see {@link ProviderFailures})
+ * count towards opening a breaker; they are also counted by type.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ * @checkstyle IllegalCatch (300 lines)
+ * @checkstyle ClassDataAbstractionCoupling (300 lines)
+ */
+@Component
+public final class ProviderGuards {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(
+        ProviderGuards.class
+    );
+
+    /**
+     * Guard of each provider.
+     */
+    private final Map<String, Guard> guards;
+
+    /**
+     * Workers of each provider, by provider name.
+     */
+    private final Function<String, Executor> workers;
+
+    /**
+     * Concurrent calls allowed for each provider.
+     */
+    private final int concurrency;
+
+    /**
+     * Consecutive failures which open a breaker.
+     */
+    private final int threshold;
+
+    /**
+     * For how long a breaker stays open.
+     */
+    private final Duration openFor;
+
+    /**
+     * How long each caller waits for a call.
+     */
+    private final Map<Caller, Duration> timeouts;
+
+    /**
+     * Meter registry.
+     */
+    private final MeterRegistry registry;
+
+    /**
+     * Tells the failures of the providers from the other errors.
+     */
+    private final ProviderFailures failures;
+
+    /**
+     * Ctor with the default settings, for tests.
+     */
+    public ProviderGuards() {
+        this(
+            8, 5, Duration.ofSeconds(30), Duration.ofSeconds(30),
+            new SimpleMeterRegistry()
+        );
+    }
+
+    /**
+     * Ctor with the same timeout for all the callers.
+     * @param concurrency Concurrent calls allowed for each provider.
+     * @param threshold Consecutive failures which open a breaker.
+     * @param openFor For how long a breaker stays open.
+     * @param timeout How long to wait for each call.
+     * @param registry Meter registry.
+     * @checkstyle ParameterNumber (20 lines)
+     */
+    public ProviderGuards(
+        final int concurrency,
+        final int threshold,
+        final Duration openFor,
+        final Duration timeout,
+        final MeterRegistry registry
+    ) {
+        this(concurrency, threshold, openFor, timeout, timeout, registry);
+    }
+
+    /**
+     * Ctor.
+     * @param concurrency Concurrent calls allowed for each provider.
+     * @param threshold Consecutive failures which open a breaker.
+     * @param openFor For how long a breaker stays open.
+     * @param sweeps How long the sweeps wait for each call.
+     * @param webhooks How long the webhooks wait for each call.
+     * @param registry Meter registry.
+     * @checkstyle ParameterNumber (30 lines)
+     */
+    @Autowired
+    public ProviderGuards(
+        @Value("${self.pm.providers.concurrency:8}") final int concurrency,
+        @Value("${self.pm.providers.failure-threshold:5}")
+        final int threshold,
+        @Value("${self.pm.providers.open-for:PT30S}") final Duration openFor,
+        @Value("${self.pm.providers.sweep-timeout:PT2M}")
+        final Duration sweeps,
+        @Value("${self.pm.providers.webhook-timeout:PT30S}")
+        final Duration webhooks,
+        final MeterRegistry registry
+    ) {
+        this(
+            provider -> ProviderGuards.pool(provider, concurrency),
+            concurrency, threshold, openFor,
+            ProviderGuards.timeouts(sweeps, webhooks), registry
+        );
+    }
+
+    /**
+     * Primary ctor.
+     * @param workers Workers of each provider, by provider name.
+     * @param concurrency Concurrent calls allowed for each provider.
+     * @param threshold Consecutive failures which open a breaker.
+     * @param openFor For how long a breaker stays open.
+     * @param timeouts How long each caller waits for a call.
+     * @param registry Meter registry.
+     * @checkstyle ParameterNumber (20 lines)
+     */
+    private ProviderGuards(
+        final Function<String, Executor> workers,
+        final int concurrency,
+        final int threshold,
+        final Duration openFor,
+        final Map<Caller, Duration> timeouts,
+        final MeterRegistry registry
+    ) {
+        this.guards = new ConcurrentHashMap<>();
+        this.workers = workers;
+        this.concurrency = concurrency;
+        this.threshold = threshold;
+        this.openFor = openFor;
+        this.timeouts = timeouts;
+        this.registry = registry;
+        this.failures = new ProviderFailures();
+    }
+
+    /**
+     * Guards which run the work in the caller's thread, for tests.
+     * @return ProviderGuards.
+     */
+    public static ProviderGuards direct() {
+        return new ProviderGuards(
+            provider -> Runnable::run,
+            Integer.MAX_VALUE,
+            5,
+            Duration.ofSeconds(30),
+            ProviderGuards.timeouts(
+                Duration.ofSeconds(30), Duration.ofSeconds(30)
+            ),
+            new SimpleMeterRegistry()
+        );
+    }
+
+    /**
+     * Would a call to the given provider go through now?
+     * @param provider Provider name.
+     * @return True or false.
+     */
+    public boolean permits(final String provider) {
+        return this.guard(provider).breaker().available();
+    }
+
+    /**
+     * State of the given provider's breaker.
+     * @param provider Provider name.
+     * @return State.
+     */
+    public CircuitBreaker.State state(final String provider) {
+        return this.guard(provider).breaker().state();
+    }
+
+    /**
+     * Start some work bound to the given provider, without waiting for it.
+     * If the bulkhead is full, the work waits for a free slot, as long as
+     * the caller's timeout allows.
+     * @param provider Provider name.
+     * @param caller Caller, which decides how long to wait for a slot.
+     * @param work Work.
+     * @return Future completed when the work is finished and its outcome
+     *  was recorded; failed with {@link ProviderUnavailableException},
+     *  without running the work, if the breaker is open or no slot was
+     *  free in time.
+     */
+    public CompletableFuture<Void> submit(
+        final String provider,
+        final Caller caller,
+        final Runnable work
+    ) {
+        final Guard guard = this.guard(provider);
+        final CompletableFuture<Void> done;
+        if(guard.breaker().available()) {
+            done = guard.slot(this.timeouts.get(caller)).thenCompose(
+                slot -> this.start(guard, work)
+            );
+        } else {
+            guard.rejected("open").increment();
+            done = CompletableFuture.failedFuture(
+                new ProviderUnavailableException(
+                    "Circuit of provider " + provider + " is open."
+                )
+            );
+        }
+        return done;
+    }
+
+    /**
+     * Run some work bound to the given provider, waiting for it to finish
+     * as long as the caller's timeout allows.
+     * @param provider Provider name.
+     * @param caller Caller, which decides the timeout.
+     * @param work Work.
+     * @throws ProviderUnavailableException If the breaker is open, no slot
+     *  was free in time or the wait timed out.
+     */
+    public void run(
+        final String provider,
+        final Caller caller,
+        final Runnable work
+    ) {
+        this.await(provider, caller, this.submit(provider, caller, work));
+    }
+
+    /**
+     * Wait for some work bound to the given provider, as long as the
+     * caller's timeout allows. The work is left running if the wait times
+     * out.
+     * @param provider Provider name.
+     * @param caller Caller, which decides the timeout.
+     * @param work Work being done.
+     * @throws ProviderUnavailableException If the wait timed out or was
+     *  interrupted.
+     */
+    public void await(
+        final String provider,
+        final Caller caller,
+        final Future<?> work
+    ) {
+        final Duration timeout = this.timeouts.get(caller);
+        try {
+            work.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (final TimeoutException ex) {
+            this.guard(provider).rejected("timeout").increment();
+            throw new ProviderUnavailableException(
+                "Call to provider " + provider + " timed out after "
+                + timeout + ", it goes on in the background.", ex
+            );
+        } catch (final ExecutionException ex) {
+            throw ProviderGuards.unwrapped(ex.getCause());
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ProviderUnavailableException(
+                "Interrupted while waiting for provider " + provider + ".", ex
+            );
+        }
+    }
+
+    /**
+     * Watch some work bound to the given provider, for as long as the
+     * caller's timeout allows, without blocking. The work is left running
+     * if the timeout is up first.
+     * @param provider Provider name.
+     * @param caller Caller, which decides the timeout.
+     * @param work Work being done.
+     * @return Future completed when the work is finished, or failed with
+     *  {@link ProviderUnavailableException} when the timeout is up.
+     */
+    public CompletableFuture<Void> within(
+        final String provider,
+        final Caller caller,
+        final CompletableFuture<?> work
+    ) {
+        final Duration timeout = this.timeouts.get(caller);
+        final CompletableFuture<Void> watched = work.thenRun(() -> { });
+        final Executor later = CompletableFuture.delayedExecutor(
+            timeout.toMillis(), TimeUnit.MILLISECONDS
+        );
+        later.execute(
+            () -> {
+                if(watched.completeExceptionally(
+                    new ProviderUnavailableException(
+                        "Call to provider " + provider + " timed out after "
+                        + timeout + ", it goes on in the background."
+                    )
+                )) {
+                    this.guard(provider).rejected("timeout").increment();
+                }
+            }
+        );
+        return watched;
+    }
+
+    /**
+     * Let the workers finish the running calls, then stop them. The calls
+     * still waiting for a slot are abandoned; so are the running or queued
+     * calls, once the timeout is up.
+     * @param timeout How long to wait for the calls.
+     * @return Number of abandoned calls.
+     */
+    public int drain(final Duration timeout) {
+        final long deadline = System.nanoTime() + timeout.toNanos();
+        int abandoned = 0;
+        for(final Guard guard : this.guards.values()) {
+            if(guard.executor() instanceof ThreadPoolExecutor) {
+                final ThreadPoolExecutor pool =
+                    (ThreadPoolExecutor) guard.executor();
+                pool.shutdown();
+                abandoned = abandoned + guard.waiting()
+                    + ProviderGuards.await(pool, deadline);
+            }
+        }
+        return abandoned;
+    }
+
+    /**
+     * Stop the workers, when the application shuts down.
+     */
+    @PreDestroy
+    public void shutdown() {
+        for(final Guard guard : this.guards.values()) {
+            if(guard.executor() instanceof ExecutorService) {
+                ((ExecutorService) guard.executor()).shutdown();
+            }
+        }
+    }
+
+    /**
+     * Start some work which got a slot of its provider's bulkhead. The
+     * slot is freed once the work is finished and its outcome recorded.
+     * @param guard Guard of the provider.
+     * @param work Work.
+     * @return Future completed when the work is finished and its outcome
+     *  was recorded.
+     */
+    private CompletableFuture<Void> start(
+        final Guard guard,
+        final Runnable work
+    ) {
+        CompletableFuture<Void> done;
+        if(guard.breaker().acquire()) {
+            try {
+                done = CompletableFuture.runAsync(work, guard.executor());
+            } catch (final RejectedExecutionException ex) {
+                done = CompletableFuture.failedFuture(
+                    new ProviderUnavailableException(
+                        "Provider " + guard.provider() + " is shut down.", ex
+                    )
+                );
+            }
+            done = done.whenComplete(
+                (result, error) -> {
+                    this.record(guard, error);
+                    guard.free();
+                }
+            );
+        } else {
+            guard.free();
+            guard.rejected("open").increment();
+            done = CompletableFuture.failedFuture(
+                new ProviderUnavailableException(
+                    "Circuit of provider " + guard.provider() + " is open."
+                )
+            );
+        }
+        return done;
+    }
+
+    /**
+     * Record the outcome of some finished work in the breaker.
+     * @param guard Guard of the provider.
+     * @param error Error of the work, null if it succeeded.
+     */
+    private void record(final Guard guard, final Throwable error) {
+        if(error == null) {
+            guard.breaker().success();
+        } else {
+            final String type = this.failures.type(error);
+            if(ProviderFailures.NONE.equals(type)) {
+                guard.breaker().cancel();
+            } else {
+                guard.failed(type);
+            }
+        }
+    }
+
+    /**
+     * Guard of the given provider, created on first use.
+     * @param provider Provider name.
+     * @return Guard.
+     */
+    private Guard guard(final String provider) {
+        return this.guards.computeIfAbsent(
+            String.valueOf(provider),
+            name -> {
+                LOG.debug("Guarding provider " + name + "...");
+                final Guard guard = new Guard(
+                    name,
+                    new CircuitBreaker(this.threshold, this.openFor),
+                    this.workers.apply(name),
+                    this.concurrency,
+                    this.registry
+                );
+                this.registry.gauge(
+                    "self.pm.providers.breaker",
+                    Tags.of("provider", name),
+                    guard.breaker(),
+                    breaker -> breaker.state().ordinal()
+                );
+                this.registry.gauge(
+                    "self.pm.providers.waiting",
+                    Tags.of("provider", name),
+                    guard,
+                    Guard::waiting
+                );
+                return guard;
+            }
+        );
+    }
+
+    /**
+     * The error thrown by some work, without the wrappers of the futures.
+     * @param error Error.
+     * @return RuntimeException.
+     */
+    private static RuntimeException unwrapped(final Throwable error) {
+        Throwable cause = error;
+        while(cause instanceof CompletionException
+            && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        final RuntimeException unwrapped;
+        if(cause instanceof RuntimeException) {
+            unwrapped = (RuntimeException) cause;
+        } else {
+            unwrapped = new IllegalStateException(cause);
+        }
+        return unwrapped;
+    }
+
+    /**
+     * Timeouts of the callers.
+     * @param sweeps How long the sweeps wait for each call.
+     * @param webhooks How long the webhooks wait for each call.
+     * @return Map.
+     */
+    private static Map<Caller, Duration> timeouts(
+        final Duration sweeps,
+        final Duration webhooks
+    ) {
+        final Map<Caller, Duration> timeouts = new EnumMap<>(Caller.class);
+        timeouts.put(Caller.SWEEPS, sweeps);
+        timeouts.put(Caller.WEBHOOKS, webhooks);
+        return timeouts;
+    }
+
+    /**
+     * Wait for the workers of a provider to finish, until the deadline,
+     * then stop them.
+     * @param pool Workers, shut down.
+     * @param deadline Deadline (nanos).
+     * @return Number of calls which did not finish.
+     */
+    private static int await(
+        final ThreadPoolExecutor pool,
+        final long deadline
+    ) {
+        int unfinished = 0;
+        try {
+            if(!pool.awaitTermination(
+                Math.max(0, deadline - System.nanoTime()),
+                TimeUnit.NANOSECONDS
+            )) {
+                unfinished = pool.getActiveCount() + pool.shutdownNow().size();
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            unfinished = pool.getActiveCount() + pool.shutdownNow().size();
+        }
+        return unfinished;
+    }
+
+    /**
+     * Workers (bulkhead) of a provider, idle threads die. Their queue holds
+     * at most the calls which got a slot and did not start yet.
+     * @param provider Provider name.
+     * @param concurrency Concurrent calls allowed.
+     * @return ThreadPoolExecutor.
+     */
+    private static ThreadPoolExecutor pool(
+        final String provider,
+        final int concurrency
+    ) {
+        final CustomizableThreadFactory threads =
+            new CustomizableThreadFactory("provider-" + provider + "-");
+        threads.setDaemon(true);
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            concurrency,
+            concurrency,
+            1L,
+            TimeUnit.MINUTES,
+            new LinkedBlockingQueue<>(),
+            threads
+        );
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Who waits for the calls; each caller has its own timeout.
+     */
+    public enum Caller {
+
+        /**
+         * The scheduled sweeps over the Projects.
+         */
+        SWEEPS,
+
+        /**
+         * The handling of the webhook events.
+         */
+        WEBHOOKS
+    }
+
+    /**
+     * Breaker, workers, slots and rejection counters of a provider.
+     */
+    private static final class Guard {
+
+        /**
+         * Provider name.
+         */
+        private final String provider;
+
+        /**
+         * Breaker.
+         */
+        private final CircuitBreaker breaker;
+
+        /**
+         * Workers (bulkhead).
+         */
+        private final Executor executor;
+
+        /**
+         * Meter registry.
+         */
+        private final MeterRegistry registry;
+
+        /**
+         * Calls waiting for a slot, in order.
+         */
+        private final Deque<CompletableFuture<Void>> waiting;
+
+        /**
+         * Lock guarding the slots.
+         */
+        private final Object lock;
+
+        /**
+         * Free slots.
+         */
+        private int free;
+
+        /**
+         * Ctor.
+         * @param provider Provider name.
+         * @param breaker Breaker.
+         * @param executor Workers.
+         * @param slots Concurrent calls allowed.
+         * @param registry Meter registry.
+         * @checkstyle ParameterNumber (10 lines)
+         */
+        Guard(
+            final String provider,
+            final CircuitBreaker breaker,
+            final Executor executor,
+            final int slots,
+            final MeterRegistry registry
+        ) {
+            this.provider = provider;
+            this.breaker = breaker;
+            this.executor = executor;
+            this.registry = registry;
+            this.waiting = new ArrayDeque<>();
+            this.lock = new Object();
+            this.free = slots;
+        }
+
+        /**
+         * Provider name.
+         * @return String.
+         */
+        String provider() {
+            return this.provider;
+        }
+
+        /**
+         * Take a slot of the bulkhead, now or as soon as one is free, but
+         * within the timeout.
+         * @param timeout How long to wait for a slot.
+         * @return Future completed when the slot is taken, or failed with
+         *  {@link ProviderUnavailableException} when the timeout is up.
+         */
+        CompletableFuture<Void> slot(final Duration timeout) {
+            final CompletableFuture<Void> slot = new CompletableFuture<>();
+            final boolean taken;
+            synchronized (this.lock) {
+                taken = this.free > 0;
+                if(taken) {
+                    this.free = this.free - 1;
+                } else {
+                    this.waiting.add(slot);
+                }
+            }
+            if(taken) {
+                slot.complete(null);
+            } else {
+                CompletableFuture.delayedExecutor(
+                    timeout.toMillis(), TimeUnit.MILLISECONDS
+                ).execute(() -> this.expire(slot, timeout));
+            }
+            return slot;
+        }
+
+        /**
+         * Free a slot: the next waiting call takes it.
+         */
+        void free() {
+            final CompletableFuture<Void> next;
+            synchronized (this.lock) {
+                next = this.waiting.poll();
+                if(next == null) {
+                    this.free = this.free + 1;
+                }
+            }
+            if(next != null) {
+                next.complete(null);
+            }
+        }
+
+        /**
+         * Number of calls waiting for a slot.
+         * @return Integer.
+         */
+        int waiting() {
+            synchronized (this.lock) {
+                return this.waiting.size();
+            }
+        }
+
+        /**
+         * Breaker.
+         * @return CircuitBreaker.
+         */
+        CircuitBreaker breaker() {
+            return this.breaker;
+        }
+
+        /**
+         * Workers.
+         * @return Executor.
+         */
+        Executor executor() {
+            return this.executor;
+        }
+
+        /**
+         * A call failed because of the provider: count it towards opening
+         * the breaker and by its type.
+         * @param type Type of the failure (see {@link ProviderFailures}).
+         */
+        void failed(final String type) {
+            this.breaker.failure();
+            Counter.builder("self.pm.providers.failures")
+                .tag("provider", this.provider)
+                .tag("type", type)
+                .register(this.registry)
+                .increment();
+        }
+
+        /**
+         * Counter of the calls rejected for the given reason.
+         * @param reason Reason (open, full, timeout).
+         * @return Counter.
+         */
+        Counter rejected(final String reason) {
+            return Counter.builder("self.pm.providers.rejected")
+                .tag("provider", this.provider)
+                .tag("reason", reason)
+                .register(this.registry);
+        }
+
+        /**
+         * A call waited too long for a slot: it gives up, unless it took
+         * one meanwhile.
+         * @param slot Slot the call is waiting for.
+         * @param timeout How long it waited.
+         */
+        private void expire(
+            final CompletableFuture<Void> slot,
+            final Duration timeout
+        ) {
+            final boolean removed;
+            synchronized (this.lock) {
+                removed = this.waiting.remove(slot);
+            }
+            if(removed) {
+                this.rejected("full").increment();
+                slot.completeExceptionally(
+                    new ProviderUnavailableException(
+                        "No free slot of provider " + this.provider
+                        + " after " + timeout + "."
+                    )
+                );
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import com.selfxdsd.api.Self;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Webhook endpoints on the reactive stack (WebFlux on Netty, see
+ * {@link ReactiveServer}), switched on with
+ * spring.main.web-application-type=reactive. The body is read
+ * without blocking any thread; once it is in, the event is handled by
+ * {@link Webhooks} (routing, admission, Project lookup, signature, lanes)
+ * on a bounded elastic scheduler, because the lookup of the Project
+ * blocks on the database. The Netty event loop is never blocked, so many
+ * more deliveries can be in flight than there are threads.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+@RestController
+@Lazy(false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public final class ReactiveWebhooks {
+
+    /**
+     * Blocking webhooks, to which the events are delegated.
+     */
+    private final Webhooks webhooks;
+
+    /**
+     * Scheduler where the blocking work runs.
+     */
+    private final Scheduler blocking;
+
+    /**
+     * Ctor.
+     * @param selfCore Self Core, injected by Spring automatically.
+     * @param todos Self TODOs location.
+     * @param activity Observed activity of the Projects.
+     * @param lanes Priority lanes where the events are handled.
+     * @param commands Matcher of the PM's commands.
+     * @param snapshot Snapshot of the PMs and their Projects.
+     * @param guards Guards of the providers.
+     * @param routes Routing table of the Github events.
+     * @param invitations Invitations of the PMs.
+     * @param limiter Admission control of the webhooks.
+     * @param tracing Tracing of the requests.
+     * @param histograms Latency histograms of the Projects.
+     * @param aliases Aliases of the renamed repos.
+     * @param index Deadline index of the assigned tasks.
+     * @checkstyle ParameterNumber (20 lines)
+     */
+    @Autowired
+    public ReactiveWebhooks(
+        final Self selfCore,
+        @Value("${self.todos.url:http://localhost:8282}") final String todos,
+        final ProjectActivity activity,
+        final WebhookLanes lanes,
+        final CommandMatcher commands,
+        final ProjectsSnapshot snapshot,
+        final ProviderGuards guards,
+        final WebhookRoutes routes,
+        final AcceptInvitations invitations,
+        final AdmissionLimiter limiter,
+        final Tracing tracing,
+        final LatencyHistograms histograms,
+        final RepoAliases aliases,
+        final AssignedTasksIndex index
+    ) {
+        this(
+            new Webhooks(
+                selfCore, todos, activity, lanes, commands, snapshot,
+                guards, routes, invitations, limiter, tracing, histograms,
+                aliases, index
+            ),
+            Schedulers.boundedElastic()
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param webhooks Blocking webhooks, to which the events are delegated.
+     * @param blocking Scheduler where the blocking work runs.
+     */
+    public ReactiveWebhooks(
+        final Webhooks webhooks,
+        final Scheduler blocking
+    ) {
+        this.webhooks = webhooks;
+        this.blocking = blocking;
+    }
+
+    /**
+     * Webhook for Github projects.
+     * @param owner Owner's username (can be a user or an organization name).
+     * @param name Repo's name.
+     * @param type Event type.
+     * @param signature Signature sent by Github.
+     * @param payload JSON Payload, read reactively.
+     * @return Mono with the same response as {@link Webhooks#github}.
+     */
+    @PostMapping(
+        value = "/github/{owner}/{name}",
+        consumes = MediaType.APPLICATION_JSON_VALUE
+    )
+    public Mono<ResponseEntity<Void>> github(
+        final @PathVariable("owner") String owner,
+        final @PathVariable("name") String name,
+        final @RequestHeader("X-GitHub-Event") String type,
+        final @RequestHeader("X-Hub-Signature") String signature,
+        final @RequestBody Mono<String> payload
+    ) {
+        return payload
+            .publishOn(this.blocking)
+            .map(
+                body -> this.webhooks.github(
+                    owner, name, type, signature, body
+                )
+            );
+    }
+
+    /**
+     * Webhook for GitLab projects.
+     * @param owner Owner's username (can be a user or organization name).
+     * @param name Repo's name.
+     * @param type Event type.
+     * @param token Secret project token.
+     * @param payload JSON Payload, read reactively.
+     * @return Mono with the same response as {@link Webhooks#gitlab}.
+     */
+    @PostMapping(
+        value = "/gitlab/{owner}/{name}",
+        consumes = MediaType.APPLICATION_JSON_VALUE
+    )
+    public Mono<ResponseEntity<Void>> gitlab(
+        final @PathVariable String owner,
+        final @PathVariable String name,
+        final @RequestHeader("X-Gitlab-Event") String type,
+        final @RequestHeader("X-Gitlab-Token") String token,
+        final @RequestBody Mono<String> payload
+    ) {
+        return payload
+            .publishOn(this.blocking)
+            .map(
+                body -> this.webhooks.gitlab(owner, name, type, token, body)
+            );
+    }
+}
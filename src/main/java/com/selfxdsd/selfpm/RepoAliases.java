@@ -0,0 +1,292 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Aliases of the renamed repos: old full name -&gt; current full name, per
+ * provider. A webhook which still arrives at the old URL then costs one
+ * lookup of the alias and one of the Project, no matter how many times
+ * the repo was renamed (chains are collapsed when a rename is
+ * recorded).<br/>
+ * The aliases are kept in memory and appended to a JSON-lines file, which
+ * is replayed at startup. Each alias is appended with a single write of a
+ * whole line; a line which is still unreadable (e.g. cut short by a crash)
+ * is skipped at startup, with a warning.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+@Component
+public final class RepoAliases {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(
+        RepoAliases.class
+    );
+
+    /**
+     * Current full name of each old one, keyed by provider/old-name
+     * (lower case).
+     */
+    private final Map<String, String> aliases;
+
+    /**
+     * File where the aliases are appended, null if they are kept in
+     * memory only.
+     */
+    private final Path file;
+
+    /**
+     * Lock guarding the recording of the aliases.
+     */
+    private final Object lock;
+
+    /**
+     * Ctor with aliases kept in memory only.
+     */
+    public RepoAliases() {
+        this((Path) null);
+    }
+
+    /**
+     * Ctor.
+     * @param file File where the aliases are kept.
+     */
+    @Autowired
+    public RepoAliases(
+        @Value("${self.pm.aliases.file:/var/lib/self-pm/repo-aliases.jsonl}")
+        final String file
+    ) {
+        this(Paths.get(file));
+    }
+
+    /**
+     * Ctor.
+     * @param file File where the aliases are kept, null for memory only.
+     */
+    public RepoAliases(final Path file) {
+        this.aliases = new ConcurrentHashMap<>();
+        this.file = file;
+        this.lock = new Object();
+        if(file != null && Files.exists(file)) {
+            this.load();
+        }
+    }
+
+    /**
+     * Current full name of a repo.
+     * @param provider Provider.
+     * @param fullName Full name, maybe an old one.
+     * @return Current full name or null if there is no alias.
+     */
+    public String current(final String provider, final String fullName) {
+        String current = null;
+        if(fullName != null) {
+            current = this.aliases.get(RepoAliases.key(provider, fullName));
+        }
+        return current;
+    }
+
+    /**
+     * Record a rename.
+     * @param provider Provider.
+     * @param from Old full name.
+     * @param target New full name.
+     */
+    public void record(
+        final String provider,
+        final String from,
+        final String target
+    ) {
+        if(from != null && target != null
+            && !from.equalsIgnoreCase(target)
+            && !target.equals(this.current(provider, from))) {
+            synchronized (this.lock) {
+                this.apply(provider, from, target);
+                if(this.file != null) {
+                    this.append(provider, from, target);
+                }
+            }
+            LOG.debug(
+                "Repo " + provider + "/" + from + " is now " + target + "."
+            );
+        }
+    }
+
+    /**
+     * Number of aliases.
+     * @return Integer.
+     */
+    public int size() {
+        return this.aliases.size();
+    }
+
+    /**
+     * Apply a rename: aliases of the old name now point to the new one,
+     * and the new name is not an alias anymore.
+     * @param provider Provider.
+     * @param from Old full name.
+     * @param target New full name.
+     */
+    private void apply(
+        final String provider,
+        final String from,
+        final String target
+    ) {
+        final String prefix = RepoAliases.key(provider, "");
+        for(final Map.Entry<String, String> alias : this.aliases.entrySet()) {
+            if(alias.getKey().startsWith(prefix)
+                && alias.getValue().equalsIgnoreCase(from)) {
+                alias.setValue(target);
+            }
+        }
+        this.aliases.remove(RepoAliases.key(provider, target));
+        this.aliases.put(RepoAliases.key(provider, from), target);
+    }
+
+    /**
+     * Append a rename to the file.
+     * @param provider Provider.
+     * @param from Old full name.
+     * @param target New full name.
+     */
+    private void append(
+        final String provider,
+        final String from,
+        final String target
+    ) {
+        final String line = Json.createObjectBuilder()
+            .add("provider", provider)
+            .add("from", from)
+            .add("to", target)
+            .build()
+            .toString() + System.lineSeparator();
+        try {
+            Files.createDirectories(this.file.toAbsolutePath().getParent());
+            try (
+                FileChannel channel = FileChannel.open(
+                    this.file, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE
+                )
+            ) {
+                String whole = line;
+                if(channel.size() > 0 && !RepoAliases.endsLine(channel)) {
+                    whole = System.lineSeparator() + line;
+                }
+                channel.write(
+                    ByteBuffer.wrap(whole.getBytes(StandardCharsets.UTF_8)),
+                    channel.size()
+                );
+                channel.force(false);
+            }
+        } catch (final IOException ex) {
+            LOG.warn("Could not save the alias of " + from, ex);
+        }
+    }
+
+    /**
+     * Replay the renames from the file.
+     */
+    private void load() {
+        try {
+            for(final String line : Files.readAllLines(this.file)) {
+                if(!line.isBlank()) {
+                    this.replay(line);
+                }
+            }
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Replay one rename from the file, skipping it if it's unreadable.
+     * @param line Line of the file.
+     */
+    private void replay(final String line) {
+        try {
+            final JsonObject rename = Json.createReader(
+                new StringReader(line)
+            ).readObject();
+            this.apply(
+                rename.getString("provider"),
+                rename.getString("from"),
+                rename.getString("to")
+            );
+        } catch (final JsonException | ClassCastException
+            | NullPointerException ex) {
+            LOG.warn(
+                "Skipping unreadable alias in " + this.file + ": " + line
+            );
+        }
+    }
+
+    /**
+     * Does the file end with a complete line? If the last append was cut
+     * short, the next one starts on a new line.
+     * @param channel File channel.
+     * @return True or false.
+     * @throws IOException If the file cannot be read.
+     */
+    private static boolean endsLine(final FileChannel channel)
+        throws IOException {
+        final ByteBuffer last = ByteBuffer.allocate(1);
+        channel.read(last, channel.size() - 1);
+        return last.get(0) == '\n';
+    }
+
+    /**
+     * Key of a repo.
+     * @param provider Provider.
+     * @param fullName Full name.
+     * @return String.
+     */
+    private static String key(final String provider, final String fullName) {
+        return (provider + "/" + fullName).toLowerCase(Locale.ENGLISH);
+    }
+}
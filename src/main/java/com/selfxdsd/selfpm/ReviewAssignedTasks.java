@@ -22,22 +22,38 @@
  */
 package com.selfxdsd.selfpm;
 
-import com.selfxdsd.api.*;
+import com.selfxdsd.api.Event;
+import com.selfxdsd.api.Project;
+import com.selfxdsd.api.Self;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
 /**
  * Each PM will periodically review the assigned tasks from the projects
- * they manage.
+ * they manage.<br/>
+ * Only the Projects which have a Task past the middle of its allowed period
+ * or past its deadline are reviewed (see {@link AssignedTasksIndex}). Every
+ * {@link #FULL_REVIEW_EVERY} passes, all the Projects are reviewed and the
+ * index is rebuilt.
  * @author Mihai Andronache (amihaiemil@gmail.com)
  * @version $Id$
  * @since 0.0.2
  * @checkstyle IllegalCatch (500 lines)
  */
 @Component
+@Lazy(false)
 public final class ReviewAssignedTasks {
 
     /**
@@ -45,6 +61,16 @@ public final class ReviewAssignedTasks {
      */
     static final String EVERY_30_MINUTES = "PT30M";
 
+    /**
+     * Name of the sweep.
+     */
+    static final String SWEEP = "assigned tasks";
+
+    /**
+     * Every 12 passes (6 hours) all the Projects are reviewed.
+     */
+    static final int FULL_REVIEW_EVERY = 12;
+
     /**
      * Logger.
      */
@@ -53,17 +79,142 @@ public final class ReviewAssignedTasks {
     );
 
     /**
-     * Self's core.
+     * Sweep over all the Projects.
      */
-    private final Self selfCore;
+    private final ProjectSweep sweep;
+
+    /**
+     * Deadline index of the assigned tasks.
+     */
+    private final AssignedTasksIndex index;
+
+    /**
+     * Synthetic events.
+     */
+    private final SyntheticEvents events;
+
+    /**
+     * Time "now" supplier.
+     */
+    private final Supplier<LocalDateTime> nowSupplier;
+
+    /**
+     * Projects which were due in the last pass but were not reviewed
+     * (their review failed, timed out or was abandoned). Retried in the
+     * next pass.
+     */
+    private final Set<String> failed;
+
+    /**
+     * Number of passes so far.
+     */
+    private long passes;
 
     /**
      * Ctor.
-     * @param selfCode Self Core, injected by Spring automatically.
+     * @param selfCode Self Core.
      */
-    @Autowired
     public ReviewAssignedTasks(final Self selfCode) {
-        this.selfCore = selfCode;
+        this(
+            ProjectsSnapshot.uncached(selfCode),
+            new AssignedTasksIndex(),
+            new SyntheticEvents(),
+            new SweepHeartbeats(),
+            new ProviderGuards(),
+            ProjectMailboxes.direct(),
+            new FairShares(),
+            Tracing.noop(),
+            new LatencyHistograms(),
+            ShutdownCoordinator.unmanaged()
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param snapshot Snapshot of the PMs and their Projects.
+     * @param index Deadline index of the assigned tasks.
+     * @param events Synthetic events.
+     * @param heartbeats Heartbeats of the sweeps.
+     * @param guards Guards of the providers.
+     * @param mailboxes Mailboxes of the Projects.
+     * @param shares Fair shares of the Project owners.
+     * @param tracing Tracing of the sweeps.
+     * @param histograms Latency histograms of the Projects.
+     * @param shutdown Coordinator of the shutdown.
+     * @checkstyle ParameterNumber (15 lines)
+     */
+    @Autowired
+    public ReviewAssignedTasks(
+        final ProjectsSnapshot snapshot,
+        final AssignedTasksIndex index,
+        final SyntheticEvents events,
+        final SweepHeartbeats heartbeats,
+        final ProviderGuards guards,
+        final ProjectMailboxes mailboxes,
+        final FairShares shares,
+        final Tracing tracing,
+        final LatencyHistograms histograms,
+        final ShutdownCoordinator shutdown
+    ) {
+        this(
+            new ProjectSweep(
+                ReviewAssignedTasks.SWEEP,
+                snapshot,
+                histograms.hook(
+                    LatencyHistograms.Operation.ASSIGNED_REVIEW,
+                    heartbeats.hook(new LoggingSweepHook(LOG))
+                ),
+                guards,
+                mailboxes,
+                shares,
+                tracing,
+                shutdown
+            ),
+            index,
+            events,
+            LocalDateTime::now
+        );
+    }
+
+    /**
+     * Ctor used in tests.
+     * @param selfCode Self Core.
+     * @param index Deadline index of the assigned tasks.
+     * @param nowSupplier Time "now" supplier.
+     */
+    ReviewAssignedTasks(
+        final Self selfCode,
+        final AssignedTasksIndex index,
+        final Supplier<LocalDateTime> nowSupplier
+    ) {
+        this(
+            new ProjectSweep(
+                ReviewAssignedTasks.SWEEP, selfCode, new LoggingSweepHook(LOG)
+            ),
+            index,
+            new SyntheticEvents(),
+            nowSupplier
+        );
+    }
+
+    /**
+     * Primary ctor.
+     * @param sweep Sweep over all the Projects.
+     * @param index Deadline index of the assigned tasks.
+     * @param events Synthetic events.
+     * @param nowSupplier Time "now" supplier.
+     */
+    ReviewAssignedTasks(
+        final ProjectSweep sweep,
+        final AssignedTasksIndex index,
+        final SyntheticEvents events,
+        final Supplier<LocalDateTime> nowSupplier
+    ) {
+        this.sweep = sweep;
+        this.index = index;
+        this.events = events;
+        this.nowSupplier = nowSupplier;
+        this.failed = ConcurrentHashMap.newKeySet();
     }
 
     /**
@@ -71,73 +222,86 @@ public final class ReviewAssignedTasks {
      */
     @Scheduled(fixedRateString = EVERY_30_MINUTES)
     public void reviewAssignedTasks() {
-        LOG.debug("PMs reviewing their assigned tasks...");
-        for(final ProjectManager manager : this.selfCore.projectManagers()) {
-            LOG.debug(
-                "PM @" + manager.username()
-                + " reviewing their assigned tasks..."
-            );
-            for(final Project project : manager.projects()) {
-                LOG.debug(
-                    "Reviewing assigned tasks from project "
-                    + project.repoFullName() + " at " + project.provider()
-                    + "... "
-                );
-                try {
-                    project.resolve(
-                        new Event() {
-                            @Override
-                            public String type() {
-                                return Type.ASSIGNED_TASKS;
-                            }
-
-                            @Override
-                            public Issue issue() {
-                                throw new UnsupportedOperationException(
-                                    "No Issue in the " + Type.ASSIGNED_TASKS
-                                    + " event."
-                                );
-                            }
-
-                            @Override
-                            public Comment comment() {
-                                throw new UnsupportedOperationException(
-                                    "No Comment in the " + Type.ASSIGNED_TASKS
-                                    + " event."
-                                );
-                            }
-
-                            @Override
-                            public Commit commit() {
-                                throw new UnsupportedOperationException(
-                                    "No Commit in the " + Type.ASSIGNED_TASKS
-                                    + " event."
-                                );
-                            }
-
-                            @Override
-                            public String repoNewName() {
-                                throw new UnsupportedOperationException(
-                                    "No Repo new name in the "
-                                    + Type.ASSIGNED_TASKS + " event."
-                                );
-                            }
-
-                            @Override
-                            public Project project() {
-                                return project;
-                            }
-                        }
-                    );
-                } catch (final RuntimeException ex) {
-                    LOG.error(
-                        "Problem while reviewing assigned tasks of Project "
-                        + project.repoFullName() + " at " + project.provider(),
-                        ex
-                    );
+        final LocalDateTime now = this.nowSupplier.get();
+        final boolean full = this.passes % FULL_REVIEW_EVERY == 0;
+        this.passes = this.passes + 1;
+        if(full) {
+            LOG.debug("Full review, rebuilding the deadline index...");
+            this.index.clear();
+            this.failed.clear();
+        }
+        final Set<String> due = this.due(now);
+        final Set<String> stale = this.index.stale();
+        final Set<String> pending = new ConcurrentSkipListSet<>(due);
+        final Predicate<String> review = key -> full || due.contains(key);
+        this.sweep.run(
+            project -> {
+                final String key = AssignedTasksIndex.key(project);
+                if(review.test(key)) {
+                    pending.add(key);
+                }
+                return review.test(key) || stale.contains(key);
+            },
+            project -> {
+                if(review.test(AssignedTasksIndex.key(project))) {
+                    this.review(project, now, pending);
+                } else {
+                    this.reindex(project, now);
                 }
             }
+        );
+        this.failed.addAll(pending);
+        LOG.debug(this.index.size() + " checkpoints in the deadline index.");
+    }
+
+    /**
+     * Projects due for review: the ones with a checkpoint due and the ones
+     * not reviewed in the last pass.
+     * @param now Moment of the review.
+     * @return Set of Project keys.
+     */
+    private Set<String> due(final LocalDateTime now) {
+        final Set<String> due = this.index.due(now);
+        final Iterator<String> retried = this.failed.iterator();
+        while(retried.hasNext()) {
+            due.add(retried.next());
+            retried.remove();
+        }
+        return due;
+    }
+
+    /**
+     * Review the assigned tasks of a Project and re-index them.
+     * @param project Project.
+     * @param now Moment of the review.
+     * @param pending Projects of the pass not reviewed yet.
+     */
+    private void review(
+        final Project project,
+        final LocalDateTime now,
+        final Set<String> pending
+    ) {
+        project.resolve(
+            this.events.event(Event.Type.ASSIGNED_TASKS, project)
+        );
+        pending.remove(AssignedTasksIndex.key(project));
+        this.reindex(project, now);
+    }
+
+    /**
+     * Re-index the assigned tasks of a Project, without reviewing them.
+     * @param project Project.
+     * @param now Moment of the indexing.
+     */
+    private void reindex(final Project project, final LocalDateTime now) {
+        try {
+            this.index.index(project, now);
+        } catch (final RuntimeException ex) {
+            LOG.error(
+                "Problem while indexing assigned tasks of Project "
+                + project.repoFullName() + " at " + project.provider(),
+                ex
+            );
         }
-        LOG.debug("All PMs finished reviewing their assigned tasks.");
     }
 }
@@ -26,6 +26,7 @@ import com.selfxdsd.api.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
@@ -33,6 +34,7 @@ import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Supplier;
 
 /**
@@ -44,6 +46,7 @@ import java.util.function.Supplier;
  * @checkstyle IllegalCatch (1000 lines)
  */
 @Component
+@Lazy(false)
 public final class ReviewContractsMarkedForRemoval {
 
     /**
@@ -65,9 +68,9 @@ public final class ReviewContractsMarkedForRemoval {
     );
 
     /**
-     * Self's core.
+     * Snapshot of the PMs and their Projects.
      */
-    private final Self selfCore;
+    private final ProjectsSnapshot snapshot;
 
     /**
      * Time "now" supplier that will be used to determined how many days
@@ -77,13 +80,22 @@ public final class ReviewContractsMarkedForRemoval {
 
     /**
      * Ctor.
-     * @param selfCore Self Core, injected by Spring automatically.
+     * @param selfCore Self Core.
      */
-    @Autowired
     public ReviewContractsMarkedForRemoval(final Self selfCore) {
         this(selfCore, LocalDateTime::now);
     }
 
+    /**
+     * Ctor.
+     * @param snapshot Snapshot of the PMs and their Projects, injected by
+     *  Spring automatically.
+     */
+    @Autowired
+    public ReviewContractsMarkedForRemoval(final ProjectsSnapshot snapshot) {
+        this(snapshot, LocalDateTime::now);
+    }
+
     /**
      * Ctor used in tests.
      * @param selfCore Self Core.
@@ -91,7 +103,19 @@ public final class ReviewContractsMarkedForRemoval {
      */
     ReviewContractsMarkedForRemoval(final Self selfCore,
                                     final Supplier<LocalDateTime> nowSupplier){
-        this.selfCore = selfCore;
+        this(ProjectsSnapshot.uncached(selfCore), nowSupplier);
+    }
+
+    /**
+     * Primary ctor.
+     * @param snapshot Snapshot of the PMs and their Projects.
+     * @param nowSupplier Time "now" supplier.
+     */
+    ReviewContractsMarkedForRemoval(
+        final ProjectsSnapshot snapshot,
+        final Supplier<LocalDateTime> nowSupplier
+    ) {
+        this.snapshot = snapshot;
         this.nowSupplier = nowSupplier;
     }
 
@@ -107,12 +131,13 @@ public final class ReviewContractsMarkedForRemoval {
     @Scheduled(fixedRate = EVERY_24_HOURS, initialDelay = DELAY_15_MINUTES)
     public void reviewContractsMarkedForRemoval() {
         LOG.debug("PMs reviewing project contracts marked for removal...");
-        for(final ProjectManager manager : this.selfCore.projectManagers()) {
+        final Map<ProjectManager, List<Project>> graph = this.snapshot.graph();
+        for(final ProjectManager manager : graph.keySet()) {
             LOG.debug(
                 "PM @" + manager.username()
                 + " reviewing their project contracts marked for removal..."
             );
-            for(final Project project : manager.projects()) {
+            for(final Project project : graph.get(manager)) {
                 LOG.debug(
                     "Reviewing contracts marked for removal from project "
                     + project.repoFullName() + " at " + project.provider()
@@ -22,28 +22,38 @@
  */
 package com.selfxdsd.selfpm;
 
-import com.selfxdsd.api.*;
+import com.selfxdsd.api.Event;
+import com.selfxdsd.api.Self;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDateTime;
+
 /**
  * Each PM will periodically review the unassigned tasks from the projects
- * they manage.
+ * they manage. Busy Projects are reviewed every 10 minutes, while dormant
+ * ones back off, as observed by {@link ProjectActivity}.
  * @author Mihai Andronache (amihaiemil@gmail.com)
  * @version $Id$
  * @since 0.0.2
- * @checkstyle IllegalCatch (500 lines)
  */
 @Component
+@Lazy(false)
 public final class ReviewUnassignedTasks {
 
     /**
      * The PMs will review the unassigned tasks every 10 minutes.
      */
-    private static final int EVERY_10_MINUTES = 600000;
+    static final int EVERY_10_MINUTES = 600000;
+
+    /**
+     * Name of the sweep.
+     */
+    static final String SWEEP = "unassigned tasks";
 
     /**
      * Logger.
@@ -53,92 +63,137 @@ public final class ReviewUnassignedTasks {
     );
 
     /**
-     * Self's core.
+     * Sweep over all the Projects.
      */
-    private final Self selfCore;
+    private final ProjectSweep sweep;
+
+    /**
+     * Deadline index of the assigned tasks. The reviewed Projects are
+     * marked as stale, since the review may have assigned some Tasks; they
+     * are re-indexed once, at the next review of the assigned tasks.
+     */
+    private final AssignedTasksIndex index;
+
+    /**
+     * Synthetic events.
+     */
+    private final SyntheticEvents events;
+
+    /**
+     * Activity of the Projects, deciding which ones are due for review.
+     */
+    private final ProjectActivity activity;
 
     /**
      * Ctor.
-     * @param selfCode Self Core, injected by Spring automatically.
+     * @param selfCode Self Core.
      */
-    @Autowired
     public ReviewUnassignedTasks(final Self selfCode) {
-        this.selfCore = selfCode;
+        this(
+            selfCode,
+            new AssignedTasksIndex(),
+            new SyntheticEvents(),
+            new ProjectActivity()
+        );
     }
 
     /**
-     * Every 10 minutes the PMs should verify their unassigned tasks.
+     * Ctor.
+     * @param selfCode Self Core.
+     * @param index Deadline index of the assigned tasks.
+     * @param events Synthetic events.
+     * @param activity Activity of the Projects.
+     */
+    public ReviewUnassignedTasks(
+        final Self selfCode,
+        final AssignedTasksIndex index,
+        final SyntheticEvents events,
+        final ProjectActivity activity
+    ) {
+        this(
+            ProjectsSnapshot.uncached(selfCode),
+            index,
+            events,
+            activity,
+            new SweepHeartbeats(),
+            new ProviderGuards(),
+            ProjectMailboxes.direct(),
+            new FairShares(),
+            Tracing.noop(),
+            new LatencyHistograms(),
+            ShutdownCoordinator.unmanaged()
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param snapshot Snapshot of the PMs and their Projects.
+     * @param index Deadline index of the assigned tasks.
+     * @param events Synthetic events.
+     * @param activity Activity of the Projects.
+     * @param heartbeats Heartbeats of the sweeps.
+     * @param guards Guards of the providers.
+     * @param mailboxes Mailboxes of the Projects.
+     * @param shares Fair shares of the Project owners.
+     * @param tracing Tracing of the sweeps.
+     * @param histograms Latency histograms of the Projects.
+     * @param shutdown Coordinator of the shutdown.
+     * @checkstyle ParameterNumber (15 lines)
+     */
+    @Autowired
+    public ReviewUnassignedTasks(
+        final ProjectsSnapshot snapshot,
+        final AssignedTasksIndex index,
+        final SyntheticEvents events,
+        final ProjectActivity activity,
+        final SweepHeartbeats heartbeats,
+        final ProviderGuards guards,
+        final ProjectMailboxes mailboxes,
+        final FairShares shares,
+        final Tracing tracing,
+        final LatencyHistograms histograms,
+        final ShutdownCoordinator shutdown
+    ) {
+        this.sweep = new ProjectSweep(
+            ReviewUnassignedTasks.SWEEP,
+            snapshot,
+            histograms.hook(
+                LatencyHistograms.Operation.UNASSIGNED_REVIEW,
+                heartbeats.hook(new LoggingSweepHook(LOG))
+            ),
+            guards,
+            mailboxes,
+            shares,
+            tracing,
+            shutdown
+        );
+        this.index = index;
+        this.events = events;
+        this.activity = activity;
+    }
+
+    /**
+     * Every 10 minutes the PMs should verify the unassigned tasks of their
+     * Projects which are due for review.
      */
     @Scheduled(fixedRate = EVERY_10_MINUTES)
     public void reviewUnassignedTasks() {
-        LOG.debug("PMs reviewing their unassigned tasks...");
-        for(final ProjectManager manager : this.selfCore.projectManagers()) {
-            LOG.debug(
-                "PM @" + manager.username()
-                + " reviewing their unassinged tasks..."
-            );
-            for(final Project project : manager.projects()) {
-                LOG.debug(
-                    "Reviewing unassigned tasks from project "
-                    + project.repoFullName() + " at " + project.provider()
-                    + "... "
-                );
+        final LocalDateTime started = this.activity.now();
+        this.sweep.run(
+            project -> this.activity.due(ReviewUnassignedTasks.SWEEP, project),
+            project -> {
                 try {
                     project.resolve(
-                        new Event() {
-                            @Override
-                            public String type() {
-                                return Type.UNASSIGNED_TASKS;
-                            }
-
-                            @Override
-                            public Issue issue() {
-                                throw new UnsupportedOperationException(
-                                    "No Issue in the " + Type.UNASSIGNED_TASKS
-                                    + " event."
-                                );
-                            }
-
-                            @Override
-                            public Comment comment() {
-                                throw new UnsupportedOperationException(
-                                    "No Comment in the " + Type.UNASSIGNED_TASKS
-                                    + " event."
-                                );
-                            }
-
-                            @Override
-                            public Commit commit() {
-                                throw new UnsupportedOperationException(
-                                    "No Commit in the " + Type.UNASSIGNED_TASKS
-                                    + " event."
-                                );
-                            }
-
-                            @Override
-                            public String repoNewName() {
-                                throw new UnsupportedOperationException(
-                                    "No Repo new name in the "
-                                    + Type.UNASSIGNED_TASKS + " event."
-                                );
-                            }
-
-                            @Override
-                            public Project project() {
-                                return project;
-                            }
-                        }
-                    );
-                } catch (final RuntimeException ex) {
-                    LOG.error(
-                        "Problem while reviewing unassigned tasks of Project "
-                        + project.repoFullName() + " at " + project.provider(),
-                        ex
+                        this.events.event(Event.Type.UNASSIGNED_TASKS, project)
                     );
+                } finally {
+                    this.index.markStale(project);
                 }
+                this.activity.reviewed(
+                    ReviewUnassignedTasks.SWEEP, project, started
+                );
             }
-        }
-        LOG.debug("All PMs finished reviewing their unassigned tasks.");
+        );
     }
 
 }
@@ -0,0 +1,78 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Checks that the scheduled sweeps keep finishing. A sweep which is late by
+ * more than its own period is reported DOWN in /actuator/health, for
+ * alerting; it is not used by the probes.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class SchedulerHealth implements HealthIndicator {
+
+    /**
+     * Heartbeats of the sweeps.
+     */
+    private final SweepHeartbeats heartbeats;
+
+    /**
+     * Period of each sweep.
+     */
+    private final Map<String, Duration> periods;
+
+    /**
+     * Ctor.
+     * @param heartbeats Heartbeats of the sweeps.
+     * @param periods Period of each sweep.
+     */
+    public SchedulerHealth(
+        final SweepHeartbeats heartbeats,
+        final Map<String, Duration> periods
+    ) {
+        this.heartbeats = heartbeats;
+        this.periods = periods;
+    }
+
+    @Override
+    public Health health() {
+        final Health.Builder health = Health.up();
+        for(final Map.Entry<String, Duration> sweep : this.periods.entrySet()) {
+            final Duration lag = this.heartbeats.lag(
+                sweep.getKey(), sweep.getValue()
+            );
+            if(lag.compareTo(sweep.getValue()) > 0) {
+                health.down();
+            }
+            health.withDetail(sweep.getKey(), lag.toSeconds() + "s late");
+        }
+        return health.build();
+    }
+}
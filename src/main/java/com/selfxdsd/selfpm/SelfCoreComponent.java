@@ -27,33 +27,44 @@ import com.selfxdsd.core.Env;
 import com.selfxdsd.core.SelfCore;
 import com.selfxdsd.storage.MySql;
 import com.selfxdsd.storage.SelfJooq;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.function.Supplier;
+
 /**
- * Self Core component.
+ * Self Core component.<br/>
+ * The core (and its database layer) is built in the background, so it does
+ * not hold up the startup of the Spring context; the first call waits for
+ * the first attempt. Failed attempts are retried (see {@link SelfCoreInit})
+ * and the database check of the readiness probe is DOWN meanwhile.
  * @author Mihai Andronache (amihaiemil@gmail.com)
  * @version $Id$
  * @since 0.0.4
  */
 @Component
+@Lazy(false)
 public final class SelfCoreComponent implements Self {
 
     /**
      * Self's core.
      */
-    private final Self core;
+    private final SelfCoreInit core;
 
     /**
      * Default constructor for Spring.
      */
     public SelfCoreComponent() {
         this(
-            new SelfCore(
-                new SelfJooq(
-                    new MySql(
-                        System.getenv(Env.DB_URL),
-                        System.getenv(Env.DB_USER),
-                        System.getenv(Env.DB_PASSWORD)
+            SelfCoreComponent.background(
+                () -> new SelfCore(
+                    new SelfJooq(
+                        new MySql(
+                            System.getenv(Env.DB_URL),
+                            System.getenv(Env.DB_USER),
+                            System.getenv(Env.DB_PASSWORD)
+                        )
                     )
                 )
             )
@@ -65,36 +76,64 @@ public final class SelfCoreComponent implements Self {
      * @param core Encapsulated core.
      */
     public SelfCoreComponent(final Self core) {
+        this(SelfCoreInit.built(core));
+    }
+
+    /**
+     * Constructor.
+     * @param core Initialization of the encapsulated core.
+     */
+    SelfCoreComponent(final SelfCoreInit core) {
         this.core = core;
     }
 
+    /**
+     * Is the core initialized?
+     * @return True or false.
+     */
+    public boolean initialized() {
+        return this.core.ready();
+    }
+
     @Override
     public User login(final Login login) {
-        return this.core.login(login);
+        return this.core.get().login(login);
     }
 
     @Override
     public User authenticate(final String token) {
-        return this.core.authenticate(token);
+        return this.core.get().authenticate(token);
     }
 
     @Override
     public ProjectManagers projectManagers() {
-        return this.core.projectManagers();
+        return this.core.get().projectManagers();
     }
 
     @Override
     public Projects projects() {
-        return this.core.projects();
+        return this.core.get().projects();
     }
 
     @Override
     public Contributors contributors() {
-        return this.core.contributors();
+        return this.core.get().contributors();
     }
 
     @Override
     public void close() throws Exception {
         this.core.close();
     }
+
+    /**
+     * Build the core in a background thread, retrying every 1 second up to
+     * every minute, while it fails.
+     * @param build Builds the core.
+     * @return Initialization of the core.
+     */
+    static SelfCoreInit background(final Supplier<Self> build) {
+        return new SelfCoreInit(
+            build, Duration.ofSeconds(1), Duration.ofMinutes(1)
+        ).start();
+    }
 }
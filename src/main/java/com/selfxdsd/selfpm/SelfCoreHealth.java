@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import com.selfxdsd.api.Self;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Checks that Self's core can reach the database, by reading the PMs.
+ * The check is DOWN if the core is not initialized yet, if the database
+ * cannot be reached or if it answers slower than the given threshold (e.g.
+ * the pool is exhausted).
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ * @checkstyle IllegalCatch (100 lines)
+ */
+public final class SelfCoreHealth implements HealthIndicator {
+
+    /**
+     * Self's core.
+     */
+    private final Self selfCore;
+
+    /**
+     * Slowest acceptable answer.
+     */
+    private final Duration threshold;
+
+    /**
+     * Is the core initialized?
+     */
+    private final BooleanSupplier initialized;
+
+    /**
+     * Ctor.
+     * @param selfCore Self's core.
+     * @param threshold Slowest acceptable answer.
+     */
+    public SelfCoreHealth(final Self selfCore, final Duration threshold) {
+        this(selfCore, threshold, () -> true);
+    }
+
+    /**
+     * Ctor.
+     * @param selfCore Self's core.
+     * @param threshold Slowest acceptable answer.
+     * @param initialized Is the core initialized?
+     */
+    public SelfCoreHealth(
+        final Self selfCore,
+        final Duration threshold,
+        final BooleanSupplier initialized
+    ) {
+        this.selfCore = selfCore;
+        this.threshold = threshold;
+        this.initialized = initialized;
+    }
+
+    @Override
+    public Health health() {
+        final long start = System.nanoTime();
+        Health.Builder health;
+        if(this.initialized.getAsBoolean()) {
+            try {
+                this.selfCore.projectManagers().iterator().hasNext();
+                final Duration took = Duration.ofNanos(
+                    System.nanoTime() - start
+                );
+                if(took.compareTo(this.threshold) > 0) {
+                    health = Health.down();
+                } else {
+                    health = Health.up();
+                }
+                health = health.withDetail("took", took.toMillis() + "ms");
+            } catch (final RuntimeException ex) {
+                health = Health.down(ex);
+            }
+        } else {
+            health = Health.down().withDetail("core", "not initialized yet");
+        }
+        return health.build();
+    }
+}
@@ -0,0 +1,208 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import com.selfxdsd.api.Self;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Initialization of Self's core, in a background thread. If building the
+ * core fails (e.g. the database is not reachable yet), it is retried with
+ * an exponential backoff until it succeeds or until it is closed.<br/>
+ * The first call waits for the first attempt; while the core is not built,
+ * the calls fail fast with the last failure.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ * @checkstyle IllegalCatch (200 lines)
+ */
+final class SelfCoreInit implements Supplier<Self>, AutoCloseable {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(
+        SelfCoreInit.class
+    );
+
+    /**
+     * Builds the core.
+     */
+    private final Supplier<Self> build;
+
+    /**
+     * First backoff after a failure.
+     */
+    private final Duration initial;
+
+    /**
+     * Longest backoff.
+     */
+    private final Duration longest;
+
+    /**
+     * Counted down after the first attempt, successful or not.
+     */
+    private final CountDownLatch attempted;
+
+    /**
+     * The built core, null until it is built.
+     */
+    private volatile Self core;
+
+    /**
+     * Failure of the last attempt.
+     */
+    private volatile RuntimeException failure;
+
+    /**
+     * Was it closed?
+     */
+    private volatile boolean closed;
+
+    /**
+     * Thread of the attempts.
+     */
+    private volatile Thread thread;
+
+    /**
+     * Ctor.
+     * @param build Builds the core.
+     * @param initial First backoff after a failure.
+     * @param longest Longest backoff.
+     */
+    SelfCoreInit(
+        final Supplier<Self> build,
+        final Duration initial,
+        final Duration longest
+    ) {
+        this.build = build;
+        this.initial = initial;
+        this.longest = longest;
+        this.attempted = new CountDownLatch(1);
+    }
+
+    /**
+     * Initialization of a core which is already built.
+     * @param core Self's core.
+     * @return SelfCoreInit.
+     */
+    static SelfCoreInit built(final Self core) {
+        final SelfCoreInit init = new SelfCoreInit(
+            () -> core, Duration.ZERO, Duration.ZERO
+        );
+        init.core = core;
+        init.attempted.countDown();
+        return init;
+    }
+
+    /**
+     * Start the attempts in the background.
+     * @return This.
+     */
+    SelfCoreInit start() {
+        final Thread attempts = new Thread(this::attempts, "self-core-init");
+        attempts.setDaemon(true);
+        this.thread = attempts;
+        attempts.start();
+        return this;
+    }
+
+    /**
+     * Is the core built?
+     * @return True or false.
+     */
+    boolean ready() {
+        return this.core != null;
+    }
+
+    @Override
+    public Self get() {
+        try {
+            this.attempted.await();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        final Self built = this.core;
+        if(built == null) {
+            throw new IllegalStateException(
+                "Self's core is not initialized yet, retrying.", this.failure
+            );
+        }
+        return built;
+    }
+
+    @Override
+    public void close() throws Exception {
+        this.closed = true;
+        final Thread attempts = this.thread;
+        if(attempts != null) {
+            attempts.interrupt();
+        }
+        final Self built = this.core;
+        if(built != null) {
+            built.close();
+        }
+    }
+
+    /**
+     * Try to build the core until it works or until closed.
+     */
+    private void attempts() {
+        final long start = System.nanoTime();
+        Duration backoff = this.initial;
+        while(this.core == null && !this.closed) {
+            try {
+                this.core = this.build.get();
+                LOG.info(
+                    "Self's core ready in "
+                    + (System.nanoTime() - start) / 1_000_000L + "ms."
+                );
+            } catch (final RuntimeException ex) {
+                this.failure = ex;
+                LOG.warn(
+                    "Could not initialize Self's core, retrying in "
+                    + backoff.toMillis() + "ms.", ex
+                );
+            }
+            this.attempted.countDown();
+            if(this.core == null) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(backoff.toMillis());
+                } catch (final InterruptedException ex) {
+                    this.closed = true;
+                }
+                backoff = backoff.multipliedBy(2);
+                if(backoff.compareTo(this.longest) > 0) {
+                    backoff = this.longest;
+                }
+            }
+        }
+    }
+}
@@ -24,7 +24,6 @@ package com.selfxdsd.selfpm;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Entry point for SpringBoot.
@@ -34,7 +33,6 @@ import org.springframework.scheduling.annotation.EnableScheduling;
  * @checkstyle HideUtilityClassConstructor (100 lines)
  */
 @SpringBootApplication
-@EnableScheduling
 public class SelfPmApplication {
 
     /**
@@ -42,7 +40,11 @@ public class SelfPmApplication {
      * @param args Command-line arguments.
      */
     public static void main(final String[] args) {
-        SpringApplication.run(SelfPmApplication.class, args);
+        final SpringApplication application = new SpringApplication(
+            SelfPmApplication.class
+        );
+        application.addListeners(new StartupTimings());
+        application.run(args);
     }
 
 }
@@ -0,0 +1,110 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * Checks that the Self TODOs microservice, where the push events are
+ * forwarded, can be reached. Any answer which is not a server error means
+ * it is UP.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class SelfTodosHealth implements HealthIndicator {
+
+    /**
+     * Server errors start here.
+     */
+    private static final int SERVER_ERROR = 500;
+
+    /**
+     * Self TODOs location.
+     */
+    private final URI todos;
+
+    /**
+     * Timeout.
+     */
+    private final Duration timeout;
+
+    /**
+     * HTTP client.
+     */
+    private final HttpClient client;
+
+    /**
+     * Ctor.
+     * @param todos Self TODOs location.
+     * @param timeout Timeout.
+     */
+    public SelfTodosHealth(final URI todos, final Duration timeout) {
+        this.todos = todos;
+        this.timeout = timeout;
+        this.client = HttpClient.newBuilder()
+            .connectTimeout(timeout)
+            .build();
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder health;
+        final long start = System.nanoTime();
+        try {
+            final int status = this.client.send(
+                HttpRequest.newBuilder(this.todos)
+                    .timeout(this.timeout)
+                    .GET()
+                    .build(),
+                HttpResponse.BodyHandlers.discarding()
+            ).statusCode();
+            if(status < SERVER_ERROR) {
+                health = Health.up();
+            } else {
+                health = Health.down();
+            }
+            health = health.withDetail("status", status);
+        } catch (final IOException ex) {
+            health = Health.down(ex);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            health = Health.unknown();
+        }
+        return health
+            .withDetail("url", this.todos.toString())
+            .withDetail(
+                "took",
+                Duration.ofNanos(System.nanoTime() - start).toMillis() + "ms"
+            )
+            .build();
+    }
+}
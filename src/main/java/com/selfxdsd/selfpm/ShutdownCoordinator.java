@@ -0,0 +1,414 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains the work in progress when the application shuts down, so a
+ * deploy neither loses webhook events nor cuts a pass in half:
+ * <ol>
+ *     <li>new webhooks are refused (503, see {@link AdmissionLimiter})
+ *     and the readiness probe goes down;</li>
+ *     <li>the admitted webhooks finish and the lanes are drained;</li>
+ *     <li>running passes (sweeps, payments) finish their current Project
+ *     and leave the rest (see {@link #abandoned(String, Collection)}):
+ *     the payments are resumed from their plan file at the next start
+ *     (see {@link PayInvoices#resumeAtStart()}), the sweeps simply run
+ *     again;</li>
+ *     <li>the Projects' mailboxes and the providers' workers finish their
+ *     jobs and calls.</li>
+ * </ol>
+ * All of this within a timeout; what could not be finished is logged in
+ * the {@link #report()}. It stops in the same phase as the web server's
+ * graceful shutdown (server.shutdown=graceful).
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+@Component
+public final class ShutdownCoordinator implements SmartLifecycle {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(
+        ShutdownCoordinator.class
+    );
+
+    /**
+     * Webhook lanes.
+     */
+    private final WebhookLanes lanes;
+
+    /**
+     * Mailboxes of the Projects.
+     */
+    private final ProjectMailboxes mailboxes;
+
+    /**
+     * Guards of the providers.
+     */
+    private final ProviderGuards guards;
+
+    /**
+     * Admission control of the webhooks.
+     */
+    private final AdmissionLimiter limiter;
+
+    /**
+     * Publisher of the readiness change.
+     */
+    private final ApplicationEventPublisher publisher;
+
+    /**
+     * How long the draining may take.
+     */
+    private final Duration timeout;
+
+    /**
+     * Lock guarding the state below.
+     */
+    private final Object lock;
+
+    /**
+     * Number of running passes, by name.
+     */
+    private final Map<String, Integer> running;
+
+    /**
+     * Work left by the interrupted passes, by name.
+     */
+    private final Map<String, List<String>> left;
+
+    /**
+     * Abandoned events of each lane.
+     */
+    private final Map<WebhookLanes.Lane, Integer> dropped;
+
+    /**
+     * Abandoned provider calls.
+     */
+    private int calls;
+
+    /**
+     * Is the application up?
+     */
+    private boolean active;
+
+    /**
+     * Is the application shutting down?
+     */
+    private boolean stopping;
+
+    /**
+     * Ctor.
+     * @param lanes Webhook lanes.
+     * @param limiter Admission control of the webhooks.
+     * @param publisher Publisher of the readiness change.
+     * @param timeout How long the draining may take.
+     */
+    public ShutdownCoordinator(
+        final WebhookLanes lanes,
+        final AdmissionLimiter limiter,
+        final ApplicationEventPublisher publisher,
+        final Duration timeout
+    ) {
+        this(
+            lanes, ProjectMailboxes.direct(), ProviderGuards.direct(),
+            limiter, publisher, timeout
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param lanes Webhook lanes.
+     * @param mailboxes Mailboxes of the Projects.
+     * @param guards Guards of the providers.
+     * @param limiter Admission control of the webhooks.
+     * @param publisher Publisher of the readiness change.
+     * @param timeout How long the draining may take.
+     * @checkstyle ParameterNumber (20 lines)
+     */
+    @Autowired
+    public ShutdownCoordinator(
+        final WebhookLanes lanes,
+        final ProjectMailboxes mailboxes,
+        final ProviderGuards guards,
+        final AdmissionLimiter limiter,
+        final ApplicationEventPublisher publisher,
+        @Value("${self.pm.shutdown.timeout:PT30S}") final Duration timeout
+    ) {
+        this.lanes = lanes;
+        this.mailboxes = mailboxes;
+        this.guards = guards;
+        this.limiter = limiter;
+        this.publisher = publisher;
+        this.timeout = timeout;
+        this.lock = new Object();
+        this.running = new LinkedHashMap<>();
+        this.left = new LinkedHashMap<>();
+        this.dropped = new EnumMap<>(WebhookLanes.Lane.class);
+    }
+
+    /**
+     * Coordinator which is not managed by Spring: it never stops, unless
+     * told so. For the passes created outside the context (tests).
+     * @return ShutdownCoordinator.
+     */
+    public static ShutdownCoordinator unmanaged() {
+        return new ShutdownCoordinator(
+            WebhookLanes.direct(),
+            new AdmissionLimiter(),
+            event -> { },
+            Duration.ofSeconds(1)
+        );
+    }
+
+    /**
+     * A pass (sweep, payments) wants to start.
+     * @param pass Name of the pass.
+     * @return True if it may run, false if the application is stopping.
+     */
+    public boolean enter(final String pass) {
+        final boolean entered;
+        synchronized (this.lock) {
+            entered = !this.stopping;
+            if(entered) {
+                this.running.merge(pass, 1, Integer::sum);
+            }
+        }
+        return entered;
+    }
+
+    /**
+     * A pass which entered is done.
+     * @param pass Name of the pass.
+     */
+    public void exit(final String pass) {
+        synchronized (this.lock) {
+            this.running.computeIfPresent(
+                pass,
+                (name, count) -> {
+                    Integer remaining = count - 1;
+                    if(remaining == 0) {
+                        remaining = null;
+                    }
+                    return remaining;
+                }
+            );
+            this.lock.notifyAll();
+        }
+    }
+
+    /**
+     * Is the application stopping? Running passes should check it before
+     * each Project and stop if so.
+     * @return True or false.
+     */
+    public boolean stopping() {
+        synchronized (this.lock) {
+            return this.stopping;
+        }
+    }
+
+    /**
+     * A pass stopped before some of its work.
+     * @param pass Name of the pass.
+     * @param work What was left, e.g. the keys of the Projects.
+     */
+    public void abandoned(final String pass, final Collection<String> work) {
+        synchronized (this.lock) {
+            this.left.computeIfAbsent(pass, name -> new ArrayList<>())
+                .addAll(work);
+        }
+    }
+
+    /**
+     * Refuse new work and wait for the work in progress, at most until
+     * the timeout: the admitted webhooks, the lanes, the running passes,
+     * then the mailboxes and the providers' workers which they fed.
+     */
+    public void drain() {
+        final long deadline = System.nanoTime() + this.timeout.toNanos();
+        synchronized (this.lock) {
+            this.stopping = true;
+        }
+        LOG.info("Shutting down, draining the work in progress...");
+        this.limiter.close();
+        AvailabilityChangeEvent.publish(
+            this.publisher, this, ReadinessState.REFUSING_TRAFFIC
+        );
+        try {
+            while(this.limiter.inflight() > 0
+                && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(50);
+            }
+            final Map<WebhookLanes.Lane, Integer> abandoned =
+                this.lanes.drain(
+                    Duration.ofNanos(Math.max(0, deadline - System.nanoTime()))
+                );
+            synchronized (this.lock) {
+                this.dropped.putAll(abandoned);
+                long wait = deadline - System.nanoTime();
+                while(!this.running.isEmpty() && wait > 0) {
+                    TimeUnit.NANOSECONDS.timedWait(this.lock, wait);
+                    wait = deadline - System.nanoTime();
+                }
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        this.drainWorkers(deadline);
+        final JsonObject report = this.report();
+        if(report.getBoolean("clean")) {
+            LOG.info("Drained everything: " + report);
+        } else {
+            LOG.warn("Shut down before finishing: " + report);
+        }
+    }
+
+    /**
+     * What the shutdown could not finish: webhooks still in flight,
+     * abandoned webhook events, unfinished jobs of the mailboxes,
+     * abandoned provider calls, passes still running and the work left by
+     * the interrupted passes.
+     * @return JsonObject.
+     */
+    public JsonObject report() {
+        final int inflight = this.limiter.inflight();
+        final int backlog = this.mailboxes.backlog();
+        synchronized (this.lock) {
+            final JsonObjectBuilder lanes = Json.createObjectBuilder();
+            int events = inflight + backlog + this.calls;
+            for(final Map.Entry<WebhookLanes.Lane, Integer> lane
+                : this.dropped.entrySet()) {
+                lanes.add(lane.getKey().tag(), lane.getValue());
+                events = events + lane.getValue();
+            }
+            final JsonObjectBuilder passes = Json.createObjectBuilder();
+            this.left.forEach(
+                (pass, work) -> {
+                    final JsonArrayBuilder items = Json.createArrayBuilder();
+                    work.forEach(items::add);
+                    passes.add(pass, items);
+                }
+            );
+            final JsonArrayBuilder unfinished = Json.createArrayBuilder();
+            this.running.keySet().forEach(unfinished::add);
+            return Json.createObjectBuilder()
+                .add(
+                    "clean",
+                    events == 0 && this.left.isEmpty()
+                        && this.running.isEmpty()
+                )
+                .add("inflightWebhooks", inflight)
+                .add("abandonedEvents", lanes)
+                .add("mailboxBacklog", backlog)
+                .add("abandonedProviderCalls", this.calls)
+                .add("runningPasses", unfinished)
+                .add("interruptedPasses", passes)
+                .build();
+        }
+    }
+
+    @Override
+    public void start() {
+        synchronized (this.lock) {
+            this.active = true;
+        }
+    }
+
+    @Override
+    public void stop() {
+        this.drain();
+        synchronized (this.lock) {
+            this.active = false;
+        }
+    }
+
+    @Override
+    public void stop(final Runnable callback) {
+        final Thread drainer = new Thread(
+            () -> {
+                try {
+                    this.stop();
+                } finally {
+                    callback.run();
+                }
+            },
+            "shutdown-drain"
+        );
+        drainer.start();
+    }
+
+    @Override
+    public boolean isRunning() {
+        synchronized (this.lock) {
+            return this.active;
+        }
+    }
+
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE;
+    }
+
+    /**
+     * Drain the mailboxes of the Projects, then the providers' workers,
+     * until the deadline.
+     * @param deadline Deadline (nanos).
+     */
+    private void drainWorkers(final long deadline) {
+        this.mailboxes.drain(
+            Duration.ofNanos(Math.max(0, deadline - System.nanoTime()))
+        );
+        final int unfinished = this.guards.drain(
+            Duration.ofNanos(Math.max(0, deadline - System.nanoTime()))
+        );
+        synchronized (this.lock) {
+            this.calls = unfinished;
+        }
+    }
+}
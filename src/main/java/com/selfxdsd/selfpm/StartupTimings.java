@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationContextInitializedEvent;
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.boot.context.event.ApplicationPreparedEvent;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.boot.context.event.ApplicationStartingEvent;
+import org.springframework.boot.context.event.SpringApplicationEvent;
+import org.springframework.context.ApplicationListener;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Records how long each startup phase took (milliseconds since the JVM
+ * started) and logs them once the application is ready.<br/>
+ * If the property self.pm.startup.exit-when-ready is true, the application
+ * exits as soon as it is ready. This is used for the training run which
+ * records the loaded classes for the class-data sharing archive
+ * (see Dockerfile).
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class StartupTimings
+    implements ApplicationListener<SpringApplicationEvent> {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(
+        StartupTimings.class
+    );
+
+    /**
+     * Name of each phase.
+     */
+    private static final Map<Class<?>, String> PHASES = Map.of(
+        ApplicationStartingEvent.class, "starting",
+        ApplicationEnvironmentPreparedEvent.class, "environment",
+        ApplicationContextInitializedEvent.class, "context",
+        ApplicationPreparedEvent.class, "prepared",
+        ApplicationStartedEvent.class, "started",
+        ApplicationReadyEvent.class, "ready"
+    );
+
+    /**
+     * Moment of each phase, in ms since the JVM started.
+     */
+    private final Map<String, Long> phases;
+
+    /**
+     * Ctor.
+     */
+    public StartupTimings() {
+        this.phases = new LinkedHashMap<>();
+    }
+
+    @Override
+    public void onApplicationEvent(final SpringApplicationEvent event) {
+        final String phase = PHASES.get(event.getClass());
+        if(phase != null) {
+            this.phases.put(
+                phase, ManagementFactory.getRuntimeMXBean().getUptime()
+            );
+        }
+        if(event instanceof ApplicationReadyEvent) {
+            LOG.info("Startup phases (ms since JVM start): " + this.phases);
+            final ApplicationReadyEvent ready = (ApplicationReadyEvent) event;
+            final boolean exit = ready.getApplicationContext()
+                .getEnvironment()
+                .getProperty(
+                    "self.pm.startup.exit-when-ready", Boolean.class, false
+                );
+            if(exit) {
+                LOG.info("Exiting, as requested (training run).");
+                System.exit(
+                    SpringApplication.exit(ready.getApplicationContext())
+                );
+            }
+        }
+    }
+
+    /**
+     * Moment of each phase recorded so far.
+     * @return Map of phase name to ms since the JVM started.
+     */
+    public Map<String, Long> phases() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(this.phases));
+    }
+}
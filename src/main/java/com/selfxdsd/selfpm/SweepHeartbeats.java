@@ -0,0 +1,145 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import com.selfxdsd.api.Project;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * When did each sweep last finish. Used to find out if the scheduler is
+ * lagging behind (e.g. a sweep is stuck or the scheduler thread died).
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+@Component
+public final class SweepHeartbeats {
+
+    /**
+     * Last time each sweep finished.
+     */
+    private final Map<String, Instant> finished;
+
+    /**
+     * Clock.
+     */
+    private final Supplier<Instant> clock;
+
+    /**
+     * When the heartbeats started being recorded.
+     */
+    private final Instant since;
+
+    /**
+     * Ctor.
+     */
+    public SweepHeartbeats() {
+        this(Instant::now);
+    }
+
+    /**
+     * Ctor.
+     * @param clock Clock.
+     */
+    SweepHeartbeats(final Supplier<Instant> clock) {
+        this.finished = new ConcurrentHashMap<>();
+        this.clock = clock;
+        this.since = clock.get();
+    }
+
+    /**
+     * The given sweep just finished.
+     * @param sweep Sweep name.
+     */
+    public void beat(final String sweep) {
+        this.finished.put(sweep, this.clock.get());
+    }
+
+    /**
+     * How late is the given sweep, considering it should finish once every
+     * period. If it never finished, it is measured from startup.
+     * @param sweep Sweep name.
+     * @param period How often the sweep runs.
+     * @return Lag, zero if the sweep is on time.
+     */
+    public Duration lag(final String sweep, final Duration period) {
+        final Instant last = this.finished.getOrDefault(sweep, this.since);
+        final Duration lag = Duration.between(
+            last.plus(period), this.clock.get()
+        );
+        Duration result = lag;
+        if(lag.isNegative()) {
+            result = Duration.ZERO;
+        }
+        return result;
+    }
+
+    /**
+     * Wrap a hook so the heartbeat of the sweep is recorded when it
+     * finishes.
+     * @param hook Hook.
+     * @return SweepHook.
+     */
+    public SweepHook hook(final SweepHook hook) {
+        return new SweepHook() {
+            @Override
+            public void started(final String sweep) {
+                hook.started(sweep);
+            }
+
+            @Override
+            public void swept(
+                final String sweep,
+                final Project project,
+                final Duration took
+            ) {
+                hook.swept(sweep, project, took);
+            }
+
+            @Override
+            public boolean failed(
+                final String sweep,
+                final Project project,
+                final RuntimeException error
+            ) {
+                return hook.failed(sweep, project, error);
+            }
+
+            @Override
+            public void finished(
+                final String sweep,
+                final int swept,
+                final Duration took
+            ) {
+                hook.finished(sweep, swept, took);
+                SweepHeartbeats.this.beat(sweep);
+            }
+        };
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import com.selfxdsd.api.Project;
+
+import java.time.Duration;
+
+/**
+ * Hook plugged into a {@link ProjectSweep}. It is notified about the sweep's
+ * progress (e.g. for timing) and decides what happens when a Project fails.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public interface SweepHook {
+
+    /**
+     * The sweep started.
+     * @param sweep Name of the sweep.
+     */
+    void started(String sweep);
+
+    /**
+     * A Project was swept successfully.
+     * @param sweep Name of the sweep.
+     * @param project Project.
+     * @param took How long it took.
+     */
+    void swept(String sweep, Project project, Duration took);
+
+    /**
+     * A Project failed.
+     * @param sweep Name of the sweep.
+     * @param project Project.
+     * @param error Error.
+     * @return True if the sweep should go on with the next Projects,
+     *  false if it should stop.
+     */
+    boolean failed(String sweep, Project project, RuntimeException error);
+
+    /**
+     * The sweep finished.
+     * @param sweep Name of the sweep.
+     * @param swept Number of swept Projects (including failed ones).
+     * @param took How long it took.
+     */
+    void finished(String sweep, int swept, Duration took);
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import com.selfxdsd.api.Comment;
+import com.selfxdsd.api.Commit;
+import com.selfxdsd.api.Event;
+import com.selfxdsd.api.Issue;
+import com.selfxdsd.api.Project;
+
+/**
+ * Event created by the PM itself (e.g. by a scheduled review), rather than
+ * received via webhook. It only has a type and a Project.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class SyntheticEvent implements Event {
+
+    /**
+     * Event type.
+     */
+    private final String type;
+
+    /**
+     * Project.
+     */
+    private final Project project;
+
+    /**
+     * Ctor.
+     * @param type Event type.
+     * @param project Project.
+     */
+    public SyntheticEvent(final String type, final Project project) {
+        this.type = type;
+        this.project = project;
+    }
+
+    @Override
+    public String type() {
+        return this.type;
+    }
+
+    @Override
+    public Issue issue() {
+        throw new UnsupportedOperationException(
+            "No Issue in the " + this.type + " event."
+        );
+    }
+
+    @Override
+    public Comment comment() {
+        throw new UnsupportedOperationException(
+            "No Comment in the " + this.type + " event."
+        );
+    }
+
+    @Override
+    public Commit commit() {
+        throw new UnsupportedOperationException(
+            "No Commit in the " + this.type + " event."
+        );
+    }
+
+    @Override
+    public String repoNewName() {
+        throw new UnsupportedOperationException(
+            "No Repo new name in the " + this.type + " event."
+        );
+    }
+
+    @Override
+    public Project project() {
+        return this.project;
+    }
+}
@@ -0,0 +1,395 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Lightweight tracing of the requests and of the sweeps: a webhook's span
+ * has child spans for the Project lookup, the signature check and the
+ * resolving (or the forwarding to Self TODOs), a sweep's span has a child
+ * span per Project. The finished spans go to a {@link SpanExporter}; the
+ * spans follow the OpenTelemetry data model (trace id, span id, parent
+ * span id, attributes), so the exported JSON can be fed to its tools.<br/>
+ * The current span is kept per thread: a span started while another is
+ * current becomes its child. Work handed to other threads must pass its
+ * parent explicitly (see {@link #start(String, Span)}).
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+@Component
+public final class Tracing {
+
+    /**
+     * Span which records nothing, used when tracing is off.
+     */
+    private static final Span NOOP = new Span(null, "", "", "", "");
+
+    /**
+     * Current span of each thread.
+     */
+    private final ThreadLocal<Span> current;
+
+    /**
+     * Exporter of the finished spans, null if tracing is off.
+     */
+    private final SpanExporter exporter;
+
+    /**
+     * Ctor.
+     * @param exporter Exporter: none, file or memory.
+     * @param file File where the file exporter writes the spans.
+     */
+    @Autowired
+    public Tracing(
+        @Value("${self.pm.tracing.exporter:none}") final String exporter,
+        @Value("${self.pm.tracing.file:traces.jsonl}") final String file
+    ) {
+        this(Tracing.exporter(exporter, file));
+    }
+
+    /**
+     * Ctor.
+     * @param exporter Exporter of the finished spans, null if tracing
+     *  is off.
+     */
+    public Tracing(final SpanExporter exporter) {
+        this.exporter = exporter;
+        this.current = new ThreadLocal<>();
+    }
+
+    /**
+     * Tracing which is off.
+     * @return Tracing.
+     */
+    public static Tracing noop() {
+        return new Tracing((SpanExporter) null);
+    }
+
+    /**
+     * Start a span, child of this thread's current span, if any. It becomes
+     * the current span until it is closed.
+     * @param name Name of the span.
+     * @return Span.
+     */
+    public Span start(final String name) {
+        return this.start(name, this.current.get());
+    }
+
+    /**
+     * Start a span, child of the given parent. It becomes this thread's
+     * current span until it is closed.
+     * @param name Name of the span.
+     * @param parent Parent span, null for a new trace.
+     * @return Span.
+     */
+    public Span start(final String name, final Span parent) {
+        final Span span;
+        if(this.exporter == null) {
+            span = NOOP;
+        } else {
+            final String trace;
+            final String parentId;
+            if(parent == null || parent.tracing == null) {
+                trace = Tracing.randomId(2);
+                parentId = "";
+            } else {
+                trace = parent.trace;
+                parentId = parent.id;
+            }
+            span = new Span(this, name, trace, Tracing.randomId(1), parentId);
+            span.previous = this.current.get();
+            this.current.set(span);
+        }
+        return span;
+    }
+
+    /**
+     * This thread's current span.
+     * @return Span or null if there is none.
+     */
+    public Span current() {
+        return this.current.get();
+    }
+
+    /**
+     * Exporter by its name.
+     * @param name Name: none, file or memory.
+     * @param file File of the file exporter.
+     * @return SpanExporter or null for none.
+     */
+    private static SpanExporter exporter(final String name, final String file) {
+        final SpanExporter exporter;
+        final String type = name.trim().toLowerCase(Locale.ENGLISH);
+        if("file".equals(type)) {
+            exporter = new FileSpanExporter(Paths.get(file));
+        } else if("memory".equals(type)) {
+            exporter = new InMemorySpanExporter(10_000);
+        } else if("none".equals(type) || type.isEmpty()) {
+            exporter = null;
+        } else {
+            throw new IllegalArgumentException(
+                "Unknown tracing exporter: " + name
+            );
+        }
+        return exporter;
+    }
+
+    /**
+     * Random hex id.
+     * @param longs Length of the id, in longs (1 for spans, 2 for traces).
+     * @return String.
+     */
+    private static String randomId(final int longs) {
+        final StringBuilder id = new StringBuilder();
+        for(int idx = 0; idx < longs; ++idx) {
+            id.append(
+                String.format(
+                    "%016x", ThreadLocalRandom.current().nextLong()
+                )
+            );
+        }
+        return id.toString();
+    }
+
+    /**
+     * A timed operation of a trace. Close it when the operation ends,
+     * preferably with try-with-resources.
+     * @author Mihai Andronache (amihaiemil@gmail.com)
+     * @version $Id$
+     * @since 0.0.17
+     */
+    public static final class Span implements AutoCloseable {
+
+        /**
+         * Tracing which started it, null for the no-op span.
+         */
+        private final Tracing tracing;
+
+        /**
+         * Name.
+         */
+        private final String name;
+
+        /**
+         * Trace id.
+         */
+        private final String trace;
+
+        /**
+         * Span id.
+         */
+        private final String id;
+
+        /**
+         * Id of the parent span, empty for the root span.
+         */
+        private final String parent;
+
+        /**
+         * Start time.
+         */
+        private final Instant started;
+
+        /**
+         * Start, from System.nanoTime().
+         */
+        private final long start;
+
+        /**
+         * Attributes.
+         */
+        private final Map<String, String> attributes;
+
+        /**
+         * The thread's current span before this one.
+         */
+        private Span previous;
+
+        /**
+         * Duration in nanoseconds, -1 while the span is open.
+         */
+        private long nanos;
+
+        /**
+         * Error, if the operation failed.
+         */
+        private String error;
+
+        /**
+         * Ctor.
+         * @param tracing Tracing which started it.
+         * @param name Name.
+         * @param trace Trace id.
+         * @param id Span id.
+         * @param parent Id of the parent span.
+         * @checkstyle ParameterNumber (10 lines)
+         */
+        private Span(
+            final Tracing tracing,
+            final String name,
+            final String trace,
+            final String id,
+            final String parent
+        ) {
+            this.tracing = tracing;
+            this.name = name;
+            this.trace = trace;
+            this.id = id;
+            this.parent = parent;
+            this.started = Instant.now();
+            this.start = System.nanoTime();
+            this.attributes = new LinkedHashMap<>();
+            this.nanos = -1;
+        }
+
+        /**
+         * Add an attribute.
+         * @param key Key, e.g. "project".
+         * @param value Value.
+         * @return This span.
+         */
+        public Span attribute(final String key, final Object value) {
+            if(this.tracing != null) {
+                this.attributes.put(key, String.valueOf(value));
+            }
+            return this;
+        }
+
+        /**
+         * Mark the span as failed.
+         * @param failure What went wrong.
+         * @return This span.
+         */
+        public Span failed(final Throwable failure) {
+            if(this.tracing != null) {
+                this.error = failure.getClass().getSimpleName() + ": "
+                    + failure.getMessage();
+            }
+            return this;
+        }
+
+        /**
+         * Name of the span.
+         * @return String.
+         */
+        public String name() {
+            return this.name;
+        }
+
+        /**
+         * Trace id.
+         * @return String.
+         */
+        public String traceId() {
+            return this.trace;
+        }
+
+        /**
+         * Span id.
+         * @return String.
+         */
+        public String spanId() {
+            return this.id;
+        }
+
+        /**
+         * Id of the parent span.
+         * @return String, empty for a root span.
+         */
+        public String parentId() {
+            return this.parent;
+        }
+
+        /**
+         * Attributes of the span.
+         * @return Map.
+         */
+        public Map<String, String> attributes() {
+            return this.attributes;
+        }
+
+        /**
+         * Duration of the span.
+         * @return Nanoseconds, -1 if still open.
+         */
+        public long nanos() {
+            return this.nanos;
+        }
+
+        /**
+         * The span as JSON, with OpenTelemetry's field names.
+         * @return JsonObject.
+         */
+        public JsonObject json() {
+            final JsonObjectBuilder attrs = Json.createObjectBuilder();
+            this.attributes.forEach(attrs::add);
+            final long epoch = ChronoUnit.NANOS.between(
+                Instant.EPOCH, this.started
+            );
+            final JsonObjectBuilder json = Json.createObjectBuilder()
+                .add("traceId", this.trace)
+                .add("spanId", this.id)
+                .add("parentSpanId", this.parent)
+                .add("name", this.name)
+                .add("startTimeUnixNano", epoch)
+                .add("endTimeUnixNano", epoch + this.nanos)
+                .add("attributes", attrs);
+            if(this.error == null) {
+                json.add("status", "OK");
+            } else {
+                json.add("status", "ERROR").add("error", this.error);
+            }
+            return json.build();
+        }
+
+        @Override
+        public void close() {
+            if(this.tracing != null && this.nanos < 0) {
+                this.nanos = System.nanoTime() - this.start;
+                if(this.tracing.current.get() == this) {
+                    if(this.previous == null) {
+                        this.tracing.current.remove();
+                    } else {
+                        this.tracing.current.set(this.previous);
+                    }
+                }
+                this.tracing.exporter.export(this);
+            }
+        }
+    }
+}
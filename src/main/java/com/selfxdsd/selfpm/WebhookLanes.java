@@ -0,0 +1,614 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import com.selfxdsd.api.Project;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.stream.JsonParsingException;
+import java.io.StringReader;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Priority lanes for handling webhook events. Events which a human is
+ * waiting for (comments with commands, new or reopened Issues and PRs) go
+ * to the interactive lane, everything else goes to the bulk lane. Each lane
+ * has its own workers and its own queue, so a flood of automation events
+ * cannot delay the replies to humans.<br/>
+ * If the interactive queue is full, the event is handled in the caller's
+ * thread; if the bulk queue is full, the event is rejected.<br/>
+ * Events bound to a Project are handled in its {@link ProjectMailboxes
+ * mailbox}, so they never run concurrently with other work on the same
+ * Project. The lane's worker waits for the event to be handled (for at
+ * most the lanes' hold), so the events keep waiting in their lane, in
+ * order of priority and fair share, not in the mailboxes.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ * @checkstyle IllegalCatch (500 lines)
+ * @checkstyle ClassDataAbstractionCoupling (500 lines)
+ */
+@Component
+public final class WebhookLanes {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(
+        WebhookLanes.class
+    );
+
+    /**
+     * Github event types which are interactive, for certain actions.
+     */
+    private static final Set<String> GITHUB_INTERACTIVE = Set.of(
+        "issues", "issue_comment", "pull_request"
+    );
+
+    /**
+     * Actions which make an event interactive.
+     */
+    private static final Set<String> INTERACTIVE_ACTIONS = Set.of(
+        "opened", "reopened", "created", "open", "reopen"
+    );
+
+    /**
+     * Executor of each lane.
+     */
+    private final Map<Lane, Executor> executors;
+
+    /**
+     * How long the events waited in each lane.
+     */
+    private final Map<Lane, Timer> waits;
+
+    /**
+     * How long it took to handle the events of each lane.
+     */
+    private final Map<Lane, Timer> handlings;
+
+    /**
+     * Rejected events of each lane.
+     */
+    private final Map<Lane, Counter> rejections;
+
+    /**
+     * Mailboxes of the Projects.
+     */
+    private final ProjectMailboxes mailboxes;
+
+    /**
+     * For how long a worker waits for the event it took to be handled.
+     */
+    private final Duration hold;
+
+    /**
+     * Ctor.
+     * @param interactive Number of interactive workers.
+     * @param interactiveQueue Capacity of the interactive queue.
+     * @param bulk Number of bulk workers.
+     * @param bulkQueue Capacity of the bulk queue.
+     * @param hold For how long a worker waits for its event to be handled.
+     * @param mailboxes Mailboxes of the Projects.
+     * @param shares Fair shares of the Project owners.
+     * @param registry Meter registry.
+     * @checkstyle ParameterNumber (20 lines)
+     */
+    @Autowired
+    public WebhookLanes(
+        @Value("${self.pm.webhooks.interactive.workers:4}")
+        final int interactive,
+        @Value("${self.pm.webhooks.interactive.queue:100}")
+        final int interactiveQueue,
+        @Value("${self.pm.webhooks.bulk.workers:2}") final int bulk,
+        @Value("${self.pm.webhooks.bulk.queue:500}") final int bulkQueue,
+        @Value("${self.pm.webhooks.hold:PT1M}") final Duration hold,
+        final ProjectMailboxes mailboxes,
+        final FairShares shares,
+        final MeterRegistry registry
+    ) {
+        this(
+            WebhookLanes.pool(
+                "interactive", interactive,
+                shares.queue("interactive", interactiveQueue),
+                new ThreadPoolExecutor.CallerRunsPolicy()
+            ),
+            WebhookLanes.pool(
+                "bulk", bulk, shares.queue("bulk", bulkQueue),
+                new ThreadPoolExecutor.AbortPolicy()
+            ),
+            mailboxes,
+            hold,
+            registry
+        );
+    }
+
+    /**
+     * Ctor. The Projects' jobs run in the lanes' threads.
+     * @param interactive Executor of the interactive lane.
+     * @param bulk Executor of the bulk lane.
+     * @param registry Meter registry.
+     */
+    public WebhookLanes(
+        final Executor interactive,
+        final Executor bulk,
+        final MeterRegistry registry
+    ) {
+        this(interactive, bulk, ProjectMailboxes.direct(), registry);
+    }
+
+    /**
+     * Ctor.
+     * @param interactive Executor of the interactive lane.
+     * @param bulk Executor of the bulk lane.
+     * @param mailboxes Mailboxes of the Projects.
+     * @param registry Meter registry.
+     */
+    public WebhookLanes(
+        final Executor interactive,
+        final Executor bulk,
+        final ProjectMailboxes mailboxes,
+        final MeterRegistry registry
+    ) {
+        this(interactive, bulk, mailboxes, Duration.ofMinutes(1), registry);
+    }
+
+    /**
+     * Ctor.
+     * @param interactive Executor of the interactive lane.
+     * @param bulk Executor of the bulk lane.
+     * @param mailboxes Mailboxes of the Projects.
+     * @param hold For how long a worker waits for its event to be handled.
+     * @param registry Meter registry.
+     * @checkstyle ParameterNumber (10 lines)
+     */
+    public WebhookLanes(
+        final Executor interactive,
+        final Executor bulk,
+        final ProjectMailboxes mailboxes,
+        final Duration hold,
+        final MeterRegistry registry
+    ) {
+        this.mailboxes = mailboxes;
+        this.hold = hold;
+        this.executors = new EnumMap<>(Lane.class);
+        this.executors.put(Lane.INTERACTIVE, interactive);
+        this.executors.put(Lane.BULK, bulk);
+        this.waits = new EnumMap<>(Lane.class);
+        this.handlings = new EnumMap<>(Lane.class);
+        this.rejections = new EnumMap<>(Lane.class);
+        for(final Lane lane : Lane.values()) {
+            this.waits.put(
+                lane,
+                Timer.builder("self.pm.webhooks.wait")
+                    .tag("lane", lane.tag())
+                    .serviceLevelObjectives(lane.objective())
+                    .register(registry)
+            );
+            this.handlings.put(
+                lane,
+                Timer.builder("self.pm.webhooks.handling")
+                    .tag("lane", lane.tag())
+                    .serviceLevelObjectives(lane.objective())
+                    .register(registry)
+            );
+            this.rejections.put(
+                lane,
+                Counter.builder("self.pm.webhooks.rejected")
+                    .tag("lane", lane.tag())
+                    .register(registry)
+            );
+            registry.gauge(
+                "self.pm.webhooks.queued",
+                Tags.of("lane", lane.tag()),
+                this,
+                lanes -> lanes.queued(lane)
+            );
+        }
+    }
+
+    /**
+     * Lanes which handle the events in the caller's thread, for tests.
+     * @return WebhookLanes.
+     */
+    public static WebhookLanes direct() {
+        return new WebhookLanes(
+            Runnable::run, Runnable::run, new SimpleMeterRegistry()
+        );
+    }
+
+    /**
+     * Lane of the given event.
+     * @param provider Provider (Github or GitLab).
+     * @param type Event type, as sent in the event header.
+     * @param payload Payload.
+     * @return Lane.
+     */
+    public Lane lane(
+        final String provider,
+        final String type,
+        final String payload
+    ) {
+        final Lane lane;
+        if("Note Hook".equalsIgnoreCase(type)) {
+            lane = Lane.INTERACTIVE;
+        } else if(GITHUB_INTERACTIVE.contains(type)
+            || "Issue Hook".equalsIgnoreCase(type)
+            || "Merge Request Hook".equalsIgnoreCase(type)) {
+            if(INTERACTIVE_ACTIONS.contains(WebhookLanes.action(payload))) {
+                lane = Lane.INTERACTIVE;
+            } else {
+                lane = Lane.BULK;
+            }
+        } else {
+            lane = Lane.BULK;
+        }
+        return lane;
+    }
+
+    /**
+     * Submit a job to the given lane.
+     * @param lane Lane.
+     * @param job Job handling the event.
+     * @return True if the job was accepted, false if it was rejected
+     *  because the lane is full.
+     */
+    public boolean submit(final Lane lane, final Runnable job) {
+        return this.submit(lane, "", job);
+    }
+
+    /**
+     * Submit a job of a Project owner to the given lane. If the lane
+     * has a fair queue (see {@link FairShares}), the owners' jobs are
+     * interleaved, so one busy owner does not starve the others.
+     * @param lane Lane.
+     * @param owner Owner (see {@link FairShares#owner(Project)}).
+     * @param job Job handling the event.
+     * @return True if the job was accepted, false if it was rejected
+     *  because the lane is full.
+     */
+    public boolean submit(
+        final Lane lane,
+        final String owner,
+        final Runnable job
+    ) {
+        return this.dispatch(
+            lane,
+            owner,
+            () -> {
+                job.run();
+                return CompletableFuture.completedFuture(null);
+            }
+        );
+    }
+
+    /**
+     * Submit a job bound to a Project to the given lane. Once a worker of
+     * the lane picks it up, the job is posted to the Project's mailbox,
+     * where it runs after the Project's previous jobs; the worker waits
+     * until the work started by the job is finished, or until the hold is
+     * up. In the lane, the job gets the fair share of the Project's owner.
+     * @param lane Lane.
+     * @param project Project.
+     * @param job Job handling the event, starting some work and returning
+     *  its stage.
+     * @return True if the job was accepted, false if it was rejected
+     *  because the lane is full.
+     */
+    public boolean submit(
+        final Lane lane,
+        final Project project,
+        final Supplier<? extends CompletionStage<?>> job
+    ) {
+        final String key = ProjectMailboxes.key(project);
+        return this.dispatch(
+            lane,
+            FairShares.owner(project),
+            () -> this.mailboxes.submitAsync(key, job)
+        );
+    }
+
+    /**
+     * Number of events waiting in the given lane.
+     * @param lane Lane.
+     * @return Integer.
+     */
+    public int queued(final Lane lane) {
+        final Executor executor = this.executors.get(lane);
+        int queued = 0;
+        if(executor instanceof ThreadPoolExecutor) {
+            queued = ((ThreadPoolExecutor) executor).getQueue().size();
+        }
+        return queued;
+    }
+
+    /**
+     * How many events the given lane can hold.
+     * @param lane Lane.
+     * @return Integer, 0 if the lane has no queue.
+     */
+    public int capacity(final Lane lane) {
+        final Executor executor = this.executors.get(lane);
+        int capacity = 0;
+        if(executor instanceof ThreadPoolExecutor) {
+            final BlockingQueue<Runnable> queue =
+                ((ThreadPoolExecutor) executor).getQueue();
+            capacity = queue.size() + queue.remainingCapacity();
+        }
+        return capacity;
+    }
+
+    /**
+     * Let the workers finish the queued and running events, then stop
+     * them. Whatever is still queued when the timeout is up is abandoned.
+     * @param timeout How long to wait for the events.
+     * @return Number of abandoned events of each lane.
+     */
+    public Map<Lane, Integer> drain(final Duration timeout) {
+        final long deadline = System.nanoTime() + timeout.toNanos();
+        final Map<Lane, Integer> abandoned = new EnumMap<>(Lane.class);
+        for(final Lane lane : Lane.values()) {
+            final Executor executor = this.executors.get(lane);
+            int dropped = 0;
+            if(executor instanceof ThreadPoolExecutor) {
+                final ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+                pool.shutdown();
+                try {
+                    if(!pool.awaitTermination(
+                        Math.max(0, deadline - System.nanoTime()),
+                        TimeUnit.NANOSECONDS
+                    )) {
+                        dropped = pool.shutdownNow().size();
+                    }
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    dropped = pool.shutdownNow().size();
+                }
+            }
+            abandoned.put(lane, dropped);
+        }
+        return abandoned;
+    }
+
+    /**
+     * Stop the workers, when the application shuts down.
+     */
+    @PreDestroy
+    public void shutdown() {
+        for(final Executor executor : this.executors.values()) {
+            if(executor instanceof ThreadPoolExecutor) {
+                ((ThreadPoolExecutor) executor).shutdown();
+            }
+        }
+    }
+
+    /**
+     * Put a job in the given lane.
+     * @param lane Lane.
+     * @param owner Owner (see {@link FairShares#owner(Project)}).
+     * @param job Job handling the event, returning the stage of its work.
+     * @return True if the job was accepted, false if it was rejected
+     *  because the lane is full.
+     */
+    private boolean dispatch(
+        final Lane lane,
+        final String owner,
+        final Supplier<? extends CompletionStage<?>> job
+    ) {
+        boolean accepted;
+        final long queued = System.nanoTime();
+        try {
+            this.executors.get(lane).execute(
+                new FairShares.Job(owner, () -> this.handle(lane, queued, job))
+            );
+            accepted = true;
+        } catch (final RejectedExecutionException ex) {
+            LOG.warn("The " + lane.tag() + " lane is full, event rejected.");
+            this.rejections.get(lane).increment();
+            accepted = false;
+        }
+        return accepted;
+    }
+
+    /**
+     * Handle the event, timing it until its work is finished and logging
+     * any error. The worker waits for the work, for at most the hold.
+     * @param lane Lane.
+     * @param queued When the event was queued (nanos).
+     * @param job Job handling the event, returning the stage of its work.
+     */
+    private void handle(
+        final Lane lane,
+        final long queued,
+        final Supplier<? extends CompletionStage<?>> job
+    ) {
+        final long start = System.nanoTime();
+        this.waits.get(lane).record(start - queued, TimeUnit.NANOSECONDS);
+        CompletionStage<?> work;
+        try {
+            work = job.get();
+        } catch (final RuntimeException ex) {
+            work = CompletableFuture.failedFuture(ex);
+        }
+        final Timer handling = this.handlings.get(lane);
+        work.whenComplete(
+            (result, error) -> {
+                handling.record(
+                    System.nanoTime() - start, TimeUnit.NANOSECONDS
+                );
+                if(error != null) {
+                    LOG.error("Problem while handling webhook event.", error);
+                }
+            }
+        );
+        this.await(lane, work);
+    }
+
+    /**
+     * Wait for the work of an event, for at most the hold. Its errors are
+     * logged by {@link #handle(Lane, long, Supplier)}.
+     * @param lane Lane.
+     * @param work Work of the event.
+     */
+    private void await(final Lane lane, final CompletionStage<?> work) {
+        try {
+            work.toCompletableFuture().get(
+                this.hold.toNanos(), TimeUnit.NANOSECONDS
+            );
+        } catch (final TimeoutException ex) {
+            LOG.warn(
+                "Event of the " + lane.tag() + " lane still running after "
+                + this.hold + ", its worker moves on."
+            );
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException | CancellationException ex) {
+            LOG.trace("Event failed: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Action of the event (payload's "action" for Github,
+     * "object_attributes.action" for GitLab).
+     * @param payload Payload.
+     * @return Action or empty string if missing.
+     */
+    private static String action(final String payload) {
+        String action = "";
+        try {
+            final JsonObject json = Json.createReader(
+                new StringReader(payload)
+            ).readObject();
+            final JsonObject attributes = json.getJsonObject(
+                "object_attributes"
+            );
+            if(attributes != null) {
+                action = attributes.getString("action", "");
+            } else {
+                action = json.getString("action", "");
+            }
+        } catch (final JsonParsingException | ClassCastException ex) {
+            LOG.debug("Could not read the event action: " + ex.getMessage());
+        }
+        return action;
+    }
+
+    /**
+     * Thread pool of a lane.
+     * @param name Name of the lane.
+     * @param workers Number of workers.
+     * @param queue Queue of the lane.
+     * @param policy What to do when the queue is full.
+     * @return ThreadPoolExecutor.
+     */
+    private static ThreadPoolExecutor pool(
+        final String name,
+        final int workers,
+        final BlockingQueue<Runnable> queue,
+        final RejectedExecutionHandler policy
+    ) {
+        return new ThreadPoolExecutor(
+            workers,
+            workers,
+            0L,
+            TimeUnit.MILLISECONDS,
+            queue,
+            new CustomizableThreadFactory("webhooks-" + name + "-"),
+            policy
+        );
+    }
+
+    /**
+     * Lanes.
+     */
+    public enum Lane {
+
+        /**
+         * Events a human is waiting for.
+         */
+        INTERACTIVE(Duration.ofSeconds(1)),
+
+        /**
+         * Everything else.
+         */
+        BULK(Duration.ofSeconds(30));
+
+        /**
+         * Service level objective of the lane.
+         */
+        private final Duration slo;
+
+        /**
+         * Ctor.
+         * @param slo Service level objective.
+         */
+        Lane(final Duration slo) {
+            this.slo = slo;
+        }
+
+        /**
+         * Metrics tag of the lane.
+         * @return String.
+         */
+        public String tag() {
+            return this.name().toLowerCase(Locale.ENGLISH);
+        }
+
+        /**
+         * Service level objective of the lane.
+         * @return Duration.
+         */
+        public Duration objective() {
+            return this.slo;
+        }
+    }
+}
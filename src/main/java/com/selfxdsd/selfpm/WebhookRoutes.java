@@ -0,0 +1,237 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Routing table of the Github webhooks: the event types (and, optionally,
+ * the actions) which the PM handles. Everything else is acknowledged right
+ * away, without looking up the Project or resolving the event, and counted
+ * per type (self.pm.webhooks.dropped).<br/><br/>
+ * The table is a comma-separated list of routes: "type" routes all the
+ * actions of the type (so does "type:*"), while
+ * "type:action1|action2" routes only the given actions, e.g.
+ * "issues:opened|reopened|closed,issue_comment:created,push".
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+@Component
+public final class WebhookRoutes {
+
+    /**
+     * Default routes: every event type which the PM or Self TODOs handle.
+     */
+    static final String DEFAULT = "issues,issue_comment,pull_request,"
+        + "push,repository,ping";
+
+    /**
+     * Maximum number of dropped types counted separately; the rest are
+     * counted as "other". The event type is sent by the caller, before the
+     * signature is checked.
+     */
+    private static final int MAX_COUNTERS = 64;
+
+    /**
+     * Routed actions of each routed type (lowercase); an empty set means all
+     * the actions.
+     */
+    private final Map<String, Set<String>> routes;
+
+    /**
+     * Counter of the dropped events, per type.
+     */
+    private final Map<String, Counter> dropped;
+
+    /**
+     * Meter registry.
+     */
+    private final MeterRegistry registry;
+
+    /**
+     * Ctor with the default routes, for tests.
+     */
+    public WebhookRoutes() {
+        this(WebhookRoutes.DEFAULT, new SimpleMeterRegistry());
+    }
+
+    /**
+     * Ctor.
+     * @param table Routing table.
+     * @param registry Meter registry.
+     */
+    @Autowired
+    public WebhookRoutes(
+        @Value("${self.pm.webhooks.github.routes:" + WebhookRoutes.DEFAULT
+            + "}") final String table,
+        final MeterRegistry registry
+    ) {
+        this.routes = WebhookRoutes.parse(table);
+        this.dropped = new ConcurrentHashMap<>();
+        this.registry = registry;
+    }
+
+    /**
+     * Is the event routed to the Project? If not, it is counted as dropped.
+     * The payload is only read if the type's route is limited to some
+     * actions; an event without action is routed.
+     * @param type Event type (X-GitHub-Event).
+     * @param payload JSON payload.
+     * @return True or false.
+     */
+    public boolean routed(final String type, final String payload) {
+        final String key = type.toLowerCase(Locale.ENGLISH);
+        final Set<String> actions = this.routes.get(key);
+        boolean routed = actions != null;
+        if(routed && !actions.isEmpty()) {
+            final String action = WebhookRoutes.action(payload);
+            routed = action == null || actions.contains(action);
+        }
+        if(!routed) {
+            this.counter(key).increment();
+        }
+        return routed;
+    }
+
+    /**
+     * Number of dropped events of the given type.
+     * @param type Event type.
+     * @return Count.
+     */
+    public double dropped(final String type) {
+        double count = 0;
+        final Counter counter = this.dropped.get(
+            type.toLowerCase(Locale.ENGLISH)
+        );
+        if(counter != null) {
+            count = counter.count();
+        }
+        return count;
+    }
+
+    /**
+     * Counter of the dropped events of a type.
+     * @param type Event type (lowercase).
+     * @return Counter.
+     */
+    private Counter counter(final String type) {
+        String tag = type;
+        if(!this.dropped.containsKey(type)
+            && this.dropped.size() >= MAX_COUNTERS) {
+            tag = "other";
+        }
+        return this.dropped.computeIfAbsent(
+            tag,
+            key -> Counter.builder("self.pm.webhooks.dropped")
+                .description("Github webhooks which are not routed")
+                .tag("type", key)
+                .register(this.registry)
+        );
+    }
+
+    /**
+     * Action of the event.
+     * @param payload JSON payload.
+     * @return Action (lowercase) or null if the payload has none.
+     */
+    private static String action(final String payload) {
+        String action = null;
+        try {
+            final JsonObject json = Json.createReader(
+                new StringReader(payload)
+            ).readObject();
+            final JsonValue value = json.get("action");
+            if(value instanceof JsonString) {
+                action = ((JsonString) value).getString()
+                    .toLowerCase(Locale.ENGLISH);
+            }
+        } catch (final JsonException ex) {
+            action = null;
+        }
+        return action;
+    }
+
+    /**
+     * Parse the routing table.
+     * @param table Comma-separated routes.
+     * @return Routed actions of each routed type.
+     */
+    private static Map<String, Set<String>> parse(final String table) {
+        final Map<String, Set<String>> routes = new HashMap<>();
+        for(final String route : table.split(",")) {
+            final String[] parts = route.trim().toLowerCase(Locale.ENGLISH)
+                .split(":", 2);
+            if(!parts[0].isEmpty()) {
+                Set<String> actions = Collections.emptySet();
+                if(parts.length > 1 && !"*".equals(parts[1].trim())) {
+                    actions = new HashSet<>();
+                    for(final String action : parts[1].split("\\|")) {
+                        actions.add(action.trim());
+                    }
+                }
+                routes.merge(parts[0], actions, WebhookRoutes::union);
+            }
+        }
+        return routes;
+    }
+
+    /**
+     * Union of the actions routed for the same type.
+     * @param first First set of actions.
+     * @param second Second set of actions.
+     * @return Union; all the actions if any of the sets means all.
+     */
+    private static Set<String> union(
+        final Set<String> first,
+        final Set<String> second
+    ) {
+        final Set<String> union;
+        if(first.isEmpty() || second.isEmpty()) {
+            union = Collections.emptySet();
+        } else {
+            union = new HashSet<>(first);
+            union.addAll(second);
+        }
+        return union;
+    }
+}
@@ -28,6 +28,10 @@ import com.selfxdsd.core.projects.WebhookEvents;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -41,14 +45,25 @@ import java.net.URI;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.util.Formatter;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 
 /**
- * Webhook endpoints.
+ * Webhook endpoints, on the servlet stack (the default). With
+ * spring.main.web-application-type=reactive, {@link ReactiveWebhooks}
+ * serves them instead.
  * @author Mihai Andronache (amihaiemil@gmail.com)
  * @version $Id$
  * @since 0.0.2
+ * @checkstyle ClassFanOutComplexity (800 lines)
  */
 @RestController
+@Lazy(false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public final class Webhooks {
 
     /**
@@ -59,6 +74,36 @@ public final class Webhooks {
     );
 
 
+    /**
+     * Github events after which the PM may have a new Invitation. A
+     * "member" event is not one of them: Github sends it only after the
+     * Invitation was accepted.
+     */
+    private static final Set<String> INVITATION_EVENTS = Set.of(
+        "ping", "repository"
+    );
+
+    /**
+     * Commands after which the PM may have unassigned a Task.
+     */
+    private static final Set<String> REASSIGNING_COMMANDS = Set.of(
+        "resign", "deregister"
+    );
+
+    /**
+     * Events which may close a Task (Github and GitLab).
+     */
+    private static final Set<String> CLOSING_EVENTS = Set.of(
+        "issues", "pull_request", "Issue Hook", "Merge Request Hook"
+    );
+
+    /**
+     * Actions closing a Task (Github and GitLab).
+     */
+    private static final Set<String> CLOSING_ACTIONS = Set.of(
+        "closed", "close", "merge"
+    );
+
     /**
      * Self's core.
      */
@@ -69,11 +114,73 @@ public final class Webhooks {
      */
     private final SelfTodos selfTodos;
 
+    /**
+     * Observed activity of the Projects.
+     */
+    private final ProjectActivity activity;
+
+    /**
+     * Priority lanes where the events are handled.
+     */
+    private final WebhookLanes lanes;
+
+    /**
+     * Matcher of the PM's commands.
+     */
+    private final CommandMatcher commands;
+
+    /**
+     * Snapshot of the PMs and their Projects, invalidated when a repo
+     * changes.
+     */
+    private final ProjectsSnapshot snapshot;
+
+    /**
+     * Guards of the providers: the events are resolved through them.
+     */
+    private final ProviderGuards guards;
+
+    /**
+     * Routing table of the Github events.
+     */
+    private final WebhookRoutes routes;
+
+    /**
+     * Invitations of the PMs, accepted as soon as a ping or repository
+     * webhook arrives.
+     */
+    private final AcceptInvitations invitations;
+
+    /**
+     * Admission control of the webhooks.
+     */
+    private final AdmissionLimiter limiter;
+
+    /**
+     * Tracing of the requests.
+     */
+    private final Tracing tracing;
+
+    /**
+     * Latency histograms of the Projects.
+     */
+    private final LatencyHistograms histograms;
+
+    /**
+     * Aliases of the renamed repos.
+     */
+    private final RepoAliases aliases;
+
+    /**
+     * Deadline index of the assigned tasks, marked stale when an event may
+     * have changed an assignment.
+     */
+    private final AssignedTasksIndex index;
+
     /**
      * Ctor.
-     * @param selfCore Self Core, injected by Spring automatically.
+     * @param selfCore Self Core.
      */
-    @Autowired
     public Webhooks(final Self selfCore) {
         this(
             selfCore,
@@ -85,24 +192,144 @@ public final class Webhooks {
 
     /**
      * Ctor.
+     * @param selfCore Self Core, injected by Spring automatically.
+     * @param todos Self TODOs location.
+     * @param activity Observed activity of the Projects.
+     * @param lanes Priority lanes where the events are handled.
+     * @param commands Matcher of the PM's commands.
+     * @param snapshot Snapshot of the PMs and their Projects.
+     * @param guards Guards of the providers.
+     * @param routes Routing table of the Github events.
+     * @param invitations Invitations of the PMs.
+     * @param limiter Admission control of the webhooks.
+     * @param tracing Tracing of the requests.
+     * @param histograms Latency histograms of the Projects.
+     * @param aliases Aliases of the renamed repos.
+     * @param index Deadline index of the assigned tasks.
+     * @checkstyle ParameterNumber (20 lines)
+     */
+    @Autowired
+    public Webhooks(
+        final Self selfCore,
+        @Value("${self.todos.url:http://localhost:8282}") final String todos,
+        final ProjectActivity activity,
+        final WebhookLanes lanes,
+        final CommandMatcher commands,
+        final ProjectsSnapshot snapshot,
+        final ProviderGuards guards,
+        final WebhookRoutes routes,
+        final AcceptInvitations invitations,
+        final AdmissionLimiter limiter,
+        final Tracing tracing,
+        final LatencyHistograms histograms,
+        final RepoAliases aliases,
+        final AssignedTasksIndex index
+    ) {
+        this(
+            selfCore,
+            new RestfulSelfTodos(URI.create(todos)),
+            activity,
+            lanes,
+            commands,
+            snapshot,
+            guards,
+            routes,
+            invitations,
+            limiter,
+            tracing,
+            histograms,
+            aliases,
+            index
+        );
+    }
+
+    /**
+     * Ctor. The events are handled in the caller's thread.
      * @param selfCore Self's core.
      * @param selfTodos Self TODOs Microservice.
      */
     public Webhooks(final Self selfCore, final SelfTodos selfTodos) {
+        this(
+            selfCore,
+            selfTodos,
+            new ProjectActivity(),
+            WebhookLanes.direct(),
+            new CommandMatcher(),
+            ProjectsSnapshot.uncached(selfCore),
+            ProviderGuards.direct(),
+            new WebhookRoutes(),
+            new AcceptInvitations(selfCore),
+            new AdmissionLimiter(),
+            Tracing.noop(),
+            new LatencyHistograms(),
+            new RepoAliases(),
+            new AssignedTasksIndex()
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param selfCore Self's core.
+     * @param selfTodos Self TODOs Microservice.
+     * @param activity Observed activity of the Projects.
+     * @param lanes Priority lanes where the events are handled.
+     * @param commands Matcher of the PM's commands.
+     * @param snapshot Snapshot of the PMs and their Projects.
+     * @param guards Guards of the providers.
+     * @param routes Routing table of the Github events.
+     * @param invitations Invitations of the PMs.
+     * @param limiter Admission control of the webhooks.
+     * @param tracing Tracing of the requests.
+     * @param histograms Latency histograms of the Projects.
+     * @param aliases Aliases of the renamed repos.
+     * @param index Deadline index of the assigned tasks.
+     * @checkstyle ParameterNumber (20 lines)
+     */
+    public Webhooks(
+        final Self selfCore,
+        final SelfTodos selfTodos,
+        final ProjectActivity activity,
+        final WebhookLanes lanes,
+        final CommandMatcher commands,
+        final ProjectsSnapshot snapshot,
+        final ProviderGuards guards,
+        final WebhookRoutes routes,
+        final AcceptInvitations invitations,
+        final AdmissionLimiter limiter,
+        final Tracing tracing,
+        final LatencyHistograms histograms,
+        final RepoAliases aliases,
+        final AssignedTasksIndex index
+    ) {
         this.selfCore = selfCore;
         this.selfTodos = selfTodos;
+        this.activity = activity;
+        this.lanes = lanes;
+        this.commands = commands;
+        this.snapshot = snapshot;
+        this.guards = guards;
+        this.routes = routes;
+        this.invitations = invitations;
+        this.limiter = limiter;
+        this.tracing = tracing;
+        this.histograms = histograms;
+        this.aliases = aliases;
+        this.index = index;
     }
 
     /**
-     * Webhook for Github projects.
+     * Webhook for Github projects. Events which are not in the routing
+     * table are acknowledged right away, the others go through the
+     * admission control. The ping (webhook created) and repository events
+     * also trigger the acceptance of the PM's Invitations; after a ping,
+     * they are checked once more a bit later.
      * @param owner Owner's username (can be a user or an organization name).
      * @param name Repo's name.
      * @param type Event type.
      * @param signature Signature sent by Github.
      * @param payload JSON Payload.
-     * @return ResponseEntity.
-     * @checkstyle ReturnCount (150 lines)
-     * @checkstyle ExecutableStatementCount (150 lines)
+     * @return ResponseEntity, SERVICE UNAVAILABLE if the event was shed by
+     *  the admission control.
      * @todo #118:120min Update the signature calculation based on the new
      *  X-Github-Signature-256 header, as described here:
      *  https://docs.github.com/en/developers/webhooks-and-events/webhooks
@@ -123,10 +350,63 @@ public final class Webhooks {
             "Received Github Webhook [" + type + "] from Repo "
             + owner + "/" + name + ". "
         );
-        Project project = this.selfCore.projects().getProjectById(
-            owner + "/" + name,
-            Provider.Names.GITHUB
+        final FlightEvents.Webhook event = new FlightEvents.Webhook(
+            Provider.Names.GITHUB, owner + "/" + name, type
         );
+        event.begin();
+        final ResponseEntity<Void> response;
+        try (Tracing.Span span = this.tracing.start("webhook")) {
+            span.attribute("provider", Provider.Names.GITHUB)
+                .attribute("repo", owner + "/" + name)
+                .attribute("event", type);
+            if(this.routes.routed(type, payload)) {
+                final WebhookLanes.Lane lane = this.lanes.lane(
+                    Provider.Names.GITHUB, type, payload
+                );
+                response = this.admitted(
+                    lane,
+                    admission -> this.receiveGithub(
+                        owner, name, type, signature, payload, admission
+                    )
+                );
+            } else {
+                LOG.debug("Event [" + type + "] is not routed, ignoring it.");
+                response = ResponseEntity.ok().build();
+            }
+            span.attribute("status", response.getStatusCodeValue());
+        }
+        event.finish(response.getStatusCodeValue());
+        return response;
+    }
+
+    /**
+     * Receive an admitted Github event: find its Project and verify its
+     * signature.
+     * @param owner Owner's username (can be a user or an organization name).
+     * @param name Repo's name.
+     * @param type Event type.
+     * @param signature Signature sent by Github.
+     * @param payload JSON Payload.
+     * @param admission Admission of the event.
+     * @return ResponseEntity.
+     * @checkstyle ReturnCount (120 lines)
+     * @checkstyle ExecutableStatementCount (120 lines)
+     * @checkstyle ParameterNumber (10 lines)
+     */
+    private ResponseEntity<Void> receiveGithub(
+        final String owner,
+        final String name,
+        final String type,
+        final String signature,
+        final String payload,
+        final Admission admission
+    ) {
+        final String path = owner + "/" + name;
+        boolean renamed = false;
+        Project project = this.lookup(path, Provider.Names.GITHUB);
+        if(project == null) {
+            project = this.aliased(path, Provider.Names.GITHUB);
+        }
         if(project == null) {
             final JsonObject jsonPayload = Json.createReader(
                 new StringReader(payload)
@@ -134,7 +414,7 @@ public final class Webhooks {
             LOG.debug("Project not found, trying changes.repository.name.from");
             final String oldFullName = this
                 .getFullNameFromChanges(jsonPayload);
-            project = this.selfCore.projects().getProjectById(
+            project = this.lookup(
                 oldFullName,
                 Provider.Names.GITHUB
             );
@@ -149,7 +429,7 @@ public final class Webhooks {
                     final String fullName = repository
                         .getString("full_name");
                     LOG.debug("Found full_name " + fullName + "... ");
-                    project = this.selfCore.projects().getProjectById(
+                    project = this.lookup(
                         fullName,
                         Provider.Names.GITHUB
                     );
@@ -160,6 +440,7 @@ public final class Webhooks {
                         );
                         return ResponseEntity.noContent().build();
                     }
+                    renamed = true;
                 }
             }
         }
@@ -171,24 +452,28 @@ public final class Webhooks {
             project.webHookToken(),
             payload
         );
+        final ResponseEntity<Void> response;
         if(calculated != null && calculated.equals(signature)) {
             LOG.debug("Signature OK.");
-            if("push".equalsIgnoreCase(type)) {
-                LOG.debug("POSTing push event to SelfTodos...");
-                this.selfTodos.post(project, payload);
-                LOG.debug("Successfully posted.");
-            } else {
-                LOG.debug("Resolving webhook event...");
-                project.resolve(
-                    WebhookEvents.create(project, type, payload)
+            if(renamed) {
+                this.aliases.record(
+                    Provider.Names.GITHUB, path, project.repoFullName()
                 );
-                LOG.debug("Event successfully resolved.");
             }
+            this.activity.record(project);
+            this.invite(project, type);
+            response = this.handle(
+                project,
+                admission,
+                "push".equalsIgnoreCase(type),
+                type,
+                payload
+            );
         } else {
             LOG.debug("Signature doesn't match. Bad Request.");
-            return ResponseEntity.badRequest().build();
+            response = ResponseEntity.badRequest().build();
         }
-        return ResponseEntity.ok().build();
+        return response;
     }
 
     /**
@@ -198,7 +483,8 @@ public final class Webhooks {
      * @param type Event type.
      * @param token Secret project token.
      * @param payload Request body in JSON.
-     * @return ResponseEntity.
+     * @return ResponseEntity, SERVICE UNAVAILABLE if the event was shed by
+     *  the admission control.
      */
     @PostMapping(
         value = "/gitlab/{owner}/{name}",
@@ -215,26 +501,463 @@ public final class Webhooks {
             "Received GitLab Webhook [" + type + "] from Repo "
             + owner + "/" + name + ". "
         );
-        final Project project = this.selfCore.projects().getProjectById(
+        final FlightEvents.Webhook event = new FlightEvents.Webhook(
+            Provider.Names.GITLAB, owner + "/" + name, type
+        );
+        event.begin();
+        final ResponseEntity<Void> response;
+        try (Tracing.Span span = this.tracing.start("webhook")) {
+            span.attribute("provider", Provider.Names.GITLAB)
+                .attribute("repo", owner + "/" + name)
+                .attribute("event", type);
+            final WebhookLanes.Lane lane = this.lanes.lane(
+                Provider.Names.GITLAB, type, payload
+            );
+            response = this.admitted(
+                lane,
+                admission -> this.receiveGitlab(
+                    owner, name, type, token, payload, admission
+                )
+            );
+            span.attribute("status", response.getStatusCodeValue());
+        }
+        event.finish(response.getStatusCodeValue());
+        return response;
+    }
+
+    /**
+     * Receive an admitted GitLab event: find its Project and verify its
+     * token.
+     * @param owner Owner's username (can be a user or organization name).
+     * @param name Repo's name.
+     * @param type Event type.
+     * @param token Secret project token.
+     * @param payload Request body in JSON.
+     * @param admission Admission of the event.
+     * @return ResponseEntity.
+     * @checkstyle ParameterNumber (10 lines)
+     */
+    private ResponseEntity<Void> receiveGitlab(
+        final String owner,
+        final String name,
+        final String type,
+        final String token,
+        final String payload,
+        final Admission admission
+    ) {
+        final Project project = this.lookup(
             owner + "/" + name,
             Provider.Names.GITLAB
         );
+        final ResponseEntity<Void> response;
         if (project != null) {
             if(token != null && token.equals(project.webHookToken())) {
-                if("Push Hook".equalsIgnoreCase(type)) {
-                    this.selfTodos.post(project, payload);
-                } else {
-                    project.resolve(
-                        WebhookEvents.create(project, type, payload)
+                this.activity.record(project);
+                response = this.handle(
+                    project,
+                    admission,
+                    "Push Hook".equalsIgnoreCase(type),
+                    type,
+                    payload
+                );
+            } else {
+                response = ResponseEntity.badRequest().build();
+            }
+        } else {
+            response = ResponseEntity.noContent().build();
+        }
+        return response;
+    }
+
+    /**
+     * Receive an event if the admission control lets it in. The admission
+     * is released when the request ends, unless the event was handed over
+     * to its lane: then it is released once the lane has handled it.
+     * @param lane Lane of the event.
+     * @param receive Receives the event.
+     * @return The response or SERVICE UNAVAILABLE if the event was shed.
+     */
+    private ResponseEntity<Void> admitted(
+        final WebhookLanes.Lane lane,
+        final Function<Admission, ResponseEntity<Void>> receive
+    ) {
+        final ResponseEntity<Void> response;
+        if(this.limiter.acquire(lane)) {
+            final Admission admission = new Admission(lane, this.limiter);
+            try {
+                response = receive.apply(admission);
+            } finally {
+                admission.settle();
+            }
+        } else {
+            LOG.debug("Too many webhooks, " + lane.tag() + " event shed.");
+            response = ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .build();
+        }
+        return response;
+    }
+
+    /**
+     * Handle a verified event in its lane: pushes are forwarded to
+     * SelfTodos, everything else is resolved by the Project. Once a
+     * repository event (e.g. renamed) is resolved, the Projects snapshot of
+     * its PM is invalidated.
+     * @param project Project.
+     * @param admission Admission of the event, handed over to its lane.
+     * @param push Is it a push event?
+     * @param type Event type.
+     * @param payload Payload.
+     * @return OK if the event was accepted, SERVICE UNAVAILABLE if its lane
+     *  is full or if its provider is unavailable.
+     * @checkstyle ParameterNumber (10 lines)
+     */
+    private ResponseEntity<Void> handle(
+        final Project project,
+        final Admission admission,
+        final boolean push,
+        final String type,
+        final String payload
+    ) {
+        final boolean accepted;
+        final Tracing.Span parent = this.tracing.current();
+        final String command = this.command(project, type, payload);
+        if(command == null) {
+            LOG.debug("Comment not addressed to the PM, ignoring it.");
+            accepted = true;
+        } else if(!push && !this.guards.permits(project.provider())) {
+            LOG.debug("Provider " + project.provider() + " is unavailable.");
+            accepted = false;
+        } else if(push) {
+            accepted = admission.handed(
+                this.lanes.submit(
+                    admission.lane(),
+                    FairShares.owner(project),
+                    admission.until(
+                        () -> this.forward(project, payload, parent)
+                    )
+                )
+            );
+        } else {
+            final boolean reassigns = Webhooks.reassigns(
+                type, command, payload
+            );
+            accepted = admission.handed(
+                this.lanes.submit(
+                    admission.lane(),
+                    project,
+                    () -> this.guarded(
+                        project,
+                        admission,
+                        () -> {
+                            this.resolve(project, type, payload, parent);
+                            if(reassigns) {
+                                this.index.markStale(project);
+                            }
+                        }
+                    )
+                )
+            );
+        }
+        final ResponseEntity<Void> response;
+        if(accepted) {
+            response = ResponseEntity.ok().build();
+        } else {
+            response = ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .build();
+        }
+        return response;
+    }
+
+    /**
+     * Forward a push event to SelfTodos.
+     * @param project Project.
+     * @param payload Payload.
+     * @param parent Span of the webhook request.
+     */
+    private void forward(
+        final Project project,
+        final String payload,
+        final Tracing.Span parent
+    ) {
+        LOG.debug("POSTing push event to SelfTodos...");
+        try (Tracing.Span span = this.tracing.start("selftodos.post", parent)) {
+            span.attribute("repo", project.repoFullName());
+            this.selfTodos.post(project, payload);
+        }
+        LOG.debug("Successfully posted.");
+    }
+
+    /**
+     * Start some work on the Project in the guard of its provider, without
+     * waiting for it. If the provider's bulkhead is full, the work waits
+     * for a free slot, within the webhooks' timeout; if none is free in
+     * time (or the breaker is open), the event is dropped and logged. The
+     * event's admission is released when the work is finished or, at the
+     * latest, when the webhooks' timeout is up; then the work is logged,
+     * but it goes on: the Project's mailbox stays busy until it is
+     * finished.
+     * @param project Project.
+     * @param admission Admission of the event.
+     * @param work Work.
+     * @return Future completed when the work is finished.
+     */
+    private CompletableFuture<Void> guarded(
+        final Project project,
+        final Admission admission,
+        final Runnable work
+    ) {
+        final String key = ProjectMailboxes.key(project);
+        final AtomicBoolean started = new AtomicBoolean();
+        final CompletableFuture<Void> done = this.guards.submit(
+            project.provider(),
+            ProviderGuards.Caller.WEBHOOKS,
+            () -> {
+                started.set(true);
+                work.run();
+            }
+        );
+        final CompletableFuture<Void> watched = this.guards.within(
+            project.provider(), ProviderGuards.Caller.WEBHOOKS, done
+        );
+        watched.whenComplete(
+            (result, error) -> {
+                admission.release();
+                if(error instanceof ProviderUnavailableException) {
+                    Webhooks.overdue(key, started.get(), error);
+                }
+            }
+        );
+        done.exceptionally(
+            error -> {
+                if(!started.get()) {
+                    LOG.warn(
+                        "Dropped an event of " + key + ", it could not be"
+                        + " resolved: " + Webhooks.cause(error).getMessage()
                     );
                 }
-            } else {
-                return ResponseEntity.badRequest().build();
+                return null;
             }
+        );
+        return done;
+    }
+
+    /**
+     * Resolve an event in the Project. It runs in the guard of the
+     * Project's provider.
+     * @param project Project.
+     * @param type Event type.
+     * @param payload Payload.
+     * @param parent Span of the webhook request.
+     */
+    private void resolve(
+        final Project project,
+        final String type,
+        final String payload,
+        final Tracing.Span parent
+    ) {
+        LOG.debug("Resolving webhook event...");
+        final FlightEvents.Resolve event = new FlightEvents.Resolve(
+            project.provider(), project.repoFullName(), type
+        );
+        event.begin();
+        final long start = System.nanoTime();
+        try (Tracing.Span span = this.tracing.start("resolve", parent)) {
+            span.attribute("repo", project.repoFullName())
+                .attribute("event", type);
+            project.resolve(WebhookEvents.create(project, type, payload));
+        } finally {
+            event.commit();
+            this.histograms.record(
+                ProjectMailboxes.key(project),
+                LatencyHistograms.Operation.RESOLVE,
+                System.nanoTime() - start
+            );
+        }
+        LOG.debug("Event successfully resolved.");
+        if("repository".equalsIgnoreCase(type)) {
+            this.snapshot.invalidate(project);
+            this.renamed(project, payload);
+        }
+    }
+
+    /**
+     * Command of the event for the PM, read with the pre-compiled
+     * {@link CommandMatcher}. Comments which are not addressed to the PM or
+     * which are written by the PM itself are not relevant, so we can skip
+     * resolving them. Comments addressed to the PM without a known command
+     * are still resolved, the PM answers them that it did not understand.
+     * @param project Project.
+     * @param type Event type.
+     * @param payload Payload.
+     * @return Command type (e.g. "resign"), empty string if the event is not
+     *  a comment or has no command, or null if it is not relevant.
+     */
+    private String command(
+        final Project project,
+        final String type,
+        final String payload
+    ) {
+        String command = "";
+        if("issue_comment".equalsIgnoreCase(type)
+            || "Note Hook".equalsIgnoreCase(type)) {
+            final ProjectManager manager = project.projectManager();
+            if(manager != null) {
+                final JsonObject json = Json.createReader(
+                    new StringReader(payload)
+                ).readObject();
+                if(this.commands.relevant(json, manager.username())) {
+                    command = this.commands.command(json);
+                    LOG.debug("Comment for the PM, command [" + command + "].");
+                } else {
+                    command = null;
+                }
+            }
+        }
+        return command;
+    }
+
+    /**
+     * The webhooks' timeout is up before the work on an event finished.
+     * @param key Key of the Project.
+     * @param started Did the work start, or is it still waiting for a slot
+     *  of the provider?
+     * @param error Timeout.
+     */
+    private static void overdue(
+        final String key,
+        final boolean started,
+        final Throwable error
+    ) {
+        if(started) {
+            LOG.warn(
+                "Still resolving an event of " + key + ": "
+                + error.getMessage()
+            );
         } else {
-            return ResponseEntity.noContent().build();
+            LOG.warn(
+                "Still waiting for the provider to resolve an event of "
+                + key + ": " + error.getMessage()
+            );
+        }
+    }
+
+    /**
+     * The error without the wrapper of the futures.
+     * @param error Error.
+     * @return Throwable.
+     */
+    private static Throwable cause(final Throwable error) {
+        Throwable cause = error;
+        if(cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
         }
-        return ResponseEntity.ok().build();
+        return cause;
+    }
+
+    /**
+     * May the event change an assignment? Resignations and removed tasks
+     * (commands), closed issues and PRs do. The deadline index of the
+     * Project has to be rebuilt after such events.
+     * @param type Event type.
+     * @param command Command of the comment, empty if none.
+     * @param payload Payload.
+     * @return True or false.
+     */
+    private static boolean reassigns(
+        final String type,
+        final String command,
+        final String payload
+    ) {
+        boolean reassigns = REASSIGNING_COMMANDS.contains(command);
+        if(!reassigns && CLOSING_EVENTS.contains(type)) {
+            final JsonObject json = Json.createReader(
+                new StringReader(payload)
+            ).readObject();
+            JsonObject attributes = json.getJsonObject("object_attributes");
+            if(attributes == null) {
+                attributes = json;
+            }
+            reassigns = CLOSING_ACTIONS.contains(
+                attributes.getString("action", "")
+            );
+        }
+        return reassigns;
+    }
+
+    /**
+     * Trigger the acceptance of the PM's Invitations, if the Github event
+     * may bring one; after a ping, they are checked once more a bit later.
+     * @param project Project.
+     * @param type Event type.
+     */
+    private void invite(final Project project, final String type) {
+        final String event = type.toLowerCase(Locale.ENGLISH);
+        if("ping".equals(event)) {
+            this.invitations.recheck(project.projectManager());
+        } else if(Webhooks.INVITATION_EVENTS.contains(event)) {
+            this.invitations.trigger(project.projectManager());
+        }
+    }
+
+    /**
+     * Find a Project by the alias of its old repo name.
+     * @param repo Full name of the repo, maybe an old one.
+     * @param provider Provider.
+     * @return Project or null if there is no alias or it's stale.
+     */
+    private Project aliased(final String repo, final String provider) {
+        Project project = null;
+        final String current = this.aliases.current(provider, repo);
+        if(current != null) {
+            LOG.debug("Repo " + repo + " was renamed to " + current + ".");
+            project = this.lookup(current, provider);
+        }
+        return project;
+    }
+
+    /**
+     * Record the alias of a renamed repo, if the repository event is a
+     * rename.
+     * @param project Project.
+     * @param payload Payload of the repository event.
+     */
+    private void renamed(final Project project, final String payload) {
+        if(Provider.Names.GITHUB.equalsIgnoreCase(project.provider())) {
+            final JsonObject json = Json.createReader(
+                new StringReader(payload)
+            ).readObject();
+            final String from = this.getFullNameFromChanges(json);
+            final JsonObject repository = json.getJsonObject("repository");
+            if(from != null && repository != null) {
+                this.aliases.record(
+                    Provider.Names.GITHUB,
+                    from,
+                    repository.getString("full_name", null)
+                );
+            }
+        }
+    }
+
+    /**
+     * Find a Project in the database.
+     * @param repo Full name of the repo.
+     * @param provider Provider.
+     * @return Project or null if not found.
+     */
+    private Project lookup(final String repo, final String provider) {
+        final FlightEvents.Lookup event = new FlightEvents.Lookup(
+            provider, repo
+        );
+        event.begin();
+        final Project project;
+        try (Tracing.Span span = this.tracing.start("project.lookup")) {
+            project = this.selfCore.projects().getProjectById(
+                repo, provider
+            );
+            span.attribute("repo", repo).attribute("found", project != null);
+        }
+        event.finish(project != null);
+        return project;
     }
 
     /**
@@ -242,8 +965,14 @@ public final class Webhooks {
      * @param key Key.
      * @param body Data to digest.
      * @return Hex HmacSHA1 digest.
+     * @checkstyle ReturnCount (30 lines)
      */
     private String hmacHexDigest(final String key, final String body) {
+        final FlightEvents.Signature event = new FlightEvents.Signature(
+            body.length()
+        );
+        event.begin();
+        final Tracing.Span span = this.tracing.start("webhook.signature");
         try {
             final String algorithm = "HmacSHA1";
             final Mac mac = Mac.getInstance(algorithm);
@@ -260,6 +989,9 @@ public final class Webhooks {
             return "sha1=" + formatter.toString();
         } catch (final NoSuchAlgorithmException | InvalidKeyException ex) {
             return null;
+        } finally {
+            span.close();
+            event.commit();
         }
     }
 
@@ -291,4 +1023,108 @@ public final class Webhooks {
         }
         return fullName;
     }
+
+    /**
+     * Admission of a webhook event by the {@link AdmissionLimiter}. It is
+     * released exactly once: when the request ends or, if the event was
+     * handed over to its lane, when the lane has handled it.
+     */
+    private static final class Admission {
+
+        /**
+         * Lane of the event.
+         */
+        private final WebhookLanes.Lane lane;
+
+        /**
+         * Limiter which admitted the event.
+         */
+        private final AdmissionLimiter limiter;
+
+        /**
+         * When the event was admitted (nanos).
+         */
+        private final long start;
+
+        /**
+         * Was it released?
+         */
+        private final AtomicBoolean released;
+
+        /**
+         * Was it handed over to the lane?
+         */
+        private volatile boolean handed;
+
+        /**
+         * Ctor.
+         * @param lane Lane of the event.
+         * @param limiter Limiter which admitted the event.
+         */
+        Admission(
+            final WebhookLanes.Lane lane,
+            final AdmissionLimiter limiter
+        ) {
+            this.lane = lane;
+            this.limiter = limiter;
+            this.start = System.nanoTime();
+            this.released = new AtomicBoolean();
+        }
+
+        /**
+         * Lane of the event.
+         * @return Lane.
+         */
+        WebhookLanes.Lane lane() {
+            return this.lane;
+        }
+
+        /**
+         * A job which releases this admission once it has run.
+         * @param job Job handling the event.
+         * @return Runnable.
+         */
+        Runnable until(final Runnable job) {
+            return () -> {
+                try {
+                    job.run();
+                } finally {
+                    this.release();
+                }
+            };
+        }
+
+        /**
+         * The event was submitted to its lane: if the lane accepted it,
+         * the lane releases this admission, otherwise it is released now.
+         * @param accepted Did the lane accept the event?
+         * @return The same value.
+         */
+        boolean handed(final boolean accepted) {
+            this.handed = accepted;
+            if(!accepted) {
+                this.release();
+            }
+            return accepted;
+        }
+
+        /**
+         * The request ends: release this admission, unless it was handed
+         * over to the lane.
+         */
+        void settle() {
+            if(!this.handed) {
+                this.release();
+            }
+        }
+
+        /**
+         * Release this admission, reporting its latency to the limiter.
+         */
+        void release() {
+            if(this.released.compareAndSet(false, true)) {
+                this.limiter.release(System.nanoTime() - this.start);
+            }
+        }
+    }
 }
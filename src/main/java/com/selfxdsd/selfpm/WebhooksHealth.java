@@ -0,0 +1,71 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+
+/**
+ * Checks how full the webhook lanes are. If any lane is filled above the
+ * given ratio, the instance is OUT_OF_SERVICE, so the load balancer sends
+ * new events elsewhere until it catches up.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class WebhooksHealth implements HealthIndicator {
+
+    /**
+     * Webhook lanes.
+     */
+    private final WebhookLanes lanes;
+
+    /**
+     * Highest acceptable fill ratio of a lane (e.g. 0.8).
+     */
+    private final double ratio;
+
+    /**
+     * Ctor.
+     * @param lanes Webhook lanes.
+     * @param ratio Highest acceptable fill ratio of a lane.
+     */
+    public WebhooksHealth(final WebhookLanes lanes, final double ratio) {
+        this.lanes = lanes;
+        this.ratio = ratio;
+    }
+
+    @Override
+    public Health health() {
+        final Health.Builder health = Health.up();
+        for(final WebhookLanes.Lane lane : WebhookLanes.Lane.values()) {
+            final int queued = this.lanes.queued(lane);
+            final int capacity = this.lanes.capacity(lane);
+            if(capacity > 0 && queued >= capacity * this.ratio) {
+                health.outOfService();
+            }
+            health.withDetail(lane.tag(), queued + "/" + capacity);
+        }
+        return health.build();
+    }
+}
@@ -23,12 +23,18 @@
 package com.selfxdsd.selfpm;
 
 import com.selfxdsd.api.*;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Unit tests for {@link AcceptInvitations}.
@@ -98,4 +104,73 @@ public final class AcceptInvitationsTestCase {
             Mockito.verify(inv, Mockito.times(1)).accept();
         }
     }
+
+    /**
+     * A triggered acceptance runs for the given PM only; triggers which
+     * arrive before it starts are coalesced.
+     */
+    @Test
+    public void triggersAcceptanceForOnePm() {
+        final Invitation invitation = Mockito.mock(Invitation.class);
+        final Invitations invitations = Mockito.mock(Invitations.class);
+        Mockito.when(invitations.iterator()).thenAnswer(
+            inv -> Arrays.asList(invitation).iterator()
+        );
+        final Provider provider = Mockito.mock(Provider.class);
+        Mockito.when(provider.name()).thenReturn(Provider.Names.GITHUB);
+        Mockito.when(provider.invitations()).thenReturn(invitations);
+        final ProjectManager manager = Mockito.mock(ProjectManager.class);
+        Mockito.when(manager.id()).thenReturn(1);
+        Mockito.when(manager.provider()).thenReturn(provider);
+        final Self core = Mockito.mock(Self.class);
+        final List<Runnable> queued = new ArrayList<>();
+        final AcceptInvitations component = new AcceptInvitations(
+            ProjectsSnapshot.uncached(core),
+            new ProviderGuards(),
+            ConditionalReads.none(),
+            queued::add,
+            Duration.ZERO
+        );
+        component.trigger(manager);
+        component.trigger(manager);
+        MatcherAssert.assertThat(queued, Matchers.hasSize(1));
+        queued.remove(0).run();
+        Mockito.verify(invitation, Mockito.times(1)).accept();
+        component.trigger(manager);
+        MatcherAssert.assertThat(queued, Matchers.hasSize(1));
+        Mockito.verify(core, Mockito.never()).projectManagers();
+    }
+
+    /**
+     * After a ping, the PM's Invitations are checked right away and once
+     * more a bit later.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void rechecksAfterPing() throws Exception {
+        final Invitation invitation = Mockito.mock(Invitation.class);
+        final Invitations invitations = Mockito.mock(Invitations.class);
+        Mockito.when(invitations.iterator()).thenAnswer(
+            inv -> Arrays.asList(invitation).iterator()
+        );
+        final Provider provider = Mockito.mock(Provider.class);
+        Mockito.when(provider.name()).thenReturn(Provider.Names.GITHUB);
+        Mockito.when(provider.invitations()).thenReturn(invitations);
+        final ProjectManager manager = Mockito.mock(ProjectManager.class);
+        Mockito.when(manager.id()).thenReturn(1);
+        Mockito.when(manager.provider()).thenReturn(provider);
+        final BlockingQueue<Runnable> queued = new LinkedBlockingQueue<>();
+        final AcceptInvitations component = new AcceptInvitations(
+            ProjectsSnapshot.uncached(Mockito.mock(Self.class)),
+            new ProviderGuards(),
+            ConditionalReads.none(),
+            queued::add,
+            Duration.ofMillis(10)
+        );
+        component.recheck(manager);
+        queued.take().run();
+        Mockito.verify(invitation, Mockito.times(1)).accept();
+        queued.poll(5, TimeUnit.SECONDS).run();
+        Mockito.verify(invitation, Mockito.times(2)).accept();
+    }
 }
@@ -0,0 +1,115 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Unit tests for {@link AdmissionLimiter}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class AdmissionLimiterTestCase {
+
+    /**
+     * Bulk events may only use their share of the limit, so they are shed
+     * before the interactive ones.
+     */
+    @Test
+    public void shedsBulkEventsFirst() {
+        final AdmissionLimiter limiter = new AdmissionLimiter(
+            4, 1, 10, Duration.ofMillis(100), 0.5, () -> 0L,
+            new SimpleMeterRegistry()
+        );
+        MatcherAssert.assertThat(
+            limiter.acquire(WebhookLanes.Lane.BULK), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            limiter.acquire(WebhookLanes.Lane.BULK), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            limiter.acquire(WebhookLanes.Lane.BULK), Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            limiter.acquire(WebhookLanes.Lane.INTERACTIVE), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            limiter.acquire(WebhookLanes.Lane.INTERACTIVE), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            limiter.acquire(WebhookLanes.Lane.INTERACTIVE),
+            Matchers.is(false)
+        );
+        MatcherAssert.assertThat(limiter.inflight(), Matchers.is(4));
+        MatcherAssert.assertThat(
+            limiter.shed(WebhookLanes.Lane.BULK), Matchers.is(1.0)
+        );
+        MatcherAssert.assertThat(
+            limiter.shed(WebhookLanes.Lane.INTERACTIVE), Matchers.is(1.0)
+        );
+    }
+
+    /**
+     * Slow requests shrink the limit by 10%, at most once per target
+     * latency, but never under the minimum; fast requests grow it back.
+     */
+    @Test
+    public void adaptsLimitToLatency() {
+        final AtomicLong clock = new AtomicLong();
+        final AdmissionLimiter limiter = new AdmissionLimiter(
+            20, 15, 30, Duration.ofNanos(100), 0.5, clock::get,
+            new SimpleMeterRegistry()
+        );
+        limiter.acquire(WebhookLanes.Lane.INTERACTIVE);
+        limiter.acquire(WebhookLanes.Lane.INTERACTIVE);
+        limiter.release(200);
+        limiter.release(200);
+        MatcherAssert.assertThat(limiter.limit(), Matchers.is(18));
+        for(int idx = 0; idx < 4; ++idx) {
+            clock.addAndGet(100);
+            limiter.acquire(WebhookLanes.Lane.INTERACTIVE);
+            limiter.release(200);
+        }
+        MatcherAssert.assertThat(limiter.limit(), Matchers.is(15));
+        for(int cycle = 0; cycle < 10; ++cycle) {
+            int admitted = 0;
+            while(limiter.acquire(WebhookLanes.Lane.INTERACTIVE)) {
+                admitted = admitted + 1;
+            }
+            for(int idx = 0; idx < admitted; ++idx) {
+                limiter.release(50);
+            }
+        }
+        MatcherAssert.assertThat(limiter.inflight(), Matchers.is(0));
+        MatcherAssert.assertThat(
+            limiter.limit(), Matchers.greaterThanOrEqualTo(18)
+        );
+    }
+}
@@ -0,0 +1,164 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import com.selfxdsd.api.Contributor;
+import com.selfxdsd.api.Project;
+import com.selfxdsd.api.Task;
+import com.selfxdsd.api.Tasks;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Unit tests for {@link AssignedTasksIndex}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class AssignedTasksIndexTestCase {
+
+    /**
+     * A Project is due when one of its Tasks is past the middle of
+     * the allowed period and again when it is past the deadline.
+     */
+    @Test
+    public void pollsProjectsWithDueCheckpoints() {
+        final LocalDateTime now = LocalDateTime.of(2021, 5, 1, 10, 0);
+        final Project project = this.mockProject(
+            "john/test",
+            this.mockTask(now, now.plusDays(10))
+        );
+        final AssignedTasksIndex index = new AssignedTasksIndex();
+        index.index(project, now);
+        MatcherAssert.assertThat(index.size(), Matchers.is(2));
+        MatcherAssert.assertThat(
+            index.due(now.plusDays(4)),
+            Matchers.emptyIterable()
+        );
+        MatcherAssert.assertThat(
+            index.due(now.plusDays(5)),
+            Matchers.contains("github:john/test")
+        );
+        MatcherAssert.assertThat(
+            index.due(now.plusDays(9)),
+            Matchers.emptyIterable()
+        );
+        MatcherAssert.assertThat(
+            index.due(now.plusDays(11)),
+            Matchers.contains("github:john/test")
+        );
+        MatcherAssert.assertThat(index.size(), Matchers.is(0));
+    }
+
+    /**
+     * Unassigned Tasks and checkpoints in the past are not indexed.
+     */
+    @Test
+    public void ignoresUnassignedAndPastCheckpoints() {
+        final LocalDateTime now = LocalDateTime.of(2021, 5, 1, 10, 0);
+        final Task unassigned = Mockito.mock(Task.class);
+        final Project project = this.mockProject(
+            "john/test",
+            unassigned,
+            this.mockTask(now.minusDays(6), now.plusDays(4))
+        );
+        final AssignedTasksIndex index = new AssignedTasksIndex();
+        index.index(project, now);
+        MatcherAssert.assertThat(index.size(), Matchers.is(1));
+    }
+
+    /**
+     * Re-indexing a Project discards its older checkpoints.
+     */
+    @Test
+    public void reindexingDiscardsOldCheckpoints() {
+        final LocalDateTime now = LocalDateTime.of(2021, 5, 1, 10, 0);
+        final Project project = this.mockProject(
+            "john/test",
+            this.mockTask(now, now.plusDays(10))
+        );
+        final AssignedTasksIndex index = new AssignedTasksIndex();
+        index.index(project, now);
+        final Tasks none = Mockito.mock(Tasks.class);
+        Mockito.when(none.iterator()).thenReturn(
+            Arrays.<Task>asList().iterator()
+        );
+        Mockito.when(project.tasks()).thenReturn(none);
+        index.markStale(project);
+        MatcherAssert.assertThat(
+            index.stale(),
+            Matchers.contains("github:john/test")
+        );
+        index.index(project, now);
+        MatcherAssert.assertThat(index.stale(), Matchers.emptyIterable());
+        MatcherAssert.assertThat(
+            index.due(now.plusDays(11)),
+            Matchers.emptyIterable()
+        );
+    }
+
+    /**
+     * Mock a Project with some Tasks.
+     * @param repoFullName Repo full name.
+     * @param tasks Tasks.
+     * @return Project.
+     */
+    private Project mockProject(
+        final String repoFullName,
+        final Task... tasks
+    ) {
+        final Project project = Mockito.mock(Project.class);
+        Mockito.when(project.repoFullName()).thenReturn(repoFullName);
+        Mockito.when(project.provider()).thenReturn("github");
+        final Tasks all = Mockito.mock(Tasks.class);
+        Mockito.when(all.iterator()).thenReturn(
+            Arrays.asList(tasks).iterator()
+        );
+        Mockito.when(project.tasks()).thenReturn(all);
+        return project;
+    }
+
+    /**
+     * Mock an assigned Task.
+     * @param assigned Assignment date.
+     * @param deadline Deadline.
+     * @return Task.
+     */
+    private Task mockTask(
+        final LocalDateTime assigned,
+        final LocalDateTime deadline
+    ) {
+        final Task task = Mockito.mock(Task.class);
+        Mockito.when(task.assignee()).thenReturn(
+            Mockito.mock(Contributor.class)
+        );
+        Mockito.when(task.assignmentDate()).thenReturn(assigned);
+        Mockito.when(task.deadline()).thenReturn(deadline);
+        return task;
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Unit tests for {@link CircuitBreaker}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class CircuitBreakerTestCase {
+
+    /**
+     * It opens after the given number of consecutive failures.
+     */
+    @Test
+    public void opensAfterConsecutiveFailures() {
+        final CircuitBreaker breaker = new CircuitBreaker(
+            2, Duration.ofSeconds(30), () -> 0L
+        );
+        breaker.failure();
+        breaker.success();
+        breaker.failure();
+        MatcherAssert.assertThat(
+            breaker.state(),
+            Matchers.is(CircuitBreaker.State.CLOSED)
+        );
+        breaker.failure();
+        MatcherAssert.assertThat(
+            breaker.state(),
+            Matchers.is(CircuitBreaker.State.OPEN)
+        );
+        MatcherAssert.assertThat(breaker.acquire(), Matchers.is(false));
+    }
+
+    /**
+     * Once its time is up, it lets one probe through; the probe's result
+     * closes or reopens it.
+     */
+    @Test
+    public void probesWhenHalfOpen() {
+        final AtomicLong ticker = new AtomicLong();
+        final CircuitBreaker breaker = new CircuitBreaker(
+            1, Duration.ofNanos(100), ticker::get
+        );
+        breaker.failure();
+        ticker.set(100);
+        MatcherAssert.assertThat(breaker.available(), Matchers.is(true));
+        MatcherAssert.assertThat(breaker.acquire(), Matchers.is(true));
+        MatcherAssert.assertThat(
+            breaker.state(),
+            Matchers.is(CircuitBreaker.State.HALF_OPEN)
+        );
+        MatcherAssert.assertThat(breaker.acquire(), Matchers.is(false));
+        breaker.failure();
+        MatcherAssert.assertThat(
+            breaker.state(),
+            Matchers.is(CircuitBreaker.State.OPEN)
+        );
+        ticker.set(200);
+        MatcherAssert.assertThat(breaker.acquire(), Matchers.is(true));
+        breaker.success();
+        MatcherAssert.assertThat(
+            breaker.state(),
+            Matchers.is(CircuitBreaker.State.CLOSED)
+        );
+    }
+}
@@ -0,0 +1,184 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import javax.json.Json;
+
+/**
+ * Unit tests for {@link CommandMatcher}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class CommandMatcherTestCase {
+
+    /**
+     * It finds the command type of every command word.
+     */
+    @Test
+    public void findsCommands() {
+        final CommandMatcher matcher = new CommandMatcher();
+        MatcherAssert.assertThat(
+            matcher.command("@zoeself Hi there!"),
+            Matchers.equalTo("hello")
+        );
+        MatcherAssert.assertThat(
+            matcher.command("@zoeself, I QUIT."),
+            Matchers.equalTo("resign")
+        );
+        MatcherAssert.assertThat(
+            matcher.command("@zoeself please add this"),
+            Matchers.equalTo("register")
+        );
+        MatcherAssert.assertThat(
+            matcher.command("@zoeself status?"),
+            Matchers.equalTo("status")
+        );
+    }
+
+    /**
+     * It returns an empty string if there is no command.
+     */
+    @Test
+    public void findsNoCommand() {
+        final CommandMatcher matcher = new CommandMatcher();
+        MatcherAssert.assertThat(
+            matcher.command("This is a comment, hidden in a thread."),
+            Matchers.isEmptyString()
+        );
+        MatcherAssert.assertThat(
+            matcher.command("@zoeself salut, ce faci?"),
+            Matchers.isEmptyString()
+        );
+    }
+
+    /**
+     * Only comments addressed to the PM, written by someone else,
+     * are relevant.
+     */
+    @Test
+    public void tellsIfCommentIsRelevant() {
+        final CommandMatcher matcher = new CommandMatcher();
+        MatcherAssert.assertThat(
+            matcher.relevant("@ZoeSelf hello", "john", "zoeself"),
+            Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            matcher.relevant("hello everyone", "john", "zoeself"),
+            Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            matcher.relevant("@zoeselfie hello", "john", "zoeself"),
+            Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            matcher.relevant("@john @zoeself here", "zoeself", "zoeself"),
+            Matchers.is(false)
+        );
+    }
+
+    /**
+     * It reads the comments from Github and GitLab payloads.
+     */
+    @Test
+    public void readsCommentsFromPayloads() {
+        final CommandMatcher matcher = new CommandMatcher();
+        MatcherAssert.assertThat(
+            matcher.relevant(
+                Json.createObjectBuilder()
+                    .add(
+                        "comment",
+                        Json.createObjectBuilder()
+                            .add("body", "@zoeself status")
+                            .add(
+                                "user",
+                                Json.createObjectBuilder()
+                                    .add("login", "john")
+                            )
+                    ).build(),
+                "zoeself"
+            ),
+            Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            matcher.relevant(
+                Json.createObjectBuilder()
+                    .add(
+                        "object_attributes",
+                        Json.createObjectBuilder()
+                            .add("note", "Looks good to me")
+                    ).build(),
+                "zoeself"
+            ),
+            Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            matcher.relevant(
+                Json.createObjectBuilder().add("action", "edited").build(),
+                "zoeself"
+            ),
+            Matchers.is(true)
+        );
+    }
+
+    /**
+     * It finds the command of the comments from Github and GitLab
+     * payloads.
+     */
+    @Test
+    public void findsCommandsInPayloads() {
+        final CommandMatcher matcher = new CommandMatcher();
+        MatcherAssert.assertThat(
+            matcher.command(
+                Json.createObjectBuilder()
+                    .add(
+                        "comment",
+                        Json.createObjectBuilder()
+                            .add("body", "@zoeself I refuse this task.")
+                    ).build()
+            ),
+            Matchers.equalTo("resign")
+        );
+        MatcherAssert.assertThat(
+            matcher.command(
+                Json.createObjectBuilder()
+                    .add(
+                        "object_attributes",
+                        Json.createObjectBuilder()
+                            .add("note", "@zoeself remove, please")
+                    ).build()
+            ),
+            Matchers.equalTo("deregister")
+        );
+        MatcherAssert.assertThat(
+            matcher.command(
+                Json.createObjectBuilder().add("action", "edited").build()
+            ),
+            Matchers.isEmptyString()
+        );
+    }
+}
@@ -0,0 +1,212 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import com.selfxdsd.api.ProjectManager;
+import com.selfxdsd.api.Provider;
+import com.selfxdsd.api.Self;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Unit tests for {@link ConditionalReads}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class ConditionalReadsTestCase {
+
+    /**
+     * Fake Github API: answers with an ETag and with 304 when the ETag
+     * is sent back.
+     */
+    private HttpServer github;
+
+    /**
+     * If-None-Match headers received by the fake Github API.
+     */
+    private final List<String> conditions = new CopyOnWriteArrayList<>();
+
+    /**
+     * Start the fake Github API.
+     * @throws IOException If something goes wrong.
+     */
+    @Before
+    public void start() throws IOException {
+        this.github = HttpServer.create(
+            new InetSocketAddress("localhost", 0), 0
+        );
+        this.github.createContext(
+            "/user/repository_invitations",
+            exchange -> {
+                final String etag = exchange.getRequestHeaders()
+                    .getFirst("If-None-Match");
+                this.conditions.add(String.valueOf(etag));
+                if("\"v1\"".equals(etag)) {
+                    exchange.sendResponseHeaders(304, -1);
+                } else {
+                    final byte[] body = "[]".getBytes(StandardCharsets.UTF_8);
+                    exchange.getResponseHeaders().add("ETag", "\"v1\"");
+                    exchange.sendResponseHeaders(200, body.length);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(body);
+                    }
+                }
+                exchange.close();
+            }
+        );
+        this.github.start();
+    }
+
+    /**
+     * Stop the fake Github API.
+     */
+    @After
+    public void stop() {
+        this.github.stop(0);
+    }
+
+    /**
+     * The second read sends the ETag back and gets the cached body.
+     */
+    @Test
+    public void answersNotModifiedFromCache() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final ConditionalReads reads = new ConditionalReads(
+            URI.create(
+                "http://localhost:" + this.github.getAddress().getPort()
+            ),
+            Duration.ofSeconds(5),
+            registry
+        );
+        final ProjectManager manager = ConditionalReadsTestCase.manager(
+            Provider.Names.GITHUB
+        );
+        MatcherAssert.assertThat(
+            reads.read(manager, "/user/repository_invitations"),
+            Matchers.equalTo("[]")
+        );
+        MatcherAssert.assertThat(
+            reads.read(manager, "/user/repository_invitations"),
+            Matchers.equalTo("[]")
+        );
+        MatcherAssert.assertThat(
+            this.conditions, Matchers.contains("null", "\"v1\"")
+        );
+        MatcherAssert.assertThat(
+            registry.get("self.pm.providers.conditional")
+                .tag("result", "not_modified").counter().count(),
+            Matchers.is(1.0)
+        );
+    }
+
+    /**
+     * Other providers are not read conditionally.
+     */
+    @Test
+    public void skipsOtherProviders() {
+        final ConditionalReads reads = new ConditionalReads(
+            URI.create(
+                "http://localhost:" + this.github.getAddress().getPort()
+            ),
+            Duration.ofSeconds(5),
+            new SimpleMeterRegistry()
+        );
+        MatcherAssert.assertThat(
+            reads.read(
+                ConditionalReadsTestCase.manager(Provider.Names.GITLAB),
+                "/user/repository_invitations"
+            ),
+            Matchers.nullValue()
+        );
+        MatcherAssert.assertThat(
+            ConditionalReads.none().read(
+                ConditionalReadsTestCase.manager(Provider.Names.GITHUB),
+                "/user/repository_invitations"
+            ),
+            Matchers.nullValue()
+        );
+        MatcherAssert.assertThat(this.conditions, Matchers.empty());
+    }
+
+    /**
+     * An unconditional read of invitations is not needed when the
+     * conditional one found none.
+     */
+    @Test
+    public void acceptInvitationsSkipsProviderWhenNone() {
+        final ProjectManager manager = ConditionalReadsTestCase.manager(
+            Provider.Names.GITHUB
+        );
+        final AcceptInvitations accept = new AcceptInvitations(
+            ProjectsSnapshot.uncached(
+                Mockito.mock(Self.class)
+            ),
+            new ProviderGuards(),
+            new ConditionalReads(
+                URI.create(
+                    "http://localhost:" + this.github.getAddress().getPort()
+                ),
+                Duration.ofSeconds(5),
+                new SimpleMeterRegistry()
+            ),
+            Runnable::run,
+            Duration.ZERO
+        );
+        accept.acceptFor(manager);
+        accept.acceptFor(manager);
+        Mockito.verify(manager.provider(), Mockito.never()).invitations();
+        MatcherAssert.assertThat(this.conditions, Matchers.hasSize(2));
+    }
+
+    /**
+     * Mock PM.
+     * @param provider Provider name.
+     * @return ProjectManager.
+     */
+    private static ProjectManager manager(final String provider) {
+        final Provider prov = Mockito.mock(Provider.class);
+        Mockito.when(prov.name()).thenReturn(provider);
+        final ProjectManager manager = Mockito.mock(ProjectManager.class);
+        Mockito.when(manager.id()).thenReturn(1);
+        Mockito.when(manager.accessToken()).thenReturn("pm1ghtoken123");
+        Mockito.when(manager.provider()).thenReturn(prov);
+        return manager;
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests for {@link FairQueue}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class FairQueueTestCase {
+
+    /**
+     * The keys take turns, each item of a key keeps its order.
+     */
+    @Test
+    public void interleavesKeys() {
+        final FairQueue<String> queue = new FairQueue<>(key -> 1);
+        queue.add("big", "b1");
+        queue.add("big", "b2");
+        queue.add("big", "b3");
+        queue.add("small", "s1");
+        MatcherAssert.assertThat(queue.size(), Matchers.is(4));
+        MatcherAssert.assertThat(queue.size("big"), Matchers.is(3));
+        MatcherAssert.assertThat(
+            FairQueueTestCase.drain(queue),
+            Matchers.contains("b1", "s1", "b2", "b3")
+        );
+        MatcherAssert.assertThat(queue.poll(), Matchers.nullValue());
+    }
+
+    /**
+     * A key with weight 2 gets two items per turn.
+     */
+    @Test
+    public void respectsWeights() {
+        final FairQueue<String> queue = new FairQueue<>(
+            key -> {
+                int weight = 1;
+                if("heavy".equals(key)) {
+                    weight = 2;
+                }
+                return weight;
+            }
+        );
+        for(int idx = 1; idx <= 3; ++idx) {
+            queue.add("heavy", "h" + idx);
+            queue.add("light", "l" + idx);
+        }
+        MatcherAssert.assertThat(
+            FairQueueTestCase.drain(queue),
+            Matchers.contains("h1", "h2", "l1", "h3", "l2", "l3")
+        );
+    }
+
+    /**
+     * Items can be removed and peeked.
+     */
+    @Test
+    public void removesAndPeeks() {
+        final FairQueue<String> queue = new FairQueue<>(key -> 1);
+        queue.add("a", "a1");
+        queue.add("b", "b1");
+        MatcherAssert.assertThat(queue.remove("a", "a1"), Matchers.is(true));
+        MatcherAssert.assertThat(queue.remove("a", "a1"), Matchers.is(false));
+        MatcherAssert.assertThat(queue.peek(), Matchers.equalTo("b1"));
+        MatcherAssert.assertThat(queue.items(), Matchers.contains("b1"));
+        MatcherAssert.assertThat(queue.size(), Matchers.is(1));
+    }
+
+    /**
+     * Poll all the items.
+     * @param queue Queue.
+     * @return Items, in the order they were polled.
+     */
+    private static List<String> drain(final FairQueue<String> queue) {
+        final List<String> items = new ArrayList<>();
+        String item = queue.poll();
+        while(item != null) {
+            items.add(item);
+            item = queue.poll();
+        }
+        return items;
+    }
+}
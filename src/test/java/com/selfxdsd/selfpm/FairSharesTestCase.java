@@ -0,0 +1,155 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import com.selfxdsd.api.Project;
+import com.selfxdsd.api.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests for {@link FairShares}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class FairSharesTestCase {
+
+    /**
+     * The Projects of a big owner do not starve the small owner's.
+     */
+    @Test
+    public void interleavesProjectsByOwner() {
+        final Project first = FairSharesTestCase.project("big", "one");
+        final Project second = FairSharesTestCase.project("big", "two");
+        final Project third = FairSharesTestCase.project("big", "three");
+        final Project small = FairSharesTestCase.project("small", "one");
+        MatcherAssert.assertThat(
+            new FairShares().interleave(List.of(first, second, third, small)),
+            Matchers.contains(first, small, second, third)
+        );
+    }
+
+    /**
+     * Weights are read from the configuration; the owner is the provider
+     * and the owner's username.
+     */
+    @Test
+    public void readsWeights() {
+        final FairShares shares = new FairShares(
+            "github/Big:3, gitlab/other:2", new SimpleMeterRegistry()
+        );
+        MatcherAssert.assertThat(
+            FairShares.owner(FairSharesTestCase.project("Big", "repo")),
+            Matchers.equalTo("github/big")
+        );
+        MatcherAssert.assertThat(shares.weight("github/big"), Matchers.is(3));
+        MatcherAssert.assertThat(
+            shares.weight("gitlab/other"), Matchers.is(2)
+        );
+        MatcherAssert.assertThat(shares.weight("github/x"), Matchers.is(1));
+    }
+
+    /**
+     * The lanes' queue hands out the jobs fairly and counts them: the
+     * weighted owners on their own, the others together. The gauge of an
+     * owner is removed once it has no waiting jobs.
+     */
+    @Test
+    public void queueHandsOutJobsFairly() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final FairBlockingQueue queue = new FairShares("big:1", registry)
+            .queue("bulk", 3);
+        final List<String> order = new ArrayList<>();
+        MatcherAssert.assertThat(
+            queue.offer(new FairShares.Job("big", () -> order.add("b1"))),
+            Matchers.is(true)
+        );
+        queue.offer(new FairShares.Job("big", () -> order.add("b2")));
+        queue.offer(() -> order.add("anonymous"));
+        MatcherAssert.assertThat(
+            queue.offer(new FairShares.Job("small", () -> order.add("s1"))),
+            Matchers.is(false)
+        );
+        MatcherAssert.assertThat(queue.remainingCapacity(), Matchers.is(0));
+        final List<Runnable> jobs = new ArrayList<>();
+        queue.drainTo(jobs);
+        jobs.forEach(Runnable::run);
+        MatcherAssert.assertThat(
+            order, Matchers.contains("b1", "anonymous", "b2")
+        );
+        MatcherAssert.assertThat(
+            registry.get("self.pm.fairness.dispatched")
+                .tag("owner", "big").counter().count(),
+            Matchers.is(2.0)
+        );
+        MatcherAssert.assertThat(
+            registry.get("self.pm.fairness.dispatched")
+                .tag("owner", "other").counter().count(),
+            Matchers.is(1.0)
+        );
+        MatcherAssert.assertThat(
+            registry.find("self.pm.fairness.queued").gauges(),
+            Matchers.empty()
+        );
+    }
+
+    /**
+     * The owner of a Project is looked up only once.
+     */
+    @Test
+    public void cachesOwners() {
+        final Project project = FairSharesTestCase.project("big", "one");
+        final FairShares shares = new FairShares();
+        for(int idx = 0; idx < 3; ++idx) {
+            MatcherAssert.assertThat(
+                shares.interleave(List.of(project)),
+                Matchers.contains(project)
+            );
+        }
+        Mockito.verify(project, Mockito.times(1)).owner();
+    }
+
+    /**
+     * Mock a Github Project.
+     * @param owner Username of the owner.
+     * @param repo Repo name.
+     * @return Project.
+     */
+    private static Project project(final String owner, final String repo) {
+        final User user = Mockito.mock(User.class);
+        Mockito.when(user.username()).thenReturn(owner);
+        final Project project = Mockito.mock(Project.class);
+        Mockito.when(project.owner()).thenReturn(user);
+        Mockito.when(project.provider()).thenReturn("github");
+        Mockito.when(project.repoFullName()).thenReturn(owner + "/" + repo);
+        return project;
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * Unit tests for {@link FlightRecordings}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class FlightRecordingsTestCase {
+
+    /**
+     * Without the right token, or with no token configured, everything
+     * is refused.
+     */
+    @Test
+    public void refusesWrongToken() {
+        MatcherAssert.assertThat(
+            new FlightRecordings("secret").start("wrong", "default", "PT1M")
+                .getStatusCode(),
+            Matchers.is(HttpStatus.UNAUTHORIZED)
+        );
+        MatcherAssert.assertThat(
+            new FlightRecordings("").dump("").getStatusCode(),
+            Matchers.is(HttpStatus.UNAUTHORIZED)
+        );
+    }
+
+    /**
+     * A recording can be started once, stopped and dumped; it contains
+     * the Self PM events.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void recordsSelfPmEvents() throws Exception {
+        final FlightRecordings jfr = new FlightRecordings("secret");
+        MatcherAssert.assertThat(
+            jfr.dump("secret").getStatusCode(),
+            Matchers.is(HttpStatus.NOT_FOUND)
+        );
+        MatcherAssert.assertThat(
+            jfr.start("secret", "default", "PT1M").getStatusCode(),
+            Matchers.is(HttpStatus.OK)
+        );
+        MatcherAssert.assertThat(
+            jfr.start("secret", "default", "PT1M").getStatusCode(),
+            Matchers.is(HttpStatus.CONFLICT)
+        );
+        final FlightEvents.Webhook event = new FlightEvents.Webhook(
+            "github", "john/test", "issues"
+        );
+        event.begin();
+        event.finish(HttpStatus.OK.value());
+        jfr.stop("secret");
+        final Path file = Files.createTempFile("test-", ".jfr");
+        try (InputStream dump = jfr.dump("secret").getBody()
+            .getInputStream()) {
+            Files.copy(dump, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        final List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+        jfr.discard("secret");
+        MatcherAssert.assertThat(
+            events.stream().filter(
+                recorded -> "com.selfxdsd.selfpm.Webhook".equals(
+                    recorded.getEventType().getName()
+                )
+            ).map(recorded -> recorded.getString("repo")).findFirst()
+                .orElse(null),
+            Matchers.equalTo("john/test")
+        );
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link LatencyHistogram}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class LatencyHistogramTestCase {
+
+    /**
+     * Percentiles are within 1/16 of the real values.
+     */
+    @Test
+    public void percentilesArePrecise() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for(long millis = 1; millis <= 1000; ++millis) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+        MatcherAssert.assertThat(histogram.count(), Matchers.is(1000L));
+        MatcherAssert.assertThat(
+            (double) histogram.percentile(50),
+            Matchers.closeTo(500_000, 500_000 / 16.0)
+        );
+        MatcherAssert.assertThat(
+            (double) histogram.percentile(99),
+            Matchers.closeTo(990_000, 990_000 / 16.0)
+        );
+        MatcherAssert.assertThat(
+            histogram.percentile(100), Matchers.is(1_000_000L)
+        );
+        MatcherAssert.assertThat(
+            histogram.json().getJsonNumber("maxMs").doubleValue(),
+            Matchers.is(1000.0)
+        );
+    }
+
+    /**
+     * Merged histograms have the values of both.
+     */
+    @Test
+    public void merges() {
+        final LatencyHistogram fast = new LatencyHistogram();
+        final LatencyHistogram slow = new LatencyHistogram();
+        fast.record(TimeUnit.MICROSECONDS.toNanos(10));
+        slow.record(TimeUnit.SECONDS.toNanos(2));
+        fast.merge(slow);
+        MatcherAssert.assertThat(fast.count(), Matchers.is(2L));
+        MatcherAssert.assertThat(fast.percentile(50), Matchers.is(10L));
+        MatcherAssert.assertThat(
+            fast.percentile(100), Matchers.is(2_000_000L)
+        );
+        MatcherAssert.assertThat(fast.total(), Matchers.is(2_000_010L));
+    }
+
+    /**
+     * An empty histogram has no percentiles.
+     */
+    @Test
+    public void emptyHistogram() {
+        MatcherAssert.assertThat(
+            new LatencyHistogram().percentile(99), Matchers.is(0L)
+        );
+    }
+}
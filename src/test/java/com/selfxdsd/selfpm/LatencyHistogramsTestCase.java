@@ -0,0 +1,134 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import com.selfxdsd.api.Project;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+
+import javax.json.JsonObject;
+import java.time.Duration;
+
+/**
+ * Unit tests for {@link LatencyHistograms}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class LatencyHistogramsTestCase {
+
+    /**
+     * The stats have the merged operations and the most expensive
+     * Projects first.
+     */
+    @Test
+    public void showsMostExpensiveProjects() {
+        final LatencyHistograms histograms = new LatencyHistograms();
+        histograms.record(
+            "github/john/cheap", LatencyHistograms.Operation.RESOLVE, 1_000_000
+        );
+        histograms.record(
+            "github/john/heavy", LatencyHistograms.Operation.RESOLVE,
+            50_000_000
+        );
+        histograms.record(
+            "github/john/heavy", LatencyHistograms.Operation.PAYMENT,
+            20_000_000
+        );
+        final JsonObject stats = histograms.stats(1);
+        MatcherAssert.assertThat(stats.getInt("projects"), Matchers.is(2));
+        MatcherAssert.assertThat(
+            stats.getJsonObject("operations").getJsonObject("resolve")
+                .getInt("count"),
+            Matchers.is(2)
+        );
+        MatcherAssert.assertThat(
+            stats.getJsonArray("top"), Matchers.hasSize(1)
+        );
+        MatcherAssert.assertThat(
+            stats.getJsonArray("top").getJsonObject(0).getString("project"),
+            Matchers.equalTo("github/john/heavy")
+        );
+    }
+
+    /**
+     * The coldest Project is evicted when the capacity is exceeded.
+     */
+    @Test
+    public void evictsColdestProject() {
+        final LatencyHistograms histograms = new LatencyHistograms(2);
+        final LatencyHistograms.Operation resolve =
+            LatencyHistograms.Operation.RESOLVE;
+        histograms.record("github/a", resolve, 1000);
+        histograms.record("github/b", resolve, 1000);
+        histograms.record("github/a", resolve, 1000);
+        histograms.record("github/c", resolve, 1000);
+        MatcherAssert.assertThat(histograms.size(), Matchers.is(2));
+        MatcherAssert.assertThat(
+            histograms.stats(10).getJsonArray("top").getJsonObject(0)
+                .getString("project"),
+            Matchers.equalTo("github/a")
+        );
+    }
+
+    /**
+     * The sweep hook records the swept Projects and delegates.
+     */
+    @Test
+    public void hookRecordsSweptProjects() {
+        final LatencyHistograms histograms = new LatencyHistograms();
+        final SweepHook hook = Mockito.mock(SweepHook.class);
+        final Project project = Mockito.mock(Project.class);
+        Mockito.when(project.provider()).thenReturn("github");
+        Mockito.when(project.repoFullName()).thenReturn("john/test");
+        histograms.hook(LatencyHistograms.Operation.ASSIGNED_REVIEW, hook)
+            .swept("test", project, Duration.ofMillis(5));
+        Mockito.verify(hook).swept("test", project, Duration.ofMillis(5));
+        MatcherAssert.assertThat(
+            histograms.stats(1).getJsonObject("operations")
+                .getJsonObject("assigned-review").getInt("count"),
+            Matchers.is(1)
+        );
+    }
+
+    /**
+     * The stats endpoint needs the admin token.
+     */
+    @Test
+    public void statsNeedAdminToken() {
+        final ProjectStats stats = new ProjectStats(
+            new AdminToken("secret"), new LatencyHistograms()
+        );
+        MatcherAssert.assertThat(
+            stats.stats("wrong", 10).getStatusCode(),
+            Matchers.is(HttpStatus.UNAUTHORIZED)
+        );
+        MatcherAssert.assertThat(
+            stats.stats("secret", 10).getBody(),
+            Matchers.containsString("\"projects\":0")
+        );
+    }
+}
@@ -41,11 +41,15 @@ import org.springframework.scheduling.TriggerContext;
 import org.springframework.scheduling.support.CronTrigger;
 
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 import java.util.TimeZone;
+import java.util.stream.Stream;
 
 /**
  * Unit tests for {@link PayInvoices}.
@@ -299,6 +303,221 @@ public final class PayInvoicesTestCase {
             .status();
     }
 
+    /**
+     * In a dry run, the payments are only planned.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void dryRunOnlyWritesPlan() throws Exception {
+        final Path dir = Files.createTempDirectory("payments");
+        final Self self = Mockito.mock(Self.class);
+        final ProjectManagers managers = Mockito.mock(ProjectManagers.class);
+        final ProjectManager manager = Mockito.mock(ProjectManager.class);
+        final Projects projects = Mockito.mock(Projects.class);
+        final Project project = Mockito.mock(Project.class);
+        final Wallet wallet = Mockito.mock(Wallet.class);
+        final Contracts contracts = Mockito.mock(Contracts.class);
+        final Contract contract = Mockito.mock(Contract.class);
+        final Invoices invoices = Mockito.mock(Invoices.class);
+        Mockito.when(self.projectManagers()).thenReturn(managers);
+        this.mockIterator(managers, manager);
+        Mockito.when(manager.projects()).thenReturn(projects);
+        this.mockIterator(projects, project);
+        Mockito.when(project.repoFullName()).thenReturn("john/test");
+        Mockito.when(project.provider()).thenReturn("github");
+        Mockito.when(project.wallet()).thenReturn(wallet);
+        Mockito.when(project.contracts()).thenReturn(contracts);
+        Mockito.when(contract.contractId()).thenReturn(
+            new Contract.Id("john/test", "test", "github", "dev")
+        );
+        this.mockIterator(contracts, contract);
+        Mockito.when(contract.invoices()).thenReturn(invoices);
+        final Invoice active = this.mockInvoice(1, false);
+        Mockito.when(active.totalAmount())
+            .thenReturn(BigDecimal.valueOf(200 * 100));
+        this.mockIterator(invoices, active);
+
+        new PayInvoices(
+            ProjectsSnapshot.uncached(self), self, dir, true
+        ).payInvoices();
+
+        Mockito.verify(wallet, Mockito.never()).pay(Mockito.any());
+        try (Stream<Path> plans = Files.list(dir)) {
+            final Path plan = plans.findFirst().orElseThrow();
+            MatcherAssert.assertThat(
+                plan.getFileName().toString(),
+                Matchers.startsWith("dry-run-payments-")
+            );
+            MatcherAssert.assertThat(
+                new PaymentPlanFile(plan).entries(),
+                Matchers.hasSize(1)
+            );
+        }
+    }
+
+    /**
+     * An interrupted plan is resumed: its remaining payments are looked up
+     * again by their ids and paid.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void resumesInterruptedPlan() throws Exception {
+        final Path dir = this.interruptedPlan();
+        final Wallet wallet = Mockito.mock(Wallet.class);
+        final Invoice active = this.mockInvoice(1, false);
+        Mockito.when(active.totalAmount())
+            .thenReturn(BigDecimal.valueOf(200 * 100));
+        final Payment payment = Mockito.mock(Payment.class);
+        Mockito.when(payment.status()).thenReturn(Payment.Status.SUCCESSFUL);
+        Mockito.when(wallet.pay(active)).thenReturn(payment);
+
+        final Self self = this.self(wallet, active);
+
+        new PayInvoices(
+            ProjectsSnapshot.uncached(self), self, dir, false
+        ).payInvoices();
+
+        Mockito.verify(wallet, Mockito.times(1)).pay(active);
+        MatcherAssert.assertThat(
+            dir.toFile().list(), Matchers.emptyArray()
+        );
+    }
+
+    /**
+     * An interrupted plan is resumed when the application starts, unless
+     * the scheduled jobs are off.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void resumesInterruptedPlanAtStart() throws Exception {
+        final Path dir = this.interruptedPlan();
+        final Wallet wallet = Mockito.mock(Wallet.class);
+        final Invoice active = this.mockInvoice(1, false);
+        Mockito.when(active.totalAmount())
+            .thenReturn(BigDecimal.valueOf(200 * 100));
+        final Payment payment = Mockito.mock(Payment.class);
+        Mockito.when(payment.status()).thenReturn(Payment.Status.SUCCESSFUL);
+        Mockito.when(wallet.pay(active)).thenReturn(payment);
+        final Self self = this.self(wallet, active);
+        for(final boolean scheduled : new boolean[] {false, true}) {
+            new PayInvoices(
+                ProjectsSnapshot.uncached(self), self, dir, false,
+                new LatencyHistograms(), ShutdownCoordinator.unmanaged(),
+                scheduled
+            ).resumeAtStart();
+        }
+        Mockito.verify(wallet, Mockito.times(1)).pay(active);
+        Mockito.verify(self, Mockito.never()).projectManagers();
+        MatcherAssert.assertThat(
+            dir.toFile().list(), Matchers.emptyArray()
+        );
+    }
+
+    /**
+     * The payments of an interrupted plan are not made if the wallet
+     * does not have enough cash anymore.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void skipsResumedPaymentsWithoutCash() throws Exception {
+        final Path dir = this.interruptedPlan();
+        final Wallet wallet = Mockito.mock(Wallet.class);
+        Mockito.when(wallet.cash()).thenReturn(BigDecimal.valueOf(100));
+        final Invoice active = this.mockInvoice(1, false);
+        Mockito.when(active.totalAmount())
+            .thenReturn(BigDecimal.valueOf(200 * 100));
+        final Self self = this.self(wallet, active);
+
+        new PayInvoices(
+            ProjectsSnapshot.uncached(self), self, dir, false
+        ).payInvoices();
+
+        Mockito.verify(wallet, Mockito.never()).pay(active);
+        MatcherAssert.assertThat(
+            dir.toFile().list(), Matchers.emptyArray()
+        );
+    }
+
+    /**
+     * A dry run plan is never executed, not even by a later run.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void neverResumesDryRunPlans() throws Exception {
+        final Path dir = Files.createTempDirectory("payments");
+        Files.write(
+            dir.resolve("dry-run-payments-20210322-000000-1.jsonl"),
+            List.of(
+                "{\"provider\":\"github\",\"repo\":\"john/test\","
+                + "\"contributor\":\"test\",\"role\":\"dev\","
+                + "\"invoice\":1,\"amount\":20000}",
+                "{\"totals\":{\"invoices\":1}}"
+            )
+        );
+        final Wallet wallet = Mockito.mock(Wallet.class);
+        final Invoice active = this.mockInvoice(1, false);
+        Mockito.when(active.totalAmount())
+            .thenReturn(BigDecimal.valueOf(200 * 100));
+        final Self self = this.self(wallet, active);
+
+        new PayInvoices(
+            ProjectsSnapshot.uncached(self), self, dir, false
+        ).payInvoices();
+
+        Mockito.verify(wallet, Mockito.never()).pay(active);
+    }
+
+    /**
+     * Directory with a plan interrupted before paying its only Invoice,
+     * #1 of contributor test at john/test.
+     * @return Path.
+     * @throws Exception If something goes wrong.
+     */
+    private Path interruptedPlan() throws Exception {
+        final Path dir = Files.createTempDirectory("payments");
+        Files.write(
+            dir.resolve("payments-20210322-000000-1.jsonl"),
+            List.of(
+                "{\"provider\":\"github\",\"repo\":\"john/test\","
+                + "\"contributor\":\"test\",\"role\":\"dev\","
+                + "\"invoice\":1,\"amount\":20000}",
+                "{\"totals\":{\"invoices\":1}}"
+            )
+        );
+        return dir;
+    }
+
+    /**
+     * Self with no PMs, where john/test can be found by id, with one
+     * Contract of contributor test.
+     * @param wallet Wallet of john/test.
+     * @param invoice Only Invoice of the Contract.
+     * @return Self.
+     */
+    private Self self(final Wallet wallet, final Invoice invoice) {
+        final Self self = Mockito.mock(Self.class);
+        final ProjectManagers managers = Mockito.mock(ProjectManagers.class);
+        this.mockIterator(managers);
+        Mockito.when(self.projectManagers()).thenReturn(managers);
+        final Projects all = Mockito.mock(Projects.class);
+        Mockito.when(self.projects()).thenReturn(all);
+        final Project project = Mockito.mock(Project.class);
+        Mockito.when(all.getProjectById("john/test", "github"))
+            .thenReturn(project);
+        Mockito.when(project.wallet()).thenReturn(wallet);
+        final Contracts contracts = Mockito.mock(Contracts.class);
+        final Contract contract = Mockito.mock(Contract.class);
+        Mockito.when(project.contracts()).thenReturn(contracts);
+        Mockito.when(contract.contractId()).thenReturn(
+            new Contract.Id("john/test", "test", "github", "dev")
+        );
+        this.mockIterator(contracts, contract);
+        final Invoices invoices = Mockito.mock(Invoices.class);
+        Mockito.when(contract.invoices()).thenReturn(invoices);
+        this.mockIterator(invoices, invoice);
+        return self;
+    }
+
     /**
      * Mocks Iterable's Iterator.
      * @param iterable Iterable.
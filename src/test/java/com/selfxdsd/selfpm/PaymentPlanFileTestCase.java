@@ -0,0 +1,213 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import com.selfxdsd.api.Contract;
+import com.selfxdsd.api.Invoice;
+import com.selfxdsd.api.Project;
+import com.selfxdsd.api.Wallet;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import javax.json.JsonObject;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Unit tests for {@link PaymentPlanFile}.
+ * @author criske
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class PaymentPlanFileTestCase {
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * It writes one line per payment and the totals.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void writesPaymentsAndTotals() throws Exception {
+        final PaymentPlanFile file = new PaymentPlanFile(
+            this.folder.getRoot().toPath().resolve("plan.jsonl")
+        );
+        file.append(this.plan(7, 200));
+        final JsonObject totals = file.finish();
+        MatcherAssert.assertThat(totals.getInt("projects"), Matchers.is(1));
+        MatcherAssert.assertThat(totals.getInt("invoices"), Matchers.is(1));
+        MatcherAssert.assertThat(
+            totals.getJsonNumber("amount").bigDecimalValue(),
+            Matchers.equalTo(BigDecimal.valueOf(200 * 100))
+        );
+        final List<JsonObject> entries = file.entries();
+        MatcherAssert.assertThat(entries, Matchers.hasSize(1));
+        MatcherAssert.assertThat(
+            PaymentPlanFile.key(entries.get(0)),
+            Matchers.equalTo("github:john/test#7")
+        );
+        MatcherAssert.assertThat(
+            entries.get(0).getString("contributor"),
+            Matchers.equalTo("mihai")
+        );
+    }
+
+    /**
+     * It records the executed payments and the completion.
+     */
+    @Test
+    public void recordsExecution() {
+        final PaymentPlanFile file = new PaymentPlanFile(
+            this.folder.getRoot().toPath().resolve("plan.jsonl")
+        );
+        MatcherAssert.assertThat(file.done(), Matchers.emptyIterable());
+        file.markDone("github:john/test#7");
+        MatcherAssert.assertThat(
+            file.done(),
+            Matchers.contains("github:john/test#7")
+        );
+        MatcherAssert.assertThat(file.isComplete(), Matchers.is(false));
+        file.complete();
+        MatcherAssert.assertThat(file.isComplete(), Matchers.is(true));
+    }
+
+    /**
+     * An executed plan is deleted together with its ".done" file.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void deletesExecutedPlan() throws Exception {
+        final Path plan = this.folder.getRoot().toPath().resolve(
+            "payments-1.jsonl"
+        );
+        Files.write(plan, List.of("{\"totals\":{\"invoices\":0}}"));
+        final PaymentPlanFile file = new PaymentPlanFile(plan);
+        file.complete();
+        file.delete();
+        MatcherAssert.assertThat(
+            this.folder.getRoot().list(), Matchers.emptyArray()
+        );
+    }
+
+    /**
+     * Cleaning up deletes the complete plans and the ".done" files without
+     * a plan, leaving the interrupted plans to be resumed.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void cleansCompletePlans() throws Exception {
+        final Path dir = this.folder.getRoot().toPath();
+        final List<String> totals = List.of("{\"totals\":{\"invoices\":0}}");
+        Files.write(dir.resolve("payments-1.jsonl"), totals);
+        new PaymentPlanFile(dir.resolve("payments-1.jsonl")).complete();
+        new PaymentPlanFile(dir.resolve("payments-2.jsonl")).complete();
+        Files.write(dir.resolve("payments-3.jsonl"), totals);
+        new PaymentPlanFile(dir.resolve("payments-3.jsonl"))
+            .markDone("github:john/test#7");
+        Files.write(dir.resolve("dry-run-payments-4.jsonl"), totals);
+        PaymentPlanFile.clean(dir, "payments-");
+        MatcherAssert.assertThat(
+            this.folder.getRoot().list(),
+            Matchers.arrayContainingInAnyOrder(
+                "payments-3.jsonl",
+                "payments-3.jsonl.done",
+                "dry-run-payments-4.jsonl"
+            )
+        );
+    }
+
+    /**
+     * An unfinished plan is only written to its ".part" file, which is
+     * deleted when the plan is discarded.
+     */
+    @Test
+    public void hidesUnfinishedPlan() {
+        final PaymentPlanFile file = PaymentPlanFile.create(
+            this.folder.getRoot().toPath(), "payments-"
+        );
+        file.append(this.plan(7, 200));
+        MatcherAssert.assertThat(
+            Files.exists(file.path()), Matchers.is(false)
+        );
+        MatcherAssert.assertThat(file.entries(), Matchers.emptyIterable());
+        file.discard();
+        MatcherAssert.assertThat(
+            this.folder.getRoot().list(), Matchers.emptyArray()
+        );
+    }
+
+    /**
+     * A finished plan is moved to its own path.
+     */
+    @Test
+    public void movesFinishedPlan() {
+        final PaymentPlanFile file = PaymentPlanFile.create(
+            this.folder.getRoot().toPath(), "payments-"
+        );
+        file.append(this.plan(7, 200));
+        file.finish();
+        file.discard();
+        MatcherAssert.assertThat(
+            this.folder.getRoot().list(),
+            Matchers.arrayContaining(file.path().getFileName().toString())
+        );
+        MatcherAssert.assertThat(file.entries(), Matchers.hasSize(1));
+    }
+
+    /**
+     * Plan with one payment, from john/test at github.
+     * @param invoiceId Invoice id.
+     * @param euros Amount in euros.
+     * @return PaymentPlan.
+     */
+    private PaymentPlan plan(final int invoiceId, final int euros) {
+        final Project project = Mockito.mock(Project.class);
+        Mockito.when(project.repoFullName()).thenReturn("john/test");
+        Mockito.when(project.provider()).thenReturn("github");
+        final Contract contract = Mockito.mock(Contract.class);
+        Mockito.when(contract.contractId()).thenReturn(
+            new Contract.Id("john/test", "mihai", "github", "DEV")
+        );
+        final Invoice invoice = Mockito.mock(Invoice.class);
+        Mockito.when(invoice.invoiceId()).thenReturn(invoiceId);
+        Mockito.when(invoice.totalAmount())
+            .thenReturn(BigDecimal.valueOf(euros * 100));
+        return new PaymentPlan(
+            project,
+            Mockito.mock(Wallet.class),
+            null,
+            List.of(new PaymentPlan.Item(contract, invoice)),
+            List.of()
+        );
+    }
+}
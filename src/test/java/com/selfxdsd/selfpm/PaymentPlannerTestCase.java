@@ -0,0 +1,177 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import com.selfxdsd.api.Contract;
+import com.selfxdsd.api.Contracts;
+import com.selfxdsd.api.Invoice;
+import com.selfxdsd.api.Invoices;
+import com.selfxdsd.api.Project;
+import com.selfxdsd.api.Wallet;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit tests for {@link PaymentPlanner}.
+ * @author criske
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class PaymentPlannerTestCase {
+
+    /**
+     * Oldest invoices are scheduled first, as long as the wallet affords
+     * them; the rest are unaffordable.
+     */
+    @Test
+    public void schedulesOldestAffordableInvoices() {
+        final LocalDateTime now = LocalDateTime.now();
+        final Invoice newest = this.invoice(1, 200, now);
+        final Invoice oldest = this.invoice(2, 300, now.minusDays(10));
+        final Invoice middle = this.invoice(3, 150, now.minusDays(5));
+        final Wallet wallet = Mockito.mock(Wallet.class);
+        Mockito.when(wallet.cash()).thenReturn(BigDecimal.valueOf(500 * 100));
+        final PaymentPlan plan = new PaymentPlanner().plan(
+            this.project(
+                wallet,
+                this.contract(newest),
+                this.contract(oldest),
+                this.contract(middle)
+            )
+        );
+        MatcherAssert.assertThat(
+            this.invoices(plan.scheduled()),
+            Matchers.contains(oldest, middle)
+        );
+        MatcherAssert.assertThat(
+            this.invoices(plan.unaffordable()),
+            Matchers.contains(newest)
+        );
+        MatcherAssert.assertThat(
+            PaymentPlan.total(plan.scheduled()),
+            Matchers.equalTo(BigDecimal.valueOf(450 * 100))
+        );
+        Mockito.verify(wallet, Mockito.times(1)).cash();
+    }
+
+    /**
+     * Only the first eligible invoice of each contract is planned and
+     * everything is scheduled if the wallet's cash is unknown.
+     */
+    @Test
+    public void plansFirstEligibleInvoicePerContract() {
+        final LocalDateTime now = LocalDateTime.now();
+        final Invoice small = this.invoice(1, 10, now.minusDays(3));
+        final Invoice first = this.invoice(2, 200, now.minusDays(2));
+        final Invoice second = this.invoice(3, 200, now.minusDays(1));
+        final Wallet wallet = Mockito.mock(Wallet.class);
+        final PaymentPlan plan = new PaymentPlanner().plan(
+            this.project(wallet, this.contract(small, first, second))
+        );
+        MatcherAssert.assertThat(
+            this.invoices(plan.scheduled()),
+            Matchers.contains(first)
+        );
+        MatcherAssert.assertThat(
+            plan.unaffordable(),
+            Matchers.emptyIterable()
+        );
+    }
+
+    /**
+     * Invoices of the given plan items.
+     * @param items Items.
+     * @return List of Invoices.
+     */
+    private List<Invoice> invoices(final List<PaymentPlan.Item> items) {
+        final List<Invoice> invoices = new ArrayList<>();
+        for(final PaymentPlan.Item item : items) {
+            invoices.add(item.invoice());
+        }
+        return invoices;
+    }
+
+    /**
+     * Mock a Project.
+     * @param wallet Wallet.
+     * @param contracts Contracts.
+     * @return Project.
+     */
+    private Project project(
+        final Wallet wallet,
+        final Contract... contracts
+    ) {
+        final Contracts all = Mockito.mock(Contracts.class);
+        Mockito.when(all.iterator()).thenReturn(
+            Arrays.asList(contracts).iterator()
+        );
+        final Project project = Mockito.mock(Project.class);
+        Mockito.when(project.wallet()).thenReturn(wallet);
+        Mockito.when(project.contracts()).thenReturn(all);
+        return project;
+    }
+
+    /**
+     * Mock a Contract.
+     * @param invoices Invoices.
+     * @return Contract.
+     */
+    private Contract contract(final Invoice... invoices) {
+        final Invoices all = Mockito.mock(Invoices.class);
+        Mockito.when(all.iterator()).thenReturn(
+            Arrays.asList(invoices).iterator()
+        );
+        final Contract contract = Mockito.mock(Contract.class);
+        Mockito.when(contract.invoices()).thenReturn(all);
+        return contract;
+    }
+
+    /**
+     * Mock an unpaid Invoice.
+     * @param id Id.
+     * @param euros Total amount in euros.
+     * @param created Creation moment.
+     * @return Invoice.
+     */
+    private Invoice invoice(
+        final int id,
+        final int euros,
+        final LocalDateTime created
+    ) {
+        final Invoice invoice = Mockito.mock(Invoice.class);
+        Mockito.when(invoice.invoiceId()).thenReturn(id);
+        Mockito.when(invoice.isPaid()).thenReturn(false);
+        Mockito.when(invoice.totalAmount())
+            .thenReturn(BigDecimal.valueOf(euros * 100));
+        Mockito.when(invoice.createdAt()).thenReturn(created);
+        return invoice;
+    }
+}
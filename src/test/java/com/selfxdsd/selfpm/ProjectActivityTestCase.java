@@ -0,0 +1,201 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import com.selfxdsd.api.Project;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Unit tests for {@link ProjectActivity}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class ProjectActivityTestCase {
+
+    /**
+     * A dormant Project is reviewed at the maximum interval.
+     */
+    @Test
+    public void dormantProjectBacksOff() {
+        final ProjectActivity activity = new ProjectActivity(
+            Duration.ofMinutes(10),
+            Duration.ofHours(24),
+            Duration.ofHours(6),
+            LocalDateTime::now
+        );
+        MatcherAssert.assertThat(
+            activity.interval(this.mockProject()),
+            Matchers.equalTo(Duration.ofHours(24))
+        );
+    }
+
+    /**
+     * A busy Project is reviewed more often, but not more often than
+     * the minimum interval.
+     */
+    @Test
+    public void busyProjectIsReviewedMoreOften() {
+        final LocalDateTime now = LocalDateTime.of(2021, 5, 1, 10, 0);
+        final ProjectActivity activity = new ProjectActivity(
+            Duration.ofMinutes(10),
+            Duration.ofHours(24),
+            Duration.ofHours(6),
+            () -> now
+        );
+        final Project project = this.mockProject();
+        activity.record(project);
+        activity.record(project);
+        activity.record(project);
+        MatcherAssert.assertThat(
+            activity.interval(project),
+            Matchers.equalTo(Duration.ofHours(6))
+        );
+        for(int idx = 0; idx < 1000; ++idx) {
+            activity.record(project);
+        }
+        MatcherAssert.assertThat(
+            activity.interval(project),
+            Matchers.equalTo(Duration.ofMinutes(10))
+        );
+    }
+
+    /**
+     * The activity score decays with the configured half-life.
+     */
+    @Test
+    public void activityDecays() {
+        final LocalDateTime now = LocalDateTime.of(2021, 5, 1, 10, 0);
+        final AtomicReference<LocalDateTime> clock = new AtomicReference<>(
+            now
+        );
+        final ProjectActivity activity = new ProjectActivity(
+            Duration.ofMinutes(10),
+            Duration.ofHours(24),
+            Duration.ofHours(6),
+            clock::get
+        );
+        final Project project = this.mockProject();
+        activity.record(project);
+        activity.record(project);
+        clock.set(now.plusHours(6));
+        MatcherAssert.assertThat(
+            activity.interval(project),
+            Matchers.equalTo(Duration.ofHours(12))
+        );
+    }
+
+    /**
+     * A Project is due if it was never reviewed, if its interval passed
+     * or if there was new activity since the last review.
+     */
+    @Test
+    public void tellsIfProjectIsDue() {
+        final LocalDateTime now = LocalDateTime.of(2021, 5, 1, 10, 0);
+        final AtomicReference<LocalDateTime> clock = new AtomicReference<>(
+            now
+        );
+        final ProjectActivity activity = new ProjectActivity(
+            Duration.ofMinutes(10),
+            Duration.ofHours(24),
+            Duration.ofHours(6),
+            clock::get
+        );
+        final Project project = this.mockProject();
+        MatcherAssert.assertThat(
+            activity.due("test", project), Matchers.is(true)
+        );
+        activity.reviewed("test", project, activity.now());
+        MatcherAssert.assertThat(
+            activity.due("test", project), Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            activity.due("other", project), Matchers.is(true)
+        );
+        clock.set(now.plusHours(24));
+        MatcherAssert.assertThat(
+            activity.due("test", project), Matchers.is(true)
+        );
+        activity.reviewed("test", project, activity.now());
+        activity.record(project);
+        MatcherAssert.assertThat(
+            activity.due("test", project), Matchers.is(true)
+        );
+    }
+
+    /**
+     * Mock the Project john/test at Github.
+     * @return Project.
+     */
+    private Project mockProject() {
+        final Project project = Mockito.mock(Project.class);
+        Mockito.when(project.repoFullName()).thenReturn("john/test");
+        Mockito.when(project.provider()).thenReturn("github");
+        return project;
+    }
+
+    /**
+     * A review is stamped with the start of its pass, so a Project reviewed
+     * late in a pass is due at the next pass. Activity during the pass keeps
+     * the Project due.
+     */
+    @Test
+    public void stampsReviewsWithPassStart() {
+        final LocalDateTime start = LocalDateTime.of(2021, 5, 1, 10, 0);
+        final AtomicReference<LocalDateTime> clock = new AtomicReference<>(
+            start
+        );
+        final ProjectActivity activity = new ProjectActivity(
+            Duration.ofMinutes(10),
+            Duration.ofHours(24),
+            Duration.ofHours(6),
+            clock::get
+        );
+        final Project project = this.mockProject();
+        for(int idx = 0; idx < 1000; ++idx) {
+            activity.record(project);
+        }
+        clock.set(start.plusMinutes(1));
+        final LocalDateTime started = activity.now();
+        clock.set(start.plusMinutes(9));
+        activity.reviewed("test", project, started);
+        clock.set(start.plusMinutes(11));
+        MatcherAssert.assertThat(
+            activity.due("test", project), Matchers.is(true)
+        );
+        final LocalDateTime next = activity.now();
+        clock.set(start.plusMinutes(12));
+        activity.record(project);
+        activity.reviewed("test", project, next);
+        MatcherAssert.assertThat(
+            activity.due("test", project), Matchers.is(true)
+        );
+    }
+}
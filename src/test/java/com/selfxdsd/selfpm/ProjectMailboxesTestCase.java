@@ -0,0 +1,207 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Unit tests for {@link ProjectMailboxes}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class ProjectMailboxesTestCase {
+
+    /**
+     * The jobs of a Project run one at a time, in the order they were
+     * submitted.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void runsJobsOfProjectInOrder() throws Exception {
+        final ExecutorService workers = Executors.newFixedThreadPool(4);
+        final ProjectMailboxes mailboxes = new ProjectMailboxes(
+            workers, Duration.ofMinutes(1), System::nanoTime,
+            new SimpleMeterRegistry()
+        );
+        final List<Integer> order = new ArrayList<>();
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger overlaps = new AtomicInteger();
+        CompletableFuture<Void> last = null;
+        for(int idx = 0; idx < 100; ++idx) {
+            final int number = idx;
+            last = mailboxes.submit(
+                "github/john/test",
+                () -> {
+                    if(running.incrementAndGet() > 1) {
+                        overlaps.incrementAndGet();
+                    }
+                    order.add(number);
+                    running.decrementAndGet();
+                }
+            );
+        }
+        last.get(5, TimeUnit.SECONDS);
+        workers.shutdown();
+        MatcherAssert.assertThat(overlaps.get(), Matchers.is(0));
+        MatcherAssert.assertThat(order, Matchers.hasSize(100));
+        for(int idx = 0; idx < 100; ++idx) {
+            MatcherAssert.assertThat(order.get(idx), Matchers.is(idx));
+        }
+    }
+
+    /**
+     * Different Projects run in parallel: a blocked Project does not hold
+     * up the others.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void runsProjectsInParallel() throws Exception {
+        final ExecutorService workers = Executors.newFixedThreadPool(2);
+        final ProjectMailboxes mailboxes = new ProjectMailboxes(
+            workers, Duration.ofMinutes(1), System::nanoTime,
+            new SimpleMeterRegistry()
+        );
+        final CountDownLatch release = new CountDownLatch(1);
+        final CompletableFuture<Void> blocked = mailboxes.submit(
+            "github/john/test",
+            () -> {
+                try {
+                    release.await();
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        );
+        mailboxes.submit("github/mary/test", () -> { })
+            .get(5, TimeUnit.SECONDS);
+        MatcherAssert.assertThat(blocked.isDone(), Matchers.is(false));
+        release.countDown();
+        blocked.get(5, TimeUnit.SECONDS);
+        workers.shutdown();
+    }
+
+    /**
+     * An asynchronous job keeps its mailbox busy until its work is
+     * finished, without holding a worker.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void waitsForWorkOfAsyncJobs() throws Exception {
+        final ExecutorService workers = Executors.newSingleThreadExecutor();
+        final ProjectMailboxes mailboxes = new ProjectMailboxes(
+            workers, Duration.ofMinutes(1), System::nanoTime,
+            new SimpleMeterRegistry()
+        );
+        final CompletableFuture<Void> work = new CompletableFuture<>();
+        final CompletableFuture<Void> first = mailboxes.submitAsync(
+            "github/john/test", () -> work
+        );
+        final AtomicInteger runs = new AtomicInteger();
+        final CompletableFuture<Void> second = mailboxes.submit(
+            "github/john/test", runs::incrementAndGet
+        );
+        mailboxes.submit("github/mary/test", () -> { })
+            .get(5, TimeUnit.SECONDS);
+        MatcherAssert.assertThat(first.isDone(), Matchers.is(false));
+        MatcherAssert.assertThat(runs.get(), Matchers.is(0));
+        work.complete(null);
+        second.get(5, TimeUnit.SECONDS);
+        MatcherAssert.assertThat(first.isDone(), Matchers.is(true));
+        MatcherAssert.assertThat(runs.get(), Matchers.is(1));
+        workers.shutdown();
+    }
+
+    /**
+     * A job which throws an Error fails its own future, but does not stop
+     * the mailbox: the next jobs still run.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void survivesErrorsOfJobs() throws Exception {
+        final ExecutorService workers = Executors.newSingleThreadExecutor();
+        final ProjectMailboxes mailboxes = new ProjectMailboxes(
+            workers, Duration.ofMinutes(1), System::nanoTime,
+            new SimpleMeterRegistry()
+        );
+        final CompletableFuture<Void> failed = mailboxes.submit(
+            "github/john/test",
+            () -> {
+                throw new AssertionError("Broken.");
+            }
+        );
+        final AtomicInteger runs = new AtomicInteger();
+        mailboxes.submit("github/john/test", runs::incrementAndGet)
+            .get(5, TimeUnit.SECONDS);
+        MatcherAssert.assertThat(
+            failed.isCompletedExceptionally(), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(runs.get(), Matchers.is(1));
+        workers.shutdown();
+    }
+
+    /**
+     * Empty mailboxes are evicted once idle; a job's error fails its
+     * future.
+     */
+    @Test
+    public void evictsIdleMailboxes() {
+        final AtomicLong clock = new AtomicLong();
+        final ProjectMailboxes mailboxes = new ProjectMailboxes(
+            Runnable::run, Duration.ofNanos(100), clock::get,
+            new SimpleMeterRegistry()
+        );
+        mailboxes.submit("github/john/test", () -> { });
+        clock.set(50);
+        final CompletableFuture<Void> failed = mailboxes.submit(
+            "gitlab/mary/test",
+            () -> {
+                throw new IllegalStateException("Failed.");
+            }
+        );
+        MatcherAssert.assertThat(
+            failed.isCompletedExceptionally(), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(mailboxes.size(), Matchers.is(2));
+        clock.set(100);
+        mailboxes.evict();
+        MatcherAssert.assertThat(mailboxes.size(), Matchers.is(1));
+        clock.set(150);
+        mailboxes.evict();
+        MatcherAssert.assertThat(mailboxes.size(), Matchers.is(0));
+    }
+}
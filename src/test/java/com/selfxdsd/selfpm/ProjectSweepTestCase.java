@@ -0,0 +1,136 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import com.selfxdsd.api.*;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit tests for {@link ProjectSweep}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class ProjectSweepTestCase {
+
+    /**
+     * It runs the action only on the selected Projects and notifies
+     * the hook.
+     */
+    @Test
+    public void sweepsSelectedProjects() {
+        final Project first = Mockito.mock(Project.class);
+        final Project second = Mockito.mock(Project.class);
+        final SweepHook hook = Mockito.mock(SweepHook.class);
+        final List<Project> swept = new ArrayList<>();
+        new ProjectSweep("test", this.mockCore(first, second), hook).run(
+            project -> project == second,
+            swept::add
+        );
+        MatcherAssert.assertThat(
+            swept, Matchers.contains(second)
+        );
+        Mockito.verify(hook).started("test");
+        Mockito.verify(hook).swept(
+            Mockito.eq("test"), Mockito.eq(second), Mockito.any(Duration.class)
+        );
+        Mockito.verify(hook).finished(
+            Mockito.eq("test"), Mockito.eq(1), Mockito.any(Duration.class)
+        );
+    }
+
+    /**
+     * The sweep stops if the hook says so, after a failure.
+     */
+    @Test
+    public void stopsWhenHookSaysSo() {
+        final Project first = Mockito.mock(Project.class);
+        final Project second = Mockito.mock(Project.class);
+        Mockito.doThrow(new IllegalStateException("Failed"))
+            .when(first).resolve(Mockito.any());
+        final SweepHook hook = Mockito.mock(SweepHook.class);
+        Mockito.when(
+            hook.failed(
+                Mockito.eq("test"),
+                Mockito.eq(first),
+                Mockito.any(RuntimeException.class)
+            )
+        ).thenReturn(false);
+        new ProjectSweep("test", this.mockCore(first, second), hook).run(
+            project -> project.resolve(Mockito.mock(Event.class))
+        );
+        Mockito.verify(second, Mockito.never()).resolve(Mockito.any());
+    }
+
+    /**
+     * The sweep goes on if the hook says so, after a failure.
+     */
+    @Test
+    public void goesOnWhenHookSaysSo() {
+        final Project first = Mockito.mock(Project.class);
+        final Project second = Mockito.mock(Project.class);
+        Mockito.doThrow(new IllegalStateException("Failed"))
+            .when(first).resolve(Mockito.any());
+        final SweepHook hook = Mockito.mock(SweepHook.class);
+        Mockito.when(
+            hook.failed(
+                Mockito.eq("test"),
+                Mockito.eq(first),
+                Mockito.any(RuntimeException.class)
+            )
+        ).thenReturn(true);
+        new ProjectSweep("test", this.mockCore(first, second), hook).run(
+            project -> project.resolve(Mockito.mock(Event.class))
+        );
+        Mockito.verify(second, Mockito.times(1)).resolve(Mockito.any());
+    }
+
+    /**
+     * Mock Self with one PM managing the given Projects.
+     * @param projects Projects.
+     * @return Self.
+     */
+    private Self mockCore(final Project... projects) {
+        final Projects all = Mockito.mock(Projects.class);
+        Mockito.when(all.iterator()).thenReturn(
+            Arrays.asList(projects).iterator()
+        );
+        final ProjectManager manager = Mockito.mock(ProjectManager.class);
+        Mockito.when(manager.projects()).thenReturn(all);
+        final ProjectManagers managers = Mockito.mock(ProjectManagers.class);
+        Mockito.when(managers.iterator()).thenReturn(
+            Arrays.asList(manager).iterator()
+        );
+        final Self core = Mockito.mock(Self.class);
+        Mockito.when(core.projectManagers()).thenReturn(managers);
+        return core;
+    }
+}
@@ -0,0 +1,213 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import com.selfxdsd.api.Project;
+import com.selfxdsd.api.ProjectManager;
+import com.selfxdsd.api.ProjectManagers;
+import com.selfxdsd.api.Projects;
+import com.selfxdsd.api.Self;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Unit tests for {@link ProjectsSnapshot}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class ProjectsSnapshotTestCase {
+
+    /**
+     * The PMs and Projects are loaded once per TTL.
+     */
+    @Test
+    public void reloadsAfterTtl() {
+        final Instant start = Instant.parse("2021-01-01T10:00:00Z");
+        final AtomicReference<Instant> now = new AtomicReference<>(start);
+        final Project project = Mockito.mock(Project.class);
+        final ProjectManager manager = this.manager(1, project);
+        final Self self = this.self(manager);
+        final ProjectsSnapshot snapshot = new ProjectsSnapshot(
+            self, Duration.ofMinutes(5), now::get
+        );
+        MatcherAssert.assertThat(
+            snapshot.graph().get(manager),
+            Matchers.contains(project)
+        );
+        now.set(start.plus(Duration.ofMinutes(4)));
+        snapshot.graph();
+        Mockito.verify(self, Mockito.times(1)).projectManagers();
+        Mockito.verify(manager, Mockito.times(1)).projects();
+        now.set(start.plus(Duration.ofMinutes(5)));
+        snapshot.graph();
+        Mockito.verify(self, Mockito.times(2)).projectManagers();
+        Mockito.verify(manager, Mockito.times(2)).projects();
+    }
+
+    /**
+     * Invalidating a Project reloads only the Projects of its PM.
+     */
+    @Test
+    public void invalidatesOnlyTheProjectsPm() {
+        final Project first = Mockito.mock(Project.class);
+        final Project second = Mockito.mock(Project.class);
+        final ProjectManager github = this.manager(1, first);
+        final ProjectManager gitlab = this.manager(2, second);
+        Mockito.when(first.projectManager()).thenReturn(github);
+        final Self self = this.self(github, gitlab);
+        final ProjectsSnapshot snapshot = new ProjectsSnapshot(
+            self, Duration.ofMinutes(5)
+        );
+        snapshot.graph();
+        snapshot.invalidate(first);
+        MatcherAssert.assertThat(
+            snapshot.graph().keySet(),
+            Matchers.contains(github, gitlab)
+        );
+        Mockito.verify(self, Mockito.times(1)).projectManagers();
+        Mockito.verify(github, Mockito.times(2)).projects();
+        Mockito.verify(gitlab, Mockito.times(1)).projects();
+    }
+
+    /**
+     * The Projects of a PM are loaded under the PM's own lock: the PMs can
+     * be read and the snapshot invalidated meanwhile, and a load which
+     * overlapped with an invalidation is not kept.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void loadsProjectsOutsideGlobalLock() throws Exception {
+        final Project project = Mockito.mock(Project.class);
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Projects managed = this.blocking(loading, release, project);
+        final ProjectManager manager = Mockito.mock(ProjectManager.class);
+        Mockito.when(manager.id()).thenReturn(1);
+        Mockito.when(manager.projects()).thenReturn(managed);
+        Mockito.when(project.projectManager()).thenReturn(manager);
+        final ProjectsSnapshot snapshot = new ProjectsSnapshot(
+            this.self(manager), Duration.ofMinutes(5)
+        );
+        final ExecutorService pool = Executors.newSingleThreadExecutor();
+        final Future<Map<ProjectManager, List<Project>>> graph =
+            pool.submit(snapshot::graph);
+        loading.await();
+        snapshot.invalidate(project);
+        MatcherAssert.assertThat(
+            snapshot.managers(), Matchers.contains(manager)
+        );
+        release.countDown();
+        MatcherAssert.assertThat(
+            graph.get(5, TimeUnit.SECONDS).get(manager),
+            Matchers.contains(project)
+        );
+        snapshot.graph();
+        Mockito.verify(manager, Mockito.times(2)).projects();
+        pool.shutdown();
+    }
+
+    /**
+     * The uncached snapshot always reads from Self's core.
+     */
+    @Test
+    public void uncachedReadsEveryTime() {
+        final ProjectManager manager = this.manager(
+            1, Mockito.mock(Project.class)
+        );
+        final Self self = this.self(manager);
+        final ProjectsSnapshot snapshot = ProjectsSnapshot.uncached(self);
+        snapshot.graph();
+        snapshot.graph();
+        Mockito.verify(self, Mockito.times(2)).projectManagers();
+        Mockito.verify(manager, Mockito.times(2)).projects();
+    }
+
+    /**
+     * Mock a Self with the given PMs.
+     * @param managers PMs.
+     * @return Self.
+     */
+    private Self self(final ProjectManager... managers) {
+        final ProjectManagers all = Mockito.mock(ProjectManagers.class);
+        Mockito.when(all.iterator()).thenAnswer(
+            invocation -> List.of(managers).iterator()
+        );
+        final Self self = Mockito.mock(Self.class);
+        Mockito.when(self.projectManagers()).thenReturn(all);
+        return self;
+    }
+
+    /**
+     * Mock Projects which block while they are read.
+     * @param loading Counted down when the reading starts.
+     * @param release Awaited before the Projects are returned.
+     * @param projects Projects.
+     * @return Projects.
+     */
+    private Projects blocking(
+        final CountDownLatch loading,
+        final CountDownLatch release,
+        final Project... projects
+    ) {
+        final Projects managed = Mockito.mock(Projects.class);
+        Mockito.when(managed.iterator()).thenAnswer(
+            invocation -> {
+                loading.countDown();
+                release.await();
+                return List.of(projects).iterator();
+            }
+        );
+        return managed;
+    }
+
+    /**
+     * Mock a PM managing the given Projects.
+     * @param id PM id.
+     * @param projects Projects.
+     * @return ProjectManager.
+     */
+    private ProjectManager manager(final int id, final Project... projects) {
+        final Projects managed = Mockito.mock(Projects.class);
+        Mockito.when(managed.iterator()).thenAnswer(
+            invocation -> List.of(projects).iterator()
+        );
+        final ProjectManager manager = Mockito.mock(ProjectManager.class);
+        Mockito.when(manager.id()).thenReturn(id);
+        Mockito.when(manager.projects()).thenReturn(managed);
+        return manager;
+    }
+}
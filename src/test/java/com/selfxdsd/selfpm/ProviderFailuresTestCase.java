@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.net.http.HttpTimeoutException;
+
+/**
+ * Unit tests for {@link ProviderFailures}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class ProviderFailuresTestCase {
+
+    /**
+     * I/O errors are failures of the provider, even when wrapped.
+     */
+    @Test
+    public void classifiesIoErrors() {
+        final ProviderFailures failures = new ProviderFailures();
+        MatcherAssert.assertThat(
+            failures.type(
+                new IllegalStateException(
+                    new UncheckedIOException(
+                        new ConnectException("Connection refused")
+                    )
+                )
+            ),
+            Matchers.equalTo("io")
+        );
+        MatcherAssert.assertThat(
+            failures.type(new HttpTimeoutException("Timed out")),
+            Matchers.equalTo("timeout")
+        );
+    }
+
+    /**
+     * Server errors and throttling are failures of the provider, the
+     * other HTTP statuses are not.
+     */
+    @Test
+    public void classifiesHttpStatuses() {
+        final ProviderFailures failures = new ProviderFailures();
+        MatcherAssert.assertThat(
+            failures.type(
+                new IllegalStateException("Expected status 200, but got 502.")
+            ),
+            Matchers.equalTo("http-5xx")
+        );
+        MatcherAssert.assertThat(
+            failures.type(new IllegalStateException("Got status: 429")),
+            Matchers.equalTo("http-429")
+        );
+        MatcherAssert.assertThat(
+            failures.type(new IllegalStateException("Got status: 404")),
+            Matchers.equalTo(ProviderFailures.NONE)
+        );
+    }
+
+    /**
+     * Other errors are not failures of the provider.
+     */
+    @Test
+    public void ignoresOtherErrors() {
+        final ProviderFailures failures = new ProviderFailures();
+        MatcherAssert.assertThat(
+            failures.type(new IllegalStateException("Database is down.")),
+            Matchers.equalTo(ProviderFailures.NONE)
+        );
+        MatcherAssert.assertThat(
+            failures.type(new NullPointerException()),
+            Matchers.equalTo(ProviderFailures.NONE)
+        );
+    }
+}
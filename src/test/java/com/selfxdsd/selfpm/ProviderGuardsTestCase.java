@@ -0,0 +1,262 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Unit tests for {@link ProviderGuards}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class ProviderGuardsTestCase {
+
+    /**
+     * It runs the work and rethrows its errors.
+     */
+    @Test
+    public void runsWorkAndRethrowsErrors() {
+        final ProviderGuards guards = new ProviderGuards();
+        final AtomicBoolean ran = new AtomicBoolean();
+        guards.run(
+            "github", ProviderGuards.Caller.SWEEPS, () -> ran.set(true)
+        );
+        MatcherAssert.assertThat(ran.get(), Matchers.is(true));
+        try {
+            guards.run(
+                "github",
+                ProviderGuards.Caller.SWEEPS,
+                () -> {
+                    throw new IllegalArgumentException("Bad event.");
+                }
+            );
+            MatcherAssert.assertThat("Should have failed", false);
+        } catch (final IllegalArgumentException ex) {
+            MatcherAssert.assertThat(
+                ex.getMessage(), Matchers.equalTo("Bad event.")
+            );
+        }
+    }
+
+    /**
+     * An open breaker rejects only the calls of its own provider.
+     */
+    @Test
+    public void isolatesFailingProvider() {
+        final ProviderGuards guards = new ProviderGuards(
+            2, 1, Duration.ofMinutes(1), Duration.ofSeconds(5),
+            new SimpleMeterRegistry()
+        );
+        try {
+            guards.run(
+                "gitlab",
+                ProviderGuards.Caller.SWEEPS,
+                () -> {
+                    throw new IllegalStateException(
+                        "GitLab is down.",
+                        new ConnectException("Connection refused")
+                    );
+                }
+            );
+        } catch (final IllegalStateException ex) {
+            MatcherAssert.assertThat(
+                ex.getMessage(), Matchers.equalTo("GitLab is down.")
+            );
+        }
+        MatcherAssert.assertThat(
+            guards.state("gitlab"),
+            Matchers.is(CircuitBreaker.State.OPEN)
+        );
+        MatcherAssert.assertThat(guards.permits("gitlab"), Matchers.is(false));
+        MatcherAssert.assertThat(guards.permits("github"), Matchers.is(true));
+        try {
+            guards.run("gitlab", ProviderGuards.Caller.SWEEPS, () -> { });
+            MatcherAssert.assertThat("Should have been rejected", false);
+        } catch (final ProviderUnavailableException ex) {
+            MatcherAssert.assertThat(
+                ex.getMessage(), Matchers.containsString("open")
+            );
+        }
+        guards.shutdown();
+    }
+
+    /**
+     * Errors which are not the provider's do not open its breaker.
+     */
+    @Test
+    public void ignoresOtherFailures() {
+        final ProviderGuards guards = new ProviderGuards(
+            2, 1, Duration.ofMinutes(1), Duration.ofSeconds(5),
+            new SimpleMeterRegistry()
+        );
+        try {
+            guards.run(
+                "github",
+                ProviderGuards.Caller.SWEEPS,
+                () -> {
+                    throw new IllegalStateException("Database is down.");
+                }
+            );
+        } catch (final IllegalStateException ex) {
+            MatcherAssert.assertThat(
+                ex.getMessage(), Matchers.equalTo("Database is down.")
+            );
+        }
+        MatcherAssert.assertThat(
+            guards.state("github"),
+            Matchers.is(CircuitBreaker.State.CLOSED)
+        );
+        guards.shutdown();
+    }
+
+    /**
+     * Waiting for a slow call times out, but the call is not interrupted:
+     * it goes on until it finishes.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void timesOutWaitWithoutInterrupting() throws Exception {
+        final ProviderGuards guards = new ProviderGuards(
+            1, 5, Duration.ofMinutes(1), Duration.ofMillis(50),
+            new SimpleMeterRegistry()
+        );
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch finished = new CountDownLatch(1);
+        final AtomicBoolean interrupted = new AtomicBoolean();
+        try {
+            guards.run(
+                "github",
+                ProviderGuards.Caller.SWEEPS,
+                () -> {
+                    try {
+                        release.await();
+                    } catch (final InterruptedException ex) {
+                        interrupted.set(true);
+                    }
+                    finished.countDown();
+                }
+            );
+            MatcherAssert.assertThat("Should have timed out", false);
+        } catch (final ProviderUnavailableException ex) {
+            MatcherAssert.assertThat(
+                ex.getMessage(), Matchers.containsString("timed out")
+            );
+        }
+        release.countDown();
+        MatcherAssert.assertThat(
+            finished.await(5, TimeUnit.SECONDS), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(interrupted.get(), Matchers.is(false));
+        guards.shutdown();
+    }
+
+    /**
+     * When the bulkhead is full, a call waits for a free slot, as long as
+     * the caller's timeout allows.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void waitsForFreeSlot() throws Exception {
+        final ProviderGuards guards = new ProviderGuards(
+            1, 5, Duration.ofMinutes(1), Duration.ofSeconds(5),
+            new SimpleMeterRegistry()
+        );
+        final CountDownLatch release = new CountDownLatch(1);
+        final CompletableFuture<Void> busy = guards.submit(
+            "github",
+            ProviderGuards.Caller.WEBHOOKS,
+            () -> {
+                try {
+                    release.await();
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        );
+        final AtomicBoolean ran = new AtomicBoolean();
+        final CompletableFuture<Void> waiting = guards.submit(
+            "github", ProviderGuards.Caller.WEBHOOKS, () -> ran.set(true)
+        );
+        MatcherAssert.assertThat(waiting.isDone(), Matchers.is(false));
+        release.countDown();
+        waiting.get(5, TimeUnit.SECONDS);
+        MatcherAssert.assertThat(busy.isDone(), Matchers.is(true));
+        MatcherAssert.assertThat(ran.get(), Matchers.is(true));
+        guards.shutdown();
+    }
+
+    /**
+     * A call which gets no free slot in time fails, without running.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void rejectsCallWithoutFreeSlot() throws Exception {
+        final ProviderGuards guards = new ProviderGuards(
+            1, 5, Duration.ofMinutes(1), Duration.ofMillis(50),
+            new SimpleMeterRegistry()
+        );
+        final CountDownLatch release = new CountDownLatch(1);
+        guards.submit(
+            "github",
+            ProviderGuards.Caller.WEBHOOKS,
+            () -> {
+                try {
+                    release.await();
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        );
+        final AtomicBoolean ran = new AtomicBoolean();
+        try {
+            guards.submit(
+                "github", ProviderGuards.Caller.WEBHOOKS, () -> ran.set(true)
+            ).get(5, TimeUnit.SECONDS);
+            MatcherAssert.assertThat("Should have been rejected", false);
+        } catch (final ExecutionException ex) {
+            MatcherAssert.assertThat(
+                ex.getCause(),
+                Matchers.instanceOf(ProviderUnavailableException.class)
+            );
+            MatcherAssert.assertThat(
+                ex.getCause().getMessage(),
+                Matchers.containsString("No free slot")
+            );
+        }
+        release.countDown();
+        MatcherAssert.assertThat(ran.get(), Matchers.is(false));
+        guards.shutdown();
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import com.selfxdsd.api.Event;
+import com.selfxdsd.api.Project;
+import com.selfxdsd.api.Projects;
+import com.selfxdsd.api.Provider;
+import com.selfxdsd.api.Self;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Unit tests for {@link ReactiveWebhooks}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class ReactiveWebhooksTestCase {
+
+    /**
+     * Github events of unknown Projects get No Content.
+     */
+    @Test
+    public void githubProjectNotFound() {
+        final Projects all = Mockito.mock(Projects.class);
+        final Self self = Mockito.mock(Self.class);
+        Mockito.when(self.projects()).thenReturn(all);
+        MatcherAssert.assertThat(
+            ReactiveWebhooksTestCase.reactive(self).github(
+                "john", "test", "issues", "sha1=123",
+                Mono.just("{\"repository\":{\"full_name\":\"john/test\"}}")
+            ).block().getStatusCode(),
+            Matchers.equalTo(HttpStatus.NO_CONTENT)
+        );
+    }
+
+    /**
+     * A Github event with the right signature is resolved by its Project,
+     * off the caller's thread.
+     */
+    @Test
+    public void githubProjectResolvesOk() {
+        final Project project = Mockito.mock(Project.class);
+        Mockito.when(project.webHookToken()).thenReturn("project_wh_token");
+        Mockito.when(project.provider()).thenReturn(Provider.Names.GITHUB);
+        final Projects all = Mockito.mock(Projects.class);
+        Mockito.when(
+            all.getProjectById("john/test", Provider.Names.GITHUB)
+        ).thenReturn(project);
+        final Self self = Mockito.mock(Self.class);
+        Mockito.when(self.projects()).thenReturn(all);
+        MatcherAssert.assertThat(
+            ReactiveWebhooksTestCase.reactive(self).github(
+                "john", "test", "issues",
+                "sha1=853a76e61f8c83758a25641a7018ef6ba1a757e8",
+                Mono.just("{\"repository\":{\"full_name\":\"john/test\"}}")
+            ).block().getStatusCode(),
+            Matchers.equalTo(HttpStatus.OK)
+        );
+        Mockito.verify(project).resolve(Mockito.any(Event.class));
+    }
+
+    /**
+     * Github events which are not routed are acknowledged, as on the
+     * servlet stack.
+     */
+    @Test
+    public void githubEventNotRoutedIsAcknowledged() {
+        final Self self = Mockito.mock(Self.class);
+        MatcherAssert.assertThat(
+            ReactiveWebhooksTestCase.reactive(self).github(
+                "john", "test", "watch", "sha1=123", Mono.just("{}")
+            ).block().getStatusCode(),
+            Matchers.equalTo(HttpStatus.OK)
+        );
+        Mockito.verify(self, Mockito.never()).projects();
+    }
+
+    /**
+     * GitLab events with the wrong token are a Bad Request.
+     */
+    @Test
+    public void gitlabWrongToken() {
+        final Project project = Mockito.mock(Project.class);
+        Mockito.when(project.webHookToken()).thenReturn("project_wh_token");
+        final Projects all = Mockito.mock(Projects.class);
+        Mockito.when(
+            all.getProjectById("john/test", Provider.Names.GITLAB)
+        ).thenReturn(project);
+        final Self self = Mockito.mock(Self.class);
+        Mockito.when(self.projects()).thenReturn(all);
+        MatcherAssert.assertThat(
+            ReactiveWebhooksTestCase.reactive(self).gitlab(
+                "john", "test", "Issue Hook", "wrong", Mono.just("{}")
+            ).block().getStatusCode(),
+            Matchers.equalTo(HttpStatus.BAD_REQUEST)
+        );
+    }
+
+    /**
+     * Reactive webhooks over the given Self Core.
+     * @param self Self Core.
+     * @return ReactiveWebhooks.
+     */
+    private static ReactiveWebhooks reactive(final Self self) {
+        return new ReactiveWebhooks(
+            new Webhooks(self), Schedulers.boundedElastic()
+        );
+    }
+}
@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Unit tests for {@link RepoAliases}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class RepoAliasesTestCase {
+
+    /**
+     * Renaming chains are collapsed, so every old name points to the
+     * current one; renaming back removes the alias.
+     */
+    @Test
+    public void collapsesChains() {
+        final RepoAliases aliases = new RepoAliases();
+        aliases.record("github", "john/one", "john/two");
+        aliases.record("github", "john/two", "john/three");
+        MatcherAssert.assertThat(
+            aliases.current("github", "John/One"),
+            Matchers.equalTo("john/three")
+        );
+        MatcherAssert.assertThat(
+            aliases.current("github", "john/two"),
+            Matchers.equalTo("john/three")
+        );
+        MatcherAssert.assertThat(
+            aliases.current("gitlab", "john/one"), Matchers.nullValue()
+        );
+        aliases.record("github", "john/three", "john/one");
+        MatcherAssert.assertThat(
+            aliases.current("github", "john/one"), Matchers.nullValue()
+        );
+        MatcherAssert.assertThat(
+            aliases.current("github", "john/two"),
+            Matchers.equalTo("john/one")
+        );
+    }
+
+    /**
+     * The aliases are kept in their file and loaded at startup.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void persistsAliases() throws Exception {
+        final Path file = Files.createTempFile("aliases-", ".jsonl");
+        final RepoAliases aliases = new RepoAliases(file);
+        aliases.record("github", "john/one", "john/two");
+        aliases.record("github", "john/one", "john/two");
+        aliases.record("github", "john/two", "mary/three");
+        final RepoAliases loaded = new RepoAliases(file);
+        MatcherAssert.assertThat(
+            Files.readAllLines(file), Matchers.hasSize(2)
+        );
+        Files.delete(file);
+        MatcherAssert.assertThat(loaded.size(), Matchers.is(2));
+        MatcherAssert.assertThat(
+            loaded.current("github", "john/one"),
+            Matchers.equalTo("mary/three")
+        );
+    }
+
+    /**
+     * A line cut short by a crash is skipped at startup and the next alias
+     * goes on a new line.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void skipsUnreadableLines() throws Exception {
+        final Path file = Files.createTempFile("aliases-", ".jsonl");
+        Files.writeString(
+            file,
+            "{\"provider\":\"github\",\"from\":\"john/one\",\"to\":"
+            + "\"john/two\"}\n{\"provider\":\"github\",\"fr"
+        );
+        final RepoAliases aliases = new RepoAliases(file);
+        MatcherAssert.assertThat(aliases.size(), Matchers.is(1));
+        aliases.record("github", "mary/one", "mary/two");
+        final RepoAliases loaded = new RepoAliases(file);
+        Files.delete(file);
+        MatcherAssert.assertThat(loaded.size(), Matchers.is(2));
+        MatcherAssert.assertThat(
+            loaded.current("github", "mary/one"),
+            Matchers.equalTo("mary/two")
+        );
+    }
+}
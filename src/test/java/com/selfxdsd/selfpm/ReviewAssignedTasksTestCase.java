@@ -29,6 +29,7 @@ import org.junit.Test;
 import org.mockito.Mockito;
 
 import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -142,6 +143,86 @@ public final class ReviewAssignedTasksTestCase {
         }
     }
 
+    /**
+     * After the first (full) pass, only the Projects with due
+     * checkpoints are reviewed.
+     */
+    @Test
+    public void reviewsOnlyDueProjectsAfterFullPass() {
+        final LocalDateTime now = LocalDateTime.of(2021, 5, 1, 10, 0);
+        final Project due = this.mockProject("john/due", now.plusHours(1));
+        final Project idle = this.mockProject("john/idle", now.plusDays(5));
+        final ProjectManager manager = Mockito.mock(ProjectManager.class);
+        final Projects projects = Mockito.mock(Projects.class);
+        Mockito.when(projects.iterator()).thenAnswer(
+            invocation -> Arrays.asList(due, idle).iterator()
+        );
+        Mockito.when(manager.projects()).thenReturn(projects);
+        final ProjectManagers all = Mockito.mock(ProjectManagers.class);
+        Mockito.when(all.iterator()).thenAnswer(
+            invocation -> Arrays.asList(manager).iterator()
+        );
+        final Self core = Mockito.mock(Self.class);
+        Mockito.when(core.projectManagers()).thenReturn(all);
+        final List<LocalDateTime> clock = new ArrayList<>(
+            Arrays.asList(now, now.plusHours(2))
+        );
+        final ReviewAssignedTasks review = new ReviewAssignedTasks(
+            core, new AssignedTasksIndex(), () -> clock.remove(0)
+        );
+        review.reviewAssignedTasks();
+        review.reviewAssignedTasks();
+        Mockito.verify(due, Mockito.times(2)).resolve(Mockito.any());
+        Mockito.verify(idle, Mockito.times(1)).resolve(Mockito.any());
+    }
+
+    /**
+     * The Projects which were not reviewed, because the sweep stopped
+     * before them, are reviewed in the next pass.
+     */
+    @Test
+    public void retriesProjectsNotReviewed() {
+        final LocalDateTime now = LocalDateTime.of(2021, 5, 1, 10, 0);
+        final Project first = this.mockProject("john/first", now.plusDays(5));
+        Mockito.doThrow(new IllegalStateException("Exception"))
+            .doNothing()
+            .when(first).resolve(Mockito.any());
+        final Project second = this.mockProject(
+            "john/second", now.plusDays(5)
+        );
+        final ProjectManager manager = Mockito.mock(ProjectManager.class);
+        final Projects projects = Mockito.mock(Projects.class);
+        Mockito.when(projects.iterator()).thenAnswer(
+            invocation -> Arrays.asList(first, second).iterator()
+        );
+        Mockito.when(manager.projects()).thenReturn(projects);
+        final ProjectManagers all = Mockito.mock(ProjectManagers.class);
+        Mockito.when(all.iterator()).thenAnswer(
+            invocation -> Arrays.asList(manager).iterator()
+        );
+        final Self core = Mockito.mock(Self.class);
+        Mockito.when(core.projectManagers()).thenReturn(all);
+        final List<LocalDateTime> clock = new ArrayList<>(
+            Arrays.asList(now, now.plusMinutes(30))
+        );
+        final ReviewAssignedTasks review = new ReviewAssignedTasks(
+            new ProjectSweep(
+                ReviewAssignedTasks.SWEEP,
+                ProjectsSnapshot.uncached(core),
+                Mockito.mock(SweepHook.class),
+                new ProviderGuards()
+            ),
+            new AssignedTasksIndex(),
+            new SyntheticEvents(),
+            () -> clock.remove(0)
+        );
+        review.reviewAssignedTasks();
+        Mockito.verify(second, Mockito.never()).resolve(Mockito.any());
+        review.reviewAssignedTasks();
+        Mockito.verify(first, Mockito.times(2)).resolve(Mockito.any());
+        Mockito.verify(second, Mockito.times(1)).resolve(Mockito.any());
+    }
+
     /**
      * Review period has correct format.
      */
@@ -153,4 +234,30 @@ public final class ReviewAssignedTasksTestCase {
         );
     }
 
+    /**
+     * Mock a Project with one assigned Task.
+     * @param repoFullName Repo full name.
+     * @param deadline Deadline of the Task.
+     * @return Project.
+     */
+    private Project mockProject(
+        final String repoFullName,
+        final LocalDateTime deadline
+    ) {
+        final Task task = Mockito.mock(Task.class);
+        Mockito.when(task.assignee()).thenReturn(
+            Mockito.mock(Contributor.class)
+        );
+        Mockito.when(task.deadline()).thenReturn(deadline);
+        final Tasks tasks = Mockito.mock(Tasks.class);
+        Mockito.when(tasks.iterator()).thenAnswer(
+            invocation -> Arrays.asList(task).iterator()
+        );
+        final Project project = Mockito.mock(Project.class);
+        Mockito.when(project.repoFullName()).thenReturn(repoFullName);
+        Mockito.when(project.provider()).thenReturn(Provider.Names.GITHUB);
+        Mockito.when(project.tasks()).thenReturn(tasks);
+        return project;
+    }
+
 }
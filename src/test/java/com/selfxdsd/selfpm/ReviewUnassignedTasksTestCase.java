@@ -23,11 +23,14 @@
 package com.selfxdsd.selfpm;
 
 import com.selfxdsd.api.*;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
 import org.junit.Test;
 import org.mockito.Mockito;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -70,7 +73,7 @@ public final class ReviewUnassignedTasksTestCase {
     public void reviewsProjects() {
         final List<Project> mocks = new ArrayList<>();
         for(int idx = 0; idx <3; idx++){
-            final Project project = Mockito.mock(Project.class);
+            final Project project = this.mockProject("john/" + idx);
             Mockito.doNothing().when(project).resolve(Mockito.any());
             mocks.add(project);
         }
@@ -106,7 +109,7 @@ public final class ReviewUnassignedTasksTestCase {
     public void reviewsProjectsWithException() {
         final List<Project> mocks = new ArrayList<>();
         for(int idx = 0; idx <3; idx++){
-            final Project project = Mockito.mock(Project.class);
+            final Project project = this.mockProject("john/" + idx);
             if(idx == 1) {
                 Mockito.doThrow(new IllegalStateException("Exception"))
                     .when(project).resolve(Mockito.any());
@@ -138,4 +141,85 @@ public final class ReviewUnassignedTasksTestCase {
             Mockito.verify(project, Mockito.times(1)).resolve(Mockito.any());
         }
     }
+
+    /**
+     * A Project which was just reviewed is skipped, unless there was
+     * some activity in the meantime.
+     */
+    @Test
+    public void skipsProjectsWhichAreNotDue() {
+        final Project project = this.mockProject("john/test");
+        Mockito.when(project.provider()).thenReturn(Provider.Names.GITHUB);
+        final ProjectManager manager = Mockito.mock(ProjectManager.class);
+        final Projects projects = Mockito.mock(Projects.class);
+        Mockito.when(projects.iterator()).thenAnswer(
+            invocation -> Arrays.asList(project).iterator()
+        );
+        Mockito.when(manager.projects()).thenReturn(projects);
+        final ProjectManagers all = Mockito.mock(ProjectManagers.class);
+        Mockito.when(all.iterator()).thenAnswer(
+            invocation -> Arrays.asList(manager).iterator()
+        );
+        final Self core = Mockito.mock(Self.class);
+        Mockito.when(core.projectManagers()).thenReturn(all);
+        final ProjectActivity activity = new ProjectActivity();
+        final ReviewUnassignedTasks review = new ReviewUnassignedTasks(
+            core, new AssignedTasksIndex(), new SyntheticEvents(), activity
+        );
+        review.reviewUnassignedTasks();
+        review.reviewUnassignedTasks();
+        Mockito.verify(project, Mockito.times(1)).resolve(Mockito.any());
+        activity.record(project);
+        review.reviewUnassignedTasks();
+        Mockito.verify(project, Mockito.times(2)).resolve(Mockito.any());
+    }
+
+    /**
+     * The reviewed Project is marked stale in the deadline index, since
+     * the review may have assigned some Tasks, without reading its Tasks.
+     */
+    @Test
+    public void marksIndexStaleAfterReview() {
+        final Project project = this.mockProject("john/test");
+        Mockito.when(project.provider()).thenReturn(Provider.Names.GITHUB);
+        final Tasks tasks = project.tasks();
+        final ProjectManager manager = Mockito.mock(ProjectManager.class);
+        final Projects projects = Mockito.mock(Projects.class);
+        Mockito.when(projects.iterator()).thenAnswer(
+            invocation -> Arrays.asList(project).iterator()
+        );
+        Mockito.when(manager.projects()).thenReturn(projects);
+        final ProjectManagers all = Mockito.mock(ProjectManagers.class);
+        Mockito.when(all.iterator()).thenAnswer(
+            invocation -> Arrays.asList(manager).iterator()
+        );
+        final Self core = Mockito.mock(Self.class);
+        Mockito.when(core.projectManagers()).thenReturn(all);
+        final AssignedTasksIndex index = new AssignedTasksIndex();
+        new ReviewUnassignedTasks(
+            core, index, new SyntheticEvents(), new ProjectActivity()
+        ).reviewUnassignedTasks();
+        MatcherAssert.assertThat(
+            index.stale(), Matchers.contains("github:john/test")
+        );
+        Mockito.verify(tasks, Mockito.never()).unassigned();
+    }
+
+    /**
+     * Mock a Project without unassigned Tasks.
+     * @param repo Full name of the repo.
+     * @return Project.
+     */
+    private Project mockProject(final String repo) {
+        final Project project = Mockito.mock(Project.class);
+        Mockito.when(project.repoFullName()).thenReturn(repo);
+        final Tasks unassigned = Mockito.mock(Tasks.class);
+        Mockito.when(unassigned.iterator()).thenAnswer(
+            invocation -> Collections.emptyIterator()
+        );
+        final Tasks tasks = Mockito.mock(Tasks.class);
+        Mockito.when(tasks.unassigned()).thenReturn(unassigned);
+        Mockito.when(project.tasks()).thenReturn(tasks);
+        return project;
+    }
 }
@@ -0,0 +1,78 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.health.Status;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Unit tests for {@link SchedulerHealth} and {@link SweepHeartbeats}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class SchedulerHealthTestCase {
+
+    /**
+     * It is DOWN when a sweep is late by more than its period and UP
+     * again after the sweep finishes.
+     */
+    @Test
+    public void downWhenSweepIsLate() {
+        final Instant start = Instant.parse("2021-01-01T10:00:00Z");
+        final AtomicReference<Instant> now = new AtomicReference<>(start);
+        final SweepHeartbeats heartbeats = new SweepHeartbeats(now::get);
+        final SchedulerHealth health = new SchedulerHealth(
+            heartbeats, Map.of("assigned tasks", Duration.ofMinutes(30))
+        );
+        now.set(start.plus(Duration.ofMinutes(50)));
+        MatcherAssert.assertThat(
+            heartbeats.lag("assigned tasks", Duration.ofMinutes(30)),
+            Matchers.is(Duration.ofMinutes(20))
+        );
+        MatcherAssert.assertThat(
+            health.health().getStatus(),
+            Matchers.is(Status.UP)
+        );
+        now.set(start.plus(Duration.ofMinutes(61)));
+        MatcherAssert.assertThat(
+            health.health().getStatus(),
+            Matchers.is(Status.DOWN)
+        );
+        heartbeats.hook(new LoggingSweepHook(
+            LoggerFactory.getLogger(SchedulerHealthTestCase.class)
+        )).finished("assigned tasks", 0, Duration.ZERO);
+        MatcherAssert.assertThat(
+            health.health().getStatus(),
+            Matchers.is(Status.UP)
+        );
+    }
+}
@@ -28,6 +28,9 @@ import org.hamcrest.Matchers;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Unit tests for {@link SelfCoreComponent}.
  * @author Mihai Andronache (amihaiemil@gmail.com)
@@ -143,4 +146,81 @@ public final class SelfCoreComponentTestCase {
         Mockito.verify(core, Mockito.times(1)).close();
     }
 
+    /**
+     * The core can be built in the background; calls wait for it.
+     */
+    @Test
+    public void delegatesToCoreBuiltInBackground() {
+        final Projects projects = Mockito.mock(Projects.class);
+        final Self core = Mockito.mock(Self.class);
+        Mockito.when(core.projects()).thenReturn(projects);
+
+        final SelfCoreComponent component = new SelfCoreComponent(
+            SelfCoreComponent.background(() -> core)
+        );
+
+        MatcherAssert.assertThat(
+            component.projects(),
+            Matchers.is(projects)
+        );
+    }
+
+    /**
+     * If the core cannot be built in the background, the calls fail.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void complainsIfCoreCannotBeBuilt() {
+        final SelfCoreComponent component = new SelfCoreComponent(
+            SelfCoreComponent.background(
+                () -> {
+                    throw new IllegalArgumentException("No DB_URL.");
+                }
+            )
+        );
+        component.projects();
+    }
+
+    /**
+     * A failed initialization is retried until it works; closing the
+     * component before that does not fail.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void retriesInitialization() throws Exception {
+        final Projects projects = Mockito.mock(Projects.class);
+        final Self core = Mockito.mock(Self.class);
+        Mockito.when(core.projects()).thenReturn(projects);
+        final AtomicInteger attempts = new AtomicInteger();
+        final SelfCoreComponent component = new SelfCoreComponent(
+            new SelfCoreInit(
+                () -> {
+                    if(attempts.incrementAndGet() < 3) {
+                        throw new IllegalStateException("DB is down.");
+                    }
+                    return core;
+                },
+                Duration.ofMillis(10),
+                Duration.ofMillis(20)
+            ).start()
+        );
+        try {
+            component.projects();
+        } catch (final IllegalStateException ex) {
+            MatcherAssert.assertThat(
+                ex.getCause().getMessage(), Matchers.is("DB is down.")
+            );
+        }
+        while(!component.initialized()) {
+            Thread.sleep(10);
+        }
+        MatcherAssert.assertThat(component.projects(), Matchers.is(projects));
+        MatcherAssert.assertThat(attempts.get(), Matchers.is(3));
+        new SelfCoreComponent(
+            SelfCoreComponent.background(
+                () -> {
+                    throw new IllegalStateException("DB is down.");
+                }
+            )
+        ).close();
+    }
 }
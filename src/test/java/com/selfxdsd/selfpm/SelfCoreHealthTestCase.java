@@ -0,0 +1,78 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import com.selfxdsd.api.ProjectManager;
+import com.selfxdsd.api.ProjectManagers;
+import com.selfxdsd.api.Self;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.boot.actuate.health.Status;
+
+import java.time.Duration;
+import java.util.ArrayList;
+
+/**
+ * Unit tests for {@link SelfCoreHealth}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class SelfCoreHealthTestCase {
+
+    /**
+     * It is UP if the PMs can be read.
+     */
+    @Test
+    public void upIfDatabaseAnswers() {
+        final ProjectManagers managers = Mockito.mock(ProjectManagers.class);
+        Mockito.when(managers.iterator()).thenReturn(
+            new ArrayList<ProjectManager>().iterator()
+        );
+        final Self self = Mockito.mock(Self.class);
+        Mockito.when(self.projectManagers()).thenReturn(managers);
+        MatcherAssert.assertThat(
+            new SelfCoreHealth(self, Duration.ofSeconds(2))
+                .health().getStatus(),
+            Matchers.is(Status.UP)
+        );
+    }
+
+    /**
+     * It is DOWN if the database is not reachable.
+     */
+    @Test
+    public void downIfDatabaseFails() {
+        final Self self = Mockito.mock(Self.class);
+        Mockito.when(self.projectManagers()).thenThrow(
+            new IllegalStateException("No connection available.")
+        );
+        MatcherAssert.assertThat(
+            new SelfCoreHealth(self, Duration.ofSeconds(2))
+                .health().getStatus(),
+            Matchers.is(Status.DOWN)
+        );
+    }
+}
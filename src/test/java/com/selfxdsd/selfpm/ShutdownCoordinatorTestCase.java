@@ -0,0 +1,289 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import com.selfxdsd.api.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+
+import javax.json.JsonObject;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link ShutdownCoordinator}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class ShutdownCoordinatorTestCase {
+
+    /**
+     * Once draining, it refuses new webhooks and new passes and tells
+     * the readiness probe.
+     */
+    @Test
+    public void refusesNewWorkWhenDraining() {
+        final AdmissionLimiter limiter = new AdmissionLimiter();
+        final List<Object> events = new ArrayList<>();
+        final ShutdownCoordinator coordinator = new ShutdownCoordinator(
+            WebhookLanes.direct(), limiter, events::add, Duration.ofSeconds(1)
+        );
+        MatcherAssert.assertThat(
+            coordinator.enter("test"), Matchers.is(true)
+        );
+        coordinator.exit("test");
+        coordinator.drain();
+        MatcherAssert.assertThat(coordinator.stopping(), Matchers.is(true));
+        MatcherAssert.assertThat(
+            limiter.acquire(WebhookLanes.Lane.INTERACTIVE), Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            coordinator.enter("test"), Matchers.is(false)
+        );
+        MatcherAssert.assertThat(events, Matchers.hasSize(1));
+        MatcherAssert.assertThat(
+            ((AvailabilityChangeEvent<?>) events.get(0)).getState(),
+            Matchers.is(ReadinessState.REFUSING_TRAFFIC)
+        );
+        MatcherAssert.assertThat(
+            coordinator.report().getBoolean("clean"), Matchers.is(true)
+        );
+    }
+
+    /**
+     * The events still queued when the timeout is up are abandoned and
+     * reported.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void reportsAbandonedEvents() throws Exception {
+        final ThreadPoolExecutor bulk = new ThreadPoolExecutor(
+            1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>()
+        );
+        final CountDownLatch stuck = new CountDownLatch(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        bulk.execute(
+            () -> {
+                started.countDown();
+                try {
+                    stuck.await();
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        );
+        bulk.execute(() -> { });
+        started.await();
+        final ShutdownCoordinator coordinator = new ShutdownCoordinator(
+            new WebhookLanes(Runnable::run, bulk, new SimpleMeterRegistry()),
+            new AdmissionLimiter(),
+            event -> { },
+            Duration.ofMillis(100)
+        );
+        coordinator.drain();
+        final JsonObject report = coordinator.report();
+        MatcherAssert.assertThat(
+            report.getBoolean("clean"), Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            report.getJsonObject("abandonedEvents").getInt("bulk"),
+            Matchers.is(1)
+        );
+        MatcherAssert.assertThat(
+            report.getJsonObject("abandonedEvents").getInt("interactive"),
+            Matchers.is(0)
+        );
+        MatcherAssert.assertThat(bulk.isShutdown(), Matchers.is(true));
+    }
+
+    /**
+     * The webhooks still in flight and the unfinished jobs of the mailboxes
+     * are reported, the shutdown is not clean.
+     */
+    @Test
+    public void reportsInflightWebhooksAndMailboxBacklog() {
+        final AdmissionLimiter limiter = new AdmissionLimiter();
+        limiter.acquire(WebhookLanes.Lane.BULK);
+        final ExecutorService workers = Executors.newSingleThreadExecutor();
+        final ProjectMailboxes mailboxes = new ProjectMailboxes(
+            workers, Duration.ofMinutes(1), System::nanoTime,
+            new SimpleMeterRegistry()
+        );
+        mailboxes.submitAsync(
+            "github/john/test", CompletableFuture::new
+        );
+        final ShutdownCoordinator coordinator = new ShutdownCoordinator(
+            WebhookLanes.direct(),
+            mailboxes,
+            ProviderGuards.direct(),
+            limiter,
+            event -> { },
+            Duration.ofMillis(100)
+        );
+        coordinator.drain();
+        final JsonObject report = coordinator.report();
+        MatcherAssert.assertThat(
+            report.getBoolean("clean"), Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            report.getInt("inflightWebhooks"), Matchers.is(1)
+        );
+        MatcherAssert.assertThat(
+            report.getInt("mailboxBacklog"), Matchers.is(1)
+        );
+        MatcherAssert.assertThat(workers.isShutdown(), Matchers.is(true));
+    }
+
+    /**
+     * The provider calls which do not finish in time are abandoned and
+     * reported.
+     */
+    @Test
+    public void reportsAbandonedProviderCalls() {
+        final ProviderGuards guards = new ProviderGuards(
+            1, 5, Duration.ofMinutes(1), Duration.ofSeconds(5),
+            new SimpleMeterRegistry()
+        );
+        final CountDownLatch stuck = new CountDownLatch(1);
+        guards.submit(
+            Provider.Names.GITHUB,
+            ProviderGuards.Caller.SWEEPS,
+            () -> {
+                try {
+                    stuck.await();
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        );
+        final ShutdownCoordinator coordinator = new ShutdownCoordinator(
+            WebhookLanes.direct(),
+            ProjectMailboxes.direct(),
+            guards,
+            new AdmissionLimiter(),
+            event -> { },
+            Duration.ofMillis(100)
+        );
+        coordinator.drain();
+        final JsonObject report = coordinator.report();
+        MatcherAssert.assertThat(
+            report.getBoolean("clean"), Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            report.getInt("abandonedProviderCalls"), Matchers.is(1)
+        );
+    }
+
+    /**
+     * A sweep stops after the current Project when the application starts
+     * shutting down, and reports the Projects it left.
+     */
+    @Test
+    public void sweepStopsBetweenProjects() {
+        final Project first = this.mockProject("amihaiemil/first");
+        final Project second = this.mockProject("amihaiemil/second");
+        final ShutdownCoordinator coordinator = new ShutdownCoordinator(
+            WebhookLanes.direct(),
+            new AdmissionLimiter(),
+            event -> { },
+            Duration.ofMillis(100)
+        );
+        final List<Project> swept = new ArrayList<>();
+        new ProjectSweep(
+            "test",
+            ProjectsSnapshot.uncached(this.mockCore(first, second)),
+            Mockito.mock(SweepHook.class),
+            new ProviderGuards(),
+            ProjectMailboxes.direct(),
+            new FairShares(),
+            Tracing.noop(),
+            coordinator
+        ).run(
+            project -> {
+                swept.add(project);
+                coordinator.drain();
+            }
+        );
+        MatcherAssert.assertThat(swept, Matchers.hasSize(1));
+        final JsonObject report = coordinator.report();
+        MatcherAssert.assertThat(
+            report.getJsonObject("interruptedPasses")
+                .getJsonArray("test").getString(0),
+            Matchers.startsWith("github/amihaiemil/")
+        );
+        MatcherAssert.assertThat(
+            report.getJsonArray("runningPasses"), Matchers.empty()
+        );
+        MatcherAssert.assertThat(
+            coordinator.enter("test"), Matchers.is(false)
+        );
+    }
+
+    /**
+     * Mock a Github Project.
+     * @param repo Full name of the repo.
+     * @return Project.
+     */
+    private Project mockProject(final String repo) {
+        final Project project = Mockito.mock(Project.class);
+        Mockito.when(project.provider()).thenReturn("github");
+        Mockito.when(project.repoFullName()).thenReturn(repo);
+        return project;
+    }
+
+    /**
+     * Mock Self with one PM managing the given Projects.
+     * @param projects Projects.
+     * @return Self.
+     */
+    private Self mockCore(final Project... projects) {
+        final Projects all = Mockito.mock(Projects.class);
+        Mockito.when(all.iterator()).thenReturn(
+            Arrays.asList(projects).iterator()
+        );
+        final ProjectManager manager = Mockito.mock(ProjectManager.class);
+        Mockito.when(manager.projects()).thenReturn(all);
+        final ProjectManagers managers = Mockito.mock(ProjectManagers.class);
+        Mockito.when(managers.iterator()).thenReturn(
+            Arrays.asList(manager).iterator()
+        );
+        final Self core = Mockito.mock(Self.class);
+        Mockito.when(core.projectManagers()).thenReturn(managers);
+        return core;
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import com.selfxdsd.api.Event;
+import com.selfxdsd.api.Project;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * Unit tests for {@link SyntheticEvent} and {@link SyntheticEvents}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class SyntheticEventsTestCase {
+
+    /**
+     * A SyntheticEvent has only a type and a Project.
+     */
+    @Test
+    public void hasTypeAndProject() {
+        final Project project = Mockito.mock(Project.class);
+        final Event event = new SyntheticEvent(
+            Event.Type.ASSIGNED_TASKS, project
+        );
+        MatcherAssert.assertThat(
+            event.type(), Matchers.equalTo(Event.Type.ASSIGNED_TASKS)
+        );
+        MatcherAssert.assertThat(event.project(), Matchers.is(project));
+    }
+
+    /**
+     * A SyntheticEvent has no Issue.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void hasNoIssue() {
+        new SyntheticEvent(
+            Event.Type.UNASSIGNED_TASKS, Mockito.mock(Project.class)
+        ).issue();
+    }
+
+    /**
+     * A SyntheticEvent has no Comment.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void hasNoComment() {
+        new SyntheticEvent(
+            Event.Type.UNASSIGNED_TASKS, Mockito.mock(Project.class)
+        ).comment();
+    }
+
+    /**
+     * The Events are created for the given Project and type.
+     */
+    @Test
+    public void createsEventsOfProject() {
+        final Project project = Mockito.mock(Project.class);
+        final SyntheticEvents events = new SyntheticEvents();
+        final Event assigned = events.event(
+            Event.Type.ASSIGNED_TASKS, project
+        );
+        MatcherAssert.assertThat(
+            assigned.type(), Matchers.equalTo(Event.Type.ASSIGNED_TASKS)
+        );
+        MatcherAssert.assertThat(assigned.project(), Matchers.is(project));
+        MatcherAssert.assertThat(
+            events.event(Event.Type.UNASSIGNED_TASKS, project).type(),
+            Matchers.equalTo(Event.Type.UNASSIGNED_TASKS)
+        );
+    }
+}
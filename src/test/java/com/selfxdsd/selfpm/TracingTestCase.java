@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Unit tests for {@link Tracing}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class TracingTestCase {
+
+    /**
+     * Spans started while another one is current are its children; the
+     * parent can be passed to other threads explicitly.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void nestsSpans() throws Exception {
+        final InMemorySpanExporter exporter = new InMemorySpanExporter(10);
+        final Tracing tracing = new Tracing(exporter);
+        try (Tracing.Span root = tracing.start("webhook")) {
+            tracing.start("project.lookup").attribute("found", true).close();
+            CompletableFuture.runAsync(
+                () -> tracing.start("resolve", root).close()
+            ).get();
+        }
+        MatcherAssert.assertThat(tracing.current(), Matchers.nullValue());
+        final List<Tracing.Span> spans = exporter.spans();
+        MatcherAssert.assertThat(spans, Matchers.hasSize(3));
+        final Tracing.Span root = spans.get(2);
+        MatcherAssert.assertThat(root.name(), Matchers.equalTo("webhook"));
+        MatcherAssert.assertThat(root.parentId(), Matchers.isEmptyString());
+        for(final Tracing.Span child : spans.subList(0, 2)) {
+            MatcherAssert.assertThat(
+                child.traceId(), Matchers.equalTo(root.traceId())
+            );
+            MatcherAssert.assertThat(
+                child.parentId(), Matchers.equalTo(root.spanId())
+            );
+        }
+        MatcherAssert.assertThat(
+            spans.get(0).attributes().get("found"), Matchers.equalTo("true")
+        );
+    }
+
+    /**
+     * The file exporter writes a JSON line per span.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void exportsToFile() throws Exception {
+        final Path file = Files.createTempFile("traces-", ".jsonl");
+        final Tracing tracing = new Tracing("file", file.toString());
+        tracing.start("sweep").attribute("sweep", "test").close();
+        final List<String> lines = Files.readAllLines(file);
+        Files.delete(file);
+        MatcherAssert.assertThat(lines, Matchers.hasSize(1));
+        final JsonObject span = Json.createReader(
+            new StringReader(lines.get(0))
+        ).readObject();
+        MatcherAssert.assertThat(
+            span.getString("name"), Matchers.equalTo("sweep")
+        );
+        MatcherAssert.assertThat(
+            span.getJsonObject("attributes").getString("sweep"),
+            Matchers.equalTo("test")
+        );
+    }
+
+    /**
+     * With tracing off, nothing is recorded.
+     */
+    @Test
+    public void noopRecordsNothing() {
+        final Tracing tracing = Tracing.noop();
+        tracing.start("webhook").attribute("repo", "john/test").close();
+        MatcherAssert.assertThat(tracing.current(), Matchers.nullValue());
+    }
+}
@@ -0,0 +1,212 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import com.selfxdsd.api.Project;
+import com.selfxdsd.api.Provider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for {@link WebhookLanes}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class WebhookLanesTestCase {
+
+    /**
+     * New comments, Issues and PRs go to the interactive lane.
+     */
+    @Test
+    public void interactiveEventsGoToInteractiveLane() {
+        final WebhookLanes lanes = WebhookLanes.direct();
+        MatcherAssert.assertThat(
+            lanes.lane(
+                Provider.Names.GITHUB, "issue_comment",
+                "{\"action\":\"created\"}"
+            ),
+            Matchers.is(WebhookLanes.Lane.INTERACTIVE)
+        );
+        MatcherAssert.assertThat(
+            lanes.lane(
+                Provider.Names.GITHUB, "issues", "{\"action\":\"opened\"}"
+            ),
+            Matchers.is(WebhookLanes.Lane.INTERACTIVE)
+        );
+        MatcherAssert.assertThat(
+            lanes.lane(
+                Provider.Names.GITHUB, "pull_request",
+                "{\"action\":\"reopened\"}"
+            ),
+            Matchers.is(WebhookLanes.Lane.INTERACTIVE)
+        );
+        MatcherAssert.assertThat(
+            lanes.lane(Provider.Names.GITLAB, "Note Hook", "{}"),
+            Matchers.is(WebhookLanes.Lane.INTERACTIVE)
+        );
+        MatcherAssert.assertThat(
+            lanes.lane(
+                Provider.Names.GITLAB, "Issue Hook",
+                "{\"object_attributes\":{\"action\":\"open\"}}"
+            ),
+            Matchers.is(WebhookLanes.Lane.INTERACTIVE)
+        );
+    }
+
+    /**
+     * Everything else goes to the bulk lane.
+     */
+    @Test
+    public void otherEventsGoToBulkLane() {
+        final WebhookLanes lanes = WebhookLanes.direct();
+        MatcherAssert.assertThat(
+            lanes.lane(
+                Provider.Names.GITHUB, "issues", "{\"action\":\"labeled\"}"
+            ),
+            Matchers.is(WebhookLanes.Lane.BULK)
+        );
+        MatcherAssert.assertThat(
+            lanes.lane(
+                Provider.Names.GITHUB, "issue_comment",
+                "{\"action\":\"edited\"}"
+            ),
+            Matchers.is(WebhookLanes.Lane.BULK)
+        );
+        MatcherAssert.assertThat(
+            lanes.lane(Provider.Names.GITHUB, "push", "{}"),
+            Matchers.is(WebhookLanes.Lane.BULK)
+        );
+        MatcherAssert.assertThat(
+            lanes.lane(Provider.Names.GITHUB, "issues", "not json"),
+            Matchers.is(WebhookLanes.Lane.BULK)
+        );
+    }
+
+    /**
+     * Jobs are run in their lane, errors are not propagated.
+     */
+    @Test
+    public void runsJobs() {
+        final AtomicInteger runs = new AtomicInteger();
+        final WebhookLanes lanes = WebhookLanes.direct();
+        MatcherAssert.assertThat(
+            lanes.submit(WebhookLanes.Lane.BULK, runs::incrementAndGet),
+            Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            lanes.submit(
+                WebhookLanes.Lane.INTERACTIVE,
+                () -> {
+                    runs.incrementAndGet();
+                    throw new IllegalStateException("Failed.");
+                }
+            ),
+            Matchers.is(true)
+        );
+        MatcherAssert.assertThat(runs.get(), Matchers.is(2));
+    }
+
+    /**
+     * A job is rejected if its lane is full, and the rejection is counted.
+     */
+    @Test
+    public void rejectsJobsWhenLaneIsFull() {
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        final WebhookLanes lanes = new WebhookLanes(
+            Runnable::run,
+            job -> {
+                throw new RejectedExecutionException("Full.");
+            },
+            registry
+        );
+        MatcherAssert.assertThat(
+            lanes.submit(WebhookLanes.Lane.BULK, () -> { }),
+            Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            registry.get("self.pm.webhooks.rejected")
+                .tag("lane", "bulk")
+                .counter()
+                .count(),
+            Matchers.is(1.0)
+        );
+    }
+
+    /**
+     * The worker of a lane waits for the Project's event to be handled,
+     * so the next events wait in the lane, not in the mailboxes.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void holdsWorkerUntilEventIsHandled() throws Exception {
+        final ThreadPoolExecutor bulk = new ThreadPoolExecutor(
+            1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(10)
+        );
+        final ExecutorService workers = Executors.newFixedThreadPool(2);
+        final WebhookLanes lanes = new WebhookLanes(
+            Runnable::run,
+            bulk,
+            new ProjectMailboxes(
+                workers, Duration.ofMinutes(1), System::nanoTime,
+                new SimpleMeterRegistry()
+            ),
+            new SimpleMeterRegistry()
+        );
+        final Project project = Mockito.mock(Project.class);
+        Mockito.when(project.provider()).thenReturn(Provider.Names.GITHUB);
+        Mockito.when(project.repoFullName()).thenReturn("john/test");
+        final CompletableFuture<Void> work = new CompletableFuture<>();
+        final CompletableFuture<Void> next = new CompletableFuture<>();
+        try {
+            lanes.submit(WebhookLanes.Lane.BULK, project, () -> work);
+            lanes.submit(
+                WebhookLanes.Lane.BULK, project,
+                () -> CompletableFuture.runAsync(() -> next.complete(null))
+            );
+            Thread.sleep(200L);
+            MatcherAssert.assertThat(
+                lanes.queued(WebhookLanes.Lane.BULK), Matchers.is(1)
+            );
+            MatcherAssert.assertThat(next.isDone(), Matchers.is(false));
+            work.complete(null);
+            next.get(5, TimeUnit.SECONDS);
+        } finally {
+            bulk.shutdown();
+            workers.shutdown();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link WebhookRoutes}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class WebhookRoutesTestCase {
+
+    /**
+     * The default routes let through every action of the handled types
+     * and drop the rest.
+     */
+    @Test
+    public void defaultRoutes() {
+        final WebhookRoutes routes = new WebhookRoutes();
+        MatcherAssert.assertThat(
+            routes.routed("issues", "{\"action\":\"labeled\"}"),
+            Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            routes.routed("push", "{}"), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            routes.routed("check_run", "{\"action\":\"completed\"}"),
+            Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            routes.routed("status", "{}"), Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            routes.routed("Status", "{}"), Matchers.is(false)
+        );
+        MatcherAssert.assertThat(routes.dropped("status"), Matchers.is(2.0));
+        MatcherAssert.assertThat(
+            routes.dropped("check_run"), Matchers.is(1.0)
+        );
+        MatcherAssert.assertThat(routes.dropped("issues"), Matchers.is(0.0));
+    }
+
+    /**
+     * Routes limited to some actions drop the other actions; events
+     * without action, or with an unreadable payload, go through.
+     */
+    @Test
+    public void routesOnlyGivenActions() {
+        final WebhookRoutes routes = new WebhookRoutes(
+            "issues:opened|Reopened, issue_comment:created,issue_comment:*,"
+            + " pull_request:opened,pull_request:closed",
+            new SimpleMeterRegistry()
+        );
+        MatcherAssert.assertThat(
+            routes.routed("issues", "{\"action\":\"reopened\"}"),
+            Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            routes.routed("issues", "{\"action\":\"labeled\"}"),
+            Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            routes.routed("issue_comment", "{\"action\":\"deleted\"}"),
+            Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            routes.routed("pull_request", "{\"action\":\"closed\"}"),
+            Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            routes.routed("issues", "{}"), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            routes.routed("issues", "not json"), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            routes.routed("push", "{}"), Matchers.is(false)
+        );
+        MatcherAssert.assertThat(routes.dropped("issues"), Matchers.is(1.0));
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.springframework.boot.actuate.health.Status;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link WebhooksHealth}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class WebhooksHealthTestCase {
+
+    /**
+     * It is UP while the lanes have room.
+     */
+    @Test
+    public void upWhileLanesHaveRoom() {
+        MatcherAssert.assertThat(
+            new WebhooksHealth(WebhookLanes.direct(), 0.8)
+                .health().getStatus(),
+            Matchers.is(Status.UP)
+        );
+    }
+
+    /**
+     * It is OUT_OF_SERVICE when a lane fills up.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void outOfServiceWhenLaneIsFull() throws Exception {
+        final ThreadPoolExecutor bulk = new ThreadPoolExecutor(
+            1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(2)
+        );
+        final WebhookLanes lanes = new WebhookLanes(
+            Runnable::run, bulk, new SimpleMeterRegistry()
+        );
+        final CountDownLatch release = new CountDownLatch(1);
+        try {
+            for(int idx = 0; idx < 3; ++idx) {
+                lanes.submit(
+                    WebhookLanes.Lane.BULK,
+                    () -> {
+                        try {
+                            release.await();
+                        } catch (final InterruptedException ex) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                );
+            }
+            MatcherAssert.assertThat(
+                new WebhooksHealth(lanes, 0.8).health().getStatus(),
+                Matchers.is(Status.OUT_OF_SERVICE)
+            );
+        } finally {
+            release.countDown();
+            bulk.shutdown();
+        }
+    }
+}
@@ -23,6 +23,7 @@
 package com.selfxdsd.selfpm;
 
 import com.selfxdsd.api.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.Test;
@@ -30,7 +31,16 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.springframework.http.HttpStatus;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
 import javax.json.Json;
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Unit tests for {@link Webhooks}.
@@ -315,6 +325,55 @@ public final class WebhooksTestCase {
         );
     }
 
+    /**
+     * A Github comment which is not addressed to the PM is not resolved.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void githubProjectIgnoresCommentNotAddressedToPm()
+        throws Exception {
+        final ProjectManager manager = Mockito.mock(ProjectManager.class);
+        Mockito.when(manager.username()).thenReturn("zoeself");
+        final Project project = Mockito.mock(Project.class);
+        Mockito.when(project.webHookToken()).thenReturn("project_wh_token");
+        Mockito.when(project.provider()).thenReturn(Provider.Names.GITHUB);
+        Mockito.when(project.projectManager()).thenReturn(manager);
+        final Projects all = Mockito.mock(Projects.class);
+        Mockito.when(
+            all.getProjectById("john/test", Provider.Names.GITHUB)
+        ).thenReturn(project);
+        final Self self = Mockito.mock(Self.class);
+        Mockito.when(self.projects()).thenReturn(all);
+        final Webhooks hook = new Webhooks(self);
+        final String payload = Json.createObjectBuilder()
+            .add("action", "created")
+            .add(
+                "comment",
+                Json.createObjectBuilder()
+                    .add("body", "I think we should quit this.")
+                    .add(
+                        "user",
+                        Json.createObjectBuilder().add("login", "mary")
+                    )
+            )
+            .add(
+                "repository",
+                Json.createObjectBuilder().add("full_name", "john/test")
+            ).build()
+            .toString();
+        MatcherAssert.assertThat(
+            hook.github(
+                "john",
+                "test",
+                "issue_comment",
+                "sha1=" + this.hmac("project_wh_token", payload),
+                payload
+            ).getStatusCode(),
+            Matchers.equalTo(HttpStatus.OK)
+        );
+        Mockito.verify(project, Mockito.never()).resolve(Mockito.any());
+    }
+
     /**
      * Webhooks.gitlab returns No Content if the project is
      * not found.
@@ -648,4 +707,522 @@ public final class WebhooksTestCase {
             Matchers.equalTo(HttpStatus.OK)
         );
     }
+
+    /**
+     * Github events are not accepted while the provider's circuit breaker
+     * is open.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void githubProjectUnavailableWhenCircuitIsOpen()
+        throws Exception {
+        final Project project = Mockito.mock(Project.class);
+        Mockito.when(project.webHookToken()).thenReturn("project_wh_token");
+        Mockito.when(project.provider()).thenReturn(Provider.Names.GITHUB);
+        final Projects all = Mockito.mock(Projects.class);
+        Mockito.when(
+            all.getProjectById("john/test", Provider.Names.GITHUB)
+        ).thenReturn(project);
+        final Self self = Mockito.mock(Self.class);
+        Mockito.when(self.projects()).thenReturn(all);
+        final ProviderGuards guards = new ProviderGuards(
+            1, 1, Duration.ofMinutes(1), Duration.ofSeconds(5),
+            new SimpleMeterRegistry()
+        );
+        try {
+            guards.run(
+                Provider.Names.GITHUB,
+                ProviderGuards.Caller.SWEEPS,
+                () -> {
+                    throw new IllegalStateException(
+                        "Github is down.",
+                        new ConnectException("Connection refused")
+                    );
+                }
+            );
+        } catch (final IllegalStateException ex) {
+            MatcherAssert.assertThat(
+                ex.getMessage(), Matchers.equalTo("Github is down.")
+            );
+        }
+        final Webhooks hook = new Webhooks(
+            self,
+            Mockito.mock(SelfTodos.class),
+            new ProjectActivity(),
+            WebhookLanes.direct(),
+            new CommandMatcher(),
+            ProjectsSnapshot.uncached(self),
+            guards,
+            new WebhookRoutes(),
+            new AcceptInvitations(self),
+            new AdmissionLimiter(),
+            Tracing.noop(),
+            new LatencyHistograms(),
+            new RepoAliases(),
+            new AssignedTasksIndex()
+        );
+        final String payload = Json.createObjectBuilder()
+            .add("action", "opened")
+            .add(
+                "repository",
+                Json.createObjectBuilder().add("full_name", "john/test")
+            ).build()
+            .toString();
+        MatcherAssert.assertThat(
+            hook.github(
+                "john",
+                "test",
+                "issues",
+                "sha1=" + this.hmac("project_wh_token", payload),
+                payload
+            ).getStatusCode(),
+            Matchers.equalTo(HttpStatus.SERVICE_UNAVAILABLE)
+        );
+        Mockito.verify(project, Mockito.never()).resolve(Mockito.any());
+    }
+
+    /**
+     * When the provider's bulkhead is full, an accepted event waits (in
+     * its lane's worker) for a free slot and is resolved once there is one.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void githubEventWaitsForFullBulkhead() throws Exception {
+        final Project project = Mockito.mock(Project.class);
+        Mockito.when(project.webHookToken()).thenReturn("token");
+        Mockito.when(project.provider()).thenReturn(Provider.Names.GITHUB);
+        Mockito.when(project.repoFullName()).thenReturn("john/test");
+        final Self self = WebhooksTestCase.self(project);
+        final ProviderGuards guards = new ProviderGuards(
+            1, 5, Duration.ofMinutes(1), Duration.ofSeconds(5),
+            new SimpleMeterRegistry()
+        );
+        final CountDownLatch release = new CountDownLatch(1);
+        guards.submit(
+            Provider.Names.GITHUB,
+            ProviderGuards.Caller.SWEEPS,
+            WebhooksTestCase.blocking(release)
+        );
+        final AdmissionLimiter limiter = new AdmissionLimiter();
+        final ExecutorService bulk = Executors.newSingleThreadExecutor();
+        final Webhooks hook = new Webhooks(
+            self,
+            Mockito.mock(SelfTodos.class),
+            new ProjectActivity(),
+            new WebhookLanes(Runnable::run, bulk, new SimpleMeterRegistry()),
+            new CommandMatcher(),
+            ProjectsSnapshot.uncached(self),
+            guards,
+            new WebhookRoutes(),
+            new AcceptInvitations(self),
+            limiter,
+            Tracing.noop(),
+            new LatencyHistograms(),
+            new RepoAliases(),
+            new AssignedTasksIndex()
+        );
+        final String payload =
+            "{\"repository\":{\"full_name\":\"john/test\"}}";
+        MatcherAssert.assertThat(
+            hook.github(
+                "john", "test", "issues",
+                "sha1=" + this.hmac("token", payload), payload
+            ).getStatusCode(),
+            Matchers.equalTo(HttpStatus.OK)
+        );
+        Mockito.verify(project, Mockito.never()).resolve(Mockito.any());
+        MatcherAssert.assertThat(limiter.inflight(), Matchers.is(1));
+        release.countDown();
+        Mockito.verify(project, Mockito.timeout(5000)).resolve(
+            Mockito.any(Event.class)
+        );
+        bulk.shutdown();
+        guards.shutdown();
+    }
+
+    /**
+     * A Github event which is not in the routing table is acknowledged
+     * without looking up its Project.
+     */
+    @Test
+    public void githubEventNotRoutedIsAcknowledged() {
+        final Projects all = Mockito.mock(Projects.class);
+        final Self self = Mockito.mock(Self.class);
+        Mockito.when(self.projects()).thenReturn(all);
+        final WebhookRoutes routes = new WebhookRoutes();
+        final Webhooks hook = new Webhooks(
+            self,
+            Mockito.mock(SelfTodos.class),
+            new ProjectActivity(),
+            WebhookLanes.direct(),
+            new CommandMatcher(),
+            ProjectsSnapshot.uncached(self),
+            ProviderGuards.direct(),
+            routes,
+            new AcceptInvitations(self),
+            new AdmissionLimiter(),
+            Tracing.noop(),
+            new LatencyHistograms(),
+            new RepoAliases(),
+            new AssignedTasksIndex()
+        );
+        MatcherAssert.assertThat(
+            hook.github(
+                "john",
+                "test",
+                "watch",
+                "sha1=whatever",
+                "{\"action\":\"started\"}"
+            ).getStatusCode(),
+            Matchers.equalTo(HttpStatus.OK)
+        );
+        Mockito.verify(all, Mockito.never()).getProjectById(
+            Mockito.anyString(), Mockito.anyString()
+        );
+        MatcherAssert.assertThat(routes.dropped("watch"), Matchers.is(1.0));
+    }
+
+    /**
+     * A Github ping (the webhook was just created) triggers the acceptance
+     * of the PM's Invitations.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void githubPingTriggersInvitations() throws Exception {
+        final Invitation invitation = Mockito.mock(Invitation.class);
+        final Invitations invitations = Mockito.mock(Invitations.class);
+        Mockito.when(invitations.iterator()).thenAnswer(
+            inv -> List.of(invitation).iterator()
+        );
+        final Provider provider = Mockito.mock(Provider.class);
+        Mockito.when(provider.name()).thenReturn(Provider.Names.GITHUB);
+        Mockito.when(provider.invitations()).thenReturn(invitations);
+        final ProjectManager manager = Mockito.mock(ProjectManager.class);
+        Mockito.when(manager.id()).thenReturn(1);
+        Mockito.when(manager.provider()).thenReturn(provider);
+        final Project project = Mockito.mock(Project.class);
+        Mockito.when(project.webHookToken()).thenReturn("project_wh_token");
+        Mockito.when(project.provider()).thenReturn(Provider.Names.GITHUB);
+        Mockito.when(project.projectManager()).thenReturn(manager);
+        final Projects all = Mockito.mock(Projects.class);
+        Mockito.when(
+            all.getProjectById("john/test", Provider.Names.GITHUB)
+        ).thenReturn(project);
+        final Self self = Mockito.mock(Self.class);
+        Mockito.when(self.projects()).thenReturn(all);
+        final String payload = Json.createObjectBuilder()
+            .add("zen", "Keep it logically awesome.")
+            .add(
+                "repository",
+                Json.createObjectBuilder().add("full_name", "john/test")
+            ).build()
+            .toString();
+        MatcherAssert.assertThat(
+            new Webhooks(self).github(
+                "john",
+                "test",
+                "ping",
+                "sha1=" + this.hmac("project_wh_token", payload),
+                payload
+            ).getStatusCode(),
+            Matchers.equalTo(HttpStatus.OK)
+        );
+        Mockito.verify(invitation, Mockito.times(1)).accept();
+    }
+
+    /**
+     * When the admission limit is reached, bulk events are shed with 503
+     * before their Project is looked up.
+     */
+    @Test
+    public void githubBulkEventShedWhenLimitReached() {
+        final Projects all = Mockito.mock(Projects.class);
+        final Self self = Mockito.mock(Self.class);
+        Mockito.when(self.projects()).thenReturn(all);
+        final AdmissionLimiter limiter = new AdmissionLimiter(
+            2, 1, 2, Duration.ofSeconds(1), 0.5, new SimpleMeterRegistry()
+        );
+        limiter.acquire(WebhookLanes.Lane.INTERACTIVE);
+        final Webhooks hook = new Webhooks(
+            self,
+            Mockito.mock(SelfTodos.class),
+            new ProjectActivity(),
+            WebhookLanes.direct(),
+            new CommandMatcher(),
+            ProjectsSnapshot.uncached(self),
+            ProviderGuards.direct(),
+            new WebhookRoutes(),
+            new AcceptInvitations(self),
+            limiter,
+            Tracing.noop(),
+            new LatencyHistograms(),
+            new RepoAliases(),
+            new AssignedTasksIndex()
+        );
+        MatcherAssert.assertThat(
+            hook.github(
+                "john",
+                "test",
+                "issues",
+                "sha1=whatever",
+                "{\"action\":\"labeled\"}"
+            ).getStatusCode(),
+            Matchers.equalTo(HttpStatus.SERVICE_UNAVAILABLE)
+        );
+        Mockito.verify(all, Mockito.never()).getProjectById(
+            Mockito.anyString(), Mockito.anyString()
+        );
+        MatcherAssert.assertThat(
+            limiter.shed(WebhookLanes.Lane.BULK), Matchers.is(1.0)
+        );
+    }
+
+    /**
+     * Once a repo is found by the payload's full_name, the old name is an
+     * alias: later webhooks from the old URL need one Project lookup.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void githubRenamedRepoFoundByAlias() throws Exception {
+        final Project project = Mockito.mock(Project.class);
+        Mockito.when(project.webHookToken()).thenReturn("token");
+        Mockito.when(project.provider()).thenReturn(Provider.Names.GITHUB);
+        Mockito.when(project.repoFullName()).thenReturn("john/renamed");
+        final Projects all = Mockito.mock(Projects.class);
+        Mockito.when(
+            all.getProjectById("john/renamed", Provider.Names.GITHUB)
+        ).thenReturn(project);
+        final Self self = Mockito.mock(Self.class);
+        Mockito.when(self.projects()).thenReturn(all);
+        final Webhooks hook = new Webhooks(self);
+        final String payload =
+            "{\"repository\":{\"full_name\":\"john/renamed\"}}";
+        for(int idx = 0; idx < 2; ++idx) {
+            MatcherAssert.assertThat(
+                hook.github(
+                    "john", "test", "issues",
+                    "sha1=" + this.hmac("token", payload), payload
+                ).getStatusCode(),
+                Matchers.equalTo(HttpStatus.OK)
+            );
+        }
+        Mockito.verify(all, Mockito.times(2)).getProjectById(
+            "john/test", Provider.Names.GITHUB
+        );
+        Mockito.verify(all, Mockito.times(1)).getProjectById(
+            null, Provider.Names.GITHUB
+        );
+        Mockito.verify(all, Mockito.times(2)).getProjectById(
+            "john/renamed", Provider.Names.GITHUB
+        );
+    }
+
+    /**
+     * A webhook with a bad signature does not record an alias, even if its
+     * repository.full_name leads to a Project.
+     */
+    @Test
+    public void githubBadSignatureRecordsNoAlias() {
+        final Project project = Mockito.mock(Project.class);
+        Mockito.when(project.webHookToken()).thenReturn("token");
+        Mockito.when(project.provider()).thenReturn(Provider.Names.GITHUB);
+        Mockito.when(project.repoFullName()).thenReturn("john/renamed");
+        final Projects all = Mockito.mock(Projects.class);
+        Mockito.when(
+            all.getProjectById("john/renamed", Provider.Names.GITHUB)
+        ).thenReturn(project);
+        final Self self = Mockito.mock(Self.class);
+        Mockito.when(self.projects()).thenReturn(all);
+        final RepoAliases aliases = new RepoAliases();
+        final Webhooks hook = new Webhooks(
+            self,
+            Mockito.mock(SelfTodos.class),
+            new ProjectActivity(),
+            WebhookLanes.direct(),
+            new CommandMatcher(),
+            ProjectsSnapshot.uncached(self),
+            ProviderGuards.direct(),
+            new WebhookRoutes(),
+            new AcceptInvitations(self),
+            new AdmissionLimiter(),
+            Tracing.noop(),
+            new LatencyHistograms(),
+            aliases,
+            new AssignedTasksIndex()
+        );
+        MatcherAssert.assertThat(
+            hook.github(
+                "evil", "anything", "issues", "sha1=forged",
+                "{\"repository\":{\"full_name\":\"john/renamed\"}}"
+            ).getStatusCode(),
+            Matchers.equalTo(HttpStatus.BAD_REQUEST)
+        );
+        MatcherAssert.assertThat(aliases.size(), Matchers.is(0));
+    }
+
+    /**
+     * A resignation marks the deadline index of the Project as stale, once
+     * it is resolved; other comments do not.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void githubResignationMarksIndexStale() throws Exception {
+        final Project project = Mockito.mock(Project.class);
+        Mockito.when(project.webHookToken()).thenReturn("token");
+        Mockito.when(project.provider()).thenReturn(Provider.Names.GITHUB);
+        Mockito.when(project.repoFullName()).thenReturn("john/test");
+        final ProjectManager manager = Mockito.mock(ProjectManager.class);
+        Mockito.when(manager.username()).thenReturn("zoeself");
+        Mockito.when(project.projectManager()).thenReturn(manager);
+        final Projects all = Mockito.mock(Projects.class);
+        Mockito.when(
+            all.getProjectById("john/test", Provider.Names.GITHUB)
+        ).thenReturn(project);
+        final Self self = Mockito.mock(Self.class);
+        Mockito.when(self.projects()).thenReturn(all);
+        final AssignedTasksIndex index = new AssignedTasksIndex();
+        final Webhooks hook = new Webhooks(
+            self,
+            Mockito.mock(SelfTodos.class),
+            new ProjectActivity(),
+            WebhookLanes.direct(),
+            new CommandMatcher(),
+            ProjectsSnapshot.uncached(self),
+            ProviderGuards.direct(),
+            new WebhookRoutes(),
+            new AcceptInvitations(self),
+            new AdmissionLimiter(),
+            Tracing.noop(),
+            new LatencyHistograms(),
+            new RepoAliases(),
+            index
+        );
+        final String[] bodies = {"@zoeself status", "@zoeself I quit"};
+        for(final String body : bodies) {
+            final String payload = Json.createObjectBuilder()
+                .add(
+                    "comment",
+                    Json.createObjectBuilder()
+                        .add("body", body)
+                        .add(
+                            "user",
+                            Json.createObjectBuilder().add("login", "mary")
+                        )
+                ).build().toString();
+            MatcherAssert.assertThat(
+                hook.github(
+                    "john", "test", "issue_comment",
+                    "sha1=" + this.hmac("token", payload), payload
+                ).getStatusCode(),
+                Matchers.equalTo(HttpStatus.OK)
+            );
+            if(body.endsWith("status")) {
+                MatcherAssert.assertThat(index.stale(), Matchers.empty());
+            }
+        }
+        MatcherAssert.assertThat(
+            index.stale(), Matchers.contains("github:john/test")
+        );
+    }
+
+    /**
+     * The admission of an event is held while its lane handles it and
+     * released once it is handled.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void githubEventHoldsAdmissionUntilHandled() throws Exception {
+        final AdmissionLimiter limiter = new AdmissionLimiter();
+        final List<Integer> inflight = new ArrayList<>();
+        final Project project = Mockito.mock(Project.class);
+        Mockito.when(project.webHookToken()).thenReturn("token");
+        Mockito.when(project.provider()).thenReturn(Provider.Names.GITHUB);
+        Mockito.when(project.repoFullName()).thenReturn("john/test");
+        Mockito.doAnswer(
+            invocation -> inflight.add(limiter.inflight())
+        ).when(project).resolve(Mockito.any(Event.class));
+        final Projects all = Mockito.mock(Projects.class);
+        Mockito.when(
+            all.getProjectById("john/test", Provider.Names.GITHUB)
+        ).thenReturn(project);
+        final Self self = Mockito.mock(Self.class);
+        Mockito.when(self.projects()).thenReturn(all);
+        final Webhooks hook = new Webhooks(
+            self,
+            Mockito.mock(SelfTodos.class),
+            new ProjectActivity(),
+            WebhookLanes.direct(),
+            new CommandMatcher(),
+            ProjectsSnapshot.uncached(self),
+            ProviderGuards.direct(),
+            new WebhookRoutes(),
+            new AcceptInvitations(self),
+            limiter,
+            Tracing.noop(),
+            new LatencyHistograms(),
+            new RepoAliases(),
+            new AssignedTasksIndex()
+        );
+        final String payload =
+            "{\"repository\":{\"full_name\":\"john/test\"}}";
+        MatcherAssert.assertThat(
+            hook.github(
+                "john", "test", "issues",
+                "sha1=" + this.hmac("token", payload), payload
+            ).getStatusCode(),
+            Matchers.equalTo(HttpStatus.OK)
+        );
+        MatcherAssert.assertThat(inflight, Matchers.contains(1));
+        MatcherAssert.assertThat(limiter.inflight(), Matchers.is(0));
+    }
+
+    /**
+     * Self with the given Github Project.
+     * @param project Project.
+     * @return Self.
+     */
+    private static Self self(final Project project) {
+        final Projects all = Mockito.mock(Projects.class);
+        Mockito.when(
+            all.getProjectById(project.repoFullName(), Provider.Names.GITHUB)
+        ).thenReturn(project);
+        final Self self = Mockito.mock(Self.class);
+        Mockito.when(self.projects()).thenReturn(all);
+        return self;
+    }
+
+    /**
+     * Work which blocks until it is released.
+     * @param release Latch releasing it.
+     * @return Runnable.
+     */
+    private static Runnable blocking(final CountDownLatch release) {
+        return () -> {
+            try {
+                release.await();
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        };
+    }
+
+    /**
+     * Hex HmacSHA1 digest of a payload.
+     * @param key Key.
+     * @param payload Payload.
+     * @return String.
+     * @throws Exception If something goes wrong.
+     */
+    private String hmac(
+        final String key,
+        final String payload
+    ) throws Exception {
+        final Mac mac = Mac.getInstance("HmacSHA1");
+        mac.init(new SecretKeySpec(key.getBytes(), "HmacSHA1"));
+        final StringBuilder hex = new StringBuilder();
+        for(final byte bite : mac.doFinal(payload.getBytes())) {
+            hex.append(String.format("%02x", bite));
+        }
+        return hex.toString();
+    }
 }
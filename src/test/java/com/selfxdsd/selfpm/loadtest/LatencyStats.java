@@ -0,0 +1,203 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm.loadtest;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Latencies and outcomes of the replayed webhooks, per event type.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class LatencyStats {
+
+    /**
+     * Samples per event type, sorted by type.
+     */
+    private final Map<String, Samples> samples =
+        new ConcurrentSkipListMap<>();
+
+    /**
+     * Record a response.
+     * @param type Event type.
+     * @param status HTTP status, or -1 if no response was received.
+     * @param nanos Latency in nanoseconds.
+     */
+    public void record(final String type, final int status, final long nanos) {
+        this.samples.computeIfAbsent(type, key -> new Samples())
+            .add(status, nanos);
+    }
+
+    /**
+     * Number of recorded responses of the given type.
+     * @param type Event type.
+     * @return Count.
+     */
+    public int count(final String type) {
+        int count = 0;
+        final Samples recorded = this.samples.get(type);
+        if (recorded != null) {
+            count = recorded.sorted().length;
+        }
+        return count;
+    }
+
+    /**
+     * Latency percentile of the given type.
+     * @param type Event type.
+     * @param percentile Percentile, between 0 and 100.
+     * @return Latency in nanoseconds, 0 if there are no samples.
+     */
+    public long percentile(final String type, final double percentile) {
+        long value = 0;
+        final Samples recorded = this.samples.get(type);
+        if (recorded != null) {
+            value = LatencyStats.percentile(recorded.sorted(), percentile);
+        }
+        return value;
+    }
+
+    /**
+     * Throughput and latency percentiles per event type.
+     * @param elapsed Duration of the run.
+     * @return Printable report.
+     */
+    public String report(final Duration elapsed) {
+        final StringBuilder report = new StringBuilder(
+            String.format(
+                "%-24s %8s %8s %9s %9s %9s %9s %9s%n",
+                "type", "count", "errors", "req/s",
+                "p50 ms", "p90 ms", "p99 ms", "max ms"
+            )
+        );
+        final double seconds = Math.max(elapsed.toMillis(), 1) / 1000.0;
+        for (final Map.Entry<String, Samples> entry
+            : this.samples.entrySet()) {
+            final long[] sorted = entry.getValue().sorted();
+            report.append(
+                String.format(
+                    "%-24s %8d %8d %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    entry.getKey(),
+                    sorted.length,
+                    entry.getValue().errors(),
+                    sorted.length / seconds,
+                    LatencyStats.millis(LatencyStats.percentile(sorted, 50)),
+                    LatencyStats.millis(LatencyStats.percentile(sorted, 90)),
+                    LatencyStats.millis(LatencyStats.percentile(sorted, 99)),
+                    LatencyStats.millis(LatencyStats.percentile(sorted, 100))
+                )
+            );
+        }
+        return report.toString();
+    }
+
+    /**
+     * Nearest-rank percentile of sorted values.
+     * @param sorted Sorted values.
+     * @param percentile Percentile, between 0 and 100.
+     * @return Value, 0 if there are no values.
+     */
+    static long percentile(final long[] sorted, final double percentile) {
+        long value = 0;
+        if (sorted.length > 0) {
+            final int rank = (int) Math.ceil(
+                percentile / 100.0 * sorted.length
+            );
+            value = sorted[Math.min(Math.max(rank, 1), sorted.length) - 1];
+        }
+        return value;
+    }
+
+    /**
+     * Nanoseconds to milliseconds.
+     * @param nanos Nanoseconds.
+     * @return Milliseconds.
+     */
+    private static double millis(final long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * Samples of one event type.
+     * @author Mihai Andronache (amihaiemil@gmail.com)
+     * @version $Id$
+     * @since 0.0.17
+     */
+    private static final class Samples {
+
+        /**
+         * Latencies.
+         */
+        private long[] latencies = new long[64];
+
+        /**
+         * Number of latencies.
+         */
+        private int size;
+
+        /**
+         * Responses with status 5xx or no response at all.
+         */
+        private int failed;
+
+        /**
+         * Add a sample.
+         * @param status HTTP status.
+         * @param nanos Latency.
+         */
+        synchronized void add(final int status, final long nanos) {
+            if (this.size == this.latencies.length) {
+                this.latencies = Arrays.copyOf(
+                    this.latencies, this.size * 2
+                );
+            }
+            this.latencies[this.size] = nanos;
+            this.size = this.size + 1;
+            if (status < 0 || status >= 500) {
+                this.failed = this.failed + 1;
+            }
+        }
+
+        /**
+         * Sorted copy of the latencies.
+         * @return Sorted latencies.
+         */
+        synchronized long[] sorted() {
+            final long[] sorted = Arrays.copyOf(this.latencies, this.size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+
+        /**
+         * Failed responses.
+         * @return Count.
+         */
+        synchronized int errors() {
+            return this.failed;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm.loadtest;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import java.time.Duration;
+
+/**
+ * Unit tests for {@link LatencyStats}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class LatencyStatsTestCase {
+
+    /**
+     * It computes nearest-rank percentiles per event type.
+     */
+    @Test
+    public void computesPercentilesPerType() {
+        final LatencyStats stats = new LatencyStats();
+        for (int idx = 100; idx > 0; --idx) {
+            stats.record("issues", 200, idx);
+        }
+        stats.record("push", 200, 7);
+        MatcherAssert.assertThat(stats.count("issues"), Matchers.is(100));
+        MatcherAssert.assertThat(
+            stats.percentile("issues", 50), Matchers.is(50L)
+        );
+        MatcherAssert.assertThat(
+            stats.percentile("issues", 99), Matchers.is(99L)
+        );
+        MatcherAssert.assertThat(
+            stats.percentile("issues", 100), Matchers.is(100L)
+        );
+        MatcherAssert.assertThat(
+            stats.percentile("push", 90), Matchers.is(7L)
+        );
+        MatcherAssert.assertThat(
+            stats.percentile("ping", 90), Matchers.is(0L)
+        );
+    }
+
+    /**
+     * The report has one line per event type, with its errors (5xx and
+     * no response) and throughput.
+     */
+    @Test
+    public void reportsThroughputAndErrors() {
+        final LatencyStats stats = new LatencyStats();
+        stats.record("issues", 200, 1_000_000L);
+        stats.record("issues", 503, 2_000_000L);
+        stats.record("issues", -1, 3_000_000L);
+        stats.record("issues", 400, 4_000_000L);
+        final String[] lines = stats.report(Duration.ofSeconds(2))
+            .split(System.lineSeparator());
+        MatcherAssert.assertThat(lines.length, Matchers.is(2));
+        MatcherAssert.assertThat(
+            lines[1].trim().split("\\s+"),
+            Matchers.arrayContaining(
+                "issues", "4", "2", "2.0", "2.0", "4.0", "4.0", "4.0"
+            )
+        );
+    }
+}
@@ -0,0 +1,250 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm.loadtest;
+
+import com.selfxdsd.core.SelfCore;
+import com.selfxdsd.selfpm.SelfCoreComponent;
+import com.selfxdsd.selfpm.SelfPmApplication;
+import com.selfxdsd.storage.MySql;
+import com.selfxdsd.storage.SelfJooq;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Load test of the webhook endpoints. Seeds an H2 database, starts the
+ * stub for Self TODOs and the providers, boots self-pm on top of them
+ * (unless loadtest.target points to an already running instance), replays
+ * the webhooks and prints the throughput and latency percentiles per event
+ * type.<br/><br/>
+ *
+ * The replayed events make the PMs call their providers' APIs. In the
+ * booted self-pm, the core is decorated with {@link StubbedProviders}, so
+ * these calls go to the stub, as do self-pm's own calls (the conditional
+ * reads); the scheduled jobs are off. A running instance (loadtest.target)
+ * cannot be stubbed from here: the load test refuses to run against it
+ * unless loadtest.providers=stubbed confirms that its providers' hosts
+ * (api.github.com, gitlab.com) are routed to a stub.<br/><br/>
+ *
+ * Run it with:
+ * mvn -Ploadtest verify -Dloadtest.rate=100
+ * <br/>
+ * System properties (all optional):
+ * <pre>
+ * loadtest.target        base URL of a running self-pm (default: boot one)
+ * loadtest.providers     "stubbed", required with loadtest.target
+ * loadtest.db            JDBC URL of the H2 database
+ * loadtest.events        number of synthetic events (default 1000)
+ * loadtest.recorded      JSON-lines file with recorded events instead
+ * loadtest.rate          events per second (default 50)
+ * loadtest.concurrency   maximum requests in flight (default 16)
+ * loadtest.stub-latency  latency of the stubbed APIs (default PT0.05S)
+ * </pre>
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class LoadTest {
+
+    /**
+     * Event types replayed for Github Projects.
+     */
+    private static final String[] GITHUB = {
+        "issues", "issue_comment", "pull_request", "push",
+    };
+
+    /**
+     * Event types replayed for GitLab Projects.
+     */
+    private static final String[] GITLAB = {
+        "Issue Hook", "Note Hook", "Merge Request Hook", "Push Hook",
+    };
+
+    /**
+     * Hidden ctor.
+     */
+    private LoadTest() { }
+
+    /**
+     * Run the load test.
+     * @param args Command-line arguments (ignored).
+     * @throws Exception If something goes wrong.
+     */
+    public static void main(final String... args) throws Exception {
+        if (!System.getProperty("loadtest.target", "").isEmpty()
+            && !"stubbed".equals(System.getProperty("loadtest.providers"))) {
+            throw new IllegalStateException(
+                "The target would call the real providers' APIs."
+                + " Route its api.github.com and gitlab.com to a stub and"
+                + " confirm it with -Dloadtest.providers=stubbed."
+            );
+        }
+        final LoadTestDatabase database = new LoadTestDatabase(
+            System.getProperty(
+                "loadtest.db",
+                "jdbc:h2:file:./target/loadtest/db;MODE=MySQL"
+            )
+        ).seed();
+        final Map<String, String> tokens = database.webhookTokens();
+        final List<WebhookEvent> events;
+        final String recorded = System.getProperty("loadtest.recorded", "");
+        if (recorded.isEmpty()) {
+            events = LoadTest.synthetic(
+                tokens, Integer.getInteger("loadtest.events", 1000)
+            );
+        } else {
+            events = WebhookEvent.recorded(Path.of(recorded));
+        }
+        try (StubServer stub = new StubServer(
+            0,
+            Duration.parse(
+                System.getProperty("loadtest.stub-latency", "PT0.05S")
+            )
+        ).start()) {
+            String target = System.getProperty("loadtest.target", "");
+            ConfigurableApplicationContext context = null;
+            if (target.isEmpty()) {
+                context = LoadTest.boot(database, stub);
+                target = "http://localhost:" + context.getEnvironment()
+                    .getProperty("local.server.port");
+            }
+            final LatencyStats stats = new LatencyStats();
+            final long start = System.nanoTime();
+            new WebhookReplayer(URI.create(target), tokens, stats).replay(
+                events,
+                Double.parseDouble(System.getProperty("loadtest.rate", "50")),
+                Integer.getInteger("loadtest.concurrency", 16)
+            );
+            System.out.println(
+                stats.report(Duration.ofNanos(System.nanoTime() - start))
+            );
+            System.out.println("Stub hits: " + stub.hits());
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    /**
+     * Synthetic events, spread round-robin over the seeded Projects and
+     * over their providers' event types.
+     * @param tokens Webhook tokens of the seeded Projects.
+     * @param count Number of events.
+     * @return List of events.
+     */
+    static List<WebhookEvent> synthetic(
+        final Map<String, String> tokens,
+        final int count
+    ) {
+        final List<String> projects = new ArrayList<>(tokens.keySet());
+        projects.sort(String::compareTo);
+        final List<WebhookEvent> events = new ArrayList<>(count);
+        for (int idx = 0; idx < count; ++idx) {
+            final String project = projects.get(idx % projects.size());
+            final int slash = project.indexOf('/');
+            final String provider = project.substring(0, slash);
+            String[] types = GITHUB;
+            if ("gitlab".equals(provider)) {
+                types = GITLAB;
+            }
+            events.add(
+                WebhookEvent.synthetic(
+                    provider,
+                    project.substring(slash + 1),
+                    types[idx / projects.size() % types.length],
+                    idx + 1
+                )
+            );
+        }
+        return events;
+    }
+
+    /**
+     * Boot self-pm on a random port, with its core over the seeded H2
+     * database (in MySQL mode) and its providers, Self TODOs and the
+     * conditional reads of Github pointed to the stub; the scheduled jobs
+     * are off.
+     * @param database Seeded database.
+     * @param stub Stub server.
+     * @return Application context.
+     */
+    private static ConfigurableApplicationContext boot(
+        final LoadTestDatabase database,
+        final StubServer stub
+    ) {
+        return new SpringApplicationBuilder(SelfPmApplication.class)
+            .properties(
+                "server.port=0",
+                "self.todos.url=" + stub.uri(),
+                "self.pm.github.api=" + stub.uri(),
+                "self.pm.scheduling.enabled=false",
+                "logging.level.com.selfxdsd=INFO"
+            )
+            .initializers(
+                context -> context.addBeanFactoryPostProcessor(
+                    factory -> LoadTest.useCore(factory, database, stub)
+                )
+            )
+            .run();
+    }
+
+    /**
+     * Replace the Self core bean with one over the given database, whose
+     * providers are the stub.
+     * @param factory Bean factory.
+     * @param database Database.
+     * @param stub Stub server.
+     */
+    private static void useCore(
+        final ConfigurableListableBeanFactory factory,
+        final LoadTestDatabase database,
+        final StubServer stub
+    ) {
+        final BeanDefinitionRegistry registry =
+            (BeanDefinitionRegistry) factory;
+        registry.removeBeanDefinition("selfCoreComponent");
+        registry.registerBeanDefinition(
+            "selfCoreComponent",
+            BeanDefinitionBuilder.genericBeanDefinition(
+                SelfCoreComponent.class,
+                () -> new SelfCoreComponent(
+                    StubbedProviders.self(
+                        new SelfCore(
+                            new SelfJooq(new MySql(database.url(), "sa", ""))
+                        ),
+                        stub.uri()
+                    )
+                )
+            ).getBeanDefinition()
+        );
+    }
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm.loadtest;
+
+import org.h2.tools.RunScript;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * H2 database for the load tests, seeded with the same scripts as the
+ * integration tests (createDb.sql and insertTestData.sql).
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class LoadTestDatabase {
+
+    /**
+     * Seeding scripts, from the test classpath.
+     */
+    private static final String[] SCRIPTS = {
+        "/createDb.sql", "/insertTestData.sql",
+    };
+
+    /**
+     * JDBC URL.
+     */
+    private final String url;
+
+    /**
+     * Ctor.
+     * @param url JDBC URL of the H2 database.
+     */
+    public LoadTestDatabase(final String url) {
+        this.url = url;
+    }
+
+    /**
+     * JDBC URL of this database.
+     * @return String.
+     */
+    public String url() {
+        return this.url;
+    }
+
+    /**
+     * Create the schema (dropping it first) and insert the test data.
+     * @return This database.
+     * @throws SQLException If something goes wrong.
+     */
+    public LoadTestDatabase seed() throws SQLException {
+        try (Connection conn = this.connect()) {
+            for (final String script : SCRIPTS) {
+                try (Reader sql = new InputStreamReader(
+                    LoadTestDatabase.class.getResourceAsStream(script),
+                    StandardCharsets.UTF_8
+                )) {
+                    RunScript.execute(conn, sql);
+                } catch (final IOException ex) {
+                    throw new SQLException("Could not read " + script, ex);
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Webhook tokens of the seeded Projects (slf_projects_xdsd.webhook_token)
+     * keyed by "provider/owner/name".
+     * @return Map of tokens.
+     * @throws SQLException If something goes wrong.
+     */
+    public Map<String, String> webhookTokens() throws SQLException {
+        final Map<String, String> tokens = new HashMap<>();
+        try (
+            Connection conn = this.connect();
+            Statement stmt = conn.createStatement();
+            ResultSet rows = stmt.executeQuery(
+                "SELECT provider, repo_fullname, webhook_token "
+                + "FROM self_xdsd.slf_projects_xdsd"
+            )
+        ) {
+            while (rows.next()) {
+                tokens.put(
+                    rows.getString(1) + "/" + rows.getString(2),
+                    rows.getString(3)
+                );
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Open a connection.
+     * @return Connection.
+     * @throws SQLException If something goes wrong.
+     */
+    private Connection connect() throws SQLException {
+        return DriverManager.getConnection(this.url, "sa", "");
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm.loadtest;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit tests for {@link LoadTestDatabase} and the synthetic events built
+ * from its Projects.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class LoadTestDatabaseTestCase {
+
+    /**
+     * It is seeded with the test data and reads the webhook tokens.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void readsSeededWebhookTokens() throws Exception {
+        final Map<String, String> tokens = new LoadTestDatabase(
+            "jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1"
+        ).seed().webhookTokens();
+        MatcherAssert.assertThat(tokens.size(), Matchers.is(4));
+        MatcherAssert.assertThat(
+            tokens, Matchers.hasEntry("github/vlad/test", "whtoken125")
+        );
+        MatcherAssert.assertThat(
+            tokens, Matchers.hasEntry("gitlab/mihai/test", "whtoken126")
+        );
+    }
+
+    /**
+     * Synthetic events go round-robin over the Projects, with the event
+     * types of each one's provider.
+     */
+    @Test
+    public void spreadsSyntheticEvents() {
+        final List<WebhookEvent> events = LoadTest.synthetic(
+            Map.of("github/vlad/test", "a", "gitlab/mihai/test", "b"), 4
+        );
+        MatcherAssert.assertThat(
+            events.get(0).repo(), Matchers.is("vlad/test")
+        );
+        MatcherAssert.assertThat(
+            events.get(0).type(), Matchers.is("issues")
+        );
+        MatcherAssert.assertThat(
+            events.get(1).repo(), Matchers.is("mihai/test")
+        );
+        MatcherAssert.assertThat(
+            events.get(1).type(), Matchers.is("Issue Hook")
+        );
+        MatcherAssert.assertThat(
+            events.get(3).type(), Matchers.is("Note Hook")
+        );
+    }
+}
@@ -0,0 +1,172 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stub for Self TODOs and the providers' APIs. It answers every
+ * request with 200 OK (an empty JSON array for GET, an empty object
+ * otherwise) after the given latency and counts the hits by the first
+ * segment of the path.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class StubServer implements AutoCloseable {
+
+    /**
+     * The HTTP server.
+     */
+    private final HttpServer server;
+
+    /**
+     * Threads serving the requests.
+     */
+    private final ExecutorService threads;
+
+    /**
+     * Simulated latency of each request.
+     */
+    private final Duration latency;
+
+    /**
+     * Hits per first segment of the path.
+     */
+    private final ConcurrentMap<String, AtomicLong> hits;
+
+    /**
+     * Ctor.
+     * @param port Port to listen on (0 for any free port).
+     * @param latency Simulated latency of each request.
+     * @throws IOException If the server cannot be created.
+     */
+    public StubServer(final int port, final Duration latency)
+        throws IOException {
+        this.server = HttpServer.create(
+            new InetSocketAddress("localhost", port), 0
+        );
+        this.threads = Executors.newCachedThreadPool(
+            job -> {
+                final Thread thread = new Thread(job, "stub-server");
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+        this.latency = latency;
+        this.hits = new ConcurrentHashMap<>();
+        this.server.createContext("/", this::serve);
+        this.server.setExecutor(this.threads);
+    }
+
+    /**
+     * Start listening.
+     * @return This server.
+     */
+    public StubServer start() {
+        this.server.start();
+        return this;
+    }
+
+    /**
+     * Base URI of this server.
+     * @return URI.
+     */
+    public URI uri() {
+        return URI.create(
+            "http://localhost:" + this.server.getAddress().getPort()
+        );
+    }
+
+    /**
+     * Number of requests received so far, per first segment of the path
+     * (e.g. "repos" for /repos/owner/name/issues).
+     * @return Hits, sorted by segment.
+     */
+    public Map<String, Long> hits() {
+        final Map<String, Long> snapshot = new TreeMap<>();
+        for (final Map.Entry<String, AtomicLong> entry
+            : this.hits.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().get());
+        }
+        return snapshot;
+    }
+
+    @Override
+    public void close() {
+        this.server.stop(0);
+        this.threads.shutdownNow();
+    }
+
+    /**
+     * Serve a request.
+     * @param exchange Request and response.
+     * @throws IOException If something goes wrong.
+     */
+    private void serve(final HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            body.readAllBytes();
+        }
+        final String[] segments = exchange.getRequestURI().getPath()
+            .split("/");
+        String first = "";
+        if (segments.length > 1) {
+            first = segments[1];
+        }
+        this.hits.computeIfAbsent(first, key -> new AtomicLong())
+            .incrementAndGet();
+        try {
+            Thread.sleep(this.latency.toMillis());
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        String json = "{}";
+        if ("GET".equals(exchange.getRequestMethod())) {
+            json = "[]";
+        }
+        final byte[] response = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add(
+            "Content-Type", "application/json"
+        );
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+}
@@ -0,0 +1,368 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm.loadtest;
+
+import com.selfxdsd.api.Project;
+import com.selfxdsd.api.Provider;
+import com.selfxdsd.api.Self;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Self core whose providers are the {@link StubServer}. The PMs, Projects,
+ * Tasks etc. still come from the decorated core (the seeded database), but
+ * everything that would call a provider's API goes to the stub instead:
+ * resolving an event of a Project is a request to
+ * /resolve/{provider}/{owner}/{repo} and every call on a PM's
+ * {@link Provider} (e.g. reading its Invitations) is a request to
+ * /{provider}/{method}. Every object of the Self API returned by the core
+ * is decorated the same way, so there is no path left to the real APIs.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+final class StubbedProviders implements InvocationHandler {
+
+    /**
+     * Package of the Self API.
+     */
+    private static final String API = Self.class.getPackageName();
+
+    /**
+     * Decorated object.
+     */
+    private final Object origin;
+
+    /**
+     * Base URI of the stub.
+     */
+    private final URI stub;
+
+    /**
+     * HTTP client.
+     */
+    private final HttpClient client;
+
+    /**
+     * Ctor.
+     * @param origin Decorated object.
+     * @param stub Base URI of the stub.
+     * @param client HTTP client.
+     */
+    private StubbedProviders(
+        final Object origin,
+        final URI stub,
+        final HttpClient client
+    ) {
+        this.origin = origin;
+        this.stub = stub;
+        this.client = client;
+    }
+
+    /**
+     * Decorate Self core.
+     * @param core Self core.
+     * @param stub Base URI of the stub.
+     * @return Self with stubbed providers.
+     */
+    static Self self(final Self core, final URI stub) {
+        return (Self) StubbedProviders.decorate(
+            core, Self.class, stub, HttpClient.newHttpClient()
+        );
+    }
+
+    @Override
+    public Object invoke(
+        final Object proxy,
+        final Method method,
+        final Object[] args
+    ) throws Throwable {
+        try {
+            return this.decorated(method, args);
+        } catch (final InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * Call the method, on the stub or on the decorated object, and
+     * decorate its result.
+     * @param method Method.
+     * @param args Arguments.
+     * @return Result.
+     * @throws ReflectiveOperationException If the method throws.
+     */
+    private Object decorated(final Method method, final Object[] args)
+        throws ReflectiveOperationException {
+        final Object result;
+        if ("resolve".equals(method.getName())
+            && this.origin instanceof Project) {
+            final Project project = (Project) this.origin;
+            this.call(
+                "/resolve/" + project.provider() + "/"
+                + project.repoFullName()
+            );
+            result = null;
+        } else if (Provider.class.equals(method.getReturnType())) {
+            result = Proxy.newProxyInstance(
+                Provider.class.getClassLoader(),
+                new Class<?>[] {Provider.class},
+                new Stub(
+                    ((Provider) this.invoked(method, args)).name(),
+                    this
+                )
+            );
+        } else {
+            result = StubbedProviders.decorate(
+                this.invoked(method, args), method.getReturnType(),
+                this.stub, this.client
+            );
+        }
+        return result;
+    }
+
+    /**
+     * Call the method on the decorated object.
+     * @param method Method.
+     * @param args Arguments.
+     * @return Result.
+     * @throws ReflectiveOperationException If the method throws.
+     */
+    private Object invoked(final Method method, final Object[] args)
+        throws ReflectiveOperationException {
+        Object[] plain = args;
+        if (args != null) {
+            plain = new Object[args.length];
+            for (int idx = 0; idx < args.length; ++idx) {
+                plain[idx] = StubbedProviders.unwrap(args[idx]);
+            }
+        }
+        return method.invoke(this.origin, plain);
+    }
+
+    /**
+     * Send a request to the stub, as the provider's API would get it.
+     * @param path Path.
+     */
+    private void call(final String path) {
+        try {
+            this.client.send(
+                HttpRequest.newBuilder(
+                    URI.create(this.stub.toString() + path)
+                ).GET().build(),
+                HttpResponse.BodyHandlers.discarding()
+            );
+        } catch (final IOException ex) {
+            throw new IllegalStateException("Stub unreachable: " + path, ex);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted: " + path, ex);
+        }
+    }
+
+    /**
+     * The object decorated by the given argument, if it is decorated, so
+     * the core always gets its own objects back.
+     * @param arg Argument.
+     * @return Decorated object or the argument itself.
+     */
+    private static Object unwrap(final Object arg) {
+        Object plain = arg;
+        if (arg != null && Proxy.isProxyClass(arg.getClass())
+            && Proxy.getInvocationHandler(arg) instanceof StubbedProviders) {
+            plain = ((StubbedProviders) Proxy.getInvocationHandler(arg))
+                .origin;
+        }
+        return plain;
+    }
+
+    /**
+     * Decorate an object returned by the core, if it is part of the Self
+     * API (or an Iterator over such objects).
+     * @param result Object returned by the core.
+     * @param type Declared type of the object.
+     * @param stub Base URI of the stub.
+     * @param client HTTP client.
+     * @return Decorated object or the object itself.
+     */
+    private static Object decorate(
+        final Object result,
+        final Class<?> type,
+        final URI stub,
+        final HttpClient client
+    ) {
+        Object decorated = result;
+        if (result != null) {
+            final Set<Class<?>> types = StubbedProviders.interfaces(
+                result.getClass(), new LinkedHashSet<>()
+            );
+            if (!types.isEmpty()
+                && (types.contains(type) || Object.class.equals(type))) {
+                decorated = Proxy.newProxyInstance(
+                    StubbedProviders.class.getClassLoader(),
+                    types.toArray(new Class<?>[0]),
+                    new StubbedProviders(result, stub, client)
+                );
+            }
+        }
+        return decorated;
+    }
+
+    /**
+     * Interfaces of the Self API (plus Iterable and Iterator) implemented
+     * by a class.
+     * @param cls Class.
+     * @param found Interfaces found so far.
+     * @return Interfaces.
+     */
+    private static Set<Class<?>> interfaces(
+        final Class<?> cls,
+        final Set<Class<?>> found
+    ) {
+        for (final Class<?> type : cls.getInterfaces()) {
+            if (API.equals(type.getPackageName())
+                || Iterable.class.equals(type)
+                || Iterator.class.equals(type)) {
+                found.add(type);
+            }
+            StubbedProviders.interfaces(type, found);
+        }
+        if (cls.getSuperclass() != null) {
+            StubbedProviders.interfaces(cls.getSuperclass(), found);
+        }
+        return found;
+    }
+
+    /**
+     * Stubbed Provider, or anything obtained from it: every call is a
+     * request to the stub, answered with an empty result.
+     * @author Mihai Andronache (amihaiemil@gmail.com)
+     * @version $Id$
+     * @since 0.0.17
+     */
+    private static final class Stub implements InvocationHandler {
+
+        /**
+         * Path of this object on the stub.
+         */
+        private final String path;
+
+        /**
+         * Where the requests go.
+         */
+        private final StubbedProviders stubbed;
+
+        /**
+         * Ctor.
+         * @param path Path of this object on the stub.
+         * @param stubbed Where the requests go.
+         */
+        Stub(final String path, final StubbedProviders stubbed) {
+            this.path = path;
+            this.stubbed = stubbed;
+        }
+
+        @Override
+        public Object invoke(
+            final Object proxy,
+            final Method method,
+            final Object[] args
+        ) {
+            final Class<?> type = method.getReturnType();
+            final Object result;
+            if ("name".equals(method.getName())) {
+                result = this.path;
+            } else if (Object.class.equals(method.getDeclaringClass())) {
+                result = this.objectMethod(proxy, method, args);
+            } else if (type.isInterface()
+                && API.equals(type.getPackageName())) {
+                result = Proxy.newProxyInstance(
+                    type.getClassLoader(), new Class<?>[] {type},
+                    new Stub(this.path + "/" + method.getName(), this.stubbed)
+                );
+            } else {
+                this.stubbed.call("/" + this.path + "/" + method.getName());
+                result = Stub.empty(type);
+            }
+            return result;
+        }
+
+        /**
+         * The methods of Object, on a stubbed object.
+         * @param proxy Stubbed object.
+         * @param method Method.
+         * @param args Arguments.
+         * @return Result.
+         */
+        private Object objectMethod(
+            final Object proxy,
+            final Method method,
+            final Object[] args
+        ) {
+            final Object result;
+            if ("equals".equals(method.getName())) {
+                result = proxy == args[0];
+            } else if ("hashCode".equals(method.getName())) {
+                result = System.identityHashCode(proxy);
+            } else {
+                result = "stub:" + this.path;
+            }
+            return result;
+        }
+
+        /**
+         * Empty result of the given type.
+         * @param type Type.
+         * @return Empty Iterator, false, 0, empty String or null.
+         */
+        private static Object empty(final Class<?> type) {
+            final Object empty;
+            if (Iterator.class.equals(type)) {
+                empty = Collections.emptyIterator();
+            } else if (boolean.class.equals(type)) {
+                empty = false;
+            } else if (int.class.equals(type)) {
+                empty = 0;
+            } else if (long.class.equals(type)) {
+                empty = 0L;
+            } else if (String.class.equals(type)) {
+                empty = "";
+            } else {
+                empty = null;
+            }
+            return empty;
+        }
+    }
+}
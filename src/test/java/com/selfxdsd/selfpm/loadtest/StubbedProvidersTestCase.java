@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm.loadtest;
+
+import com.selfxdsd.api.Event;
+import com.selfxdsd.api.Project;
+import com.selfxdsd.api.ProjectManager;
+import com.selfxdsd.api.Projects;
+import com.selfxdsd.api.Provider;
+import com.selfxdsd.api.Self;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+
+/**
+ * Unit tests for {@link StubbedProviders}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class StubbedProvidersTestCase {
+
+    /**
+     * Resolving an event and reading the Invitations of a PM go to the
+     * stub, never to the core's providers.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void sendsProviderCallsToStub() throws Exception {
+        final Provider provider = Mockito.mock(Provider.class);
+        Mockito.when(provider.name()).thenReturn(Provider.Names.GITHUB);
+        final ProjectManager manager = Mockito.mock(ProjectManager.class);
+        Mockito.when(manager.provider()).thenReturn(provider);
+        final Project project = Mockito.mock(Project.class);
+        Mockito.when(project.provider()).thenReturn(Provider.Names.GITHUB);
+        Mockito.when(project.repoFullName()).thenReturn("john/test");
+        Mockito.when(project.projectManager()).thenReturn(manager);
+        final Projects projects = Mockito.mock(Projects.class);
+        Mockito.when(
+            projects.getProjectById("john/test", Provider.Names.GITHUB)
+        ).thenReturn(project);
+        final Self core = Mockito.mock(Self.class);
+        Mockito.when(core.projects()).thenReturn(projects);
+        try (StubServer stub = new StubServer(0, Duration.ZERO).start()) {
+            final Project stubbed = StubbedProviders.self(core, stub.uri())
+                .projects()
+                .getProjectById("john/test", Provider.Names.GITHUB);
+            stubbed.resolve(Mockito.mock(Event.class));
+            MatcherAssert.assertThat(
+                stubbed.projectManager().provider().invitations()
+                    .iterator().hasNext(),
+                Matchers.is(false)
+            );
+            MatcherAssert.assertThat(
+                stub.hits(),
+                Matchers.allOf(
+                    Matchers.hasEntry("resolve", 1L),
+                    Matchers.hasEntry("github", 1L)
+                )
+            );
+        }
+        Mockito.verify(project, Mockito.never()).resolve(Mockito.any());
+        Mockito.verify(provider, Mockito.never()).invitations();
+    }
+}
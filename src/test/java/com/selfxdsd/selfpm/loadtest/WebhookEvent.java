@@ -0,0 +1,188 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm.loadtest;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A webhook event to be replayed.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class WebhookEvent {
+
+    /**
+     * Provider name (github or gitlab).
+     */
+    private final String provider;
+
+    /**
+     * Repo full name (owner/name).
+     */
+    private final String repo;
+
+    /**
+     * Event type (X-GitHub-Event or X-Gitlab-Event).
+     */
+    private final String type;
+
+    /**
+     * JSON payload, exactly as it will be sent and signed.
+     */
+    private final String payload;
+
+    /**
+     * Ctor.
+     * @param provider Provider name.
+     * @param repo Repo full name.
+     * @param type Event type.
+     * @param payload JSON payload.
+     */
+    public WebhookEvent(
+        final String provider,
+        final String repo,
+        final String type,
+        final String payload
+    ) {
+        this.provider = provider;
+        this.repo = repo;
+        this.type = type;
+        this.payload = payload;
+    }
+
+    /**
+     * Provider name.
+     * @return String.
+     */
+    public String provider() {
+        return this.provider;
+    }
+
+    /**
+     * Repo full name.
+     * @return String.
+     */
+    public String repo() {
+        return this.repo;
+    }
+
+    /**
+     * Event type.
+     * @return String.
+     */
+    public String type() {
+        return this.type;
+    }
+
+    /**
+     * JSON payload.
+     * @return String.
+     */
+    public String payload() {
+        return this.payload;
+    }
+
+    /**
+     * Synthetic event: a minimal payload carrying the repository and
+     * an Issue number.
+     * @param provider Provider name.
+     * @param repo Repo full name.
+     * @param type Event type.
+     * @param number Issue number.
+     * @return WebhookEvent.
+     */
+    public static WebhookEvent synthetic(
+        final String provider,
+        final String repo,
+        final String type,
+        final int number
+    ) {
+        final JsonObject payload;
+        if ("gitlab".equals(provider)) {
+            payload = Json.createObjectBuilder()
+                .add(
+                    "project",
+                    Json.createObjectBuilder()
+                        .add("path_with_namespace", repo)
+                )
+                .add(
+                    "object_attributes",
+                    Json.createObjectBuilder()
+                        .add("iid", number)
+                        .add("action", "open")
+                )
+                .build();
+        } else {
+            payload = Json.createObjectBuilder()
+                .add("action", "opened")
+                .add(
+                    "repository",
+                    Json.createObjectBuilder().add("full_name", repo)
+                )
+                .add(
+                    "issue",
+                    Json.createObjectBuilder()
+                        .add("number", number)
+                        .add("title", "Load test issue " + number)
+                )
+                .build();
+        }
+        return new WebhookEvent(provider, repo, type, payload.toString());
+    }
+
+    /**
+     * Recorded events, read from a JSON-lines file, one event per line:
+     * {"provider": ..., "repo": ..., "type": ..., "payload": {...}}.
+     * @param file File with the recorded events.
+     * @return List of events.
+     * @throws IOException If the file cannot be read.
+     */
+    public static List<WebhookEvent> recorded(final Path file)
+        throws IOException {
+        final List<WebhookEvent> events = new ArrayList<>();
+        for (final String line : Files.readAllLines(file)) {
+            if (!line.isBlank()) {
+                final JsonObject json = Json.createReader(
+                    new StringReader(line)
+                ).readObject();
+                events.add(
+                    new WebhookEvent(
+                        json.getString("provider"),
+                        json.getString("repo"),
+                        json.getString("type"),
+                        json.getJsonObject("payload").toString()
+                    )
+                );
+            }
+        }
+        return events;
+    }
+}
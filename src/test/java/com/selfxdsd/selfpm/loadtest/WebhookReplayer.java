@@ -0,0 +1,197 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm.loadtest;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays webhook events against self-pm at a constant rate, signed the
+ * way Github and GitLab sign them. The latency of each event is measured
+ * from the moment it was scheduled to be sent, so a saturated server
+ * shows up in the percentiles instead of slowing down the load.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class WebhookReplayer {
+
+    /**
+     * Base URI of self-pm.
+     */
+    private final URI target;
+
+    /**
+     * Webhook tokens, keyed by "provider/owner/name".
+     */
+    private final Map<String, String> tokens;
+
+    /**
+     * Where the responses are recorded.
+     */
+    private final LatencyStats stats;
+
+    /**
+     * HTTP client.
+     */
+    private final HttpClient client;
+
+    /**
+     * Ctor.
+     * @param target Base URI of self-pm.
+     * @param tokens Webhook tokens, keyed by "provider/owner/name".
+     * @param stats Where the responses are recorded.
+     */
+    public WebhookReplayer(
+        final URI target,
+        final Map<String, String> tokens,
+        final LatencyStats stats
+    ) {
+        this.target = target;
+        this.tokens = tokens;
+        this.stats = stats;
+        this.client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    }
+
+    /**
+     * Send the events at the given rate and wait for all the responses.
+     * @param events Events to send.
+     * @param rate Events per second.
+     * @param concurrency Maximum number of requests in flight.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public void replay(
+        final List<WebhookEvent> events,
+        final double rate,
+        final int concurrency
+    ) throws InterruptedException {
+        final ExecutorService senders = Executors.newFixedThreadPool(
+            concurrency
+        );
+        final long interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        final long start = System.nanoTime();
+        for (int idx = 0; idx < events.size(); ++idx) {
+            final long scheduled = start + idx * interval;
+            final long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            final WebhookEvent event = events.get(idx);
+            senders.execute(() -> this.send(event, scheduled));
+        }
+        senders.shutdown();
+        senders.awaitTermination(1, TimeUnit.HOURS);
+    }
+
+    /**
+     * Signed request for the given event. Events of unknown Projects are
+     * signed with a dummy token, self-pm should not find them anyway.
+     * @param event Webhook event.
+     * @return HttpRequest.
+     */
+    HttpRequest request(final WebhookEvent event) {
+        final String token = this.tokens.getOrDefault(
+            event.provider() + "/" + event.repo(), "unknown"
+        );
+        final HttpRequest.Builder request = HttpRequest.newBuilder(
+            this.target.resolve("/" + event.provider() + "/" + event.repo())
+        ).timeout(Duration.ofSeconds(30))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(event.payload()));
+        if ("gitlab".equals(event.provider())) {
+            request.header("X-Gitlab-Event", event.type())
+                .header("X-Gitlab-Token", token);
+        } else {
+            request.header("X-GitHub-Event", event.type())
+                .header(
+                    "X-Hub-Signature",
+                    WebhookReplayer.signature(token, event.payload())
+                );
+        }
+        return request.build();
+    }
+
+    /**
+     * Github's X-Hub-Signature of a payload.
+     * @param key Webhook token.
+     * @param payload Payload.
+     * @return Signature (sha1=hex).
+     */
+    static String signature(final String key, final String payload) {
+        try {
+            final Mac mac = Mac.getInstance("HmacSHA1");
+            mac.init(
+                new SecretKeySpec(
+                    key.getBytes(StandardCharsets.UTF_8), "HmacSHA1"
+                )
+            );
+            final StringBuilder hex = new StringBuilder("sha1=");
+            for (final byte bite : mac.doFinal(
+                payload.getBytes(StandardCharsets.UTF_8)
+            )) {
+                hex.append(String.format("%02x", bite));
+            }
+            return hex.toString();
+        } catch (final GeneralSecurityException ex) {
+            throw new IllegalStateException("Cannot sign the payload.", ex);
+        }
+    }
+
+    /**
+     * Send one event and record its outcome.
+     * @param event Webhook event.
+     * @param scheduled When the event was scheduled to be sent (nanos).
+     */
+    private void send(final WebhookEvent event, final long scheduled) {
+        int status;
+        try {
+            status = this.client.send(
+                this.request(event), HttpResponse.BodyHandlers.discarding()
+            ).statusCode();
+        } catch (final IOException ex) {
+            status = -1;
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            status = -1;
+        }
+        this.stats.record(
+            event.type(), status, System.nanoTime() - scheduled
+        );
+    }
+}
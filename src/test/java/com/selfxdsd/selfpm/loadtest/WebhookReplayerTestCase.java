@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfpm.loadtest;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit tests for {@link WebhookReplayer}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.17
+ */
+public final class WebhookReplayerTestCase {
+
+    /**
+     * Github events are signed with the Project's webhook token, like
+     * Github does it.
+     */
+    @Test
+    public void signsGithubEvents() {
+        final HttpRequest request = new WebhookReplayer(
+            URI.create("http://localhost:8181"),
+            Map.of("github/amihaiemil/docker-java-api", "whtoken123"),
+            new LatencyStats()
+        ).request(
+            new WebhookEvent(
+                "github", "amihaiemil/docker-java-api", "issues",
+                "{\"action\":\"opened\"}"
+            )
+        );
+        MatcherAssert.assertThat(
+            request.uri().toString(),
+            Matchers.equalTo(
+                "http://localhost:8181/github/amihaiemil/docker-java-api"
+            )
+        );
+        MatcherAssert.assertThat(
+            request.headers().firstValue("X-GitHub-Event").get(),
+            Matchers.equalTo("issues")
+        );
+        MatcherAssert.assertThat(
+            request.headers().firstValue("X-Hub-Signature").get(),
+            Matchers.equalTo(
+                "sha1=c15c9142925f3e1ca02766468bed3c2c61a04174"
+            )
+        );
+    }
+
+    /**
+     * GitLab events carry the Project's webhook token.
+     */
+    @Test
+    public void sendsGitlabToken() {
+        final HttpRequest request = new WebhookReplayer(
+            URI.create("http://localhost:8181"),
+            Map.of("gitlab/mihai/test", "whtoken126"),
+            new LatencyStats()
+        ).request(
+            WebhookEvent.synthetic("gitlab", "mihai/test", "Note Hook", 1)
+        );
+        MatcherAssert.assertThat(
+            request.headers().firstValue("X-Gitlab-Token").get(),
+            Matchers.equalTo("whtoken126")
+        );
+        MatcherAssert.assertThat(
+            request.headers().firstValue("X-Gitlab-Event").get(),
+            Matchers.equalTo("Note Hook")
+        );
+    }
+
+    /**
+     * It replays every event and records each response under its type.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void replaysAgainstStub() throws Exception {
+        final LatencyStats stats = new LatencyStats();
+        try (StubServer stub = new StubServer(0, Duration.ZERO).start()) {
+            new WebhookReplayer(stub.uri(), Map.of(), stats).replay(
+                List.of(
+                    WebhookEvent.synthetic("github", "vlad/test", "push", 1),
+                    WebhookEvent.synthetic("github", "vlad/test", "issues", 2),
+                    WebhookEvent.synthetic("github", "vlad/test", "issues", 3)
+                ),
+                1000,
+                2
+            );
+            MatcherAssert.assertThat(
+                stub.hits(), Matchers.hasEntry("github", 3L)
+            );
+        }
+        MatcherAssert.assertThat(stats.count("issues"), Matchers.is(2));
+        MatcherAssert.assertThat(stats.count("push"), Matchers.is(1));
+    }
+}